@@ -0,0 +1,236 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.bench;
+
+import java.util.Random;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.CompactGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A generated graph shared by the benchmarks of one thread.
+ * 
+ * <p>
+ * The graph is built by preferential attachment: each new node is linked to
+ * {@link #EDGES_PER_NODE} existing nodes chosen with a probability
+ * proportional to their degree. The degree distribution is thus a power law,
+ * with a few hubs and many nodes of low degree, which is what the lookup
+ * benchmarks need. The generator is seeded so that all the implementations
+ * and all the runs see the same graph.
+ * </p>
+ * 
+ * <p>
+ * Besides the graph, the state holds precomputed queries: pairs of nodes of
+ * low degree and targets of lookups on the hub. Half of the pairs are
+ * connected and half are not. Benchmarks cycle through them with
+ * {@link #next()} so that no lookup is hoisted out of the measurement loop.
+ * </p>
+ */
+@State(Scope.Thread)
+public class GraphState {
+	public static final int EDGES_PER_NODE = 4;
+
+	/**
+	 * Number of precomputed queries, a power of two.
+	 */
+	public static final int QUERIES = 1024;
+
+	@Param({ "SingleGraph", "MultiGraph", "AdjacencyListGraph" })
+	public String implementation;
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	public Graph graph;
+
+	/**
+	 * The nodes by index.
+	 */
+	public Node[] nodes;
+
+	/**
+	 * The node of highest degree.
+	 */
+	public Node hub;
+
+	/**
+	 * Pairs of nodes of low degree, stored as {@code pairs[2i]},
+	 * {@code pairs[2i + 1]}.
+	 */
+	public Node[] pairs;
+
+	/**
+	 * Nodes looked up from the hub.
+	 */
+	public Node[] hubTargets;
+
+	protected int cursor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(size);
+
+		graph = newGraph(implementation, "bench");
+		generate(graph, size, random);
+
+		nodes = new Node[size];
+		hub = graph.getNode(0);
+
+		for (int i = 0; i < size; i++) {
+			nodes[i] = graph.getNode(i);
+
+			if (nodes[i].getDegree() > hub.getDegree())
+				hub = nodes[i];
+		}
+
+		pairs = new Node[2 * QUERIES];
+		hubTargets = new Node[QUERIES];
+
+		for (int i = 0; i < QUERIES; i++) {
+			Node n = lowDegreeNode(random);
+
+			Node m, t;
+
+			if (i % 2 == 0) {
+				m = n.getEdge(0).getOpposite(n);
+				t = hub.getEdge(random.nextInt(hub.getDegree())).getOpposite(
+						hub);
+			} else {
+				do {
+					m = lowDegreeNode(random);
+				} while (m == n || m.hasEdgeBetween(n));
+
+				do {
+					t = nodes[random.nextInt(size)];
+				} while (t == hub || t.hasEdgeBetween(hub));
+			}
+
+			pairs[2 * i] = n;
+			pairs[2 * i + 1] = m;
+			hubTargets[i] = t;
+		}
+	}
+
+	/**
+	 * Index of the next query, cycling through the precomputed ones.
+	 */
+	public int next() {
+		cursor = (cursor + 1) & (QUERIES - 1);
+		return cursor;
+	}
+
+	protected Node lowDegreeNode(Random random) {
+		Node n;
+
+		do {
+			n = nodes[random.nextInt(size)];
+		} while (n.getDegree() > 2 * EDGES_PER_NODE);
+
+		return n;
+	}
+
+	/**
+	 * A new empty graph of the given implementation.
+	 * 
+	 * @param implementation
+	 *            simple name of the graph class
+	 */
+	public static Graph newGraph(String implementation, String id) {
+		if (implementation.equals("SingleGraph"))
+			return new SingleGraph(id);
+		if (implementation.equals("MultiGraph"))
+			return new MultiGraph(id);
+		if (implementation.equals("AdjacencyListGraph"))
+			return new AdjacencyListGraph(id);
+		if (implementation.equals("CompactGraph"))
+			return new CompactGraph(id);
+
+		throw new IllegalArgumentException("unknown graph implementation "
+				+ implementation);
+	}
+
+	/**
+	 * Adds {@code size} nodes and about {@code EDGES_PER_NODE * size} edges
+	 * to an empty graph.
+	 */
+	public static void generate(Graph graph, int size, Random random) {
+		int m = EDGES_PER_NODE;
+		int[] ends = new int[2 * m * size];
+		int endCount = 0;
+		int edgeCount = 0;
+
+		// a clique to start with
+		for (int i = 0; i <= m; i++) {
+			graph.addNode(Integer.toString(i));
+
+			for (int j = 0; j < i; j++) {
+				graph.addEdge(Integer.toString(edgeCount++), i, j);
+				ends[endCount++] = i;
+				ends[endCount++] = j;
+			}
+		}
+
+		for (int i = m + 1; i < size; i++) {
+			graph.addNode(Integer.toString(i));
+			int first = endCount;
+
+			for (int k = 0; k < m; k++) {
+				int j = ends[random.nextInt(first)];
+
+				// the new node is only linked to the nodes drawn before
+				if (drawnBefore(ends, first, endCount, j))
+					continue;
+
+				graph.addEdge(Integer.toString(edgeCount++), i, j);
+				ends[endCount++] = i;
+				ends[endCount++] = j;
+			}
+		}
+	}
+
+	private static boolean drawnBefore(int[] ends, int from, int to, int node) {
+		for (int e = from + 1; e < to; e += 2)
+			if (ends[e] == node)
+				return true;
+
+		return false;
+	}
+}
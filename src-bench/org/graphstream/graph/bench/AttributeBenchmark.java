@@ -0,0 +1,101 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.bench.GraphState;
+import org.graphstream.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Attribute reads and writes on the nodes of the graph. Every node holds a
+ * numeric attribute and a string attribute before the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class AttributeBenchmark {
+	@Setup(Level.Trial)
+	public void setUp(GraphState state) {
+		for (Node node : state.nodes) {
+			node.setAttribute("weight", 1.0);
+			node.setAttribute("label", node.getId());
+		}
+	}
+
+	@Benchmark
+	public double getNumber(GraphState state) {
+		return state.pairs[state.next()].getNumber("weight");
+	}
+
+	@Benchmark
+	public Object getAttribute(GraphState state) {
+		return state.pairs[state.next()].getAttribute("label");
+	}
+
+	@Benchmark
+	public boolean hasAttributeMissing(GraphState state) {
+		return state.pairs[state.next()].hasAttribute("missing");
+	}
+
+	@Benchmark
+	public void setNumber(GraphState state) {
+		int i = state.next();
+		state.pairs[i].setAttribute("weight", (double) i);
+	}
+
+	/**
+	 * Adds then removes an attribute, which changes the size of the
+	 * attribute map.
+	 */
+	@Benchmark
+	public void addRemoveAttribute(GraphState state) {
+		Node node = state.pairs[state.next()];
+
+		node.setAttribute("tmp", 1);
+		node.removeAttribute("tmp");
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.bench.GraphState;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Edge lookups between two nodes, on nodes of low degree and on the hub of the
+ * graph. Half of the lookups find an edge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EdgeLookupBenchmark {
+	@Benchmark
+	public Edge edgeBetweenLowDegree(GraphState state) {
+		int i = state.next();
+		return state.pairs[2 * i].getEdgeBetween((Node) state.pairs[2 * i + 1]);
+	}
+
+	@Benchmark
+	public Edge edgeBetweenHub(GraphState state) {
+		return state.hub.getEdgeBetween((Node) state.hubTargets[state.next()]);
+	}
+
+	@Benchmark
+	public Edge edgeTowardHub(GraphState state) {
+		return state.hubTargets[state.next()].getEdgeToward((Node) state.hub);
+	}
+
+	@Benchmark
+	public boolean hasEdgeBetweenHub(GraphState state) {
+		return state.hub.hasEdgeBetween(state.hubTargets[state.next()]);
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.bench.GraphState;
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Traversals of a graph whose node indices have been shuffled, as after a long
+ * sequence of changes, then reordered with
+ * {@link AbstractGraph#reorder(AbstractGraph.Ordering)}. {@code NONE} measures
+ * the shuffled graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ReorderBenchmark {
+	@Param({ "NONE", "BREADTH_FIRST", "REVERSE_CUTHILL_MCKEE", "DEGREE" })
+	public String ordering;
+
+	@Param({ "SingleGraph", "CompactGraph" })
+	public String implementation;
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	AbstractGraph graph;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(size);
+
+		graph = (AbstractGraph) GraphState.newGraph(implementation, "reorder");
+		GraphState.generate(graph, size, random);
+		graph.reorder(shuffle(size, random));
+
+		if (!ordering.equals("NONE"))
+			graph.reorder(AbstractGraph.Ordering.valueOf(ordering));
+	}
+
+	static int[] shuffle(int n, Random random) {
+		int[] order = new int[n];
+
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
+
+		return order;
+	}
+
+	/**
+	 * Visits the neighbors of each node, reading an attribute-free property
+	 * of each neighbor.
+	 */
+	@Benchmark
+	public long neighborhoods() {
+		long sum = 0;
+
+		for (Node node : graph)
+			for (Edge edge : node.getEachEdge())
+				sum += edge.getOpposite(node).getDegree();
+
+		return sum;
+	}
+
+	@Benchmark
+	public void breadthFirst(Blackhole hole) {
+		BreadthFirstIterator<Node> it = new BreadthFirstIterator<Node>(
+				graph.getNode(0));
+
+		while (it.hasNext())
+			hole.consume(it.next());
+	}
+
+	/**
+	 * Cost of the reordering itself, from the current order.
+	 */
+	@Benchmark
+	public AbstractGraph reorder() {
+		if (!ordering.equals("NONE"))
+			graph.reorder(AbstractGraph.Ordering.valueOf(ordering));
+
+		return graph;
+	}
+}
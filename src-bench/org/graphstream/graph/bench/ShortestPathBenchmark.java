@@ -0,0 +1,123 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.bench.GraphState;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+import org.graphstream.graph.ShortestPaths;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shortest path queries between random pairs of nodes of a weighted graph,
+ * with the algorithms of {@link ShortestPaths}, and the cost of reading the
+ * graph in the engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ShortestPathBenchmark {
+	static final int QUERIES = 256;
+
+	@Param({ "SingleGraph", "CompactGraph" })
+	public String implementation;
+
+	@Param({ "10000", "100000" })
+	public int size;
+
+	Graph graph;
+	ShortestPaths paths;
+	Node[] sources, targets;
+	int cursor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(size);
+
+		graph = GraphState.newGraph(implementation, "paths");
+		GraphState.generate(graph, size, random);
+
+		for (Edge edge : graph.getEachEdge())
+			edge.addAttribute("weight", 1 + random.nextDouble() * 9);
+
+		paths = new ShortestPaths(graph, "weight", false);
+		sources = new Node[QUERIES];
+		targets = new Node[QUERIES];
+
+		for (int i = 0; i < QUERIES; i++) {
+			sources[i] = graph.getNode(random.nextInt(size));
+			targets[i] = graph.getNode(random.nextInt(size));
+		}
+	}
+
+	int next() {
+		cursor = (cursor + 1) % QUERIES;
+		return cursor;
+	}
+
+	@Benchmark
+	public Path dijkstra() {
+		int i = next();
+		return paths.dijkstra(sources[i], targets[i]);
+	}
+
+	@Benchmark
+	public Path bidirectional() {
+		int i = next();
+		return paths.bidirectional(sources[i], targets[i]);
+	}
+
+	@Benchmark
+	public ShortestPaths refresh() {
+		paths.refresh();
+		return paths;
+	}
+}
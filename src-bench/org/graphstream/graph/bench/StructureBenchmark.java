@@ -0,0 +1,113 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.bench.GraphState;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Structural changes: building a whole graph, and adding then removing a node
+ * or an edge in a graph of steady size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StructureBenchmark {
+	/**
+	 * Builds a new graph of the size of the state graph, in milliseconds.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Graph build(GraphState state) {
+		Graph graph = GraphState.newGraph(state.implementation, "build");
+		GraphState.generate(graph, state.size, new Random(state.size));
+		return graph;
+	}
+
+	/**
+	 * Adds a node linked to the hub and to a node of low degree, then removes
+	 * it with its edges.
+	 */
+	@Benchmark
+	public int addRemoveNode(GraphState state) {
+		Graph graph = state.graph;
+		Node node = graph.addNode("new");
+
+		graph.addEdge("new0", node, state.hub);
+		graph.addEdge("new1", node, state.pairs[2 * state.next()]);
+		graph.removeNode(node);
+
+		return graph.getNodeCount();
+	}
+
+	/**
+	 * Adds an edge between two nodes of low degree then removes it.
+	 */
+	@Benchmark
+	public int addRemoveEdge(GraphState state) {
+		int i = state.next() | 1;
+		Graph graph = state.graph;
+		Edge edge = graph.addEdge("new", state.pairs[2 * i],
+				state.pairs[2 * i + 1]);
+
+		graph.removeEdge(edge);
+		return graph.getEdgeCount();
+	}
+
+	/**
+	 * Adds an edge to the hub then removes it. The removal has to find the
+	 * edge among the edges of the hub.
+	 */
+	@Benchmark
+	public int addRemoveHubEdge(GraphState state) {
+		Graph graph = state.graph;
+		Edge edge = graph.addEdge("new", state.hub,
+				state.hubTargets[state.next() | 1]);
+
+		graph.removeEdge(edge);
+		return graph.getEdgeCount();
+	}
+}
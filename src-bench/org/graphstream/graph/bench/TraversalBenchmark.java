@@ -0,0 +1,102 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.bench;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.bench.GraphState;
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.DepthFirstIterator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Full iterations over the graph, in microseconds per traversal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TraversalBenchmark {
+	@Benchmark
+	public void nodes(GraphState state, Blackhole hole) {
+		for (Node node : state.graph)
+			hole.consume(node);
+	}
+
+	@Benchmark
+	public void edges(GraphState state, Blackhole hole) {
+		for (Edge edge : state.graph.getEachEdge())
+			hole.consume(edge);
+	}
+
+	/**
+	 * Iterates the edges of each node, so each edge is seen twice.
+	 */
+	@Benchmark
+	public void neighborhoods(GraphState state, Blackhole hole) {
+		for (Node node : state.graph)
+			for (Edge edge : node.getEachEdge())
+				hole.consume(edge.getOpposite(node));
+	}
+
+	@Benchmark
+	public void nodeStream(GraphState state, Blackhole hole) {
+		hole.consume(state.graph.nodes().mapToInt(n -> n.getDegree()).sum());
+	}
+
+	@Benchmark
+	public void breadthFirst(GraphState state, Blackhole hole) {
+		Iterator<Node> it = new BreadthFirstIterator<Node>(state.hub);
+
+		while (it.hasNext())
+			hole.consume(it.next());
+	}
+
+	@Benchmark
+	public void depthFirst(GraphState state, Blackhole hole) {
+		Iterator<Node> it = new DepthFirstIterator<Node>(state.hub);
+
+		while (it.hasNext())
+			hole.consume(it.next());
+	}
+}
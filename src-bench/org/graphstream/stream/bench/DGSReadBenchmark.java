@@ -0,0 +1,204 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSinkBinaryDGS;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceBinaryDGS;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceMappedDGS;
+import org.graphstream.stream.file.FileSourceParallelDGS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse throughput of the DGS sources. A dynamic graph with attributes is
+ * written in a temporary file, then read by a source whose only sink counts
+ * the events, so the time is spent in the parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class DGSReadBenchmark {
+	@Param({ "FileSourceDGS", "FileSourceMappedDGS", "FileSourceParallelDGS",
+			"FileSourceBinaryDGS" })
+	public String source;
+
+	@Param({ "100000" })
+	public int size;
+
+	File file;
+	CountingSink counter;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = File.createTempFile("bench", ".dgs");
+		file.deleteOnExit();
+		write(file, size, new Random(size));
+		counter = new CountingSink();
+
+		if (source.equals("FileSourceBinaryDGS"))
+			file = toBinary(file);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public long readAll() throws IOException {
+		FileSource input;
+
+		if (source.equals("FileSourceDGS"))
+			input = new FileSourceDGS();
+		else if (source.equals("FileSourceMappedDGS"))
+			input = new FileSourceMappedDGS();
+		else if (source.equals("FileSourceBinaryDGS"))
+			input = new FileSourceBinaryDGS();
+		else
+			input = new FileSourceParallelDGS();
+
+		counter.count = 0;
+		input.addSink(counter);
+		input.readAll(file.getPath());
+
+		return counter.count;
+	}
+
+	/**
+	 * A graph growing by steps, with node and edge attributes and some
+	 * changes and removals.
+	 */
+	static void write(File file, int size, Random random) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), "UTF-8"));
+
+		try {
+			out.write("DGS004\nbench 0 0\n");
+
+			for (int i = 0; i < size; i++) {
+				if (i % 1000 == 0)
+					out.write(String.format("st %d\n", i / 1000));
+
+				out.write(String.format(
+						"an n%d x=%.4f y=%.4f label=\"node %d\" ui.class=c%d\n",
+						i, random.nextDouble(), random.nextDouble(), i, i % 8));
+
+				for (int k = 0; k < 3 && i > 0; k++) {
+					int j = random.nextInt(i);
+					out.write(String.format("ae e%d_%d n%d n%d weight=%d\n", i,
+							k, i, j, random.nextInt(100)));
+				}
+
+				if (i > 10) {
+					int j = random.nextInt(i);
+					out.write(String.format("cn n%d x=%.4f visited\n", j,
+							random.nextDouble()));
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Convert a DGS file to binary DGS, the text file is deleted.
+	 */
+	static File toBinary(File file) throws IOException {
+		File binary = File.createTempFile("bench", ".dgsb");
+		binary.deleteOnExit();
+
+		FileSinkBinaryDGS sink = new FileSinkBinaryDGS();
+		FileSource input = new FileSourceDGS();
+		input.addSink(sink);
+		sink.begin(binary.getPath());
+		input.readAll(file.getPath());
+		sink.end();
+		file.delete();
+
+		return binary;
+	}
+
+	static class CountingSink extends SinkAdapter {
+		long count;
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			count++;
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			count++;
+		}
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId,
+				String nodeId, String attribute, Object oldValue,
+				Object newValue) {
+			count++;
+		}
+
+		@Override
+		public void edgeAttributeChanged(String sourceId, long timeId,
+				String edgeId, String attribute, Object oldValue,
+				Object newValue) {
+			count++;
+		}
+	}
+}
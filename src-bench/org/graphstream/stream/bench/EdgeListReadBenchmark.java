@@ -0,0 +1,138 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceNCol;
+import org.graphstream.stream.file.FileSourceParallelEdge;
+import org.graphstream.stream.file.FileSourceParallelEdge.Format;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to load an edge list in the NCol format into a graph, with the
+ * single-threaded source and with the parallel one, reading the node
+ * identifiers as strings or as integers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class EdgeListReadBenchmark {
+	@Param({ "FileSourceNCol", "FileSourceParallelEdge",
+			"FileSourceParallelEdge-int" })
+	public String source;
+
+	@Param({ "1000000" })
+	public int edges;
+
+	File file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = File.createTempFile("bench", ".ncol");
+		file.deleteOnExit();
+		write(file, edges, new Random(edges));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public int readAll() throws IOException {
+		Graph graph = new AdjacencyListGraph("bench", false, true);
+		FileSource input;
+
+		if (source.equals("FileSourceNCol")) {
+			input = new FileSourceNCol();
+		} else {
+			FileSourceParallelEdge parallel = new FileSourceParallelEdge(
+					Format.NCOL);
+			parallel.setIntegerIds(source.endsWith("-int"));
+			input = parallel;
+		}
+
+		input.addSink(graph);
+		input.readAll(file.getPath());
+
+		return graph.getEdgeCount();
+	}
+
+	/**
+	 * Random edges between a tenth as many nodes, half of them weighted.
+	 */
+	static void write(File file, int edges, Random random) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), "UTF-8"));
+		int nodes = Math.max(2, edges / 10);
+
+		try {
+			for (int i = 0; i < edges; i++) {
+				int a = random.nextInt(nodes), b = random.nextInt(nodes);
+
+				if (random.nextBoolean())
+					out.write(String.format("%d %d %d\n", a, b,
+							random.nextInt(100)));
+				else
+					out.write(String.format("%d %d\n", a, b));
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
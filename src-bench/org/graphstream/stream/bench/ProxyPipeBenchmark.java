@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.stream.ProxyPipe;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.thread.RingBufferProxyPipe;
+import org.graphstream.stream.thread.RingBufferProxyPipe.WaitStrategy;
+import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Events passed from the benchmark thread to a pumping thread through a proxy
+ * pipe. The throughput benchmark posts a burst of events and waits until all
+ * of them reached the sink, the latency benchmark waits for each event before
+ * posting the next one. The wait strategy only applies to the ring buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ProxyPipeBenchmark {
+	public static final int BURST = 1000;
+
+	@Param({ "ThreadProxyPipe", "RingBufferProxyPipe" })
+	public String implementation;
+
+	@Param({ "SPIN", "YIELD", "PARK" })
+	public String waitStrategy;
+
+	ProxyPipe pipe;
+	CountingSink counter;
+	Thread consumer;
+	volatile boolean running;
+	long posted;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if (implementation.equals("ThreadProxyPipe"))
+			pipe = new ThreadProxyPipe();
+		else
+			pipe = new RingBufferProxyPipe(
+					RingBufferProxyPipe.DEFAULT_CAPACITY,
+					WaitStrategy.valueOf(waitStrategy));
+
+		counter = new CountingSink();
+		pipe.addSink(counter);
+		running = true;
+
+		consumer = new Thread("consumer") {
+			public void run() {
+				try {
+					while (running)
+						pipe.blockingPump();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+
+		consumer.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		running = false;
+		post();
+		consumer.join();
+	}
+
+	void post() {
+		pipe.nodeAttributeChanged("g", posted, "n", "weight", null, posted);
+		posted++;
+	}
+
+	void await() {
+		while (counter.count < posted)
+			Thread.yield();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BURST)
+	public long throughput() {
+		for (int i = 0; i < BURST; i++)
+			post();
+
+		await();
+		return counter.count;
+	}
+
+	@Benchmark
+	public long latency() {
+		post();
+		await();
+		return counter.count;
+	}
+
+	static class CountingSink extends SinkAdapter {
+		volatile long count;
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId,
+				String nodeId, String attribute, Object oldValue,
+				Object newValue) {
+			count++;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.bench.GraphState;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.SinkAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the event dispatch of a graph to its sinks. The same changes are
+ * made on a graph with no sink and on graphs with one or several sinks that
+ * only count the events, so the difference is the dispatch overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SinkDispatchBenchmark {
+	@Param({ "0", "1", "4" })
+	public int sinks;
+
+	@Param({ "SingleGraph", "AdjacencyListGraph" })
+	public String implementation;
+
+	@Param({ "10000" })
+	public int size;
+
+	Graph graph;
+	Node[] nodes;
+	CountingSink[] counters;
+	int cursor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = GraphState.newGraph(implementation, "dispatch");
+		GraphState.generate(graph, size, new Random(size));
+
+		nodes = new Node[GraphState.QUERIES];
+
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = graph.getNode(size - 1 - i);
+
+		counters = new CountingSink[sinks];
+
+		for (int i = 0; i < sinks; i++) {
+			counters[i] = new CountingSink();
+			graph.addSink(counters[i]);
+		}
+	}
+
+	Node next() {
+		cursor = (cursor + 1) & (GraphState.QUERIES - 1);
+		return nodes[cursor];
+	}
+
+	@Benchmark
+	public void changeAttribute() {
+		next().setAttribute("weight", (double) cursor);
+	}
+
+	/**
+	 * Adds a new node and an edge to it, then removes the node. Five events
+	 * are sent.
+	 */
+	@Benchmark
+	public int addRemoveNode() {
+		Node node = graph.addNode("new");
+		Edge edge = graph.addEdge("new", node, next());
+
+		node.setAttribute("weight", 1.0);
+		graph.removeNode(node);
+
+		return edge.getIndex();
+	}
+
+	static class CountingSink extends SinkAdapter {
+		long count;
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			count++;
+		}
+
+		@Override
+		public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+			count++;
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			count++;
+		}
+
+		@Override
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			count++;
+		}
+
+		@Override
+		public void nodeAttributeAdded(String sourceId, long timeId,
+				String nodeId, String attribute, Object value) {
+			count++;
+		}
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId,
+				String nodeId, String attribute, Object oldValue,
+				Object newValue) {
+			count++;
+		}
+	}
+}
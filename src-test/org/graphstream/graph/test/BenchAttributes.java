@@ -0,0 +1,152 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.graphstream.graph.implementations.CompactAttributeMap;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.graph.implementations.SingleNode;
+import org.junit.Ignore;
+
+/**
+ * Compares the {@link HashMap} attribute storage of elements with
+ * {@link CompactAttributeMap}: memory used by nodes holding three numeric
+ * attributes, and time to read them back with {@link Node#getNumber(String)}.
+ */
+@Ignore
+public class BenchAttributes {
+	static final String[] KEYS = { "weight", "x", "y" };
+
+	static interface MapFactory {
+		Map<String, Object> newMap();
+	}
+
+	Runtime r = Runtime.getRuntime();
+	int elementCount;
+
+	public BenchAttributes(int elementCount) {
+		this.elementCount = elementCount;
+	}
+
+	static void forceGC() throws InterruptedException {
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(200);
+		}
+	}
+
+	/**
+	 * A graph whose nodes store their attributes in the maps of a factory.
+	 */
+	static Graph newGraph(String name, final MapFactory factory) {
+		Graph graph = new SingleGraph(name);
+
+		graph.setNodeFactory(new NodeFactory<SingleNode>() {
+			public SingleNode newInstance(String id, Graph graph) {
+				return new SingleNode((AbstractGraph) graph, id) {
+					@Override
+					protected Map<String, Object> newAttributeMap(
+							int expectedSize) {
+						return factory.newMap();
+					}
+				};
+			}
+		});
+
+		return graph;
+	}
+
+	public void run(String name, MapFactory factory)
+			throws InterruptedException {
+		forceGC();
+		long used1 = r.totalMemory() - r.freeMemory();
+
+		Graph graph = newGraph(name, factory);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < elementCount; i++) {
+			Node node = graph.addNode(Integer.toString(i));
+			node.addAttribute(KEYS[0], (double) i);
+			node.addAttribute(KEYS[1], Math.random());
+			node.addAttribute(KEYS[2], Math.random());
+		}
+		long fill = System.nanoTime() - start;
+
+		forceGC();
+		long used2 = r.totalMemory() - r.freeMemory();
+
+		double sum = 0;
+		start = System.nanoTime();
+		for (int pass = 0; pass < 10; pass++)
+			for (int i = 0; i < elementCount; i++) {
+				Node node = graph.getNode(i);
+
+				for (String key : KEYS)
+					sum += node.getNumber(key);
+			}
+		long read = System.nanoTime() - start;
+
+		System.out.printf("%-20s %8.1f bytes/node  fill %6d ms  read %6d ms  (%.0f)%n",
+				name, (used2 - used1) / (double) elementCount,
+				fill / 1000000, read / 1000000, sum);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		BenchAttributes bench = new BenchAttributes(n);
+
+		MapFactory hashMaps = new MapFactory() {
+			public Map<String, Object> newMap() {
+				return new HashMap<String, Object>(1);
+			}
+		};
+
+		MapFactory compactMaps = new MapFactory() {
+			public Map<String, Object> newMap() {
+				return new CompactAttributeMap(1);
+			}
+		};
+
+		// warm up
+		bench.run("HashMap", hashMaps);
+		bench.run("CompactAttributeMap", compactMaps);
+
+		bench.run("HashMap", hashMaps);
+		bench.run("CompactAttributeMap", compactMaps);
+	}
+}
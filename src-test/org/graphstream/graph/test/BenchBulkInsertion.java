@@ -0,0 +1,171 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import java.util.Random;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.BatchElementSink;
+import org.graphstream.stream.SinkAdapter;
+import org.junit.Ignore;
+
+/**
+ * Compares the time needed to load a random graph with one
+ * {@link Graph#addNode(String)} and {@link Graph#addEdge(String, String, String)}
+ * call per element against {@link Graph#addNodes(String...)} and
+ * {@link Graph#addEdges(String[], String[], String[], boolean)}, with and
+ * without a sink listening to the graph.
+ */
+@Ignore
+public class BenchBulkInsertion {
+	static class Counter extends SinkAdapter {
+		int count;
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			count++;
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			count++;
+		}
+	}
+
+	static class BatchCounter extends Counter implements BatchElementSink {
+		public void nodesAdded(String sourceId, long timeId, String[] nodeIds,
+				int offset, int count) {
+			this.count += count;
+		}
+
+		public void edgesAdded(String sourceId, long timeId, String[] edgeIds,
+				String[] fromNodeIds, String[] toNodeIds, boolean directed,
+				int offset, int count) {
+			this.count += count;
+		}
+	}
+
+	String[] nodeIds, edgeIds, from, to;
+
+	public BenchBulkInsertion(int nodeCount, int averageDegree) {
+		Random random = new Random(0);
+		int edgeCount = nodeCount * averageDegree / 2;
+
+		nodeIds = new String[nodeCount];
+		edgeIds = new String[edgeCount];
+		from = new String[edgeCount];
+		to = new String[edgeCount];
+
+		for (int i = 0; i < nodeCount; i++)
+			nodeIds[i] = "n" + i;
+
+		// a multigraph would accept any pair, a single graph would reject
+		// some of them so the pairs are made unique
+		for (int i = 0; i < edgeCount; i++) {
+			int a = i % nodeCount;
+			int b = (a + 1 + i / nodeCount + random.nextInt(nodeCount / 4))
+					% nodeCount;
+			edgeIds[i] = "e" + i;
+			from[i] = nodeIds[a];
+			to[i] = nodeIds[b];
+		}
+	}
+
+	Graph newGraph(Counter sink) {
+		System.gc();
+
+		Graph g = new SingleGraph("g", false, false);
+
+		if (sink != null)
+			g.addElementSink(sink);
+
+		return g;
+	}
+
+	public long loadOneByOne(Counter sink) {
+		Graph g = newGraph(sink);
+		long start = System.nanoTime();
+
+		for (String id : nodeIds)
+			g.addNode(id);
+
+		for (int i = 0; i < edgeIds.length; i++)
+			g.addEdge(edgeIds[i], from[i], to[i]);
+
+		return check(g, start);
+	}
+
+	public long loadBulk(Counter sink) {
+		Graph g = newGraph(sink);
+		long start = System.nanoTime();
+
+		g.addNodes(nodeIds);
+		g.addEdges(edgeIds, from, to, false);
+
+		return check(g, start);
+	}
+
+	long check(Graph g, long start) {
+		long time = System.nanoTime() - start;
+
+		if (g.getNodeCount() != nodeIds.length)
+			throw new RuntimeException("wrong node count");
+
+		return time / 1000000;
+	}
+
+	public void run() {
+		System.out.printf("%-12s %8d ms %8d ms %8d ms%n", "one by one",
+				loadOneByOne(null), loadOneByOne(new Counter()),
+				loadOneByOne(new BatchCounter()));
+		System.out.printf("%-12s %8d ms %8d ms %8d ms%n", "bulk",
+				loadBulk(null), loadBulk(new Counter()),
+				loadBulk(new BatchCounter()));
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int d = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		BenchBulkInsertion bench = new BenchBulkInsertion(n, d);
+
+		System.out.printf("%d nodes, %d edges%n", n, bench.edgeIds.length);
+		System.out.printf("%-12s %11s %11s %11s%n", "", "no sink", "sink",
+				"batch sink");
+
+		// warm up
+		bench.run();
+		bench.run();
+		bench.run();
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.ConcurrentGraph;
+import org.graphstream.graph.implementations.Graphs;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.junit.Ignore;
+
+/**
+ * Measures the read throughput of {@link ConcurrentGraph} and of
+ * {@link Graphs#synchronizedGraph(Graph)} with several reader threads and one
+ * writer thread changing attributes. The writer does not change the structure
+ * of the graph because the elements of the synchronized wrapper use their own
+ * locks and cannot be read safely while edges are removed.
+ */
+@Ignore
+public class BenchConcurrentGraph {
+	static final int NODES = 10000;
+	static final int EDGES = 50000;
+	static final long DURATION = 2000;
+
+	/**
+	 * Sink for the values read, so the reads are not optimized away.
+	 */
+	static volatile double sink;
+
+	static void fill(Graph g) {
+		Random random = new Random(0);
+
+		for (int i = 0; i < NODES; i++)
+			g.addNode("" + i).addAttribute("weight", 1.0);
+
+		for (int i = 0; i < EDGES; i++)
+			g.addEdge("e" + i, "" + random.nextInt(NODES),
+					"" + random.nextInt(NODES));
+	}
+
+	/**
+	 * @return The number of reads per millisecond.
+	 */
+	static double measure(final Graph g, int readers)
+			throws InterruptedException {
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicLong reads = new AtomicLong();
+		Thread[] threads = new Thread[readers + 1];
+
+		for (int r = 0; r < readers; r++) {
+			final long seed = r;
+
+			threads[r] = new Thread() {
+				@Override
+				public void run() {
+					Random random = new Random(seed);
+					long count = 0;
+					double sum = 0;
+
+					while (running.get()) {
+						Node n = g.getNode("" + random.nextInt(NODES));
+
+						for (Edge e : n.getEachEdge())
+							sum += e.getOpposite(n).getNumber("weight");
+
+						count++;
+					}
+
+					reads.addAndGet(count);
+					sink = sum;
+				}
+			};
+		}
+
+		threads[readers] = new Thread() {
+			@Override
+			public void run() {
+				Random random = new Random(1);
+
+				while (running.get())
+					g.getNode("" + random.nextInt(NODES)).setAttribute("weight",
+							random.nextDouble());
+			}
+		};
+
+		for (Thread t : threads)
+			t.start();
+
+		Thread.sleep(DURATION);
+		running.set(false);
+
+		for (Thread t : threads)
+			t.join();
+
+		return reads.get() / (double) DURATION;
+	}
+
+	public static void main(String... args) throws InterruptedException {
+		System.out.printf("%8s %16s %16s%n", "readers", "synchronized",
+				"concurrent");
+
+		for (int readers = 1; readers <= 8; readers *= 2) {
+			Graph sync = Graphs.synchronizedGraph(new MultiGraph("sync"));
+			Graph concurrent = new ConcurrentGraph("concurrent");
+
+			fill(sync);
+			fill(concurrent);
+
+			// warm up
+			measure(sync, readers);
+			measure(concurrent, readers);
+
+			System.out.printf("%8d %16.1f %16.1f%n", readers,
+					measure(sync, readers), measure(concurrent, readers));
+		}
+	}
+}
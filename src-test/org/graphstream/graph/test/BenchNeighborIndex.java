@@ -0,0 +1,113 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import java.util.Random;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Ignore;
+
+/**
+ * Measures the memory used by a sparse graph with a few hubs, and the time of
+ * edge lookups on the hubs, for {@link SingleGraph} and {@link MultiGraph}.
+ */
+@Ignore
+public class BenchNeighborIndex {
+	Runtime r = Runtime.getRuntime();
+	int nodeCount, hubCount, degree;
+
+	public BenchNeighborIndex(int nodeCount, int hubCount, int degree) {
+		this.nodeCount = nodeCount;
+		this.hubCount = hubCount;
+		this.degree = degree;
+	}
+
+	static void forceGC() throws InterruptedException {
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(200);
+		}
+	}
+
+	public void run(Graph graph) throws InterruptedException {
+		Random random = new Random(0);
+
+		forceGC();
+		long used1 = r.totalMemory() - r.freeMemory();
+
+		for (int i = 0; i < nodeCount; i++)
+			graph.addNode(Integer.toString(i));
+
+		for (int i = 0; i < nodeCount * degree / 2; i++)
+			graph.addEdge(Integer.toString(i), random.nextInt(nodeCount),
+					random.nextInt(nodeCount));
+
+		// every node is linked to a hub
+		for (int i = 0; i < nodeCount; i++)
+			graph.addEdge("h" + i, i % hubCount, i);
+
+		forceGC();
+		long used2 = r.totalMemory() - r.freeMemory();
+
+		int found = 0;
+		long start = System.nanoTime();
+
+		for (int i = 0; i < nodeCount; i++) {
+			Node hub = graph.getNode(i % hubCount);
+
+			if (hub.getEdgeBetween((Node) graph.getNode(i)) != null)
+				found++;
+			if (hub.getEdgeBetween((Node) graph.getNode(random
+					.nextInt(nodeCount))) != null)
+				found++;
+		}
+
+		long lookup = System.nanoTime() - start;
+
+		System.out.printf("%-12s %8.1f bytes/node  hub lookups %6d ms  (%d)%n",
+				graph.getClass().getSimpleName(), (used2 - used1)
+						/ (double) nodeCount, lookup / 1000000, found);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		BenchNeighborIndex bench = new BenchNeighborIndex(n, 10, 4);
+
+		for (int i = 0; i < 2; i++) {
+			bench.run(new SingleGraph("g", false, false, n, 4 * n));
+			bench.run(new MultiGraph("g", false, false, n, 4 * n));
+		}
+	}
+}
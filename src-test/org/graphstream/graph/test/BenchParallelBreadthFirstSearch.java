@@ -0,0 +1,117 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.ParallelBreadthFirstSearch;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.junit.Ignore;
+
+/**
+ * Compares {@link BreadthFirstIterator} with
+ * {@link ParallelBreadthFirstSearch} on a random graph, for an increasing
+ * number of threads.
+ */
+@Ignore
+public class BenchParallelBreadthFirstSearch {
+	Graph graph;
+
+	public BenchParallelBreadthFirstSearch(int nodeCount, int averageDegree) {
+		Random random = new Random(0);
+		int edgeCount = nodeCount * averageDegree / 2;
+
+		graph = new AdjacencyListGraph("g", false, false, nodeCount, edgeCount);
+
+		for (int i = 0; i < nodeCount; i++)
+			graph.addNode(Integer.toString(i));
+
+		for (int i = 0; i < edgeCount; i++)
+			graph.addEdge(Integer.toString(i), random.nextInt(nodeCount),
+					random.nextInt(nodeCount));
+	}
+
+	public long sequential(Node start) {
+		long t = System.nanoTime();
+		BreadthFirstIterator<Node> it = new BreadthFirstIterator<Node>(start,
+				false);
+
+		while (it.hasNext())
+			it.next();
+
+		t = System.nanoTime() - t;
+		System.out.printf("%-26s depth %3d %8d ms%n", "BreadthFirstIterator",
+				it.getDepthMax(), t / 1000000);
+		return t;
+	}
+
+	public long parallel(Node start, ForkJoinPool pool, boolean optimizing) {
+		long t = System.nanoTime();
+		ParallelBreadthFirstSearch bfs = new ParallelBreadthFirstSearch(start,
+				false, pool);
+
+		bfs.setDirectionOptimizing(optimizing);
+		bfs.compute();
+
+		t = System.nanoTime() - t;
+		System.out.printf("%-26s depth %3d %8d ms%n", String.format(
+				"parallel %2d threads %s", pool.getParallelism(),
+				optimizing ? "DO" : "TD"), bfs.getDepthMax(), t / 1000000);
+		return t;
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int d = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		BenchParallelBreadthFirstSearch bench = new BenchParallelBreadthFirstSearch(
+				n, d);
+		Node start = bench.graph.getNode(0);
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		for (int pass = 0; pass < 3; pass++) {
+			bench.sequential(start);
+
+			for (int p = 1; p <= cores; p *= 2) {
+				ForkJoinPool pool = new ForkJoinPool(p);
+				bench.parallel(start, pool, false);
+				bench.parallel(start, pool, true);
+				pool.shutdown();
+			}
+
+			System.out.println();
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.graphstream.graph.implementations.AttributeColumn;
+import org.graphstream.graph.implementations.CompactGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.junit.Test;
+
+public class TestAttributeColumn {
+	@Test
+	public void testAttributeApi() {
+		testAttributeApi(new SingleGraph("S"));
+		testAttributeApi(new CompactGraph("CG"));
+	}
+
+	@Test
+	public void testRemoval() {
+		testRemoval(new SingleGraph("S"));
+		testRemoval(new MultiGraph("M"));
+		testRemoval(new CompactGraph("CG"));
+	}
+
+	@Test
+	public void testRemovalWithoutValues() {
+		testRemovalWithoutValues(new SingleGraph("S"));
+		testRemovalWithoutValues(new MultiGraph("M"));
+		testRemovalWithoutValues(new CompactGraph("CG"));
+	}
+
+	@Test
+	public void testEvents() {
+		AbstractGraph graph = new SingleGraph("S");
+		final ArrayList<String> events = new ArrayList<String>();
+
+		graph.addSink(new SinkAdapter() {
+			@Override
+			public void nodeAttributeAdded(String sourceId, long timeId,
+					String nodeId, String attribute, Object value) {
+				events.add("add " + nodeId + " " + value);
+			}
+
+			@Override
+			public void nodeAttributeChanged(String sourceId, long timeId,
+					String nodeId, String attribute, Object oldValue,
+					Object newValue) {
+				events.add("change " + nodeId + " " + oldValue + " "
+						+ newValue);
+			}
+
+			@Override
+			public void nodeAttributeRemoved(String sourceId, long timeId,
+					String nodeId, String attribute) {
+				events.add("remove " + nodeId);
+			}
+		});
+
+		graph.addNode("A");
+		AttributeColumn x = graph.addNodeColumn("x", AttributeColumn.Type.INT);
+
+		x.setInt(0, 1);
+		x.setDouble(0, 2.7);
+		graph.getNode("A").addAttribute("x", 3);
+		graph.getNode("A").removeAttribute("x");
+
+		assertEquals(4, events.size());
+		assertEquals("add A 1", events.get(0));
+		assertEquals("change A 1 2", events.get(1));
+		assertEquals("change A 2 3", events.get(2));
+		assertEquals("remove A", events.get(3));
+		assertFalse(x.isSet(0));
+	}
+
+	protected void testAttributeApi(AbstractGraph graph) {
+		Node a = graph.addNode("A");
+		Node b = graph.addNode("B");
+		Edge ab = graph.addEdge("AB", "A", "B");
+
+		a.addAttribute("weight", 1.5);
+		b.addAttribute("weight", "heavy");
+		ab.addAttribute("length", 2L);
+
+		AttributeColumn weight = graph.addNodeColumn("weight",
+				AttributeColumn.Type.DOUBLE);
+		AttributeColumn length = graph.addEdgeColumn("length",
+				AttributeColumn.Type.LONG);
+
+		// accepted values move to the columns, others stay on the elements
+		assertTrue(weight.isSet(a.getIndex()));
+		assertFalse(weight.isSet(b.getIndex()));
+		assertEquals(1.5, weight.getDouble(a.getIndex()), 0);
+		assertEquals(2L, length.getLong(ab.getIndex()));
+		assertEquals("heavy", b.getAttribute("weight"));
+		assertEquals(1.5, (Object) a.getAttribute("weight"));
+		assertEquals(2L, (Object) ab.getAttribute("length"));
+		assertTrue(a.hasNumber("weight"));
+		assertFalse(b.hasNumber("weight"));
+
+		weight.setDouble(b.getIndex(), 3);
+		assertEquals(3.0, b.getNumber("weight"), 0);
+		assertEquals(1, b.getAttributeCount());
+		assertTrue(b.getAttributeKeySet().contains("weight"));
+
+		a.addAttribute("label", "a");
+		assertEquals(2, a.getAttributeCount());
+		a.addAttribute("weight", "light");
+		assertFalse(weight.isSet(a.getIndex()));
+		assertEquals("light", a.getAttribute("weight"));
+		// values of another type stay on the elements and keep their type
+		a.addAttribute("weight", 4);
+		assertFalse(weight.isSet(a.getIndex()));
+		assertEquals(Integer.valueOf(4), a.getAttribute("weight", Integer.class));
+		assertTrue(a.hasAttribute("weight", Integer.class));
+		a.addAttribute("weight", 4.0);
+		assertEquals(4.0, weight.getDouble(a.getIndex()), 0);
+		assertNull(a.getAttribute("weight", Integer.class));
+		assertEquals(2, a.getAttributeCount());
+
+		// values go back to the elements when the column is removed
+		graph.removeNodeColumn("weight");
+		assertNull(graph.getNodeColumn("weight"));
+		assertEquals(4.0, (Object) a.getAttribute("weight"));
+		assertEquals(3.0, b.getNumber("weight"), 0);
+	}
+
+	protected void testRemoval(AbstractGraph graph) {
+		AttributeColumn value = graph.addNodeColumn("value",
+				AttributeColumn.Type.INT);
+		AttributeColumn edgeValue = graph.addEdgeColumn("value",
+				AttributeColumn.Type.INT);
+
+		for (int i = 0; i < 10; i++) {
+			graph.addNode("" + i).addAttribute("value", i);
+
+			if (i > 0)
+				graph.addEdge(i + "-" + (i - 1), "" + i, "" + (i - 1))
+						.addAttribute("value", 10 * i);
+		}
+
+		Node removed = graph.removeNode("3");
+		graph.removeEdge("8-7");
+		graph.removeNode("0");
+
+		// removed elements keep their attributes
+		assertEquals(3, (int) removed.getAttribute("value", Integer.class));
+		assertEquals(8, graph.getNodeCount());
+
+		for (Node n : graph) {
+			assertTrue(value.isSet(n.getIndex()));
+			assertEquals(Integer.parseInt(n.getId()),
+					value.getInt(n.getIndex()));
+			assertEquals(Integer.parseInt(n.getId()),
+					n.getNumber("value"), 0);
+		}
+
+		for (Edge e : graph.getEachEdge()) {
+			int i = Integer.parseInt(e.getSourceNode().getId());
+			assertEquals(10 * i, edgeValue.getInt(e.getIndex()));
+		}
+
+		for (int i = graph.getNodeCount(); i < 10; i++)
+			assertFalse(value.isSet(i));
+
+		graph.clear();
+		assertFalse(value.isSet(0));
+		assertNull(graph.addNode("new").getAttribute("value"));
+	}
+
+	protected void testRemovalWithoutValues(AbstractGraph graph) {
+		AttributeColumn value = graph.addNodeColumn("value",
+				AttributeColumn.Type.INT);
+		AttributeColumn edgeValue = graph.addEdgeColumn("value",
+				AttributeColumn.Type.DOUBLE);
+
+		graph.addNode("0").addAttribute("value", 0);
+		graph.addNode("1").addAttribute("value", 1);
+		graph.addEdge("0-1", "0", "1").addAttribute("value", 1.0);
+
+		// elements added later have no value and may lie beyond the values
+		for (int i = 2; i < 100; i++) {
+			graph.addNode("" + i);
+			graph.addEdge(i + "-" + (i - 1), "" + i, "" + (i - 1));
+		}
+
+		graph.removeEdge("0-1");
+		graph.removeNode("0");
+
+		assertEquals(99, graph.getNodeCount());
+		assertEquals(98, graph.getEdgeCount());
+		assertNull(graph.getEdge("0-1"));
+
+		for (Node n : graph)
+			if (n.getId().equals("1"))
+				assertEquals(1, value.getInt(n.getIndex()));
+			else {
+				assertFalse(value.isSet(n.getIndex()));
+				assertNull(n.getAttribute("value"));
+			}
+
+		for (Edge e : graph.getEachEdge())
+			assertFalse(edgeValue.isSet(e.getIndex()));
+
+		assertFalse(value.isSet(99));
+	}
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.ElementNotFoundException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.CompactGraph;
+import org.graphstream.graph.implementations.ConcurrentGraph;
+import org.graphstream.graph.implementations.Graphs;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.BatchElementSink;
+import org.graphstream.stream.SinkAdapter;
+import org.junit.Test;
+
+public class TestBulkInsertion {
+	@Test
+	public void testBulkInsertion() {
+		testBulkInsertion(new SingleGraph("S"));
+		testBulkInsertion(new MultiGraph("M"));
+		testBulkInsertion(new CompactGraph("C"));
+		testBulkInsertion(new ConcurrentGraph("CC"));
+		testBulkInsertion(Graphs.synchronizedGraph(new MultiGraph("SY")));
+	}
+
+	protected void testBulkInsertion(Graph graph) {
+		graph.addNode("A");
+		graph.addNodes("B", "C", "D");
+
+		assertEquals(4, graph.getNodeCount());
+
+		for (int i = 0; i < 4; i++)
+			assertEquals(i, graph.getNode(i).getIndex());
+
+		graph.addEdge("AB", "A", "B");
+		graph.addEdges(new String[] { "BC", "CD", "DA", "AC" }, new String[] {
+				"B", "C", "D", "A" }, new String[] { "C", "D", "A", "C" }, true);
+
+		assertEquals(5, graph.getEdgeCount());
+
+		Node a = graph.getNode("A");
+		Node c = graph.getNode("C");
+
+		assertEquals(3, a.getDegree());
+		assertEquals(2, a.getInDegree());
+		assertEquals(2, a.getOutDegree());
+		assertEquals(3, c.getDegree());
+		assertEquals("AC", a.getEdgeToward("C").getId());
+		assertEquals("DA", a.getEdgeFrom("D").getId());
+		assertTrue(graph.getEdge("DA").isDirected());
+		assertEquals("A", graph.getEdge("DA").getTargetNode().getId());
+	}
+
+	@Test
+	public void testStrictChecking() {
+		Graph graph = new SingleGraph("g");
+
+		graph.addNodes("A", "B");
+
+		try {
+			graph.addNodes("C", "A");
+			fail();
+		} catch (IdAlreadyInUseException e) {
+		}
+
+		try {
+			graph.addNodes("C", "D", "C");
+			fail();
+		} catch (IdAlreadyInUseException e) {
+		}
+
+		assertEquals(2, graph.getNodeCount());
+
+		try {
+			graph.addEdges(new String[] { "AB", "BC" }, new String[] { "A",
+					"B" }, new String[] { "B", "C" }, false);
+			fail();
+		} catch (ElementNotFoundException e) {
+		}
+
+		try {
+			graph.addEdges(new String[] { "AB", "AB" }, new String[] { "A",
+					"B" }, new String[] { "B", "A" }, false);
+			fail();
+		} catch (IdAlreadyInUseException e) {
+		}
+
+		assertEquals(0, graph.getEdgeCount());
+
+		try {
+			graph.addEdges(new String[] { "AB" }, new String[] { "A", "B" },
+					new String[] { "B" }, false);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		// the first edge is added, the second one is rejected by the nodes
+		try {
+			graph.addEdges(new String[] { "AB", "BA" }, new String[] { "A",
+					"B" }, new String[] { "B", "A" }, false);
+			fail();
+		} catch (EdgeRejectedException e) {
+		}
+
+		assertEquals(1, graph.getEdgeCount());
+		assertNotNull(graph.getEdge("AB"));
+	}
+
+	@Test
+	public void testNoStrictChecking() {
+		Graph graph = new SingleGraph("g", false, true);
+
+		graph.addNodes("A", "B", "A");
+		graph.addNodes("B", "C");
+
+		assertEquals(3, graph.getNodeCount());
+
+		graph.addEdges(new String[] { "AB", "BA", "AB", "DE", "CD" },
+				new String[] { "A", "B", "A", "D", "C" }, new String[] { "B",
+						"A", "B", "E", "D" }, false);
+
+		assertEquals(5, graph.getNodeCount());
+		assertEquals(3, graph.getEdgeCount());
+		assertNotNull(graph.getEdge("AB"));
+		assertNull(graph.getEdge("BA"));
+		assertTrue(graph.getNode("D").hasEdgeBetween("E"));
+		assertTrue(graph.getNode("D").hasEdgeBetween("C"));
+
+		graph.setAutoCreate(false);
+		graph.addEdges(new String[] { "EF", "EA" }, new String[] { "E", "E" },
+				new String[] { "F", "A" }, false);
+
+		assertEquals(5, graph.getNodeCount());
+		assertEquals(4, graph.getEdgeCount());
+		assertNull(graph.getEdge("EF"));
+	}
+
+	@Test
+	public void testEvents() {
+		Graph graph = new MultiGraph("g", false, true);
+		Graph copy = new MultiGraph("copy");
+		EventCounter counter = new EventCounter();
+		BatchCounter batchCounter = new BatchCounter();
+
+		graph.addSink(copy);
+		graph.addElementSink(counter);
+		graph.addElementSink(batchCounter);
+
+		graph.addNodes("A", "B", "C");
+		graph.addEdges(new String[] { "AB", "BC", "CD" }, new String[] { "A",
+				"B", "C" }, new String[] { "B", "C", "D" }, false);
+
+		// the sinks that do not handle batches receive each event
+		assertEquals(4, counter.nodes);
+		assertEquals(3, counter.edges);
+		assertEquals(4, copy.getNodeCount());
+		assertEquals(3, copy.getEdgeCount());
+		assertTrue(copy.getNode("D").hasEdgeBetween("C"));
+
+		// the other ones receive one call per batch, the auto-created node "D"
+		// coming before the edges
+		assertEquals(3, batchCounter.batches.size());
+		assertEquals(3, batchCounter.batches.get(0).intValue());
+		assertEquals(1, batchCounter.batches.get(1).intValue());
+		assertEquals(-3, batchCounter.batches.get(2).intValue());
+		assertEquals(7, batchCounter.events);
+
+		// the time ids follow each other
+		for (int i = 1; i < counter.timeIds.size(); i++)
+			assertEquals(counter.timeIds.get(i - 1) + 1, counter.timeIds.get(i)
+					.longValue());
+
+		graph.addNode("E");
+		assertEquals(counter.timeIds.get(counter.timeIds.size() - 2) + 1,
+				counter.timeIds.get(counter.timeIds.size() - 1).longValue());
+	}
+
+	protected static class EventCounter extends SinkAdapter {
+		int nodes, edges;
+		List<Long> timeIds = new ArrayList<Long>();
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			nodes++;
+			timeIds.add(timeId);
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			edges++;
+			timeIds.add(timeId);
+		}
+	}
+
+	protected static class BatchCounter extends SinkAdapter implements
+			BatchElementSink {
+		// positive for node batches, negative for edge batches
+		List<Integer> batches = new ArrayList<Integer>();
+		int events;
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			events++;
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			events++;
+		}
+
+		public void nodesAdded(String sourceId, long timeId, String[] nodeIds,
+				int offset, int count) {
+			batches.add(count);
+			events += count;
+		}
+
+		public void edgesAdded(String sourceId, long timeId, String[] edgeIds,
+				String[] fromNodeIds, String[] toNodeIds, boolean directed,
+				int offset, int count) {
+			batches.add(-count);
+			events += count;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.CompactAttributeMap;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.junit.Test;
+
+public class TestCompactAttributeMap {
+	@Test
+	public void testValues() {
+		Map<String, Object> map = new CompactAttributeMap();
+
+		map.put("double", 1.5);
+		map.put("int", 2);
+		map.put("long", 3L);
+		map.put("string", "four");
+		map.put("null", null);
+
+		assertEquals(5, map.size());
+		assertEquals(1.5, map.get("double"));
+		assertEquals(2, map.get("int"));
+		assertEquals(3L, map.get("long"));
+		assertEquals("four", map.get("string"));
+		assertNull(map.get("null"));
+		assertTrue(map.containsKey("null"));
+		assertFalse(map.containsKey("missing"));
+
+		// the type of numbers is kept when they are changed
+		assertEquals(2, map.put("int", 2.5));
+		assertEquals(2.5, map.get("int"));
+		assertEquals(1.5, map.put("double", "text"));
+		assertEquals("text", map.get("double"));
+	}
+
+	@Test
+	public void testRemoveAndGrow() {
+		Map<String, Object> map = new CompactAttributeMap();
+		HashMap<String, Object> reference = new HashMap<String, Object>();
+
+		for (int i = 0; i < 100; i++) {
+			map.put("k" + i, i);
+			reference.put("k" + i, i);
+		}
+
+		for (int i = 0; i < 100; i += 3) {
+			assertEquals(i, map.remove("k" + i));
+			reference.remove("k" + i);
+		}
+
+		for (int i = 100; i < 150; i++) {
+			map.put("k" + i, (double) i);
+			reference.put("k" + i, (double) i);
+		}
+
+		assertEquals(reference, map);
+		assertEquals(reference.hashCode(), map.hashCode());
+
+		Iterator<String> it = map.keySet().iterator();
+
+		while (it.hasNext())
+			if (it.next().length() == 2)
+				it.remove();
+
+		for (int i = 0; i < 10; i++)
+			reference.remove("k" + i);
+
+		assertEquals(reference, map);
+	}
+
+	@Test
+	public void testElementNumbers() {
+		MultiGraph graph = new MultiGraph("g");
+		Node a = graph.addNode("A");
+
+		a.addAttribute("x", 1.5);
+		a.addAttribute("i", 3);
+		a.addAttribute("s", "2.5");
+
+		assertEquals(1.5, a.getNumber("x"), 0);
+		assertEquals(3, a.getNumber("i"), 0);
+		assertEquals(2.5, a.getNumber("s"), 0);
+		assertTrue(a.hasNumber("x"));
+		assertTrue(a.hasNumber("i"));
+		assertFalse(a.hasNumber("s"));
+		assertTrue(Double.isNaN(a.getNumber("missing")));
+	}
+}
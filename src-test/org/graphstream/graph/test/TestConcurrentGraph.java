@@ -0,0 +1,201 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.ConcurrentGraph;
+import org.graphstream.graph.implementations.ConcurrentGraph.ConcurrentEdge;
+import org.graphstream.graph.implementations.ConcurrentGraph.ConcurrentNode;
+import org.junit.Test;
+
+public class TestConcurrentGraph {
+	@Test
+	public void testGenericity() {
+		ConcurrentGraph graph = new ConcurrentGraph("g");
+		ConcurrentNode a = graph.addNode("A");
+		ConcurrentNode b = graph.addNode("B");
+		ConcurrentEdge ab = graph.addEdge("AB", "A", "B");
+
+		assertTrue(graph.getNode("A") == a);
+		assertTrue(a.getEdgeToward(b) == ab);
+
+		for (ConcurrentNode n : graph.<ConcurrentNode> getEachNode())
+			assertEquals(1, n.getDegree());
+
+		a.addAttribute("null", (Object) null);
+		assertTrue(a.hasAttribute("null"));
+		assertNull(a.getAttribute("null"));
+	}
+
+	@Test
+	public void testSnapshotIterators() {
+		ConcurrentGraph graph = new ConcurrentGraph("g");
+
+		for (int i = 0; i < 10; i++)
+			graph.addNode("" + i);
+
+		Iterator<Node> it = graph.getNodeIterator();
+
+		// the iterator does not see modifications
+		graph.removeNode("0");
+		graph.addNode("10");
+
+		int count = 0;
+
+		while (it.hasNext()) {
+			Node n = it.next();
+			count++;
+
+			if (n.getId().equals("5"))
+				it.remove();
+		}
+
+		assertEquals(10, count);
+		assertEquals(9, graph.getNodeCount());
+		assertNull(graph.getNode("5"));
+	}
+
+	@Test
+	public void testConcurrentAccess() throws InterruptedException {
+		final ConcurrentGraph graph = new ConcurrentGraph("g", false, true);
+		final int size = 200;
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		for (int i = 0; i < size; i++)
+			graph.addNode("" + i).addAttribute("value", i);
+
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				Random random = new Random(1);
+
+				for (int i = 0; i < 5000; i++) {
+					String from = "" + random.nextInt(size);
+					String to = "" + random.nextInt(size);
+
+					if (from.equals(to))
+						continue;
+
+					Edge e = graph.getEdge(from + "-" + to);
+
+					if (e == null)
+						graph.addEdge(from + "-" + to, from, to);
+					else
+						graph.removeEdge(e);
+
+					graph.getNode(to).addAttribute("value", i);
+				}
+			}
+		};
+
+		Thread[] readers = new Thread[4];
+
+		for (int r = 0; r < readers.length; r++) {
+			readers[r] = new Thread() {
+				@Override
+				public void run() {
+					Random random = new Random();
+
+					try {
+						for (int i = 0; i < 5000; i++) {
+							Node n = graph.getNode("" + random.nextInt(size));
+							assertTrue(n.hasNumber("value"));
+							assertTrue(graph.getNode(random.nextInt(size)) != null);
+
+							for (Edge e : n.getEachEdge())
+								assertTrue(e.getOpposite(n) != null);
+						}
+					} catch (Throwable t) {
+						failure.set(t);
+					}
+				}
+			};
+		}
+
+		writer.start();
+
+		for (Thread reader : readers)
+			reader.start();
+
+		writer.join();
+
+		for (Thread reader : readers)
+			reader.join();
+
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+
+		int degrees = 0;
+
+		for (Node n : graph)
+			degrees += n.getDegree();
+
+		assertEquals(2 * graph.getEdgeCount(), degrees);
+	}
+
+	@Test
+	public void testAttributesDoNotBlockReaders() throws InterruptedException {
+		final ConcurrentGraph graph = new ConcurrentGraph("g");
+		graph.addNode("A");
+
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				graph.getNode("A").addAttribute("x", 1);
+				graph.addAttribute("y", 2);
+			}
+		};
+
+		// attribute changes do not wait for the readers of the structure
+		graph.getLock().readLock().lock();
+		try {
+			writer.start();
+			writer.join(5000);
+			assertFalse(writer.isAlive());
+		} finally {
+			graph.getLock().readLock().unlock();
+		}
+
+		assertEquals(1, graph.getNode("A").getNumber("x"), 0);
+		assertEquals(2, graph.getNumber("y"), 0);
+	}
+}
@@ -39,6 +39,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Element;
@@ -46,6 +48,8 @@ import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.AbstractGraph;
 import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.CompactGraph;
+import org.graphstream.graph.implementations.ConcurrentGraph;
 import org.graphstream.graph.implementations.MultiGraph;
 import org.graphstream.graph.implementations.MultiNode;
 import org.graphstream.graph.implementations.SingleGraph;
@@ -61,6 +65,8 @@ public class TestGraph {
 		testBasic(new AdjacencyListGraph("AL")); // XXX
 		testBasic(new SingleGraph("S")); // XXX
 		testBasic(new MultiGraph("M")); // XXX
+		testBasic(new CompactGraph("CG"));
+		testBasic(new ConcurrentGraph("CC"));
 	}
 
 	@Test
@@ -256,6 +262,8 @@ public class TestGraph {
 		testDirected(new AdjacencyListGraph("AL")); // XXX
 		testDirected(new SingleGraph("S")); // XXX
 		testDirected(new MultiGraph("M")); // XXX
+		testDirected(new CompactGraph("CG"));
+		testDirected(new ConcurrentGraph("CC"));
 	}
 
 	protected void testDirected(Graph graph) {
@@ -416,6 +424,8 @@ public class TestGraph {
 		testIterables(new AdjacencyListGraph("AL")); // XXX
 		testIterables(new SingleGraph("S")); // XXX
 		testIterables(new MultiGraph("M")); // XXX
+		testIterables(new CompactGraph("CG"));
+		testIterables(new ConcurrentGraph("CC"));
 	}
 
 	protected void testIterables(Graph graph) {
@@ -559,6 +569,8 @@ public class TestGraph {
 		testRemoval(new AdjacencyListGraph("AL")); // XXX
 		testRemoval(new SingleGraph("S")); // XXX
 		testRemoval(new MultiGraph("M")); // XXX
+		testRemoval(new CompactGraph("CG"));
+		testRemoval(new ConcurrentGraph("CC"));
 	}
 
 	public void testRemoval(Graph graph) {
@@ -659,6 +671,82 @@ public class TestGraph {
 		assertEquals(0, graph.getEdgeCount());
 	}
 
+	/**
+	 * Compact graphs update their adjacency in place on removals, so
+	 * neighborhoods are queried between removals and compared with those of a
+	 * multigraph.
+	 */
+	@Test
+	public void testRemovalNeighborhoods() {
+		Graph expected = new MultiGraph("M");
+		Graph compact = new CompactGraph("CG");
+		Random random = new Random(4242);
+		int n = 60;
+
+		for (int i = 0; i < n; i++) {
+			expected.addNode("n" + i);
+			compact.addNode("n" + i);
+		}
+
+		for (int i = 0; i < 4 * n; i++) {
+			String from = "n" + random.nextInt(n);
+			String to = "n" + random.nextInt(n);
+			boolean directed = random.nextBoolean();
+
+			expected.addEdge("e" + i, from, to, directed);
+			compact.addEdge("e" + i, from, to, directed);
+		}
+
+		while (compact.getNodeCount() > 0) {
+			if (compact.getEdgeCount() > 0 && random.nextBoolean()) {
+				String id = compact.getEdge(
+						random.nextInt(compact.getEdgeCount())).getId();
+				expected.removeEdge(id);
+				compact.removeEdge(id);
+			} else {
+				String id = compact.getNode(
+						random.nextInt(compact.getNodeCount())).getId();
+				expected.removeNode(id);
+				compact.removeNode(id);
+			}
+
+			assertEquals(expected.getNodeCount(), compact.getNodeCount());
+			assertEquals(expected.getEdgeCount(), compact.getEdgeCount());
+
+			for (Node node : compact) {
+				Node other = expected.getNode(node.getId());
+
+				assertEquals(other.getDegree(), node.getDegree());
+				assertEquals(other.getInDegree(), node.getInDegree());
+				assertEquals(other.getOutDegree(), node.getOutDegree());
+				assertEquals(edgeIds(other.getEdgeIterator()),
+						edgeIds(node.getEdgeIterator()));
+				assertEquals(edgeIds(other.getEnteringEdgeIterator()),
+						edgeIds(node.getEnteringEdgeIterator()));
+				assertEquals(edgeIds(other.getLeavingEdgeIterator()),
+						edgeIds(node.getLeavingEdgeIterator()));
+
+				for (Edge edge : node.getEachEdge()) {
+					Edge otherEdge = expected.getEdge(edge.getId());
+
+					assertEquals(otherEdge.getSourceNode().getId(), edge
+							.getSourceNode().getId());
+					assertEquals(otherEdge.getTargetNode().getId(), edge
+							.getTargetNode().getId());
+				}
+			}
+		}
+	}
+
+	protected HashSet<String> edgeIds(Iterator<? extends Edge> edges) {
+		HashSet<String> ids = new HashSet<String>();
+
+		while (edges.hasNext())
+			ids.add(edges.next().getId());
+
+		return ids;
+	}
+
 	@Test
 	public void testGraphListener() {
 		testGraphListener(new SingleGraph("sg"));
@@ -667,6 +755,8 @@ public class TestGraph {
 		testGraphListener(new AdjacencyListGraph("AL")); // XXX
 		testGraphListener(new SingleGraph("S")); // XXX
 		testGraphListener(new MultiGraph("M")); // XXX
+		testGraphListener(new CompactGraph("CG"));
+		testGraphListener(new ConcurrentGraph("CC"));
 	}
 
 	protected void testGraphListener(Graph input) {
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AttributeColumn;
+import org.graphstream.graph.implementations.MappedGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMappedGraph {
+	protected File directory;
+	protected MappedGraph graph;
+	protected int next;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("graph", "");
+		directory.delete();
+		graph = new MappedGraph("g", directory);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		graph.close();
+
+		for (File file : directory.listFiles())
+			file.delete();
+
+		directory.delete();
+	}
+
+	protected MappedGraph reopen() throws IOException {
+		graph.close();
+		graph = new MappedGraph("g", directory);
+		return graph;
+	}
+
+	/**
+	 * Applies the same random changes to the mapped graph and to a reference
+	 * graph, including loops, multiple edges and removals of hubs.
+	 */
+	protected void randomChanges(Graph reference, Random random, int count) {
+		for (int i = 0; i < count; i++) {
+			int action = random.nextInt(10);
+			int n = reference.getNodeCount();
+
+			if (action < 2 || n < 2) {
+				String id = "n" + next++;
+				reference.addNode(id);
+				graph.addNode(id);
+			} else if (action < 8) {
+				// node 0 tends to be a hub
+				String src = random.nextInt(4) == 0 ? reference.getNode(0)
+						.getId() : reference.getNode(random.nextInt(n)).getId();
+				String dst = reference.getNode(random.nextInt(n)).getId();
+				String id = "e" + next++;
+				boolean directed = random.nextBoolean();
+
+				reference.addEdge(id, src, dst, directed);
+				graph.addEdge(id, src, dst, directed);
+			} else if (action < 9 && reference.getEdgeCount() > 0) {
+				String id = reference
+						.getEdge(random.nextInt(reference.getEdgeCount()))
+						.getId();
+				reference.removeEdge(id);
+				graph.removeEdge(id);
+			} else {
+				String id = reference.getNode(random.nextInt(n)).getId();
+				reference.removeNode(id);
+				graph.removeNode(id);
+			}
+		}
+	}
+
+	protected void checkSameTopology(Graph reference) {
+		assertEquals(reference.getNodeCount(), graph.getNodeCount());
+		assertEquals(reference.getEdgeCount(), graph.getEdgeCount());
+
+		for (Node expected : reference) {
+			Node node = graph.getNode(expected.getId());
+
+			assertEquals(expected.getDegree(), node.getDegree());
+			assertEquals(expected.getInDegree(), node.getInDegree());
+			assertEquals(expected.getOutDegree(), node.getOutDegree());
+			assertEquals(incidence(expected, 0), incidence(node, 0));
+			assertEquals(incidence(expected, 1), incidence(node, 1));
+			assertEquals(incidence(expected, 2), incidence(node, 2));
+		}
+
+		for (Edge expected : reference.getEachEdge()) {
+			Edge edge = graph.getEdge(expected.getId());
+
+			assertEquals(expected.isDirected(), edge.isDirected());
+			assertEquals(expected.getSourceNode().getId(), edge.getSourceNode()
+					.getId());
+			assertEquals(expected.getTargetNode().getId(), edge.getTargetNode()
+					.getId());
+			assertEquals(expected.isLoop(), edge.isLoop());
+		}
+
+		for (int i = 0; i < graph.getNodeCount(); i++)
+			assertEquals(i, graph.getNode(i).getIndex());
+
+		for (int i = 0; i < graph.getEdgeCount(); i++) {
+			Edge edge = graph.getEdge(i);
+
+			assertEquals(i, edge.getIndex());
+			assertEquals(edge.getSourceNode().getIndex(),
+					graph.getSourceIndex(i));
+			assertEquals(edge.getTargetNode().getIndex(),
+					graph.getTargetIndex(i));
+		}
+	}
+
+	/**
+	 * Sorted identifiers of the edges and opposite nodes of a node: all the
+	 * edges, the entering ones or the leaving ones.
+	 */
+	protected List<String> incidence(Node node, int kind) {
+		List<String> list = new ArrayList<String>();
+		Iterable<Edge> edges = kind == 0 ? node.getEachEdge()
+				: kind == 1 ? node.getEachEnteringEdge() : node
+						.getEachLeavingEdge();
+
+		for (Edge e : edges)
+			list.add(e.getId() + ":" + e.getOpposite(node).getId());
+
+		Collections.sort(list);
+		return list;
+	}
+
+	@Test
+	public void testTopology() {
+		Graph reference = new MultiGraph("reference");
+		Random random = new Random(1);
+
+		randomChanges(reference, random, 3000);
+		checkSameTopology(reference);
+
+		Node a = graph.addNode("a");
+		Node b = graph.addNode("b");
+
+		graph.addEdge("ab", "a", "b", true);
+		reference.addNode("a");
+		reference.addNode("b");
+		reference.addEdge("ab", "a", "b", true);
+
+		assertEquals("ab", a.getEdgeToward(b).getId());
+		assertEquals("ab", b.getEdgeFrom(a).getId());
+		assertTrue(a.hasEdgeBetween(b));
+		assertNull(b.getEdgeToward(a));
+		checkSameTopology(reference);
+
+		reference.clear();
+		graph.clear();
+		checkSameTopology(reference);
+
+		randomChanges(reference, random, 1000);
+		checkSameTopology(reference);
+	}
+
+	@Test
+	public void testElementViews() {
+		graph.addNode("a");
+		graph.addNode("b");
+		graph.addNode("c");
+		graph.addEdge("ab", "a", "b");
+
+		Node c = graph.getNode("c");
+		Edge ab = graph.getEdge("ab");
+
+		assertNotSame(c, graph.getNode("c"));
+		assertEquals(c, graph.getNode("c"));
+		assertEquals(c.hashCode(), graph.getNode("c").hashCode());
+		assertEquals(graph.getNode("a"), ab.getOpposite(graph.getNode("b")));
+
+		// c takes the index of a
+		graph.removeNode("a");
+
+		assertEquals(0, c.getIndex());
+		assertEquals(-1, ab.getIndex());
+		assertNull(graph.getEdge("ab"));
+		assertEquals(2, graph.getNodeCount());
+	}
+
+	@Test
+	public void testAttributes() {
+		graph.addNode("a");
+		graph.addNode("b");
+		graph.addEdge("ab", "a", "b");
+
+		graph.getNode("a").addAttribute("x", 1.5);
+		graph.getNode("a").addAttribute("n", 3);
+		graph.getNode("b").addAttribute("label", "B");
+		graph.getEdge("ab").addAttribute("weight", 2L);
+
+		assertEquals(AttributeColumn.Type.DOUBLE, graph.getNodeColumn("x")
+				.getType());
+		assertEquals(AttributeColumn.Type.INT, graph.getNodeColumn("n")
+				.getType());
+		assertEquals(AttributeColumn.Type.LONG, graph.getEdgeColumn("weight")
+				.getType());
+		assertNull(graph.getNodeColumn("label"));
+
+		// attributes are shared by all the objects of an element
+		assertEquals(1.5, graph.getNode("a").getNumber("x"), 0);
+		assertEquals("B", graph.getNode("b").getAttribute("label"));
+		assertFalse(graph.getNode("b").hasAttribute("x"));
+
+		graph.getNode("b").addAttribute("x", 2.5);
+		graph.removeNode("a");
+
+		assertEquals(2.5, graph.getNode("b").getNumber("x"), 0);
+		assertEquals(0, graph.getEdgeCount());
+
+		graph.removeNodeColumn("x");
+
+		assertEquals(2.5, graph.getNode("b").getNumber("x"), 0);
+	}
+
+	@Test
+	public void testRemovalWithoutValues() {
+		graph.addNode("a").addAttribute("x", 1.5);
+
+		// nodes without value lie beyond the mapped values
+		for (int i = 0; i < 10000; i++)
+			graph.addNode("" + i);
+
+		graph.removeNode("a");
+
+		assertEquals(10000, graph.getNodeCount());
+		assertFalse(graph.getNodeColumn("x").isSet(0));
+		assertNull(graph.getNode(0).getAttribute("x"));
+		assertEquals("9999", graph.getNode(0).getId());
+	}
+
+	@Test
+	public void testReopen() throws IOException {
+		Graph reference = new MultiGraph("reference");
+		Random random = new Random(2);
+
+		randomChanges(reference, random, 2000);
+
+		for (Node node : graph)
+			node.addAttribute("degree", node.getDegree());
+
+		graph.getNode(0).addAttribute("label", "not saved");
+		graph.getEdge(0).addAttribute("weight", 0.25);
+
+		String first = graph.getEdge(0).getId();
+
+		reopen();
+		checkSameTopology(reference);
+
+		for (Node node : graph)
+			assertEquals(node.getDegree(), (int) node.getNumber("degree"));
+
+		assertFalse(graph.getNode(0).hasAttribute("label"));
+		assertEquals(0.25, graph.getEdge(first).getNumber("weight"), 0);
+
+		// the reopened graph can be modified and reopened again
+		randomChanges(reference, random, 2000);
+		graph.getNode(0).addAttribute("degree", -1);
+
+		String id = graph.getNode(0).getId();
+
+		reopen();
+		checkSameTopology(reference);
+		assertEquals(-1, (int) graph.getNode(id).getNumber("degree"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAGraph() throws IOException {
+		File file = new File(directory, "graph.hdr");
+
+		graph.close();
+		file.delete();
+
+		java.io.FileOutputStream out = new java.io.FileOutputStream(file);
+		out.write(new byte[] { 1, 2, 3, 4 });
+		out.close();
+
+		graph = new MappedGraph("g", directory);
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.MultiNode;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.junit.Test;
+
+/**
+ * Edge lookups on nodes whose degree goes above and below the threshold of
+ * the edge index.
+ */
+public class TestNeighborIndex {
+	static final int N = 200;
+
+	protected void buildStar(Graph graph) {
+		graph.addNode("hub");
+
+		for (int i = 0; i < N; i++) {
+			graph.addNode("n" + i);
+
+			// alternate entering, leaving and undirected edges
+			if (i % 3 == 0)
+				graph.addEdge("e" + i, "n" + i, "hub", true);
+			else if (i % 3 == 1)
+				graph.addEdge("e" + i, "hub", "n" + i, true);
+			else
+				graph.addEdge("e" + i, "hub", "n" + i);
+		}
+	}
+
+	protected void checkStar(Graph graph, int from) {
+		Node hub = graph.getNode("hub");
+
+		for (int i = from; i < N; i++) {
+			Node n = graph.getNode("n" + i);
+			Edge e = graph.getEdge("e" + i);
+
+			assertTrue(hub.getEdgeBetween(n) == e);
+			assertTrue(n.getEdgeBetween(hub) == e);
+			assertTrue(hub.getEdgeFrom(n) == (i % 3 != 1 ? e : null));
+			assertTrue(hub.getEdgeToward(n) == (i % 3 != 0 ? e : null));
+		}
+
+		Iterator<Node> it = hub.getNeighborNodeIterator();
+		HashSet<Node> neighbors = new HashSet<Node>();
+
+		while (it.hasNext())
+			assertTrue(neighbors.add(it.next()));
+
+		assertEquals(N - from, neighbors.size());
+	}
+
+	@Test
+	public void testSingleGraph() {
+		Graph graph = new SingleGraph("g", false, false);
+		buildStar(graph);
+		checkStar(graph, 0);
+
+		Node hub = graph.getNode("hub");
+		Node n0 = graph.getNode("n0");
+		Node n1 = graph.getNode("n1");
+
+		// one edge in each direction at most
+		assertNull(graph.addEdge("x", "hub", "n1"));
+		assertNull(graph.addEdge("x", "n0", "hub", true));
+		assertTrue(graph.addEdge("x", "hub", "n0", true) != null);
+		assertTrue(hub.getEdgeToward(n0) == graph.getEdge("x"));
+		assertTrue(hub.getEdgeFrom(n0) == graph.getEdge("e0"));
+		assertTrue(hub.getEdgeBetween(n0) == graph.getEdge("e0"));
+		assertNull(hub.getEdgeFrom(n1));
+
+		graph.removeEdge("x");
+
+		// go below the threshold, the node scans its edges again
+		for (int i = 0; i < N - 5; i++)
+			graph.removeNode("n" + i);
+
+		checkStar(graph, N - 5);
+		assertFalse(hub.hasEdgeBetween("n0"));
+
+		for (int i = 0; i < N - 5; i++)
+			graph.addEdge("e" + i, graph.addNode("n" + i).getId(), "hub");
+
+		assertEquals(N, hub.getDegree());
+		assertTrue(hub.getEdgeBetween("n3") == graph.getEdge("e3"));
+	}
+
+	@Test
+	public void testMultiGraph() {
+		Graph graph = new MultiGraph("g");
+		buildStar(graph);
+		checkStar(graph, 0);
+
+		MultiNode hub = graph.getNode("hub");
+
+		for (int i = 0; i < 10; i++)
+			graph.addEdge("p" + i, "hub", "n5");
+
+		assertEquals(11, hub.getEdgeSetBetween("n5").size());
+		assertEquals(1, hub.getEdgeSetBetween("n6").size());
+		assertEquals(0, hub.getEdgeSetBetween("hub").size());
+
+		graph.addEdge("loop", "hub", "hub");
+		assertTrue(hub.getEdgeBetween(hub) == graph.getEdge("loop"));
+		assertEquals(1, hub.getEdgeSetBetween("hub").size());
+
+		for (int i = 0; i < 10; i++)
+			graph.removeEdge("p" + i);
+
+		graph.removeEdge("loop");
+		assertEquals(1, hub.getEdgeSetBetween("n5").size());
+		checkStar(graph, 0);
+
+		for (int i = 0; i < N - 5; i++)
+			graph.removeNode("n" + i);
+
+		checkStar(graph, N - 5);
+	}
+
+	@Test
+	public void testAdjacencyListGraph() {
+		AdjacencyListGraph graph = new AdjacencyListGraph("g");
+		buildStar(graph);
+		checkStar(graph, 0);
+
+		// edges move inside the partitions, the index does not depend on it
+		graph.reorder(AbstractGraph.Ordering.REVERSE_CUTHILL_MCKEE);
+		checkStar(graph, 0);
+
+		// removing through the iterator of the hub updates its index
+		Node hub = graph.getNode("hub");
+		Iterator<Edge> it = hub.getEdgeIterator();
+
+		while (it.hasNext()) {
+			String id = it.next().getId();
+
+			if (id.equals("e0") || id.equals("e1"))
+				it.remove();
+		}
+
+		assertNull(hub.getEdgeBetween("n0"));
+		assertNull(hub.getEdgeBetween("n1"));
+		assertNull(graph.getNode("n1").getEdgeBetween(hub));
+		checkStar(graph, 2);
+
+		for (int i = 0; i < N - 5; i++)
+			graph.removeNode("n" + i);
+
+		checkStar(graph, N - 5);
+	}
+
+	@Test
+	public void testBulkInsertion() {
+		Graph graph = new SingleGraph("g");
+		String[] ids = new String[N], from = new String[N], to = new String[N];
+
+		graph.addNode("hub");
+
+		for (int i = 0; i < N; i++) {
+			graph.addNode("n" + i);
+			ids[i] = "e" + i;
+			from[i] = "n" + i;
+			to[i] = "hub";
+		}
+
+		graph.addEdges(ids, from, to, false);
+
+		Node hub = graph.getNode("hub");
+
+		for (int i = 0; i < N; i++)
+			assertTrue(hub.getEdgeBetween("n" + i) == graph.getEdge("e" + i));
+	}
+
+	@Test
+	public void testForeignNode() {
+		MultiGraph graph = new MultiGraph("g");
+		buildStar(graph);
+
+		// graphic nodes do not share the implementation of the hub
+		GraphicGraph other = new GraphicGraph("gg");
+		Node n = other.addNode("n0");
+		MultiNode hub = graph.getNode("hub");
+
+		assertNull(hub.getEdgeBetween(n));
+		assertNull(hub.getEdgeFrom(n));
+		assertNull(hub.getEdgeToward(n));
+		assertTrue(hub.getEdgeSetBetween(n).isEmpty());
+	}
+}
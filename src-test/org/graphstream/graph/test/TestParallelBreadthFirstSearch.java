@@ -0,0 +1,166 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.BreadthFirstIterator;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.ParallelBreadthFirstSearch;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+public class TestParallelBreadthFirstSearch {
+	static ForkJoinPool pool = new ForkJoinPool(4);
+
+	/**
+	 * Random graph with a few hubs, so that the search goes bottom-up for some
+	 * levels, and some isolated nodes.
+	 */
+	protected Graph randomGraph(Graph graph, int nodeCount, int edgeCount,
+			boolean directed) {
+		Random random = new Random(nodeCount);
+
+		for (int i = 0; i < nodeCount; i++)
+			graph.addNode("n" + i);
+
+		for (int i = 0; i < edgeCount; i++) {
+			int a = random.nextInt(nodeCount - 10);
+			int b = random.nextInt(10) == 0 ? random.nextInt(10) : random
+					.nextInt(nodeCount - 10);
+			graph.addEdge("e" + i, "n" + a, "n" + b, directed);
+		}
+
+		return graph;
+	}
+
+	protected void checkSameDepths(Graph graph, Node start, boolean directed,
+			boolean optimizing) {
+		BreadthFirstIterator<Node> it = new BreadthFirstIterator<Node>(start,
+				directed);
+		int count = 0;
+
+		while (it.hasNext()) {
+			it.next();
+			count++;
+		}
+
+		ParallelBreadthFirstSearch bfs = new ParallelBreadthFirstSearch(start,
+				directed, pool);
+		bfs.setDirectionOptimizing(optimizing);
+		bfs.compute();
+
+		for (Node node : graph)
+			assertEquals(it.getDepthOf(node), bfs.getDepthOf(node));
+
+		assertEquals(it.getDepthMax(), bfs.getDepthMax());
+		assertEquals(count, bfs.getReachedNodeCount());
+
+		if (!optimizing)
+			assertEquals(0, bfs.getBottomUpLevelCount());
+
+		// nodes come by increasing depth
+		Iterator<Node> nodes = bfs.getNodeIterator();
+		int last = 0;
+
+		while (nodes.hasNext()) {
+			int d = bfs.getDepthOf(nodes.next());
+			assertTrue(d == last || d == last + 1);
+			last = d;
+			count--;
+		}
+
+		assertEquals(0, count);
+	}
+
+	@Test
+	public void testSameDepths() {
+		Graph undirected = randomGraph(new MultiGraph("u"), 20000, 60000,
+				false);
+		Graph directed = randomGraph(new MultiGraph("d"), 20000, 60000, true);
+
+		for (int i = 0; i < 3; i++) {
+			Node start = undirected.getNode(i * 1000);
+			checkSameDepths(undirected, start, false, true);
+			checkSameDepths(undirected, start, false, false);
+
+			start = directed.getNode(i * 1000);
+			checkSameDepths(directed, start, true, true);
+			checkSameDepths(directed, start, true, false);
+			checkSameDepths(directed, start, false, true);
+		}
+
+		ParallelBreadthFirstSearch bfs = new ParallelBreadthFirstSearch(
+				undirected.getNode(0), false, pool);
+		bfs.compute();
+		assertTrue(bfs.getBottomUpLevelCount() > 0);
+	}
+
+	@Test
+	public void testSmallGraph() {
+		Graph graph = new SingleGraph("g");
+
+		graph.addNode("A");
+		graph.addNode("B");
+		graph.addNode("C");
+		graph.addNode("D");
+		graph.addEdge("AB", "A", "B", true);
+		graph.addEdge("BC", "B", "C", true);
+		graph.addEdge("DA", "D", "A", true);
+
+		ParallelBreadthFirstSearch bfs = new ParallelBreadthFirstSearch(
+				graph.getNode("A"));
+		bfs.compute();
+
+		assertEquals(0, bfs.getDepthOf(graph.getNode("A")));
+		assertEquals(1, bfs.getDepthOf(graph.getNode("B")));
+		assertEquals(2, bfs.getDepthOf(graph.getNode("C")));
+		assertEquals(-1, bfs.getDepthOf(graph.getNode("D")));
+		assertFalse(bfs.tabu(graph.getNode("D")));
+		assertEquals(2, bfs.getDepthMax());
+		assertEquals(3, bfs.getReachedNodeCount());
+
+		bfs = new ParallelBreadthFirstSearch(graph.getNode("A"), false);
+		bfs.compute();
+
+		assertEquals(1, bfs.getDepthOf(graph.getNode("D")));
+		assertEquals(4, bfs.getReachedNodeCount());
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.graphstream.graph.implementations.AbstractGraph.Ordering;
+import org.graphstream.graph.implementations.AttributeColumn;
+import org.graphstream.graph.implementations.CompactGraph;
+import org.graphstream.graph.implementations.ConcurrentGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.graph.implementations.SnapshotRecorder;
+import org.junit.Test;
+
+public class TestReorder {
+	static final int SIDE = 30;
+
+	/**
+	 * A grid whose nodes and edges are inserted in random order.
+	 */
+	protected AbstractGraph grid(AbstractGraph graph) {
+		List<String> ids = new ArrayList<String>();
+		Random random = new Random(1);
+
+		for (int i = 0; i < SIDE * SIDE; i++)
+			ids.add(Integer.toString(i));
+
+		Collections.shuffle(ids, random);
+
+		for (String id : ids)
+			graph.addNode(id);
+
+		List<int[]> links = new ArrayList<int[]>();
+
+		for (int i = 0; i < SIDE * SIDE; i++) {
+			if (i % SIDE < SIDE - 1)
+				links.add(new int[] { i, i + 1 });
+			if (i + SIDE < SIDE * SIDE)
+				links.add(new int[] { i, i + SIDE });
+		}
+
+		Collections.shuffle(links, random);
+
+		for (int[] link : links)
+			graph.addEdge(link[0] + "-" + link[1], Integer.toString(link[0]),
+					Integer.toString(link[1]), link[0] % 3 == 0);
+
+		return graph;
+	}
+
+	protected static int bandwidth(Graph graph) {
+		int bandwidth = 0;
+
+		for (Edge e : graph.getEachEdge())
+			bandwidth = Math.max(bandwidth, Math.abs(e.getSourceNode()
+					.getIndex() - e.getTargetNode().getIndex()));
+
+		return bandwidth;
+	}
+
+	@Test
+	public void testReorder() {
+		for (Ordering ordering : Ordering.values()) {
+			testReorder(new SingleGraph("S"), ordering);
+			testReorder(new MultiGraph("M"), ordering);
+			testReorder(new CompactGraph("C"), ordering);
+			testReorder(new ConcurrentGraph("CC"), ordering);
+		}
+	}
+
+	protected void testReorder(AbstractGraph graph, Ordering ordering) {
+		grid(graph);
+
+		// concurrent graphs do not support columns
+		boolean columns = !(graph instanceof ConcurrentGraph);
+		AttributeColumn x = columns ? graph.addNodeColumn("x",
+				AttributeColumn.Type.INT) : null;
+		AttributeColumn w = columns ? graph.addEdgeColumn("w",
+				AttributeColumn.Type.DOUBLE) : null;
+		Map<String, String> structure = new HashMap<String, String>();
+
+		Map<String, String> degrees = new HashMap<String, String>();
+
+		for (Node n : graph) {
+			n.setAttribute("x", Integer.parseInt(n.getId()));
+			n.setAttribute("label", "n" + n.getId());
+			degrees.put(n.getId(), n.getDegree() + " " + n.getInDegree() + " "
+					+ n.getOutDegree());
+		}
+
+		for (Edge e : graph.getEachEdge()) {
+			e.setAttribute("w", e.getId().length() + 0.5);
+			structure.put(e.getId(), e.getSourceNode().getId() + " "
+					+ e.getTargetNode().getId() + " " + e.isDirected());
+		}
+
+		int before = bandwidth(graph);
+		graph.reorder(ordering);
+
+		assertEquals(SIDE * SIDE, graph.getNodeCount());
+		assertEquals(structure.size(), graph.getEdgeCount());
+
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			Node n = graph.getNode(i);
+
+			assertEquals(i, n.getIndex());
+			assertSame(n, graph.getNode(n.getId()));
+			assertEquals(Integer.parseInt(n.getId()), (int) n.getNumber("x"));
+			assertEquals("n" + n.getId(), n.getAttribute("label"));
+
+			if (columns)
+				assertEquals(Integer.parseInt(n.getId()), x.getInt(i));
+			assertEquals(degrees.get(n.getId()), (Object) (n.getDegree()
+					+ " " + n.getInDegree() + " " + n.getOutDegree()));
+
+			for (Edge e : n.getEachEdge())
+				assertTrue(e.getSourceNode() == n || e.getTargetNode() == n);
+		}
+
+		for (int i = 0; i < graph.getEdgeCount(); i++) {
+			Edge e = graph.getEdge(i);
+
+			assertEquals(i, e.getIndex());
+			assertEquals(structure.get(e.getId()), e.getSourceNode().getId()
+					+ " " + e.getTargetNode().getId() + " " + e.isDirected());
+			assertEquals(e.getId().length() + 0.5, e.getNumber("w"), 0);
+
+			if (columns)
+				assertEquals(e.getId().length() + 0.5, w.getDouble(i), 0);
+			assertEquals(e.getId(), ((Edge) graph.getEdge(e.getId())).getId());
+		}
+
+		if (ordering != Ordering.DEGREE)
+			assertTrue(graph.getClass() + " " + ordering + " " + before
+					+ " -> " + bandwidth(graph),
+					bandwidth(graph) <= 2 * SIDE && before > 4 * SIDE);
+
+		// the graph is still consistent after changes
+		for (int i = 0; i < SIDE; i++)
+			graph.removeNode(Integer.toString(i * SIDE));
+
+		assertEquals(SIDE * SIDE - SIDE, graph.getNodeCount());
+
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			Node n = graph.getNode(i);
+			assertEquals(i, n.getIndex());
+			assertEquals(Integer.parseInt(n.getId()), (int) n.getNumber("x"));
+		}
+
+		for (int i = 0; i < graph.getEdgeCount(); i++)
+			assertEquals(i, graph.getEdge(i).getIndex());
+	}
+
+	@Test
+	public void testNeighborOrder() {
+		SingleGraph graph = new SingleGraph("g");
+		grid(graph);
+		graph.reorder(Ordering.REVERSE_CUTHILL_MCKEE);
+
+		for (Node n : graph) {
+			int previous = -1;
+			int undirected = 0;
+
+			for (Edge e : n.getEachEdge()) {
+				if (e.isDirected())
+					continue;
+
+				int index = e.getOpposite(n).getIndex();
+
+				assertTrue(undirected++ == 0 || index > previous);
+				previous = index;
+			}
+		}
+	}
+
+	@Test
+	public void testOrder() {
+		SingleGraph graph = new SingleGraph("g");
+		graph.addNode("a");
+		graph.addNode("b");
+		graph.addNode("c");
+		graph.addEdge("ab", "a", "b");
+
+		graph.reorder(new int[] { 2, 0, 1 });
+
+		assertEquals("c", graph.getNode(0).getId());
+		assertEquals("a", graph.getNode(1).getId());
+		assertEquals("b", graph.getNode(2).getId());
+
+		graph.reorder(Ordering.DEGREE);
+
+		assertEquals("c", graph.getNode(2).getId());
+
+		for (int[] order : new int[][] { { 0, 1 }, { 0, 1, 1 },
+				{ 0, 1, 3 } }) {
+			try {
+				graph.reorder(order);
+				fail();
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testListeners() {
+		MultiGraph graph = new MultiGraph("g");
+		grid(graph);
+
+		SnapshotRecorder recorder = new SnapshotRecorder(graph);
+		Graph before = recorder.snapshot();
+		final int[] calls = new int[1];
+
+		graph.addIndexListener(new AbstractGraph.IndexListener() {
+			public void indicesChanged(AbstractGraph g, int[] nodeOrder,
+					int[] edgeOrder) {
+				assertEquals(g.getNodeCount(), nodeOrder.length);
+				assertEquals(g.getEdgeCount(), edgeOrder.length);
+				calls[0]++;
+			}
+		});
+
+		int[] order = new int[graph.getNodeCount()];
+
+		for (int i = 0; i < order.length; i++)
+			order[i] = order.length - 1 - i;
+
+		String first = graph.getNode(0).getId();
+		graph.reorder(order);
+
+		assertEquals(1, calls[0]);
+		assertEquals(first, graph.getNode(order.length - 1).getId());
+		assertEquals(first, before.getNode(0).getId());
+
+		Graph after = recorder.snapshot();
+
+		for (int i = 0; i < graph.getNodeCount(); i++)
+			assertEquals(graph.getNode(i).getId(), after.getNode(i).getId());
+
+		for (int i = 0; i < graph.getEdgeCount(); i++)
+			assertEquals(graph.getEdge(i).getId(), after.getEdge(i).getId());
+
+		// the recorder still follows the graph
+		graph.removeNode(first);
+		after = recorder.snapshot();
+
+		for (int i = 0; i < graph.getNodeCount(); i++)
+			assertEquals(graph.getNode(i).getId(), after.getNode(i).getId());
+
+		try {
+			((AbstractGraph) after).reorder(Ordering.DEGREE);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+import org.graphstream.graph.ShortestPaths;
+import org.graphstream.graph.implementations.AttributeColumn;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+public class TestShortestPaths {
+	/**
+	 * A random multigraph with directed and undirected edges, integer and
+	 * double weights, some edges without weight and some loops.
+	 */
+	protected Graph randomGraph(int n, int m, long seed) {
+		Graph graph = new MultiGraph("random");
+		Random random = new Random(seed);
+
+		for (int i = 0; i < n; i++)
+			graph.addNode(Integer.toString(i));
+
+		for (int i = 0; i < m; i++) {
+			Edge edge = graph.addEdge(Integer.toString(i),
+					random.nextInt(n), random.nextInt(n), random.nextBoolean());
+
+			switch (random.nextInt(3)) {
+			case 0:
+				edge.addAttribute("w", random.nextInt(10));
+				break;
+			case 1:
+				edge.addAttribute("w", random.nextDouble() * 10);
+				break;
+			}
+		}
+
+		return graph;
+	}
+
+	protected static double weight(Edge edge) {
+		return edge.hasNumber("w") ? edge.getNumber("w") : 1;
+	}
+
+	/**
+	 * Distances from a node, with a quadratic Dijkstra on the element objects.
+	 */
+	protected double[] reference(Graph graph, Node source, boolean directed) {
+		int n = graph.getNodeCount();
+		double[] dist = new double[n];
+		boolean[] done = new boolean[n];
+
+		java.util.Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		dist[source.getIndex()] = 0;
+
+		for (int step = 0; step < n; step++) {
+			int u = -1;
+
+			for (int v = 0; v < n; v++)
+				if (!done[v] && (u < 0 || dist[v] < dist[u]))
+					u = v;
+
+			if (dist[u] == Double.POSITIVE_INFINITY)
+				break;
+
+			done[u] = true;
+			Node node = graph.getNode(u);
+			Iterable<Edge> edges = directed ? node.getEachLeavingEdge() : node
+					.getEachEdge();
+
+			for (Edge e : edges) {
+				int v = e.getOpposite(node).getIndex();
+				dist[v] = Math.min(dist[v], dist[u] + weight(e));
+			}
+		}
+
+		return dist;
+	}
+
+	/**
+	 * Checks that a path goes from source to target through adjacent nodes
+	 * and has the expected length.
+	 */
+	protected void checkPath(Path path, Node source, Node target,
+			double expected, boolean directed) {
+		List<Node> nodes = path.getNodePath();
+		List<Edge> edges = path.getEdgePath();
+		double length = 0;
+
+		assertEquals(source, path.getRoot());
+		assertEquals(target, nodes.get(nodes.size() - 1));
+		assertEquals(nodes.size(), edges.size() + 1);
+
+		for (int k = 0; k < edges.size(); k++) {
+			Edge e = edges.get(k);
+			Node from = nodes.get(k), to = nodes.get(k + 1);
+
+			if (directed && e.isDirected())
+				assertTrue(e.getSourceNode() == from && e.getTargetNode() == to);
+			else
+				assertEquals(to, e.getOpposite(from));
+
+			length += weight(e);
+		}
+
+		assertEquals(expected, length, 1e-9);
+	}
+
+	protected void checkAllAlgorithms(Graph graph, boolean directed) {
+		ShortestPaths paths = new ShortestPaths(graph, "w", directed);
+		Random random = new Random(3);
+
+		for (int q = 0; q < 20; q++) {
+			Node source = graph.getNode(random.nextInt(graph.getNodeCount()));
+			double[] expected = reference(graph, source, directed);
+
+			for (int r = 0; r < 10; r++) {
+				Node target = graph.getNode(random.nextInt(graph
+						.getNodeCount()));
+				double d = expected[target.getIndex()];
+
+				Path dijkstra = paths.dijkstra(source, target);
+				assertEquals(d, paths.getDistance(), 1e-9);
+				Path bidirectional = paths.bidirectional(source, target);
+				assertEquals(d, paths.getDistance(), 1e-9);
+				Path aStar = paths.aStar(source, target, (v, t) -> 0);
+				assertEquals(d, paths.getDistance(), 1e-9);
+
+				if (d == Double.POSITIVE_INFINITY) {
+					assertNull(dijkstra);
+					assertNull(bidirectional);
+					assertNull(aStar);
+				} else {
+					checkPath(dijkstra, source, target, d, directed);
+					checkPath(bidirectional, source, target, d, directed);
+					checkPath(aStar, source, target, d, directed);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testUndirected() {
+		checkAllAlgorithms(randomGraph(200, 400, 1), false);
+	}
+
+	@Test
+	public void testDirected() {
+		// sparse enough to have unreachable targets
+		checkAllAlgorithms(randomGraph(200, 300, 2), true);
+	}
+
+	@Test
+	public void testColumnAndRefresh() {
+		Graph graph = randomGraph(100, 300, 4);
+		ShortestPaths paths = new ShortestPaths(graph, "w", false);
+		Node a = graph.getNode(0), b = graph.getNode(50);
+
+		paths.dijkstra(a, b);
+		double before = paths.getDistance();
+
+		((MultiGraph) graph).addEdgeColumn("w", AttributeColumn.Type.DOUBLE);
+		paths.refresh();
+		paths.dijkstra(a, b);
+		assertEquals(before, paths.getDistance(), 1e-9);
+
+		Edge shortcut = graph.addEdge("shortcut", a, b);
+		shortcut.addAttribute("w", 0);
+		paths.refresh();
+
+		Path path = paths.bidirectional(a, b);
+		assertEquals(0, paths.getDistance(), 0);
+		assertEquals(1, path.getEdgePath().size());
+		assertEquals(shortcut, path.getEdgePath().get(0));
+	}
+
+	@Test
+	public void testAStarOnGrid() {
+		int side = 40;
+		Graph graph = new SingleGraph("grid");
+		double[] x = new double[side * side], y = new double[side * side];
+		Random random = new Random(5);
+
+		for (int i = 0; i < side * side; i++) {
+			graph.addNode(Integer.toString(i));
+			x[i] = i % side + random.nextDouble() * 0.5;
+			y[i] = i / side + random.nextDouble() * 0.5;
+		}
+
+		for (int i = 0; i < side * side; i++) {
+			int[] next = { i % side < side - 1 ? i + 1 : -1,
+					i + side < side * side ? i + side : -1 };
+
+			for (int j : next) {
+				if (j < 0)
+					continue;
+
+				Edge e = graph.addEdge(i + "-" + j, i, j);
+				e.addAttribute("w", Math.hypot(x[i] - x[j], y[i] - y[j]));
+			}
+		}
+
+		ShortestPaths paths = new ShortestPaths(graph, "w", false);
+		ShortestPaths.Heuristic euclidean = (v, t) -> Math.hypot(x[v] - x[t],
+				y[v] - y[t]);
+		Node source = graph.getNode(0);
+		Node target = graph.getNode(side * side - 1);
+
+		paths.dijkstra(source, target);
+		double d = paths.getDistance();
+		int dijkstraSettled = paths.getSettledCount();
+
+		Path path = paths.aStar(source, target, euclidean);
+		assertNotNull(path);
+		assertEquals(d, paths.getDistance(), 1e-9);
+		checkPath(path, source, target, d, false);
+		assertTrue(paths.getSettledCount() < dijkstraSettled);
+
+		paths.bidirectional(source, target);
+		assertEquals(d, paths.getDistance(), 1e-9);
+	}
+
+	@Test
+	public void testSameNodeAndUnitWeights() {
+		Graph graph = new SingleGraph("line");
+
+		graph.addNode("a");
+		graph.addNode("b");
+		graph.addNode("c");
+		graph.addEdge("ab", "a", "b", true);
+		graph.addEdge("bc", "b", "c", true);
+
+		ShortestPaths paths = new ShortestPaths(graph, null, true);
+		Node a = graph.getNode("a"), c = graph.getNode("c");
+
+		Path path = paths.bidirectional(a, a);
+		assertEquals(1, path.size());
+		assertEquals(0, paths.getDistance(), 0);
+
+		paths.dijkstra(a, c);
+		assertEquals(2, paths.getDistance(), 0);
+		assertNull(paths.dijkstra(c, a));
+		assertNull(paths.bidirectional(c, a));
+		assertEquals(Double.POSITIVE_INFINITY, paths.getDistance(), 0);
+
+		paths = new ShortestPaths(graph);
+		assertEquals("[c, b, a]", paths.bidirectional(c, a).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeWeight() {
+		Graph graph = new SingleGraph("negative");
+
+		graph.addNode("a");
+		graph.addNode("b");
+		graph.addEdge("ab", "a", "b").addAttribute("w", -1);
+
+		new ShortestPaths(graph, "w", false);
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.Graphs;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SnapshotRecorder;
+import org.junit.Test;
+
+public class TestSnapshotGraph {
+	@Test
+	public void testUnmutableGraph() {
+		Graph graph = new MultiGraph("g");
+
+		graph.addAttribute("title", "test");
+		graph.addNode("A").addAttribute("x", 1);
+		graph.addNode("B");
+		graph.addEdge("AB", "A", "B", true).addAttribute("w", 2.0);
+		graph.addEdge("BB", "B", "B");
+
+		Graph copy = Graphs.unmutableGraph(graph);
+		assertSameGraph(graph, copy);
+
+		Node a = copy.getNode("A");
+		assertTrue(a.getEdgeToward("B") == copy.getEdge("AB"));
+		assertNull(a.getEdgeFrom("B"));
+		assertTrue(copy.getEdge("AB").getOpposite(a) == copy.getNode("B"));
+
+		try {
+			copy.addNode("C");
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		try {
+			a.addAttribute("x", 2);
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		// the copy does not follow the graph
+		graph.removeNode("A");
+		assertEquals(2, copy.getNodeCount());
+	}
+
+	@Test
+	public void testSnapshots() {
+		Graph graph = new MultiGraph("g", false, true);
+		SnapshotRecorder recorder = new SnapshotRecorder(graph);
+		List<Graph> snapshots = new ArrayList<Graph>();
+		List<Graph> copies = new ArrayList<Graph>();
+		Random random = new Random(7);
+
+		for (int step = 0; step < 50; step++) {
+			for (int i = 0; i < 40; i++) {
+				String n1 = "" + random.nextInt(60);
+				String n2 = "" + random.nextInt(60);
+
+				switch (random.nextInt(6)) {
+				case 0:
+					if (graph.getNode(n1) != null)
+						graph.removeNode(n1);
+					break;
+				case 1:
+					if (graph.getEdgeCount() > 0)
+						graph.removeEdge(random.nextInt(graph.getEdgeCount()));
+					break;
+				case 2:
+					if (graph.getNode(n1) != null)
+						graph.getNode(n1).addAttribute("value", i);
+					break;
+				case 3:
+					if (graph.getEdgeCount() > 0)
+						graph.getEdge(random.nextInt(graph.getEdgeCount()))
+								.addAttribute("value", step);
+					break;
+				default:
+					graph.addEdge(n1 + "-" + n2 + "-" + step + "-" + i, n1,
+							n2, random.nextBoolean());
+				}
+			}
+
+			graph.stepBegins(step);
+			snapshots.add(recorder.snapshot());
+			copies.add(Graphs.clone(graph));
+		}
+
+		assertTrue(recorder.snapshot() == recorder.snapshot());
+
+		for (int i = 0; i < snapshots.size(); i++) {
+			assertSameGraph(copies.get(i), snapshots.get(i));
+			assertEquals(i, snapshots.get(i).getStep(), 0);
+		}
+
+		recorder.detach();
+	}
+
+	protected void assertSameGraph(Graph expected, Graph actual) {
+		assertEquals(expected.getNodeCount(), actual.getNodeCount());
+		assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+		assertEquals(expected.getAttributeCount(), actual.getAttributeCount());
+
+		for (int i = 0; i < actual.getNodeCount(); i++)
+			assertEquals(i, actual.getNode(i).getIndex());
+
+		for (Node n : expected) {
+			Node m = actual.getNode(n.getId());
+
+			assertNotNull(m);
+			assertEquals(n.getDegree(), m.getDegree());
+			assertEquals(n.getInDegree(), m.getInDegree());
+			assertEquals(n.getOutDegree(), m.getOutDegree());
+			assertEquals(n.getAttributeCount(), m.getAttributeCount());
+
+			for (String key : n.getAttributeKeySet())
+				assertEquals(n.getAttribute(key), m.getAttribute(key));
+
+			for (Edge e : m.getEachEdge())
+				assertNotNull(n.getEdgeBetween(e.getOpposite(m).getId()));
+		}
+
+		for (Edge e : expected.getEachEdge()) {
+			Edge f = actual.getEdge(e.getId());
+
+			assertNotNull(f);
+			assertEquals(e.isDirected(), f.isDirected());
+			assertEquals(e.getSourceNode().getId(), f.getSourceNode().getId());
+			assertEquals(e.getTargetNode().getId(), f.getTargetNode().getId());
+			assertEquals(e.getAttribute("value"), f.getAttribute("value"));
+			assertNotNull(f.getSourceNode().getEdgeBetween((Node) f.getTargetNode()));
+		}
+	}
+}
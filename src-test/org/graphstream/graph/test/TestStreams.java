@@ -0,0 +1,124 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.CompactGraph;
+import org.graphstream.graph.implementations.ConcurrentGraph;
+import org.graphstream.graph.implementations.Graphs;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+public class TestStreams {
+	static final int N = 1000;
+
+	protected Graph fill(Graph graph) {
+		for (int i = 0; i < N; i++)
+			graph.addNode("n" + i);
+
+		// a directed ring and undirected chords toward node 0
+		for (int i = 0; i < N; i++) {
+			graph.addEdge("r" + i, "n" + i, "n" + ((i + 1) % N), true);
+
+			if (i > 1 && i < N - 1)
+				graph.addEdge("c" + i, "n0", "n" + i);
+		}
+
+		return graph;
+	}
+
+	@Test
+	public void testStreams() {
+		testStreams(fill(new SingleGraph("S")));
+		testStreams(fill(new MultiGraph("M")));
+		testStreams(fill(new CompactGraph("C")));
+		testStreams(fill(new ConcurrentGraph("CC")));
+		testStreams(Graphs.synchronizedGraph(fill(new MultiGraph("SY"))));
+	}
+
+	protected void testStreams(Graph graph) {
+		assertEquals(N, graph.nodes().count());
+		assertEquals(N, graph.nodes().parallel().distinct().count());
+		assertEquals(graph.getEdgeCount(), graph.edges().count());
+		assertEquals(graph.getEdgeCount(), graph.edges().parallel().count());
+		assertEquals(N, graph.edges().filter(e -> e.isDirected()).count());
+
+		// each edge is seen once from each of its nodes
+		assertEquals(2L * graph.getEdgeCount(), graph.nodes().parallel()
+				.mapToLong(n -> n.edges().count()).sum());
+
+		Node n0 = graph.getNode("n0");
+		Node n5 = graph.getNode("n5");
+
+		assertEquals(n0.getDegree(), n0.edges().count());
+		assertEquals(n0.getInDegree(), n0.enteringEdges().count());
+		assertEquals(n0.getOutDegree(), n0.leavingEdges().count());
+		assertEquals(N - 1, n0.neighborNodes().count());
+		assertEquals(3, n5.edges().count());
+		assertEquals(2, n5.enteringEdges().count());
+		assertEquals(2, n5.leavingEdges().count());
+		assertTrue(n5.leavingEdges().map(e -> e.getId())
+				.collect(Collectors.toSet()).contains("r5"));
+		assertEquals(
+				graph.nodes().filter(n -> n != n0).map(n -> n.getId())
+						.collect(Collectors.toSet()),
+				n0.neighborNodes().map(n -> n.getId())
+						.collect(Collectors.toSet()));
+	}
+
+	@Test
+	public void testSplit() {
+		Graph graph = fill(new SingleGraph("g"));
+
+		Spliterator<Node> nodes = graph.nodes().spliterator();
+		assertTrue(nodes.hasCharacteristics(Spliterator.SIZED));
+		assertEquals(N, nodes.estimateSize());
+
+		Spliterator<Node> half = nodes.trySplit();
+		assertEquals(N / 2, half.estimateSize());
+		assertEquals(N / 2, nodes.estimateSize());
+
+		Spliterator<Edge> edges = graph.getNode("n0").edges().spliterator();
+		assertTrue(edges.hasCharacteristics(Spliterator.SUBSIZED));
+		assertEquals(N - 1, edges.estimateSize());
+		assertTrue(edges.trySplit().estimateSize() > 0);
+	}
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.file.FileSinkDGS;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceMappedDGS;
+import org.graphstream.stream.file.dgs.DGSIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the index of the steps of DGS files, and the replay from any step.
+ */
+public class TestDGSIndex {
+	protected static final int STEPS = 200;
+
+	protected File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("index", ".dgs");
+	}
+
+	@After
+	public void tearDown() {
+		new File(DGSIndex.indexFileName(file.getPath())).delete();
+		file.delete();
+	}
+
+	@Test
+	public void testBuild() throws IOException {
+		write(file, false);
+
+		DGSIndex index = DGSIndex.build(file.getPath(), 100);
+		List<String> states = states(file);
+
+		assertEquals(STEPS, index.getStepCount());
+		assertTrue(index.getCheckpointCount() > 1);
+		checkOffsets(index);
+
+		for (int i = 0; i < STEPS; i++)
+			assertEquals("step " + i, states.get(i), seek(new FileSourceDGS(), i));
+	}
+
+	@Test
+	public void testWrittenBySink() throws IOException {
+		write(file, true);
+
+		DGSIndex written = DGSIndex.load(DGSIndex.indexFileName(file
+				.getPath()));
+		DGSIndex built = DGSIndex.build(file.getPath(), 100);
+
+		assertEquals(built.getStepCount(), written.getStepCount());
+		assertEquals(built.getDataStart(), written.getDataStart());
+		assertEquals(file.length(), written.getLength());
+		assertTrue(written.getCheckpointCount() > 1);
+
+		for (int i = 0; i < built.getStepCount(); i++) {
+			assertEquals(built.getStep(i), written.getStep(i), 0);
+			assertEquals(built.getOffset(i), written.getOffset(i));
+		}
+	}
+
+	@Test
+	public void testSeekInAnyOrder() throws IOException {
+		write(file, true);
+
+		List<String> states = states(file);
+		FileSourceDGS source = new FileSourceMappedDGS();
+		Graph graph = new MultiGraph("seek", false, true);
+		source.addSink(graph);
+		source.begin(file.getPath());
+
+		for (int step : new int[] { 150, 3, 199, 0, 77, 78, 10 }) {
+			assertTrue(source.seekStep(step));
+			assertEquals("step " + step, states.get(step), describe(graph));
+		}
+
+		//
+		// Reading goes on from the last step seeked.
+		//
+		assertTrue(source.nextStep());
+		assertEquals(states.get(11), describe(graph));
+
+		assertFalse(source.seekStep(STEPS));
+		source.end();
+	}
+
+	@Test
+	public void testStaleIndex() throws IOException {
+		write(file, true);
+
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		out.seek(out.length());
+		out.write("st 1000\nan last\n".getBytes());
+		out.close();
+
+		DGSIndex index = DGSIndex.open(file.getPath());
+
+		assertEquals(STEPS + 1, index.getStepCount());
+		assertEquals(file.length(), index.getLength());
+		checkOffsets(index);
+	}
+
+	@Test
+	public void testModifiedIndexedFile() throws IOException {
+		write(file, true);
+
+		DGSIndex written = DGSIndex.load(DGSIndex.indexFileName(file
+				.getPath()));
+
+		assertEquals(file.lastModified(), written.getLastModified());
+
+		//
+		// A file rewritten with the same length does not match its index.
+		//
+		assertTrue(file.setLastModified(file.lastModified() - 60000));
+
+		DGSIndex index = DGSIndex.open(file.getPath());
+
+		assertEquals(file.lastModified(), index.getLastModified());
+		assertEquals(file.lastModified(),
+				DGSIndex.load(DGSIndex.indexFileName(file.getPath()))
+						.getLastModified());
+	}
+
+	@Test
+	public void testIndexNotWritable() throws IOException {
+		write(file, false);
+
+		//
+		// A directory in place of the index file prevents writing it.
+		//
+		File sidecar = new File(DGSIndex.indexFileName(file.getPath()));
+		assertTrue(sidecar.mkdir());
+
+		try {
+			List<String> states = states(file);
+			FileSourceDGS source = new FileSourceDGS();
+
+			assertEquals("step 150", states.get(150), seek(source, 150));
+			assertEquals("step 3", states.get(3), seek(source, 3));
+			assertTrue(sidecar.isDirectory());
+			assertEquals(0, sidecar.list().length);
+
+			//
+			// The checkpoints of an index kept in memory can be read.
+			//
+			DGSIndex index = DGSIndex.build(file.getPath(), 100);
+			assertNull(index.getFileName());
+			assertTrue(index.getCheckpointCount() > 1);
+
+			for (int i = 0; i < index.getCheckpointCount(); i++) {
+				Graph graph = new MultiGraph("checkpoint", false, true);
+				source = new FileSourceDGS();
+				source.addSink(graph);
+				index.readCheckpoint(i, source);
+
+				assertEquals(states.get(index.getCheckpointStep(i)),
+						describe(graph));
+			}
+		} finally {
+			sidecar.delete();
+		}
+	}
+
+	/**
+	 * Each step of the index starts with a "st" line.
+	 */
+	protected void checkOffsets(DGSIndex index) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+
+		try {
+			for (int i = 0; i < index.getStepCount(); i++) {
+				in.seek(index.getOffset(i));
+				String line = in.readLine();
+
+				assertTrue(line.startsWith("st "));
+				assertEquals(index.getStep(i),
+						Double.parseDouble(line.substring(3)), 0);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * The graph just before each step, read from the start of the file.
+	 */
+	protected static List<String> states(File file) throws IOException {
+		List<String> states = new ArrayList<String>();
+		Graph graph = new MultiGraph("replay", false, true);
+		FileSourceDGS source = new FileSourceDGS();
+
+		source.addSink(graph);
+		source.begin(file.getPath());
+
+		//
+		// The file starts with events before the first step, each call stops
+		// before the next step.
+		//
+		while (source.nextStep())
+			states.add(describe(graph));
+
+		source.end();
+
+		return states;
+	}
+
+	protected String seek(FileSourceDGS source, double step)
+			throws IOException {
+		Graph graph = new MultiGraph("seek", false, true);
+		source.addSink(graph);
+		source.begin(file.getPath());
+
+		try {
+			assertTrue(source.seekStep(step));
+		} finally {
+			source.end();
+		}
+
+		return describe(graph);
+	}
+
+	/**
+	 * A dynamic graph with attributes, removals and a clear.
+	 */
+	protected static void write(File file, boolean indexed) throws IOException {
+		Random random = new Random(STEPS);
+		FileSinkDGS sink = new FileSinkDGS();
+		sink.setIndexed(indexed);
+		sink.setCheckpointInterval(100);
+
+		Graph graph = new MultiGraph("written", false, true);
+		graph.addSink(sink);
+		sink.begin(file.getPath());
+		graph.addNode("first");
+
+		for (int i = 0; i < STEPS; i++) {
+			graph.stepBegins(i);
+
+			for (int k = 0; k < 5; k++) {
+				Node node = graph.addNode(String.format("n%d_%d", i, k));
+				node.addAttribute("x", random.nextInt(100));
+
+				if (graph.getNodeCount() > 1) {
+					Node other = graph.getNode(random.nextInt(graph
+							.getNodeCount()));
+					Edge edge = graph.addEdge(String.format("e%d_%d", i, k),
+							node, other, random.nextBoolean());
+					edge.addAttribute("w", random.nextDouble());
+				}
+			}
+
+			if (graph.getNodeCount() > 10) {
+				graph.removeNode(random.nextInt(graph.getNodeCount()));
+				graph.getNode(random.nextInt(graph.getNodeCount()))
+						.changeAttribute("x", "changed");
+				graph.addAttribute("step", i);
+			}
+
+			if (i == STEPS / 2)
+				graph.clear();
+		}
+
+		sink.end();
+	}
+
+	protected static String describe(Graph graph) {
+		List<String> lines = new ArrayList<String>();
+		lines.add(attributes(graph));
+
+		for (Node node : graph)
+			lines.add(node.getId() + attributes(node));
+
+		for (Edge edge : graph.getEachEdge())
+			lines.add(edge.getId() + " " + edge.getSourceNode().getId() + " "
+					+ edge.getTargetNode().getId() + " " + edge.isDirected()
+					+ attributes(edge));
+
+		Collections.sort(lines);
+		return lines.toString();
+	}
+
+	protected static String attributes(Element element) {
+		List<String> attributes = new ArrayList<String>();
+
+		for (String key : element.getAttributeKeySet()) {
+			Object value = element.getAttribute(key);
+			attributes.add(key
+					+ "="
+					+ (value instanceof Object[] ? Arrays
+							.deepToString((Object[]) value) : value));
+		}
+
+		Collections.sort(attributes);
+		return attributes.toString();
+	}
+}
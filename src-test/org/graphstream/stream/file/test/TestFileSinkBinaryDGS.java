@@ -0,0 +1,241 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSinkBinaryDGS;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceBinaryDGS;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceFactory;
+import org.graphstream.stream.file.test.TestFileSourceMappedDGS.EventRecorder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFileSinkBinaryDGS extends TestFileSinkBase {
+	@Override
+	protected String aTemporaryGraphFileName() {
+		return "foo.dgsb";
+	}
+
+	@Before
+	@Override
+	public void setup() {
+		input = new FileSourceBinaryDGS();
+		output = new FileSinkBinaryDGS();
+	}
+
+	@Test
+	public void testSameEventsAsText() throws IOException {
+		List<String> expected = textEvents(TestFileSourceMappedDGS.TEST_ALL);
+
+		assertEquals(expected,
+				binaryEvents(toBinary(TestFileSourceMappedDGS.TEST_ALL, false)));
+		assertEquals(expected,
+				binaryEvents(toBinary(TestFileSourceMappedDGS.TEST_ALL, true)));
+	}
+
+	@Test
+	public void testManyBlocks() throws IOException {
+		StringBuilder dgs = new StringBuilder("DGS004\nnull 0 0\n");
+
+		for (int i = 0; i < 20000; i++) {
+			dgs.append("an n").append(i).append(" x=").append(i % 100)
+					.append(" label=\"node ").append(i).append("\"\n");
+
+			if (i > 0)
+				dgs.append("ae e").append(i).append(" n").append(i - 1)
+						.append(" n").append(i).append('\n');
+
+			if (i % 500 == 0)
+				dgs.append("st ").append(i).append('\n');
+		}
+
+		String text = dgs.toString();
+		List<String> expected = textEvents(text);
+		byte[] plain = toBinary(text, false);
+		byte[] compressed = toBinary(text, true);
+
+		assertEquals(expected, binaryEvents(plain));
+		assertEquals(expected, binaryEvents(compressed));
+		assertTrue(plain.length < text.length());
+		assertTrue(compressed.length < plain.length);
+	}
+
+	@Test
+	public void testTypedValues() throws IOException {
+		HashMap<String, Object> map = new HashMap<String, Object>();
+		map.put("a", 1);
+		map.put("b", "x");
+
+		Object[] values = { null, "été", 1, -1, Integer.MIN_VALUE,
+				Long.MAX_VALUE, -2.5, 0.25f, (short) -3, (byte) 7, true,
+				new Color(1, 2, 3, 4), new Object[] { 1, "a", null },
+				new double[] { 1.5, -2 }, new float[] { 3 },
+				new int[] { -1, 1 << 30 }, new long[] { Long.MIN_VALUE },
+				new short[] { 5 }, new byte[] { -1, 2 },
+				new boolean[] { true, false }, map,
+				new ArrayList<Object>(Arrays.asList(1, 2)) };
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FileSinkBinaryDGS sink = new FileSinkBinaryDGS(true);
+		sink.begin(out);
+		sink.nodeAdded("?", 0, "A");
+
+		for (int i = 0; i < values.length; i++)
+			sink.nodeAttributeAdded("?", 0, "A", "k" + i, values[i]);
+
+		sink.end();
+
+		final List<Object> read = new ArrayList<Object>();
+		FileSource source = new FileSourceBinaryDGS();
+		source.addSink(new SinkAdapter() {
+			@Override
+			public void nodeAttributeAdded(String sourceId, long timeId,
+					String nodeId, String attribute, Object value) {
+				read.add(value);
+			}
+		});
+		source.readAll(new ByteArrayInputStream(out.toByteArray()));
+
+		assertTrue(Arrays.deepEquals(values, read.toArray()));
+	}
+
+	@Test
+	public void testSameSteps() throws IOException {
+		String text = TestFileSourceMappedDGS.TEST_ALL;
+		assertEquals(steps(new FileSourceDGS(), null, text),
+				steps(new FileSourceBinaryDGS(), toBinary(text, true), text));
+	}
+
+	@Test
+	public void testSourceFactory() throws IOException {
+		File file = File.createTempFile("binary", ".dat");
+
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(toBinary(TestFileSourceMappedDGS.TEST_ALL, false));
+			out.close();
+
+			assertTrue(FileSourceFactory.sourceFor(file.getPath()) instanceof FileSourceBinaryDGS);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testNotBinary() {
+		try {
+			new FileSourceBinaryDGS().readAll(new ByteArrayInputStream(
+					TestFileSourceMappedDGS.TEST_ALL.getBytes()));
+			assertFalse("should not read a text file", true);
+		} catch (IOException e) {
+			// Expected.
+		}
+	}
+
+	protected static List<String> textEvents(String dgs) throws IOException {
+		EventRecorder recorder = new EventRecorder();
+		FileSource source = new FileSourceDGS();
+		source.addSink(recorder);
+		source.readAll(new StringReader(dgs));
+
+		return recorder.events;
+	}
+
+	protected static List<String> binaryEvents(byte[] data) throws IOException {
+		EventRecorder recorder = new EventRecorder();
+		FileSource source = new FileSourceBinaryDGS();
+		source.addSink(recorder);
+		source.readAll(new ByteArrayInputStream(data));
+
+		return recorder.events;
+	}
+
+	/**
+	 * Convert a DGS text to binary DGS, with small blocks so that events and
+	 * strings are spread over several blocks.
+	 */
+	protected static byte[] toBinary(String dgs, boolean compressed)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FileSinkBinaryDGS sink = new FileSinkBinaryDGS(compressed);
+		FileSource source = new FileSourceDGS();
+
+		sink.setBlockSize(4096);
+		source.addSink(sink);
+		sink.begin(out);
+		source.readAll(new StringReader(dgs));
+		sink.end();
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Number of events of each step.
+	 */
+	protected static List<Integer> steps(FileSource source, byte[] data,
+			String dgs) throws IOException {
+		EventRecorder recorder = new EventRecorder();
+		List<Integer> steps = new ArrayList<Integer>();
+		source.addSink(recorder);
+
+		if (data != null)
+			source.begin(new ByteArrayInputStream(data));
+		else
+			source.begin(new StringReader(dgs));
+
+		while (source.nextStep())
+			steps.add(recorder.events.size());
+
+		steps.add(recorder.events.size());
+		source.end();
+
+		return steps;
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceMappedDGS;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the byte-level DGS input, which must give the same events as
+ * {@link FileSourceDGS}.
+ */
+public class TestFileSourceMappedDGS extends TestFileSourceDGS {
+	@Override
+	@Before
+	public void setUp() {
+		graph = new MultiGraph("g1");
+		input = new FileSourceMappedDGS();
+	}
+
+	protected static String TEST_ALL = "DGS004\n"
+			+ "\"all\" 0 0\n"
+			+ "# a comment\n"
+			+ "\n"
+			+ "an A x=1 y:-2.5 label=\"a \\\"quoted\\\" label\" flag\n"
+			+ "an \"B b\" big=12345678901 min=-9223372036854775808\n"
+			+ "an C color=#FF00AA alpha=#10203040 ok=TRUE no=false\r\n"
+			+ "ae AB A > \"B b\" weight=0.5 # trailing comment\n"
+			+ "ae CA C < A\r"
+			+ "ae BC \"B b\" C list=1,2,3 arr={4,5} one={x}\n"
+			+ "st 1\n"
+			+ "cn A +z=[a:1,b=\"two\",c] -y x=\u00e9t\u00e9\n"
+			+ "ce AB weight=1.5 words='it''s'\n"
+			+ "cg title=\"graph\" count=3\n"
+			+ "st 2.5\n"
+			+ "de CA\n"
+			+ "dn C\n"
+			+ "cl\n"
+			+ "an D\n";
+
+	@Test
+	public void testSameEvents() throws IOException {
+		assertEquals(events(new FileSourceDGS(), TEST_ALL),
+				events(new FileSourceMappedDGS(), TEST_ALL));
+	}
+
+	@Test
+	public void testSameSteps() throws IOException {
+		assertEquals(steps(new FileSourceDGS(), TEST_ALL),
+				steps(new FileSourceMappedDGS(), TEST_ALL));
+	}
+
+	@Test
+	public void testGzipFile() throws IOException {
+		File file = File.createTempFile("mapped", ".dgs.gz");
+
+		try {
+			write(new GZIPOutputStream(new FileOutputStream(file)), TEST_ALL);
+
+			EventRecorder recorder = new EventRecorder();
+			FileSource source = new FileSourceMappedDGS();
+			source.addSink(recorder);
+			source.readAll(file.getPath());
+
+			assertEquals(events(new FileSourceDGS(), TEST_ALL),
+					recorder.events);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testLargeStream() throws IOException {
+		StringBuilder dgs = new StringBuilder("DGS004\nnull 0 0\n");
+
+		for (int i = 0; i < 50000; i++) {
+			dgs.append("an n").append(i).append(" x=").append(i)
+					.append(" label=\"node ").append(i).append("\"\n");
+
+			if (i > 0)
+				dgs.append("ae e").append(i).append(" n").append(i - 1)
+						.append(" n").append(i).append('\n');
+
+			if (i % 1000 == 0)
+				dgs.append("st ").append(i).append('\n');
+		}
+
+		String text = dgs.toString();
+		assertTrue(text.length() > 1024 * 1024);
+
+		EventRecorder recorder = new EventRecorder();
+		FileSource source = new FileSourceMappedDGS();
+		source.addSink(recorder);
+		source.readAll(new ByteArrayInputStream(text.getBytes("UTF-8")));
+
+		assertEquals(events(new FileSourceDGS(), text), recorder.events);
+	}
+
+	/**
+	 * Events of a whole DGS text, read from a file with the byte parser or
+	 * from a reader with the other one.
+	 */
+	protected List<String> events(FileSource source, String dgs)
+			throws IOException {
+		EventRecorder recorder = new EventRecorder();
+		source.addSink(recorder);
+
+		if (source instanceof FileSourceMappedDGS) {
+			File file = File.createTempFile("mapped", ".dgs");
+
+			try {
+				write(new FileOutputStream(file), dgs);
+				source.readAll(file.getPath());
+			} finally {
+				file.delete();
+			}
+		} else {
+			source.readAll(new StringReader(dgs));
+		}
+
+		return recorder.events;
+	}
+
+	/**
+	 * Number of events of each step of a DGS text.
+	 */
+	protected List<Integer> steps(FileSource source, String dgs)
+			throws IOException {
+		EventRecorder recorder = new EventRecorder();
+		List<Integer> steps = new ArrayList<Integer>();
+		source.addSink(recorder);
+
+		if (source instanceof FileSourceMappedDGS) {
+			source.begin(new ByteArrayInputStream(dgs.getBytes("UTF-8")));
+		} else {
+			source.begin(new StringReader(dgs));
+		}
+
+		while (source.nextStep())
+			steps.add(recorder.events.size());
+
+		steps.add(recorder.events.size());
+		source.end();
+
+		return steps;
+	}
+
+	protected static void write(OutputStream out, String dgs)
+			throws IOException {
+		try {
+			out.write(dgs.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Records the events as strings, without the source and time ids.
+	 */
+	protected static class EventRecorder extends SinkAdapter {
+		List<String> events = new ArrayList<String>();
+
+		protected static String str(Object value) {
+			if (value instanceof Object[])
+				return Arrays.deepToString((Object[]) value);
+
+			return value == null ? "null" : value.getClass().getSimpleName()
+					+ ":" + value;
+		}
+
+		@Override
+		public void graphAttributeAdded(String sourceId, long timeId,
+				String attribute, Object value) {
+			events.add("+g " + attribute + " " + str(value));
+		}
+
+		@Override
+		public void graphAttributeChanged(String sourceId, long timeId,
+				String attribute, Object oldValue, Object newValue) {
+			events.add("g " + attribute + " " + str(newValue));
+		}
+
+		@Override
+		public void graphAttributeRemoved(String sourceId, long timeId,
+				String attribute) {
+			events.add("-g " + attribute);
+		}
+
+		@Override
+		public void nodeAttributeAdded(String sourceId, long timeId,
+				String nodeId, String attribute, Object value) {
+			events.add("+n " + nodeId + " " + attribute + " " + str(value));
+		}
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId,
+				String nodeId, String attribute, Object oldValue,
+				Object newValue) {
+			events.add("n " + nodeId + " " + attribute + " " + str(newValue));
+		}
+
+		@Override
+		public void nodeAttributeRemoved(String sourceId, long timeId,
+				String nodeId, String attribute) {
+			events.add("-n " + nodeId + " " + attribute);
+		}
+
+		@Override
+		public void edgeAttributeAdded(String sourceId, long timeId,
+				String edgeId, String attribute, Object value) {
+			events.add("+e " + edgeId + " " + attribute + " " + str(value));
+		}
+
+		@Override
+		public void edgeAttributeChanged(String sourceId, long timeId,
+				String edgeId, String attribute, Object oldValue,
+				Object newValue) {
+			events.add("e " + edgeId + " " + attribute + " " + str(newValue));
+		}
+
+		@Override
+		public void edgeAttributeRemoved(String sourceId, long timeId,
+				String edgeId, String attribute) {
+			events.add("-e " + edgeId + " " + attribute);
+		}
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			events.add("an " + nodeId);
+		}
+
+		@Override
+		public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+			events.add("dn " + nodeId);
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			events.add("ae " + edgeId + " " + fromNodeId + " " + toNodeId
+					+ " " + directed);
+		}
+
+		@Override
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			events.add("de " + edgeId);
+		}
+
+		@Override
+		public void graphCleared(String sourceId, long timeId) {
+			events.add("cl");
+		}
+
+		@Override
+		public void stepBegins(String sourceId, long timeId, double step) {
+			events.add("st " + step);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceParallelDGS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the DGS input parsing chunks of the file with several threads, which
+ * must give the same events, in the same order, as {@link FileSourceDGS}.
+ */
+public class TestFileSourceParallelDGS extends TestFileSourceMappedDGS {
+	protected ForkJoinPool pool;
+
+	@Override
+	@Before
+	public void setUp() {
+		pool = new ForkJoinPool(4);
+		graph = new MultiGraph("g1");
+		input = new FileSourceParallelDGS(pool);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testChunkSizes() throws IOException {
+		for (long size : new long[] { 1, 16, 64, 1024 * 1024 }) {
+			FileSourceParallelDGS source = new FileSourceParallelDGS(pool);
+			source.setChunkSize(size);
+
+			assertEquals("chunks of " + size + " bytes",
+					events(new FileSourceDGS(), TEST_ALL),
+					events(source, TEST_ALL));
+		}
+	}
+
+	@Test
+	public void testManySteps() throws IOException {
+		StringBuilder dgs = new StringBuilder("DGS004\nnull 0 0\n");
+
+		for (int i = 0; i < 20000; i++) {
+			if (i % 100 == 0)
+				dgs.append(i % 200 == 0 ? "st " : "ST\t").append(i)
+						.append('\n');
+
+			dgs.append("an n").append(i).append(" x=").append(i).append('\n');
+
+			if (i > 0)
+				dgs.append("ae e").append(i).append(" n").append(i - 1)
+						.append(" > n").append(i).append(" w=0.5\n");
+
+			if (i % 7 == 0)
+				dgs.append("cn n").append(i / 2).append(" -x\n");
+		}
+
+		String text = dgs.toString();
+		FileSourceParallelDGS source = new FileSourceParallelDGS(pool);
+		source.setChunkSize(4096);
+
+		assertEquals(events(new FileSourceDGS(), text), events(source, text));
+	}
+
+	@Test
+	public void testErrorInChunk() throws IOException {
+		FileSourceParallelDGS source = new FileSourceParallelDGS(pool);
+		File file = File.createTempFile("parallel", ".dgs");
+		source.setChunkSize(16);
+
+		try {
+			write(new FileOutputStream(file), "DGS004\nnull 0 0\nan A\n"
+					+ "st 1\nan B\nst 2\nxx C\nst 3\nan D\n");
+			source.readAll(file.getPath());
+			fail("the unknown directive must be reported");
+		} catch (IOException e) {
+			// Expected.
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testErrorPosition() throws IOException {
+		StringBuilder dgs = new StringBuilder("DGS004\nnull 0 0\n");
+
+		for (int i = 0; i < 100; i++)
+			dgs.append("st ").append(i).append(i % 3 == 0 ? "\r\n" : "\n")
+					.append("an n").append(i).append(i % 5 == 0 ? "\r" : "\n");
+
+		dgs.append("st 100\n  xx C\n");
+
+		File file = File.createTempFile("parallel", ".dgs");
+
+		try {
+			write(new FileOutputStream(file), dgs.toString());
+
+			FileSourceParallelDGS source = new FileSourceParallelDGS(pool);
+			source.setChunkSize(64);
+
+			assertEquals(error(new FileSourceDGS(), file), error(source, file));
+		} finally {
+			file.delete();
+		}
+	}
+
+	protected static String error(FileSourceDGS source, File file) {
+		try {
+			source.readAll(file.getPath());
+		} catch (IOException e) {
+			return e.getMessage();
+		}
+
+		fail("the unknown directive must be reported");
+		return null;
+	}
+}
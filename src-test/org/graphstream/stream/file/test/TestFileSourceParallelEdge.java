@@ -0,0 +1,316 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.BatchElementSink;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceEdge;
+import org.graphstream.stream.file.FileSourceLGL;
+import org.graphstream.stream.file.FileSourceNCol;
+import org.graphstream.stream.file.FileSourceParallelEdge;
+import org.graphstream.stream.file.FileSourceParallelEdge.Format;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the edge list input parsing chunks with several threads, which must
+ * build the same graphs as {@link FileSourceEdge}, {@link FileSourceNCol} and
+ * {@link FileSourceLGL}.
+ */
+public class TestFileSourceParallelEdge {
+	protected static final int[] CHUNK_SIZES = { 1, 64, 4096, 1024 * 1024 };
+
+	protected ForkJoinPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testEdge() throws IOException {
+		String text = randomText(Format.EDGE, false, new Random(1));
+
+		for (boolean directed : new boolean[] { false, true })
+			for (int size : CHUNK_SIZES) {
+				FileSourceParallelEdge source = source(Format.EDGE, size);
+				source.setDirected(directed);
+
+				assertEquals("chunks of " + size + " bytes",
+						graph(new FileSourceEdge(directed), text),
+						graph(source, text));
+			}
+	}
+
+	@Test
+	public void testNCol() throws IOException {
+		String text = randomText(Format.NCOL, false, new Random(2));
+
+		for (int size : CHUNK_SIZES)
+			assertEquals("chunks of " + size + " bytes",
+					graph(new FileSourceNCol(), text),
+					graph(source(Format.NCOL, size), text));
+	}
+
+	@Test
+	public void testLGL() throws IOException {
+		String text = randomText(Format.LGL, false, new Random(3));
+
+		for (int size : CHUNK_SIZES)
+			assertEquals("chunks of " + size + " bytes",
+					graph(new FileSourceLGL(), text),
+					graph(source(Format.LGL, size), text));
+	}
+
+	@Test
+	public void testIntegerIds() throws IOException {
+		for (Format format : Format.values()) {
+			String text = randomText(format, true, new Random(4));
+
+			for (boolean declare : new boolean[] { false, true }) {
+				FileSourceParallelEdge strings = source(format, 256);
+				FileSourceParallelEdge integers = source(format, 256);
+				strings.setDeclareNodes(declare);
+				integers.setDeclareNodes(declare);
+				integers.setIntegerIds(true);
+
+				assertEquals(format.toString(), graph(strings, text),
+						graph(integers, text));
+			}
+		}
+	}
+
+	@Test
+	public void testDeclaredNodes() throws IOException {
+		FileSourceParallelEdge source = source(Format.NCOL, 8);
+		EventCounter counter = new EventCounter();
+		source.setDeclareNodes(true);
+		source.addSink(counter);
+		source.readAll(new ByteArrayInputStream(
+				"a b\nb c\r\nc a 2\n\n# comment\nd d\nd a\n".getBytes("UTF-8")));
+
+		assertEquals(4, counter.nodes);
+		assertEquals(4, counter.edges);
+		assertEquals(1, counter.weights);
+	}
+
+	@Test
+	public void testBulkEvents() throws IOException {
+		FileSourceParallelEdge source = source(Format.EDGE, 1024 * 1024);
+		EventCounter counter = new EventCounter();
+		source.addSink(counter);
+		source.readAll(new ByteArrayInputStream(randomText(Format.EDGE, false,
+				new Random(5)).getBytes("UTF-8")));
+
+		assertEquals(1, counter.nodeCalls);
+		assertEquals(1, counter.edgeCalls);
+	}
+
+	@Test
+	public void testErrors() throws IOException {
+		String[][] errors = { { "NCOL", "a b 1\nc d x\n" },
+				{ "NCOL", "a b\nc\n" }, { "EDGE", "1 2 3\n4 x\n" } };
+
+		for (String[] error : errors) {
+			FileSourceParallelEdge source = source(Format.valueOf(error[0]), 4);
+			source.setIntegerIds(error[0].equals("EDGE"));
+
+			try {
+				graph(source, error[1]);
+				fail("\"" + error[1] + "\" must be rejected");
+			} catch (IOException e) {
+				// Expected.
+			}
+		}
+
+		try {
+			source(Format.EDGE, 4).readAll(new StringReader("a b\n"));
+			fail("readers must be rejected");
+		} catch (IOException e) {
+			// Expected.
+		}
+	}
+
+	protected FileSourceParallelEdge source(Format format, int chunkSize) {
+		FileSourceParallelEdge source = new FileSourceParallelEdge(format,
+				pool);
+		source.setChunkSize(chunkSize);
+		return source;
+	}
+
+	/**
+	 * Random edge list, with comments, empty lines, loops and weights. LGL
+	 * lists have no loops, as their lines have a single node.
+	 */
+	protected static String randomText(Format format, boolean integers,
+			Random random) {
+		StringBuilder text = new StringBuilder();
+		String comment = format == Format.LGL ? "% " : "# ";
+
+		if (format == Format.LGL)
+			text.append("n1 2.5\n");
+
+		for (int i = 0; i < 3000; i++) {
+			String id1 = randomId(integers, random);
+
+			switch (random.nextInt(20)) {
+			case 0:
+				text.append(comment).append("comment ").append(i).append('\n');
+				continue;
+			case 1:
+				text.append('\n');
+				continue;
+			case 2:
+				if (format != Format.LGL)
+					text.append(id1).append(' ').append(id1).append('\n');
+				continue;
+			}
+
+			switch (format) {
+			case EDGE:
+				text.append(id1);
+
+				for (int k = random.nextInt(4); k >= 0; k--)
+					text.append(' ').append(randomId(integers, random));
+				break;
+			case NCOL:
+				String id2 = randomId(integers, random);
+				text.append(id1).append('\t').append(id2);
+
+				// FileSourceNCol misreads the weight of a loop.
+				if (!id1.equals(id2) && random.nextBoolean())
+					text.append(' ').append(random.nextInt(100) / 4.0);
+				break;
+			case LGL:
+				if (random.nextInt(8) == 0)
+					text.append("# ").append(id1);
+				else if (random.nextBoolean())
+					text.append(id1).append(' ')
+							.append(random.nextInt(100) / 4.0);
+				else
+					text.append(id1);
+				break;
+			}
+
+			text.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+		}
+
+		return text.toString();
+	}
+
+	protected static String randomId(boolean integers, Random random) {
+		int n = random.nextInt(500);
+		return integers || n % 3 == 0 ? Integer.toString(n) : "n" + n;
+	}
+
+	/**
+	 * Read a text from a file and describe the graph built.
+	 */
+	protected static List<String> graph(FileSource source, String text)
+			throws IOException {
+		Graph graph = new MultiGraph("g", false, true);
+		File file = File.createTempFile("edges", ".txt");
+		List<String> elements = new ArrayList<String>();
+
+		source.addSink(graph);
+
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(text.getBytes("UTF-8"));
+			out.close();
+			source.readAll(file.getPath());
+		} finally {
+			file.delete();
+		}
+
+		for (Node node : graph)
+			elements.add(node.getId());
+
+		for (Edge edge : graph.getEachEdge())
+			elements.add(String.format("%s %s %s %s %s", edge.getId(), edge
+					.getNode0().getId(), edge.getNode1().getId(), edge
+					.isDirected(), edge.getAttribute("weight")));
+
+		Collections.sort(elements);
+
+		return elements;
+	}
+
+	protected static class EventCounter extends SinkAdapter implements
+			BatchElementSink {
+		int nodes, edges, weights, nodeCalls, edgeCalls;
+
+		public void nodesAdded(String sourceId, long timeId, String[] nodeIds,
+				int offset, int count) {
+			nodes += count;
+			nodeCalls++;
+		}
+
+		public void edgesAdded(String sourceId, long timeId, String[] edgeIds,
+				String[] fromNodeIds, String[] toNodeIds, boolean directed,
+				int offset, int count) {
+			edges += count;
+			edgeCalls++;
+		}
+
+		@Override
+		public void edgeAttributeAdded(String sourceId, long timeId,
+				String edgeId, String attribute, Object value) {
+			weights++;
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.AsyncSinkDispatcher;
+import org.graphstream.stream.EventBatch;
+import org.graphstream.stream.SinkAdapter;
+import org.junit.Test;
+
+public class TestAsyncSinkDispatcher {
+	/**
+	 * Records the time ids and the thread of the events, and can be slowed
+	 * down.
+	 */
+	static class SlowSink extends SinkAdapter {
+		final ArrayList<Long> times = new ArrayList<Long>();
+		volatile int count;
+		volatile Thread thread;
+		final long delay;
+
+		SlowSink(long delay) {
+			this.delay = delay;
+		}
+
+		void event(long timeId) {
+			thread = Thread.currentThread();
+			times.add(timeId);
+
+			if (delay > 0) {
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+				}
+			}
+
+			count++;
+		}
+
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			event(timeId);
+		}
+
+		public void nodeAttributeAdded(String sourceId, long timeId,
+				String nodeId, String attribute, Object value) {
+			event(timeId);
+		}
+
+		public void stepBegins(String sourceId, long timeId, double step) {
+			event(timeId);
+		}
+	}
+
+	@Test
+	public void testFanOut() throws InterruptedException {
+		Graph source = new AdjacencyListGraph("source");
+		Graph copy1 = new AdjacencyListGraph("copy1");
+		Graph copy2 = new AdjacencyListGraph("copy2");
+		SlowSink sink = new SlowSink(0);
+		AsyncSinkDispatcher dispatcher = new AsyncSinkDispatcher(16);
+
+		source.addSink(dispatcher);
+		dispatcher.addSink(copy1);
+		dispatcher.addSink(copy2);
+		dispatcher.addElementSink(sink);
+
+		for (int i = 0; i < 1000; i++) {
+			Node n = source.addNode("n" + i);
+			n.addAttribute("x", i);
+
+			if (i > 0)
+				source.addEdge("e" + i, "n" + (i - 1), "n" + i);
+		}
+
+		source.removeNode("n500");
+		dispatcher.flush();
+
+		assertEquals(999, copy1.getNodeCount());
+		assertEquals(997, copy2.getEdgeCount());
+		assertEquals((Object) 999, copy2.getNode("n999").getAttribute("x"));
+
+		// Element sinks only receive element events, in order.
+
+		assertEquals(1000, sink.count);
+		assertTrue(sink.thread != Thread.currentThread());
+
+		for (int i = 1; i < sink.times.size(); i++)
+			assertTrue(sink.times.get(i - 1) < sink.times.get(i));
+
+		dispatcher.close();
+		assertEquals(0, dispatcher.getPendingCount(copy1));
+	}
+
+	@Test
+	public void testStepBarrier() throws InterruptedException {
+		Graph source = new AdjacencyListGraph("source");
+		SlowSink fast = new SlowSink(0);
+		SlowSink slow = new SlowSink(2);
+		AsyncSinkDispatcher dispatcher = new AsyncSinkDispatcher();
+
+		source.addSink(dispatcher);
+		dispatcher.addSink(fast);
+		dispatcher.addSink(slow);
+		dispatcher.setStepBarrier(true);
+
+		for (int i = 0; i < 20; i++)
+			source.addNode("n" + i);
+
+		source.stepBegins(1);
+
+		assertEquals(21, slow.count);
+		assertEquals(21, fast.count);
+		assertEquals(0, dispatcher.getPendingCount(slow));
+
+		dispatcher.removeSink(slow);
+
+		for (int i = 20; i < 30; i++)
+			source.addNode("n" + i);
+
+		dispatcher.flush();
+
+		assertEquals(31, fast.count);
+		assertEquals(21, slow.count);
+
+		dispatcher.close();
+	}
+
+	@Test
+	public void testCapacity() throws InterruptedException {
+		SlowSink slow = new SlowSink(1);
+		AsyncSinkDispatcher dispatcher = new AsyncSinkDispatcher(4);
+		int max = 0;
+
+		dispatcher.addSink(slow);
+
+		for (int i = 0; i < 50; i++) {
+			dispatcher.nodeAdded("g", i, "n" + i);
+			max = Math.max(max, dispatcher.getPendingCount(slow));
+		}
+
+		assertTrue(max <= 4);
+
+		dispatcher.close();
+		assertEquals(50, slow.count);
+	}
+
+	@Test
+	public void testFailingSink() throws InterruptedException {
+		final ArrayList<String> received = new ArrayList<String>();
+		AsyncSinkDispatcher dispatcher = new AsyncSinkDispatcher();
+		EventBatch batch = new EventBatch();
+
+		dispatcher.addSink(new SinkAdapter() {
+			@Override
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				if (nodeId.equals("n1"))
+					throw new IllegalStateException("failing on " + nodeId);
+
+				received.add(nodeId);
+			}
+		});
+
+		for (int i = 0; i < 4; i++)
+			batch.nodeAdded("g", i, "n" + i);
+
+		// The events are queued and dispatched together.
+		dispatcher.eventsReceived(batch);
+		dispatcher.flush();
+
+		assertEquals(Arrays.asList("n0", "n2", "n3"), received);
+
+		dispatcher.close();
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.EventBatch;
+import org.graphstream.stream.EventBatch.EventType;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.SourceBase;
+import org.junit.Test;
+
+public class TestEventBatch {
+	static class TestSource extends SourceBase {
+		TestSource() {
+			super("src");
+		}
+	}
+
+	/**
+	 * Records the batches and the events received.
+	 */
+	static class Recorder extends EventBatch implements BatchSink {
+		int batches;
+
+		public void eventsReceived(EventBatch batch) {
+			batches++;
+			batch.replay(this);
+		}
+	}
+
+	static class Counter extends SinkAdapter {
+		int nodes, attributes;
+
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			nodes++;
+		}
+
+		public void nodeAttributeAdded(String sourceId, long timeId,
+				String nodeId, String attribute, Object value) {
+			attributes++;
+		}
+	}
+
+	@Test
+	public void testRecordAndReplay() {
+		EventBatch batch = new EventBatch(1);
+
+		batch.nodeAdded("src", 1, "A");
+		batch.nodeAdded("src", 2, "B");
+		batch.edgeAdded("src", 3, "AB", "A", "B", true);
+		batch.nodeAttributeAdded("src", 4, "A", "x", 1.0);
+		batch.edgeAttributeChanged("src", 5, "AB", "w", null, 2);
+		batch.graphAttributeAdded("src", 6, "title", "t");
+		batch.stepBegins("src", 7, 3.5);
+		batch.nodeRemoved("src", 8, "B");
+
+		assertEquals(8, batch.size());
+		assertEquals(EventType.ADD_EDGE, batch.getType(2));
+		assertEquals("B", batch.getToNodeId(2));
+		assertEquals(true, batch.isDirected(2));
+		assertEquals("w", batch.getAttribute(4));
+		assertEquals(2, batch.getNewValue(4));
+		assertEquals(3.5, batch.getStep(6), 0);
+		assertEquals(5, batch.getTimeId(4));
+
+		Graph g = new SingleGraph("g");
+		batch.replay(g);
+
+		assertEquals(1, g.getNodeCount());
+		assertEquals(0, g.getEdgeCount());
+		assertEquals(1.0, g.getNode("A").getNumber("x"), 0);
+		assertEquals("t", g.getAttribute("title"));
+
+		EventBatch copy = new EventBatch(batch);
+		batch.clear();
+
+		assertEquals(0, batch.size());
+		assertEquals(8, copy.size());
+		assertEquals("AB", copy.getElementId(4));
+	}
+
+	@Test
+	public void testSendBatch() {
+		TestSource source = new TestSource();
+		Recorder recorder = new Recorder();
+		Counter counter = new Counter();
+		Counter elements = new Counter();
+
+		source.addSink(recorder);
+		source.addSink(counter);
+		source.addElementSink(elements);
+
+		EventBatch batch = new EventBatch();
+
+		for (int i = 0; i < 10; i++) {
+			batch.nodeAdded("src", i, "n" + i);
+			batch.nodeAttributeAdded("src", i, "n" + i, "a", i);
+		}
+
+		source.sendBatch(batch);
+
+		assertEquals(1, recorder.batches);
+		assertEquals(20, recorder.size());
+		assertEquals(10, counter.nodes);
+		assertEquals(10, counter.attributes);
+		assertEquals(10, elements.nodes);
+		assertEquals(0, elements.attributes);
+	}
+
+	@Test
+	public void testBeginEndBatch() {
+		TestSource source = new TestSource();
+		Recorder recorder = new Recorder();
+		Counter counter = new Counter();
+
+		source.addSink(recorder);
+		source.addSink(counter);
+
+		source.beginBatch();
+		source.beginBatch();
+		source.sendNodeAdded("src", "A");
+		source.sendNodeAttributeAdded("src", "A", "a", 1);
+		source.endBatch();
+
+		assertEquals(0, recorder.size());
+		assertEquals(0, counter.nodes);
+
+		for (int i = 0; i < SourceBase.BATCH_SIZE; i++)
+			source.sendNodeAdded("src", "n" + i);
+
+		assertEquals(1, recorder.batches);
+		assertEquals(SourceBase.BATCH_SIZE, recorder.size());
+
+		source.endBatch();
+
+		assertEquals(2, recorder.batches);
+		assertEquals(SourceBase.BATCH_SIZE + 2, recorder.size());
+		assertEquals(SourceBase.BATCH_SIZE + 1, counter.nodes);
+		assertEquals(1, counter.attributes);
+
+		source.sendNodeAdded("src", "B");
+
+		assertEquals(2, recorder.batches);
+		assertEquals(SourceBase.BATCH_SIZE + 2, counter.nodes);
+	}
+
+	@Test
+	public void testGraphToGraph() {
+		TestSource source = new TestSource();
+		Graph g1 = new AdjacencyListGraph("g1");
+		Graph g2 = new AdjacencyListGraph("g2");
+		Recorder recorder = new Recorder();
+
+		source.addSink(g1);
+		g1.addSink(g2);
+		g2.addSink(recorder);
+
+		source.beginBatch();
+		source.sendNodeAdded("src", "A");
+		source.sendNodeAdded("src", "B");
+		source.sendEdgeAdded("src", "AB", "A", "B", false);
+		source.sendNodeAttributeAdded("src", "A", "a", 1);
+		source.sendNodeRemoved("src", "B");
+		source.endBatch();
+
+		// g2 only has batch sinks, so it forwards one batch.
+
+		assertEquals(1, recorder.batches);
+		assertEquals(1, g2.getNodeCount());
+		assertEquals(0, g2.getEdgeCount());
+		assertEquals((Object) 1, g2.getNode("A").getAttribute("a"));
+		assertNotNull(g1.getNode("A"));
+		assertNull(g1.getNode("B"));
+		assertEquals(EventType.DEL_EDGE, recorder.getType(4));
+		assertEquals(EventType.DEL_NODE, recorder.getType(5));
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.EventBatch.EventType;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.metrics.EventMetrics;
+import org.graphstream.stream.metrics.Histogram;
+import org.graphstream.stream.metrics.MeteredSink;
+import org.graphstream.stream.metrics.Metrics;
+import org.graphstream.stream.metrics.MetricsSnapshot;
+import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.junit.Test;
+
+public class TestMetrics {
+	static class TestSource extends SourceBase {
+		TestSource() {
+			super("src");
+		}
+	}
+
+	@Test
+	public void testDisabled() {
+		TestSource source = new TestSource();
+		source.addSink(new SinkAdapter());
+		source.sendNodeAdded("src", "A");
+
+		assertNull(source.getMetrics());
+	}
+
+	@Test
+	public void testSourceCounts() {
+		TestSource source = new TestSource();
+		EventMetrics metrics = Metrics.instrument(source, "test.source");
+
+		try {
+			source.addSink(new AdjacencyListGraph("g"));
+
+			source.sendNodeAdded("src", "A");
+			source.sendNodeAdded("src", "B");
+			source.sendEdgeAdded("src", "AB", "A", "B", false);
+			source.sendNodeAttributeAdded("src", "A", "x", 1);
+			source.sendStepBegins("src", 1);
+
+			source.beginBatch();
+			source.sendNodeAdded("src", "C");
+			source.sendNodeRemoved("src", "C");
+			source.endBatch();
+
+			assertEquals(3, metrics.getEventCount(EventType.ADD_NODE));
+			assertEquals(1, metrics.getEventCount(EventType.DEL_NODE));
+			assertEquals(1, metrics.getEventCount(EventType.ADD_EDGE));
+			assertEquals(1, metrics.getEventCount(EventType.ADD_NODE_ATTR));
+			assertEquals(1, metrics.getEventCount(EventType.STEP));
+			assertEquals(7, metrics.getEventCount());
+			assertEquals(6, metrics.getDispatchCount());
+
+			MetricsSnapshot snapshot = metrics.snapshot();
+			assertEquals("test.source", snapshot.getName());
+			assertEquals(3, snapshot.getEventCount(EventType.ADD_NODE));
+			assertEquals(7, snapshot.getEventCount());
+
+			metrics.reset();
+			assertEquals(0, metrics.getEventCount());
+			assertEquals(3, snapshot.getEventCount(EventType.ADD_NODE));
+		} finally {
+			Metrics.unregister("test.source");
+		}
+	}
+
+	@Test
+	public void testMeteredSink() {
+		Graph g = new AdjacencyListGraph("g");
+		TestSource source = new TestSource();
+		MeteredSink sink = Metrics.meter(g, "test.sink");
+
+		try {
+			source.addSink(sink);
+
+			source.sendNodeAdded("src", "A");
+			source.sendNodeAdded("src", "B");
+			source.sendEdgeAdded("src", "AB", "A", "B", false);
+
+			source.beginBatch();
+			source.sendEdgeRemoved("src", "AB");
+			source.endBatch();
+
+			assertEquals(2, g.getNodeCount());
+			assertEquals(0, g.getEdgeCount());
+
+			EventMetrics metrics = sink.getMetrics();
+			assertEquals(2, metrics.getEventCount(EventType.ADD_NODE));
+			assertEquals(1, metrics.getEventCount(EventType.ADD_EDGE));
+			assertEquals(1, metrics.getEventCount(EventType.DEL_EDGE));
+			assertEquals(4, metrics.getDispatchCount());
+		} finally {
+			Metrics.unregister("test.sink");
+		}
+	}
+
+	@Test
+	public void testProxy() {
+		Graph source = new AdjacencyListGraph("source");
+		Graph target = new AdjacencyListGraph("target");
+		ThreadProxyPipe proxy = new ThreadProxyPipe();
+		EventMetrics metrics = Metrics.instrument(proxy, "test.proxy");
+
+		try {
+			proxy.init(source);
+			proxy.addSink(target);
+
+			source.addNode("A");
+			source.addNode("B");
+			source.addEdge("AB", "A", "B");
+
+			assertEquals(3, metrics.getQueueDepth());
+			assertEquals(0, metrics.getEventCount());
+
+			proxy.pump();
+
+			assertEquals(3, target.getNodeCount() + target.getEdgeCount());
+			assertEquals(0, metrics.getQueueDepth());
+			assertEquals(3, metrics.getMaxQueueDepth());
+			assertEquals(1, metrics.getPumpCount());
+			assertEquals(3, metrics.getPumpedEventCount());
+			assertEquals(2, metrics.getEventCount(EventType.ADD_NODE));
+
+			proxy.pump();
+			assertEquals(1, metrics.getPumpCount());
+		} finally {
+			Metrics.unregister("test.proxy");
+		}
+	}
+
+	@Test
+	public void testRegistry() throws Exception {
+		EventMetrics metrics = Metrics.register("test.registry");
+
+		try {
+			assertTrue(metrics == Metrics.register("test.registry"));
+			assertTrue(metrics == Metrics.get("test.registry"));
+
+			boolean found = false;
+
+			for (MetricsSnapshot snapshot : Metrics.snapshot())
+				found |= snapshot.getName().equals("test.registry");
+
+			assertTrue(found);
+
+			metrics.eventsSent(EventType.ADD_NODE, 5);
+
+			Object count = ManagementFactory.getPlatformMBeanServer()
+					.getAttribute(Metrics.objectName("test.registry"),
+							"EventCount");
+
+			assertNotNull(count);
+			assertEquals((Object) 5L, count);
+		} finally {
+			Metrics.unregister("test.registry");
+		}
+
+		assertNull(Metrics.get("test.registry"));
+		assertTrue(!ManagementFactory.getPlatformMBeanServer().isRegistered(
+				Metrics.objectName("test.registry")));
+	}
+
+	@Test
+	public void testHistogram() {
+		Histogram h = new Histogram();
+
+		for (int i = 1; i <= 100; i++)
+			h.record(i * 1000);
+
+		assertEquals(100, h.getCount());
+		assertEquals(100000, h.getMax());
+		assertEquals(50500.0, h.getMean(), 0.001);
+
+		long p50 = h.getPercentile(50);
+		assertTrue(p50 >= 32768 && p50 <= 131072);
+		assertTrue(h.getPercentile(99) >= p50);
+
+		h.reset();
+		assertEquals(0, h.getCount());
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.thread.test;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.thread.BoundedThreadProxyPipe;
+import org.graphstream.stream.thread.BoundedThreadProxyPipe.OverflowPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the bounded thread proxy.
+ */
+public class TestBoundedThreadProxyPipe {
+	@Test
+	public void testFail() {
+		BoundedThreadProxyPipe proxy = new BoundedThreadProxyPipe(3,
+				OverflowPolicy.FAIL);
+
+		for (int i = 0; i < 3; i++)
+			proxy.nodeAdded("g", i, "n" + i);
+
+		try {
+			proxy.nodeAdded("g", 3, "n3");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+		}
+
+		Assert.assertEquals(3, proxy.getPendingCount());
+		proxy.pump();
+		proxy.nodeAdded("g", 4, "n4");
+		Assert.assertEquals(1, proxy.getPendingCount());
+	}
+
+	@Test
+	public void testDropChanges() {
+		Graph target = new AdjacencyListGraph("target");
+		BoundedThreadProxyPipe proxy = new BoundedThreadProxyPipe(3,
+				OverflowPolicy.DROP_CHANGES);
+		proxy.addSink(target);
+
+		proxy.nodeAdded("g", 0, "A");
+		proxy.nodeAttributeAdded("g", 1, "A", "x", 0);
+		proxy.nodeAttributeChanged("g", 2, "A", "x", 0, 1);
+
+		for (int i = 2; i < 10; i++)
+			proxy.nodeAttributeChanged("g", i + 1, "A", "x", i - 1, i);
+
+		Assert.assertEquals(8, proxy.getDroppedCount());
+		proxy.pump();
+		Assert.assertEquals((Object) 1, target.getNode("A").getAttribute("x"));
+	}
+
+	@Test
+	public void testCoalesceChanges() {
+		Graph target = new AdjacencyListGraph("target");
+		BoundedThreadProxyPipe proxy = new BoundedThreadProxyPipe(3,
+				OverflowPolicy.COALESCE_CHANGES);
+		proxy.addSink(target);
+
+		proxy.nodeAdded("g", 0, "A");
+		proxy.nodeAttributeAdded("g", 1, "A", "x", 0);
+
+		for (int i = 1; i <= 100; i++)
+			proxy.nodeAttributeChanged("g", i + 1, "A", "x", i - 1, i);
+
+		Assert.assertEquals(3, proxy.getPendingCount());
+		Assert.assertEquals(99, proxy.getMergedCount());
+		Assert.assertEquals(0, proxy.getDroppedCount());
+		Assert.assertEquals(0, proxy.getBlockedCount());
+		proxy.pump();
+		Assert.assertEquals((Object) 100,
+				target.getNode("A").getAttribute("x"));
+	}
+
+	@Test
+	public void testBlock() throws InterruptedException {
+		final Graph source = new AdjacencyListGraph("source");
+		Graph target = new AdjacencyListGraph("target");
+		final BoundedThreadProxyPipe proxy = new BoundedThreadProxyPipe(10,
+				OverflowPolicy.BLOCK);
+
+		for (int i = 0; i < 50; i++)
+			source.addNode("r" + i);
+
+		proxy.addSink(target);
+		proxy.init(source);
+
+		// Replayed events are not bounded.
+		Assert.assertEquals(50, proxy.getPendingCount());
+
+		Thread producer = new Thread() {
+			public void run() {
+				for (int i = 0; i < 1000; i++)
+					source.addNode("n" + i).addAttribute("x", i);
+			}
+		};
+
+		producer.start();
+
+		int max = 0;
+
+		while (producer.isAlive() || proxy.hasPostRemaining()) {
+			proxy.pump();
+			Thread.sleep(1);
+
+			if (target.getNodeCount() > 50)
+				max = Math.max(max, proxy.getPendingCount());
+		}
+
+		producer.join();
+		proxy.pump();
+
+		Assert.assertTrue(max <= 10);
+		Assert.assertTrue(proxy.getBlockedCount() > 0);
+		Assert.assertEquals(0, proxy.getDroppedCount());
+		Assert.assertEquals(1050, target.getNodeCount());
+		Assert.assertEquals((Object) 999,
+				target.getNode("n999").getAttribute("x"));
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.thread.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.file.FileSinkDGS;
+import org.graphstream.stream.thread.RingBufferProxyPipe;
+import org.graphstream.stream.thread.RingBufferProxyPipe.WaitStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the ring buffer proxy pipe.
+ */
+public class TestRingBufferProxyPipe {
+	@Test
+	public void testReplay() {
+		Graph source = new MultiGraph("g1");
+		Graph target = new MultiGraph("g2");
+
+		source.addNode("A");
+		source.addNode("B");
+		source.addEdge("AB", "A", "B", true);
+		source.getNode("A").addAttribute("A1", "foo");
+
+		RingBufferProxyPipe proxy = new RingBufferProxyPipe(4,
+				WaitStrategy.YIELD);
+		proxy.addSink(target);
+		proxy.init(source, false);
+		proxy.pump();
+
+		Assert.assertEquals(0, target.getNodeCount());
+
+		// Replay more events than slots, in the same thread.
+		source = new MultiGraph("g3");
+		source.addNode("A");
+		source.addNode("B");
+		source.addEdge("AB", "A", "B", true);
+		source.getNode("A").addAttribute("A1", "foo");
+		proxy.init(source, true);
+
+		Assert.assertTrue(proxy.hasPostRemaining());
+		proxy.pump();
+		Assert.assertFalse(proxy.hasPostRemaining());
+
+		source.getNode("A").setAttribute("A1", "bar");
+		source.removeNode("B");
+		proxy.pump();
+
+		Assert.assertEquals(1, target.getNodeCount());
+		Assert.assertEquals(0, target.getEdgeCount());
+		Assert.assertEquals("bar", target.getNode("A").getAttribute("A1"));
+
+		proxy.unregisterFromSource();
+		source.addNode("C");
+		source.addNode("D");
+		proxy.pump();
+
+		Assert.assertNull(target.getNode("C"));
+	}
+
+	@Test
+	public void testPumpEnds() {
+		final Graph source = new MultiGraph("g1");
+		final Graph target = new MultiGraph("g2");
+		final int count = SourceBase.BATCH_SIZE;
+		RingBufferProxyPipe proxy = new RingBufferProxyPipe(4 * count,
+				WaitStrategy.SPIN);
+
+		proxy.init(source, false);
+		proxy.addSink(target);
+
+		// Each node received posts a new one while the pump dispatches.
+		proxy.addSink(new SinkAdapter() {
+			@Override
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				if (nodeId.startsWith("a"))
+					source.addNode("b" + nodeId);
+			}
+		});
+
+		for (int i = 0; i < count; i++)
+			source.addNode("a" + i);
+
+		proxy.pump();
+
+		Assert.assertEquals(count, target.getNodeCount());
+		Assert.assertTrue(proxy.hasPostRemaining());
+
+		proxy.pump();
+
+		Assert.assertEquals(2 * count, target.getNodeCount());
+		Assert.assertFalse(proxy.hasPostRemaining());
+	}
+
+	@Test
+	public void testBlockingPumpTimeout() throws InterruptedException {
+		RingBufferProxyPipe proxy = new RingBufferProxyPipe(16,
+				WaitStrategy.PARK);
+		long t = System.currentTimeMillis();
+
+		proxy.blockingPump(20);
+
+		Assert.assertTrue(System.currentTimeMillis() - t >= 19);
+		Assert.assertFalse(proxy.hasPostRemaining());
+		Assert.assertEquals(16, proxy.getCapacity());
+		Assert.assertEquals(32, new RingBufferProxyPipe(17, WaitStrategy.SPIN)
+				.getCapacity());
+	}
+
+	@Test
+	public void testThreads() throws IOException, InterruptedException {
+		for (WaitStrategy strategy : WaitStrategy.values())
+			for (int i = 0; i < 10; i++)
+				testOne(new RingBufferProxyPipe(16, strategy), i);
+	}
+
+	public void testOne(final RingBufferProxyPipe proxy, long seed)
+			throws IOException, InterruptedException {
+		Graph g = new AdjacencyListGraph("g");
+		proxy.init(g);
+
+		FileSinkDGS dgs1 = new FileSinkDGS();
+		FileSinkDGS dgs2 = new FileSinkDGS();
+		StringWriter w1 = new StringWriter();
+		StringWriter w2 = new StringWriter();
+
+		g.addSink(dgs1);
+		proxy.addSink(dgs2);
+
+		dgs1.begin(w1);
+		dgs2.begin(w2);
+
+		final Graph target = new AdjacencyListGraph("target");
+		proxy.addSink(target);
+
+		Thread t = new Thread() {
+			public void run() {
+				try {
+					while (!target.hasAttribute("done"))
+						proxy.blockingPump();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+
+		t.start();
+		generateRandom(g, 500, new Random(seed));
+		g.addAttribute("done");
+		t.join();
+
+		Assert.assertFalse(proxy.hasPostRemaining());
+		Assert.assertEquals(w1.toString(), w2.toString());
+		Assert.assertEquals(g.getNodeCount(), target.getNodeCount());
+		Assert.assertEquals(g.getEdgeCount(), target.getEdgeCount());
+	}
+
+	protected void generateRandom(Graph g, int size, Random random) {
+		String[] attributes = { "a", "b", "c" };
+
+		for (int i = 0; i < size; i++) {
+			Node n = g.addNode(String.format("%d", i));
+			n.setAttribute(attributes[random.nextInt(3)], random.nextDouble());
+		}
+
+		for (int i = 0; i < size; i++) {
+			Node a = g.getNode(random.nextInt(size));
+			Node b = g.getNode(random.nextInt(size));
+			Edge e = g.addEdge(String.format("edge%d", i), a, b);
+			e.setAttribute(attributes[random.nextInt(3)], random.nextInt());
+		}
+
+		for (int i = 0; i < size / 4; i++)
+			g.removeNode(random.nextInt(g.getNodeCount()));
+	}
+}
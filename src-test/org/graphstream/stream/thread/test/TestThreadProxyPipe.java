@@ -39,6 +39,7 @@ import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.AdjacencyListGraph;
 import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.SinkAdapter;
 import org.graphstream.stream.file.FileSinkDGS;
 import org.graphstream.stream.thread.ThreadProxyPipe;
 import org.junit.Assert;
@@ -209,6 +210,67 @@ public class TestThreadProxyPipe {
 		}
 	}
 
+	@Test
+	public void testCoalescing() {
+		Graph source = new MultiGraph("g1");
+		Graph target = new MultiGraph("g2");
+		ThreadProxyPipe proxy = new ThreadProxyPipe();
+		final int[] changes = new int[1];
+
+		proxy.setCoalescing(true);
+		proxy.init(source);
+		proxy.addSink(target);
+		proxy.addSink(new SinkAdapter() {
+			public void nodeAttributeChanged(String sourceId, long timeId,
+					String nodeId, String attribute, Object oldValue,
+					Object newValue) {
+				changes[0]++;
+			}
+		});
+
+		for (int i = 0; i < 10; i++)
+			source.addNode(String.format("%d", i)).addAttribute("xyz", 0);
+
+		for (int step = 1; step <= 100; step++)
+			for (Node n : source)
+				n.setAttribute("xyz", step);
+
+		proxy.pump();
+
+		Assert.assertEquals(10, changes[0]);
+		Assert.assertEquals((Object) 100,
+				target.getNode("5").getAttribute("xyz"));
+
+		// Changes are not merged across a removal of the attribute.
+
+		Node n = source.getNode("0");
+		n.setAttribute("xyz", 1);
+		n.removeAttribute("xyz");
+		n.addAttribute("xyz", 2);
+		n.setAttribute("xyz", 3);
+		n.setAttribute("xyz", 4);
+		source.addAttribute("a", 1);
+		source.setAttribute("a", 2);
+		source.setAttribute("a", 3);
+
+		changes[0] = 0;
+		proxy.pump();
+
+		Assert.assertEquals(2, changes[0]);
+		Assert.assertEquals((Object) 4, target.getNode("0").getAttribute("xyz"));
+		Assert.assertEquals((Object) 3, target.getAttribute("a"));
+
+		// A change posted after a pump is not merged in the dispatched one.
+
+		n.setAttribute("xyz", 5);
+		proxy.pump();
+		n.setAttribute("xyz", 6);
+		proxy.pump();
+
+		Assert.assertEquals(4, changes[0]);
+		Assert.assertEquals((Object) 6, target.getNode("0").getAttribute("xyz"));
+	}
+
 	protected int ri(int size) {
 		return (int) (Math.random() * size);
 	}
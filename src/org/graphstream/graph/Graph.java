@@ -309,6 +309,29 @@ public interface Graph extends Element, Pipe, Iterable<Node>, Structure {
 	 */
 	<T extends Node> T addNode(String id) throws IdAlreadyInUseException;
 
+	/**
+	 * Add several nodes in the graph.
+	 * <p>
+	 * This is equivalent to calling {@link #addNode(String)} for each
+	 * identifier, but the graph can reserve the needed space once and the
+	 * listeners may receive all the additions at once (see
+	 * {@link org.graphstream.stream.BatchElementSink}). Listeners that do not
+	 * handle batches receive one event per node.
+	 * </p>
+	 * <p>
+	 * If strict checking is enabled and an identifier is already used or
+	 * appears twice, an {@link IdAlreadyInUseException} is raised and no node
+	 * is added. Else these identifiers are skipped.
+	 * </p>
+	 * 
+	 * @param ids
+	 *            Identifiers of the new nodes.
+	 * @throws IdAlreadyInUseException
+	 *             If strict checking is enabled and an identifier is already
+	 *             used.
+	 */
+	void addNodes(String... ids) throws IdAlreadyInUseException;
+
 	/**
 	 * Remove a node using its identifier.
 	 * <p>
@@ -442,6 +465,49 @@ public interface Graph extends Element, Pipe, Iterable<Node>, Structure {
 			boolean directed) throws IdAlreadyInUseException,
 			ElementNotFoundException, EdgeRejectedException;
 
+	/**
+	 * Add several edges in the graph. Edge {@code i} has the identifier
+	 * {@code ids[i]} and goes from {@code from[i]} to {@code to[i]}.
+	 * <p>
+	 * This is equivalent to calling
+	 * {@link #addEdge(String, String, String, boolean)} for each edge, but the
+	 * graph can check the identifiers and reserve the space needed by the
+	 * nodes and edges once. Listeners may receive all the additions at once
+	 * (see {@link org.graphstream.stream.BatchElementSink}), the other ones
+	 * receive one event per edge. Nodes created because of auto-creation are
+	 * added before the edges.
+	 * </p>
+	 * <p>
+	 * If strict checking is enabled, used identifiers and missing nodes raise
+	 * an exception before any edge is added. Edges rejected by their nodes
+	 * raise an exception once the previous edges of the batch are added. If
+	 * strict checking is disabled, these edges are skipped.
+	 * </p>
+	 * 
+	 * @param ids
+	 *            Identifiers of the new edges.
+	 * @param from
+	 *            Identifiers of the first nodes of the edges.
+	 * @param to
+	 *            Identifiers of the second nodes of the edges.
+	 * @param directed
+	 *            Are the edges directed?
+	 * @throws IllegalArgumentException
+	 *             If the arrays have different lengths.
+	 * @throws IdAlreadyInUseException
+	 *             If an edge with the same id already exists and strict
+	 *             checking is enabled.
+	 * @throws ElementNotFoundException
+	 *             If strict checking is enabled and a node is not registered
+	 *             in the graph.
+	 * @throws EdgeRejectedException
+	 *             If strict checking is enabled and an edge is not accepted.
+	 * @see #addEdge(String, String, String, boolean)
+	 */
+	void addEdges(String[] ids, String[] from, String[] to, boolean directed)
+			throws IdAlreadyInUseException, ElementNotFoundException,
+			EdgeRejectedException;
+
 	/**
 	 * Remove an edge given the identifiers of its two endpoints.
 	 * <p>
@@ -33,6 +33,10 @@ package org.graphstream.graph;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An Interface that advises general purpose methods for handling nodes as
@@ -819,4 +823,52 @@ public interface Node extends Element, Iterable<Edge> {
 	<T extends Edge> T getEdgeBetween(int index)
 			throws IndexOutOfBoundsException;
 
-}
\ No newline at end of file
+
+	// Streams
+
+	/**
+	 * Stream of the edges of this node. The stream can be made parallel. The
+	 * graph must not be modified while the stream is used.
+	 * 
+	 * @return A stream of the edges of this node.
+	 */
+	default Stream<Edge> edges() {
+		return StreamSupport.stream(Spliterators.spliterator(
+				this.<Edge> getEdgeIterator(), getDegree(),
+				Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Stream of the edges entering this node, undirected edges included.
+	 * 
+	 * @return A stream of the entering edges of this node.
+	 * @see #edges()
+	 */
+	default Stream<Edge> enteringEdges() {
+		return StreamSupport.stream(Spliterators.spliterator(
+				this.<Edge> getEnteringEdgeIterator(), getInDegree(),
+				Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Stream of the edges leaving this node, undirected edges included.
+	 * 
+	 * @return A stream of the leaving edges of this node.
+	 * @see #edges()
+	 */
+	default Stream<Edge> leavingEdges() {
+		return StreamSupport.stream(Spliterators.spliterator(
+				this.<Edge> getLeavingEdgeIterator(), getOutDegree(),
+				Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Stream of the neighbors of this node, each neighbor appearing once.
+	 * 
+	 * @return A stream of the nodes linked to this node by an edge.
+	 * @see #getNeighborNodeIterator()
+	 */
+	default Stream<Node> neighborNodes() {
+		return edges().map(e -> e.<Node> getOpposite(this)).distinct();
+	}
+}
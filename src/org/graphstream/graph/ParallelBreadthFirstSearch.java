@@ -0,0 +1,494 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Breadth-first search using several threads.
+ * 
+ * <p>
+ * This class computes the same depths as {@link BreadthFirstIterator}, but it
+ * explores the graph level by level and expands each level with the tasks of
+ * a {@link ForkJoinPool}. Nodes are marked visited in an atomic bit set, so
+ * that each node is put once in the next level even when several tasks reach
+ * it at the same time.
+ * </p>
+ * 
+ * <p>
+ * A level can be expanded in two ways. Top-down, the edges leaving the nodes
+ * of the current level are followed. Bottom-up, each node not yet visited
+ * looks for a neighbor in the current level through its entering edges and
+ * stops at the first one. Bottom-up is cheaper when the current level touches
+ * most of the remaining edges, which happens in the middle of the search on
+ * graphs with a small diameter. By default the search switches between the
+ * two according to the number of edges of the current level and the size of
+ * the level (see {@link #setDirectionOptimizing(boolean)}).
+ * </p>
+ * 
+ * <p>
+ * The search relies only on node indices and on the edge iterables of
+ * {@link Node}, so it works with any {@link Graph} implementation. The graph
+ * must not be modified during {@link #compute()}.
+ * </p>
+ * 
+ * <pre>
+ * ParallelBreadthFirstSearch bfs = new ParallelBreadthFirstSearch(node, false);
+ * bfs.compute();
+ * int eccentricity = bfs.getDepthMax();
+ * </pre>
+ */
+public class ParallelBreadthFirstSearch {
+	/**
+	 * Number of nodes handled by a single task.
+	 */
+	protected static final int GRAIN = 512;
+
+	/**
+	 * The search goes bottom-up when the edges of the current level are more
+	 * than the unexplored edges divided by this value.
+	 */
+	protected static final int ALPHA = 14;
+
+	/**
+	 * The search goes back top-down when the current level has less nodes than
+	 * the graph divided by this value.
+	 */
+	protected static final int BETA = 24;
+
+	private static ForkJoinPool defaultPool;
+
+	protected Graph graph;
+	protected Node startNode;
+	protected boolean directed;
+	protected ForkJoinPool pool;
+	protected boolean directionOptimizing;
+
+	/**
+	 * Nodes indexed by their index.
+	 */
+	protected Node[] nodes;
+
+	/**
+	 * Depth of each node, -1 for the nodes not reached.
+	 */
+	protected int[] depth;
+
+	/**
+	 * Indices of the reached nodes, level by level.
+	 */
+	protected int[] queue;
+	protected int queueSize;
+
+	protected AtomicLongArray visited;
+	protected int bottomUpLevels;
+
+	/**
+	 * New search using the given pool.
+	 * 
+	 * @param startNode
+	 *            the node where the search starts
+	 * @param directed
+	 *            if true, edges are followed only in their direction
+	 * @param pool
+	 *            the pool running the tasks
+	 */
+	public ParallelBreadthFirstSearch(Node startNode, boolean directed,
+			ForkJoinPool pool) {
+		this.startNode = startNode;
+		this.graph = startNode.getGraph();
+		this.directed = directed;
+		this.pool = pool;
+		this.directionOptimizing = true;
+	}
+
+	/**
+	 * New search using a pool shared by all the searches, with one thread per
+	 * processor.
+	 * 
+	 * @param startNode
+	 *            the node where the search starts
+	 * @param directed
+	 *            if true, edges are followed only in their direction
+	 */
+	public ParallelBreadthFirstSearch(Node startNode, boolean directed) {
+		this(startNode, directed, getDefaultPool());
+	}
+
+	/**
+	 * New directed search using the shared pool.
+	 * 
+	 * @param startNode
+	 *            the node where the search starts
+	 */
+	public ParallelBreadthFirstSearch(Node startNode) {
+		this(startNode, true);
+	}
+
+	private static synchronized ForkJoinPool getDefaultPool() {
+		if (defaultPool == null)
+			defaultPool = new ForkJoinPool();
+
+		return defaultPool;
+	}
+
+	// *** Settings ***
+
+	/**
+	 * Enables or disables the bottom-up expansion of levels. When disabled,
+	 * every level is expanded top-down. It is enabled by default.
+	 */
+	public void setDirectionOptimizing(boolean on) {
+		directionOptimizing = on;
+	}
+
+	public boolean isDirectionOptimizing() {
+		return directionOptimizing;
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	// *** Search ***
+
+	/**
+	 * Runs the search. It can be run again after the graph was modified.
+	 * 
+	 * @complexity O(m / p) for a graph with m edges and p threads, plus O(n)
+	 *             to allocate the arrays
+	 */
+	public void compute() {
+		int n = graph.getNodeCount();
+
+		nodes = new Node[n];
+		depth = new int[n];
+		queue = new int[n];
+		visited = new AtomicLongArray((n + 63) >> 6);
+		bottomUpLevels = 0;
+
+		for (int i = 0; i < n; i++)
+			nodes[i] = graph.getNode(i);
+
+		Arrays.fill(depth, -1);
+
+		int s = startNode.getIndex();
+		visit(s);
+		depth[s] = 0;
+		queue[0] = s;
+		queueSize = 1;
+
+		int levelStart = 0;
+		int level = 0;
+		boolean bottomUp = false;
+		long levelEdges = degree(startNode);
+		long unexploredEdges = directed ? graph.getEdgeCount() : 2L * graph
+				.getEdgeCount();
+
+		while (levelStart < queueSize) {
+			int levelSize = queueSize - levelStart;
+
+			if (directionOptimizing) {
+				if (!bottomUp && levelEdges > unexploredEdges / ALPHA)
+					bottomUp = true;
+				else if (bottomUp && levelSize < n / BETA)
+					bottomUp = false;
+			}
+
+			level++;
+
+			Chunk found;
+
+			if (bottomUp) {
+				found = pool.invoke(new BottomUp(level, 0, n));
+				bottomUpLevels++;
+			} else {
+				found = pool.invoke(new TopDown(level, levelStart, queueSize));
+			}
+
+			unexploredEdges -= levelEdges;
+			levelStart = queueSize;
+			levelEdges = 0;
+
+			for (Chunk c = found; c != null; c = c.next) {
+				System.arraycopy(c.nodes, 0, queue, queueSize, c.size);
+				queueSize += c.size;
+				levelEdges += c.edges;
+			}
+		}
+	}
+
+	// *** Results ***
+
+	/**
+	 * Depth of a node, that is its distance in hops from the start node.
+	 * 
+	 * @return the depth or -1 if the node is not reachable
+	 */
+	public int getDepthOf(Node node) {
+		checkComputed();
+		return depth[node.getIndex()];
+	}
+
+	/**
+	 * The greatest depth of the reached nodes.
+	 */
+	public int getDepthMax() {
+		checkComputed();
+		return depth[queue[queueSize - 1]];
+	}
+
+	/**
+	 * True if the node has been reached by the search.
+	 */
+	public boolean tabu(Node node) {
+		return getDepthOf(node) != -1;
+	}
+
+	/**
+	 * Number of nodes reached by the search, the start node included.
+	 */
+	public int getReachedNodeCount() {
+		checkComputed();
+		return queueSize;
+	}
+
+	/**
+	 * Number of levels that were expanded bottom-up during the last search.
+	 */
+	public int getBottomUpLevelCount() {
+		return bottomUpLevels;
+	}
+
+	/**
+	 * Iterates on the reached nodes by increasing depth. The order of the
+	 * nodes having the same depth is not specified.
+	 */
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		checkComputed();
+
+		return new Iterator<T>() {
+			int next = 0;
+
+			public boolean hasNext() {
+				return next < queueSize;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (next >= queueSize)
+					throw new NoSuchElementException();
+
+				return (T) nodes[queue[next++]];
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"This iterator does not support remove");
+			}
+		};
+	}
+
+	// *** Helpers ***
+
+	protected void checkComputed() {
+		if (depth == null)
+			throw new IllegalStateException("compute() has not been called");
+	}
+
+	/**
+	 * Marks a node visited.
+	 * 
+	 * @return false if the node was already visited
+	 */
+	protected boolean visit(int index) {
+		int word = index >> 6;
+		long bit = 1L << (index & 63);
+
+		while (true) {
+			long old = visited.get(word);
+
+			if ((old & bit) != 0)
+				return false;
+			if (visited.compareAndSet(word, old, old | bit))
+				return true;
+		}
+	}
+
+	protected int degree(Node node) {
+		return directed ? node.getOutDegree() : node.getDegree();
+	}
+
+	protected Iterable<Edge> forwardEdges(Node node) {
+		return directed ? node.<Edge> getEachLeavingEdge() : node
+				.<Edge> getEachEdge();
+	}
+
+	protected Iterable<Edge> backwardEdges(Node node) {
+		return directed ? node.<Edge> getEachEnteringEdge() : node
+				.<Edge> getEachEdge();
+	}
+
+	/**
+	 * Nodes found by a task. Chunks are chained when tasks are joined.
+	 */
+	protected static class Chunk {
+		int[] nodes = new int[16];
+		int size;
+		long edges;
+		Chunk next, last = this;
+
+		void add(int node, int degree) {
+			if (size == nodes.length)
+				nodes = Arrays.copyOf(nodes, size * 2);
+
+			nodes[size++] = node;
+			edges += degree;
+		}
+
+		static Chunk concat(Chunk a, Chunk b) {
+			if (a == null)
+				return b;
+			if (b == null)
+				return a;
+
+			a.last.next = b;
+			a.last = b.last;
+			return a;
+		}
+	}
+
+	/**
+	 * Expands the queue elements in [from, to) through their forward edges.
+	 */
+	protected class TopDown extends RecursiveTask<Chunk> {
+		private static final long serialVersionUID = 1L;
+
+		final int level, from, to;
+
+		TopDown(int level, int from, int to) {
+			this.level = level;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Chunk compute() {
+			if (to - from > GRAIN) {
+				int middle = (from + to) >>> 1;
+				TopDown left = new TopDown(level, from, middle);
+				left.fork();
+				Chunk right = new TopDown(level, middle, to).compute();
+				return Chunk.concat(left.join(), right);
+			}
+
+			Chunk chunk = null;
+
+			for (int q = from; q < to; q++) {
+				Node node = nodes[queue[q]];
+
+				for (Edge e : forwardEdges(node)) {
+					Node opposite = e.getOpposite(node);
+					int j = opposite.getIndex();
+
+					if (depth[j] < 0 && visit(j)) {
+						depth[j] = level;
+
+						if (chunk == null)
+							chunk = new Chunk();
+
+						chunk.add(j, degree(opposite));
+					}
+				}
+			}
+
+			return chunk;
+		}
+	}
+
+	/**
+	 * Looks for a parent in the current level for the unvisited nodes whose
+	 * index is in [from, to).
+	 */
+	protected class BottomUp extends RecursiveTask<Chunk> {
+		private static final long serialVersionUID = 1L;
+
+		final int level, from, to;
+
+		BottomUp(int level, int from, int to) {
+			this.level = level;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Chunk compute() {
+			if (to - from > GRAIN) {
+				int middle = (from + to) >>> 1;
+				BottomUp left = new BottomUp(level, from, middle);
+				left.fork();
+				Chunk right = new BottomUp(level, middle, to).compute();
+				return Chunk.concat(left.join(), right);
+			}
+
+			Chunk chunk = null;
+
+			for (int v = from; v < to; v++) {
+				// only this task writes the depth of v during this level
+				if (depth[v] >= 0)
+					continue;
+
+				Node node = nodes[v];
+
+				for (Edge e : backwardEdges(node)) {
+					if (depth[e.getOpposite(node).getIndex()] == level - 1) {
+						depth[v] = level;
+						visit(v);
+
+						if (chunk == null)
+							chunk = new Chunk();
+
+						chunk.add(v, degree(node));
+						break;
+					}
+				}
+			}
+
+			return chunk;
+		}
+	}
+}
@@ -0,0 +1,666 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph;
+
+import java.util.Arrays;
+
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.graphstream.graph.implementations.AttributeColumn;
+
+/**
+ * Shortest paths between nodes computed on element indices.
+ * 
+ * <p>
+ * When created, and each time {@link #refresh()} is called, the engine copies
+ * the topology of the graph in compressed arrays of arcs and reads the weight
+ * of each edge once from an attribute. Queries then never touch the element
+ * objects nor their attributes, except to build the resulting {@link Path}.
+ * Distances, predecessors and the positions of the nodes in the binary heap
+ * are kept in primitive arrays indexed by node index. They are allocated once
+ * and marked with the number of the query that wrote them, so that a new query
+ * does not need to clear them: the cost of a query only depends on the part of
+ * the graph it explores.
+ * </p>
+ * 
+ * <p>
+ * Three algorithms are available: {@link #dijkstra(Node, Node)},
+ * {@link #bidirectional(Node, Node)}, which runs a search from each end and
+ * usually settles far fewer nodes, and {@link #aStar(Node, Node, Heuristic)},
+ * which is guided by an estimate of the remaining distance. Weights must be
+ * non-negative. Edges whose weight attribute is missing or is not a number
+ * have a weight of 1. Loops are ignored.
+ * </p>
+ * 
+ * <pre>
+ * ShortestPaths paths = new ShortestPaths(graph, &quot;length&quot;, false);
+ * Path path = paths.bidirectional(graph.getNode(&quot;A&quot;), graph.getNode(&quot;B&quot;));
+ * double length = paths.getDistance();
+ * </pre>
+ * 
+ * <p>
+ * The engine does not follow the changes of the graph: call
+ * {@link #refresh()} after modifying it. An engine must not be used by
+ * several threads at the same time.
+ * </p>
+ */
+public class ShortestPaths {
+	/**
+	 * Estimate of the distance between two nodes, used by
+	 * {@link ShortestPaths#aStar(Node, Node, Heuristic)}.
+	 * 
+	 * <p>
+	 * A* returns a shortest path if the estimate never exceeds the actual
+	 * distance. If, in addition, it is consistent (the estimate of a node never
+	 * exceeds the weight of an edge plus the estimate of its other end), no
+	 * node is explored twice. For example, when the weight of an edge is the
+	 * Euclidean length between its ends, the straight-line distance to the
+	 * target is a good heuristic:
+	 * </p>
+	 * 
+	 * <pre>
+	 * double[] x = ..., y = ...; // coordinates by node index
+	 * paths.aStar(source, target, (v, t) -&gt; Math.hypot(x[v] - x[t], y[v] - y[t]));
+	 * </pre>
+	 */
+	public static interface Heuristic {
+		/**
+		 * Estimates the distance between two nodes.
+		 * 
+		 * @param nodeIndex
+		 *            Index of the node being explored.
+		 * @param targetIndex
+		 *            Index of the target node.
+		 * @return A non-negative estimate.
+		 */
+		double estimate(int nodeIndex, int targetIndex);
+	}
+
+	protected final Graph graph;
+	protected final String weightAttribute;
+	protected final boolean directed;
+
+	/**
+	 * Arcs leaving each node, in compressed sparse row form: the arcs of node
+	 * {@code v} are at positions {@code outOffsets[v]} to
+	 * {@code outOffsets[v + 1]} of the other arrays, which give their head
+	 * node, their edge and their weight.
+	 */
+	protected int[] outOffsets, outHeads, outEdges;
+	protected double[] outWeights;
+
+	/**
+	 * Arcs entering each node, used by the backward search of
+	 * {@link #bidirectional(Node, Node)}. They are the same arrays as the
+	 * leaving arcs when the engine is not directed.
+	 */
+	protected int[] inOffsets, inHeads, inEdges;
+	protected double[] inWeights;
+
+	protected int nodeCount;
+
+	/**
+	 * Number of the current query, used to know which labels are valid.
+	 */
+	protected int query;
+
+	protected Search forward, backward;
+
+	/**
+	 * Result of the last query.
+	 */
+	protected double distance;
+
+	/**
+	 * New engine reading edge weights in the given attribute.
+	 * 
+	 * @param graph
+	 *            The graph.
+	 * @param weightAttribute
+	 *            The attribute giving the weight of the edges, or
+	 *            {@code null} to give the same weight 1 to all edges.
+	 * @param directed
+	 *            If true, directed edges are followed only in their direction.
+	 * @complexity O(n + m)
+	 */
+	public ShortestPaths(Graph graph, String weightAttribute, boolean directed) {
+		this.graph = graph;
+		this.weightAttribute = weightAttribute;
+		this.directed = directed;
+		this.forward = new Search();
+		this.backward = new Search();
+
+		refresh();
+	}
+
+	/**
+	 * New engine where all the edges have a weight of 1 and are followed in
+	 * both directions.
+	 * 
+	 * @param graph
+	 *            The graph.
+	 */
+	public ShortestPaths(Graph graph) {
+		this(graph, null, false);
+	}
+
+	// *** Setup ***
+
+	/**
+	 * Reads the topology and the weights of the graph again. The arrays are
+	 * reused if they are big enough.
+	 * 
+	 * @complexity O(n + m)
+	 * @throws IllegalArgumentException
+	 *             If an edge has a negative weight.
+	 */
+	public void refresh() {
+		int n = graph.getNodeCount();
+		int m = graph.getEdgeCount();
+		int[] sources = new int[m], targets = new int[m];
+		double[] weights = new double[m];
+		boolean[] oriented = new boolean[m];
+		AttributeColumn column = null;
+
+		if (weightAttribute != null && graph instanceof AbstractGraph)
+			column = ((AbstractGraph) graph).getEdgeColumn(weightAttribute);
+
+		for (int i = 0; i < m; i++) {
+			Edge edge = graph.getEdge(i);
+			double w = 1;
+
+			if (column != null && column.isSet(i))
+				w = column.getDouble(i);
+			else if (weightAttribute != null && edge.hasNumber(weightAttribute))
+				w = edge.getNumber(weightAttribute);
+
+			if (w < 0)
+				throw new IllegalArgumentException("Edge \"" + edge.getId()
+						+ "\" has a negative weight " + w);
+
+			sources[i] = edge.getSourceNode().getIndex();
+			targets[i] = edge.getTargetNode().getIndex();
+			weights[i] = w;
+			oriented[i] = directed && edge.isDirected();
+		}
+
+		nodeCount = n;
+		outOffsets = offsets(outOffsets, n);
+		int arcs = countArcs(outOffsets, sources, targets, oriented, false);
+		outHeads = ensure(outHeads, arcs);
+		outEdges = ensure(outEdges, arcs);
+		outWeights = ensure(outWeights, arcs);
+		fillArcs(outOffsets, outHeads, outEdges, outWeights, sources, targets,
+				weights, oriented, false);
+
+		if (directed) {
+			inOffsets = offsets(inOffsets, n);
+			arcs = countArcs(inOffsets, sources, targets, oriented, true);
+			inHeads = ensure(inHeads, arcs);
+			inEdges = ensure(inEdges, arcs);
+			inWeights = ensure(inWeights, arcs);
+			fillArcs(inOffsets, inHeads, inEdges, inWeights, sources, targets,
+					weights, oriented, true);
+		} else {
+			inOffsets = outOffsets;
+			inHeads = outHeads;
+			inEdges = outEdges;
+			inWeights = outWeights;
+		}
+
+		forward.ensureCapacity(n);
+		backward.ensureCapacity(n);
+		distance = Double.POSITIVE_INFINITY;
+	}
+
+	public Graph getGraph() {
+		return graph;
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	// *** Queries ***
+
+	/**
+	 * Computes a shortest path with Dijkstra's algorithm. The search stops as
+	 * soon as the target is reached.
+	 * 
+	 * @param source
+	 *            The first node of the path.
+	 * @param target
+	 *            The last node of the path.
+	 * @return The path, or {@code null} if the target cannot be reached.
+	 * @complexity O((n + m) log(n)) in the worst case
+	 */
+	public Path dijkstra(Node source, Node target) {
+		return aStar(source, target, null);
+	}
+
+	/**
+	 * Computes a shortest path with the A* algorithm, the nodes being
+	 * explored by increasing distance from the source plus estimated distance
+	 * to the target. With a {@code null} heuristic, this is Dijkstra's
+	 * algorithm.
+	 * 
+	 * @param source
+	 *            The first node of the path.
+	 * @param target
+	 *            The last node of the path.
+	 * @param heuristic
+	 *            The estimate of the distance to the target.
+	 * @return The path, or {@code null} if the target cannot be reached.
+	 * @complexity O((n + m) log(n)) in the worst case with a consistent
+	 *             heuristic
+	 */
+	public Path aStar(Node source, Node target, Heuristic heuristic) {
+		int s = source.getIndex();
+		int t = target.getIndex();
+		Search f = forward;
+
+		startQuery();
+		f.start(s, heuristic == null ? 0 : heuristic.estimate(s, t));
+
+		while (f.size > 0) {
+			int u = f.pop();
+
+			if (u == t) {
+				distance = f.dist[t];
+				return path(s, t, -1);
+			}
+
+			double du = f.dist[u];
+
+			for (int a = outOffsets[u]; a < outOffsets[u + 1]; a++) {
+				int v = outHeads[a];
+				double dv = du + outWeights[a];
+
+				if (dv < f.distance(v)) {
+					double h = heuristic == null ? 0 : heuristic.estimate(v, t);
+					f.update(v, dv, dv + h, u, outEdges[a]);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Computes a shortest path with two Dijkstra searches, one from the source
+	 * along the leaving arcs and one from the target along the entering arcs.
+	 * The search with the smallest frontier distance advances first, and both
+	 * stop when the sum of their frontier distances exceeds the shortest path
+	 * found so far.
+	 * 
+	 * @param source
+	 *            The first node of the path.
+	 * @param target
+	 *            The last node of the path.
+	 * @return The path, or {@code null} if the target cannot be reached.
+	 * @complexity O((n + m) log(n)) in the worst case
+	 */
+	public Path bidirectional(Node source, Node target) {
+		int s = source.getIndex();
+		int t = target.getIndex();
+		Search f = forward, b = backward;
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+
+		startQuery();
+		f.start(s, 0);
+		b.start(t, 0);
+
+		if (s == t) {
+			distance = 0;
+			return path(s, t, -1);
+		}
+
+		while (f.size > 0 && b.size > 0) {
+			if (f.topKey() + b.topKey() >= best)
+				break;
+
+			boolean forwardStep = f.topKey() <= b.topKey();
+			Search search = forwardStep ? f : b;
+			Search other = forwardStep ? b : f;
+			int[] offsets = forwardStep ? outOffsets : inOffsets;
+			int[] heads = forwardStep ? outHeads : inHeads;
+			int[] edges = forwardStep ? outEdges : inEdges;
+			double[] weights = forwardStep ? outWeights : inWeights;
+			int u = search.pop();
+			double du = search.dist[u];
+
+			for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+				int v = heads[a];
+				double dv = du + weights[a];
+
+				if (dv < search.distance(v)) {
+					search.update(v, dv, dv, u, edges[a]);
+
+					double total = dv + other.distance(v);
+
+					if (total < best) {
+						best = total;
+						meeting = v;
+					}
+				}
+			}
+		}
+
+		if (meeting < 0)
+			return null;
+
+		distance = best;
+		return path(s, t, meeting);
+	}
+
+	/**
+	 * Length of the path found by the last query, infinite if no path was
+	 * found.
+	 */
+	public double getDistance() {
+		return distance;
+	}
+
+	/**
+	 * Number of nodes removed from the heaps by the last query, a measure of
+	 * the work it has done.
+	 */
+	public int getSettledCount() {
+		return forward.settled + backward.settled;
+	}
+
+	// *** Helpers ***
+
+	private void startQuery() {
+		if (++query == Integer.MAX_VALUE) {
+			forward.resetStamps();
+			backward.resetStamps();
+			query = 1;
+		}
+
+		distance = Double.POSITIVE_INFINITY;
+		forward.settled = 0;
+		backward.settled = 0;
+	}
+
+	/**
+	 * Builds the path from the predecessors of the forward search and, if
+	 * {@code meeting} is not -1, the successors found by the backward search.
+	 */
+	private Path path(int s, int t, int meeting) {
+		int last = meeting < 0 ? t : meeting;
+		int length = 0;
+
+		for (int v = last; v != s; v = forward.pred[v])
+			length++;
+
+		int[] edges = new int[length];
+		int[] nodes = new int[length + 1];
+
+		nodes[0] = s;
+
+		for (int v = last, k = length; v != s; v = forward.pred[v], k--) {
+			edges[k - 1] = forward.predEdge[v];
+			nodes[k] = v;
+		}
+
+		Path path = new Path();
+		path.setRoot(graph.getNode(s));
+
+		for (int k = 0; k < length; k++) {
+			path.edgePath.push(graph.getEdge(edges[k]));
+			path.nodePath.push(graph.getNode(nodes[k + 1]));
+		}
+
+		if (meeting >= 0) {
+			for (int v = meeting; v != t; v = backward.pred[v]) {
+				path.edgePath.push(graph.getEdge(backward.predEdge[v]));
+				path.nodePath.push(graph.getNode(backward.pred[v]));
+			}
+		}
+
+		return path;
+	}
+
+	private static int[] offsets(int[] offsets, int n) {
+		if (offsets == null || offsets.length != n + 1)
+			return new int[n + 1];
+
+		Arrays.fill(offsets, 0);
+		return offsets;
+	}
+
+	private static int[] ensure(int[] array, int size) {
+		return array == null || array.length < size ? new int[size] : array;
+	}
+
+	private static double[] ensure(double[] array, int size) {
+		return array == null || array.length < size ? new double[size] : array;
+	}
+
+	/**
+	 * Counts the arcs of each node and turns the counts in offsets.
+	 * 
+	 * @return The number of arcs.
+	 */
+	private static int countArcs(int[] offsets, int[] sources, int[] targets,
+			boolean[] oriented, boolean reverse) {
+		int n = offsets.length - 1;
+
+		for (int e = 0; e < sources.length; e++) {
+			int s = sources[e], t = targets[e];
+
+			if (s == t)
+				continue;
+
+			if (oriented[e]) {
+				offsets[reverse ? t : s]++;
+			} else {
+				offsets[s]++;
+				offsets[t]++;
+			}
+		}
+
+		int total = 0;
+
+		for (int v = 0; v < n; v++) {
+			int count = offsets[v];
+			offsets[v] = total;
+			total += count;
+		}
+
+		offsets[n] = total;
+		return total;
+	}
+
+	private static void fillArcs(int[] offsets, int[] heads, int[] edges,
+			double[] weights, int[] sources, int[] targets,
+			double[] edgeWeights, boolean[] oriented, boolean reverse) {
+		int n = offsets.length - 1;
+		int[] cursor = Arrays.copyOf(offsets, n);
+
+		for (int e = 0; e < sources.length; e++) {
+			int s = sources[e], t = targets[e];
+
+			if (s == t)
+				continue;
+
+			if (oriented[e] && reverse) {
+				s = targets[e];
+				t = sources[e];
+			}
+
+			int a = cursor[s]++;
+			heads[a] = t;
+			edges[a] = e;
+			weights[a] = edgeWeights[e];
+
+			if (!oriented[e]) {
+				a = cursor[t]++;
+				heads[a] = s;
+				edges[a] = e;
+				weights[a] = edgeWeights[e];
+			}
+		}
+	}
+
+	/**
+	 * State of a search: labels of the nodes and binary heap of the nodes to
+	 * explore. A label is valid only if its stamp is the current query.
+	 */
+	protected class Search {
+		double[] dist, key;
+		int[] pred, predEdge, stamp;
+
+		/**
+		 * Position of each node in the heap, -1 once it has been removed.
+		 */
+		int[] pos;
+		int[] heap;
+		int size;
+		int settled;
+
+		void ensureCapacity(int n) {
+			if (dist != null && dist.length >= n)
+				return;
+
+			dist = new double[n];
+			key = new double[n];
+			pred = new int[n];
+			predEdge = new int[n];
+			stamp = new int[n];
+			pos = new int[n];
+			heap = new int[n];
+		}
+
+		void resetStamps() {
+			Arrays.fill(stamp, 0);
+		}
+
+		double distance(int v) {
+			return stamp[v] == query ? dist[v] : Double.POSITIVE_INFINITY;
+		}
+
+		void start(int root, double rootKey) {
+			size = 0;
+			update(root, 0, rootKey, -1, -1);
+		}
+
+		/**
+		 * Sets a shorter distance to a node, and inserts it in the heap or
+		 * moves it up. A node already removed is inserted again, which only
+		 * happens with an inconsistent heuristic.
+		 */
+		void update(int v, double d, double k, int from, int edge) {
+			if (stamp[v] != query) {
+				stamp[v] = query;
+				pos[v] = -1;
+			}
+
+			dist[v] = d;
+			key[v] = k;
+			pred[v] = from;
+			predEdge[v] = edge;
+
+			if (pos[v] < 0) {
+				pos[v] = size;
+				heap[size++] = v;
+			}
+
+			up(pos[v]);
+		}
+
+		double topKey() {
+			return key[heap[0]];
+		}
+
+		int pop() {
+			int top = heap[0];
+
+			pos[top] = -1;
+			size--;
+			settled++;
+
+			if (size > 0) {
+				heap[0] = heap[size];
+				pos[heap[0]] = 0;
+				down(0);
+			}
+
+			return top;
+		}
+
+		private void up(int i) {
+			int v = heap[i];
+			double k = key[v];
+
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				int p = heap[parent];
+
+				if (key[p] <= k)
+					break;
+
+				heap[i] = p;
+				pos[p] = i;
+				i = parent;
+			}
+
+			heap[i] = v;
+			pos[v] = i;
+		}
+
+		private void down(int i) {
+			int v = heap[i];
+			double k = key[v];
+			int half = size >>> 1;
+
+			while (i < half) {
+				int child = 2 * i + 1;
+				int c = heap[child];
+
+				if (child + 1 < size && key[heap[child + 1]] < key[c])
+					c = heap[++child];
+
+				if (k <= key[c])
+					break;
+
+				heap[i] = c;
+				pos[c] = i;
+				i = child;
+			}
+
+			heap[i] = v;
+			pos[v] = i;
+		}
+	}
+}
@@ -33,6 +33,10 @@ package org.graphstream.graph;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Structures are generic objects which may contain nodes and edges.
@@ -176,4 +180,35 @@ public interface Structure {
 	 * @see #getEachEdge()
 	 */
 	<T extends Edge> Collection<T> getEdgeSet();
+
+	/**
+	 * Stream of the nodes. The stream can be made parallel. The structure
+	 * must not be modified while the stream is used.
+	 * 
+	 * <p>
+	 * The default implementation wraps {@link #getNodeIterator()}, so that
+	 * parallel streams split poorly. Graph implementations that give access
+	 * to nodes by index return streams that split evenly.
+	 * </p>
+	 * 
+	 * @return A stream of nodes.
+	 */
+	default Stream<Node> nodes() {
+		return StreamSupport.stream(Spliterators.spliterator(
+				this.<Node> getNodeIterator(), getNodeCount(),
+				Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Stream of the edges. The stream can be made parallel. The structure
+	 * must not be modified while the stream is used.
+	 * 
+	 * @return A stream of edges.
+	 * @see #nodes()
+	 */
+	default Stream<Edge> edges() {
+		return StreamSupport.stream(Spliterators.spliterator(
+				this.<Edge> getEdgeIterator(), getEdgeCount(),
+				Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
 }
@@ -31,6 +31,8 @@
  */
 package org.graphstream.graph.implementations;
 
+import java.util.Map;
+
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 import org.graphstream.stream.SourceBase.ElementType;
@@ -107,6 +109,26 @@ public class AbstractEdge extends AbstractElement implements Edge {
 				attribute, event, oldValue, newValue);
 	}
 
+	/**
+	 * This implementation returns the edge columns of the parent graph, or
+	 * {@code null} once this edge has been removed from it.
+	 * 
+	 * @see org.graphstream.graph.implementations.AbstractElement#attributeColumns()
+	 */
+	@Override
+	protected Map<String, AttributeColumn> attributeColumns() {
+		if (graph.edgeColumns == null)
+			return null;
+
+		int index = getIndex();
+
+		if (index < 0 || index >= graph.getEdgeCount()
+				|| graph.getEdge(index) != this)
+			return null;
+
+		return graph.edgeColumns;
+	}
+
 	/**
 	 * This implementation calls the corresponding method of the parent graph
 	 * 
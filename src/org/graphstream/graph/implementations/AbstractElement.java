@@ -35,10 +35,12 @@ import org.graphstream.graph.CompoundAttribute;
 import org.graphstream.graph.Element;
 import org.graphstream.graph.NullAttributeException;
 
+import java.security.AccessControlException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -59,6 +61,22 @@ public abstract class AbstractElement implements Element {
 		ADD, CHANGE, REMOVE
 	};
 
+	/**
+	 * If true, attributes are stored in a {@link CompactAttributeMap} instead
+	 * of a {@link HashMap}.
+	 */
+	protected static final boolean COMPACT_ATTRIBUTES;
+
+	static {
+		String p = "org.graphstream.graph.element.compactAttributes";
+		boolean compactAttributes = false;
+		try {
+			compactAttributes = Boolean.valueOf(System.getProperty(p, "false"));
+		} catch (AccessControlException e) {
+		}
+		COMPACT_ATTRIBUTES = compactAttributes;
+	}
+
 	// Attribute
 
 	// protected static Set<String> emptySet = new HashSet<String>();
@@ -74,10 +92,11 @@ public abstract class AbstractElement implements Element {
 	private int index;
 
 	/**
-	 * Attributes map. This map is created only when needed. It contains pairs
-	 * (key,value) where the key is the attribute name and the value an Object.
+	 * Attributes map. This map is created only when needed, by
+	 * {@link #newAttributeMap(int)}. It contains pairs (key,value) where the
+	 * key is the attribute name and the value an Object.
 	 */
-	protected HashMap<String, Object> attributes = null;
+	protected Map<String, Object> attributes = null;
 
 	/**
 	 * Vector used when removing attributes to avoid recursive removing.
@@ -117,6 +136,54 @@ public abstract class AbstractElement implements Element {
 		this.index = index;
 	}
 
+	/**
+	 * Creates the map storing the attributes of this element. By default this
+	 * is a {@link HashMap}, or a {@link CompactAttributeMap} if the system
+	 * property {@code org.graphstream.graph.element.compactAttributes} is
+	 * {@code true}. Subclasses may override it to choose another storage.
+	 * 
+	 * @param expectedSize
+	 *            The number of attributes that will be added first.
+	 * @return a new empty map
+	 */
+	protected Map<String, Object> newAttributeMap(int expectedSize) {
+		if (COMPACT_ATTRIBUTES)
+			return new CompactAttributeMap(expectedSize);
+
+		return new HashMap<String, Object>(expectedSize);
+	}
+
+	/**
+	 * The attribute columns of the graph that may hold values of this element,
+	 * indexed by attribute name. Nodes and edges return the columns declared
+	 * on their graph with {@link AbstractGraph#addNodeColumn(String,
+	 * AttributeColumn.Type)} and
+	 * {@link AbstractGraph#addEdgeColumn(String, AttributeColumn.Type)} as
+	 * long as they belong to it.
+	 * 
+	 * @return The columns or {@code null} if there is none.
+	 */
+	protected Map<String, AttributeColumn> attributeColumns() {
+		return null;
+	}
+
+	private AttributeColumn column(String key) {
+		Map<String, AttributeColumn> columns = attributeColumns();
+		return columns == null ? null : columns.get(key);
+	}
+
+	/**
+	 * Value of an attribute, read from the attribute columns first.
+	 */
+	private Object lookup(String key) {
+		AttributeColumn column = column(key);
+
+		if (column != null && column.isSet(getIndex()))
+			return column.get(getIndex());
+
+		return attributes == null ? null : attributes.get(key);
+	}
+
 	// XXX UGLY. how to create events in the abstract element ?
 	// XXX The various methods that add and remove attributes will propagate an
 	// event
@@ -159,12 +226,10 @@ public abstract class AbstractElement implements Element {
 	// public Object getAttribute( String key )
 	@SuppressWarnings("all")
 	public <T> T getAttribute(String key) {
-		if (attributes != null) {
-			T value = (T) attributes.get(key);
+		T value = (T) lookup(key);
 
-			if (value != null)
-				return value;
-		}
+		if (value != null)
+			return value;
 
 		if (nullAttributesAreErrors())
 			throw new NullAttributeException(key);
@@ -181,13 +246,11 @@ public abstract class AbstractElement implements Element {
 	public <T> T getFirstAttributeOf(String... keys) {
 		Object o = null;
 
-		if (attributes != null) {
-			for (String key : keys) {
-				o = attributes.get(key);
+		for (String key : keys) {
+			o = lookup(key);
 
-				if (o != null)
-					return (T) o;
-			}
+			if (o != null)
+				return (T) o;
 		}
 
 		if (o == null && nullAttributesAreErrors())
@@ -203,12 +266,10 @@ public abstract class AbstractElement implements Element {
 	// public Object getAttribute( String key, Class<?> clazz )
 	@SuppressWarnings("all")
 	public <T> T getAttribute(String key, Class<T> clazz) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null && clazz.isInstance(o))
-				return (T) o;
-		}
+		if (o != null && clazz.isInstance(o))
+			return (T) o;
 
 		if (nullAttributesAreErrors())
 			throw new NullAttributeException(key);
@@ -225,11 +286,11 @@ public abstract class AbstractElement implements Element {
 	public <T> T getFirstAttributeOf(Class<T> clazz, String... keys) {
 		Object o = null;
 
-		if (attributes == null)
+		if (attributes == null && attributeColumns() == null)
 			return null;
 
 		for (String key : keys) {
-			o = attributes.get(key);
+			o = lookup(key);
 
 			if (o != null && clazz.isInstance(o))
 				return (T) o;
@@ -246,12 +307,10 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public String getLabel(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null && o instanceof CharSequence)
-				return o.toString();
-		}
+		if (o != null && o instanceof CharSequence)
+			return o.toString();
 
 		if (nullAttributesAreErrors())
 			throw new NullAttributeException(key);
@@ -264,7 +323,20 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public double getNumber(String key) {
+		AttributeColumn column = column(key);
+
+		if (column != null && column.isSet(getIndex()))
+			return column.getDouble(getIndex());
+
 		if (attributes != null) {
+			if (attributes instanceof CompactAttributeMap) {
+				CompactAttributeMap map = (CompactAttributeMap) attributes;
+				int slot = map.find(key);
+
+				if (slot >= 0 && map.isUnboxed(slot))
+					return map.doubleAt(slot);
+			}
+
 			Object o = attributes.get(key);
 
 			if (o != null) {
@@ -298,12 +370,10 @@ public abstract class AbstractElement implements Element {
 	 */
 	@SuppressWarnings("unchecked")
 	public ArrayList<? extends Number> getVector(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null && o instanceof ArrayList)
-				return ((ArrayList<? extends Number>) o);
-		}
+		if (o != null && o instanceof ArrayList)
+			return ((ArrayList<? extends Number>) o);
 
 		if (nullAttributesAreErrors())
 			throw new NullAttributeException(key);
@@ -316,12 +386,10 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public Object[] getArray(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null && o instanceof Object[])
-				return ((Object[]) o);
-		}
+		if (o != null && o instanceof Object[])
+			return ((Object[]) o);
 
 		if (nullAttributesAreErrors())
 			throw new NullAttributeException(key);
@@ -334,15 +402,13 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public HashMap<?, ?> getHash(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null) {
-				if (o instanceof HashMap<?, ?>)
-					return ((HashMap<?, ?>) o);
-				if (o instanceof CompoundAttribute)
-					return ((CompoundAttribute) o).toHashMap();
-			}
+		if (o != null) {
+			if (o instanceof HashMap<?, ?>)
+				return ((HashMap<?, ?>) o);
+			if (o instanceof CompoundAttribute)
+				return ((CompoundAttribute) o).toHashMap();
 		}
 
 		if (nullAttributesAreErrors())
@@ -356,6 +422,11 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public boolean hasAttribute(String key) {
+		AttributeColumn column = column(key);
+
+		if (column != null && column.isSet(getIndex()))
+			return true;
+
 		if (attributes != null)
 			return attributes.containsKey(key);
 
@@ -367,12 +438,10 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public boolean hasAttribute(String key, Class<?> clazz) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null)
-				return (clazz.isInstance(o));
-		}
+		if (o != null)
+			return (clazz.isInstance(o));
 
 		return false;
 	}
@@ -382,12 +451,10 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public boolean hasLabel(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null)
-				return (o instanceof CharSequence);
-		}
+		if (o != null)
+			return (o instanceof CharSequence);
 
 		return false;
 	}
@@ -397,7 +464,20 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public boolean hasNumber(String key) {
+		AttributeColumn column = column(key);
+
+		if (column != null && column.isSet(getIndex()))
+			return true;
+
 		if (attributes != null) {
+			if (attributes instanceof CompactAttributeMap) {
+				CompactAttributeMap map = (CompactAttributeMap) attributes;
+				int slot = map.find(key);
+
+				if (slot >= 0 && map.isUnboxed(slot))
+					return true;
+			}
+
 			Object o = attributes.get(key);
 
 			if (o != null)
@@ -412,12 +492,10 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public boolean hasVector(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null && o instanceof ArrayList<?>)
-				return true;
-		}
+		if (o != null && o instanceof ArrayList<?>)
+			return true;
 
 		return false;
 	}
@@ -427,12 +505,10 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public boolean hasArray(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null && o instanceof Object[])
-				return true;
-		}
+		if (o != null && o instanceof Object[])
+			return true;
 
 		return false;
 	}
@@ -442,18 +518,19 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public boolean hasHash(String key) {
-		if (attributes != null) {
-			Object o = attributes.get(key);
+		Object o = lookup(key);
 
-			if (o != null
-					&& (o instanceof HashMap<?, ?> || o instanceof CompoundAttribute))
-				return true;
-		}
+		if (o != null
+				&& (o instanceof HashMap<?, ?> || o instanceof CompoundAttribute))
+			return true;
 
 		return false;
 	}
 
 	public Iterator<String> getAttributeKeyIterator() {
+		if (hasColumnValues())
+			return getAttributeKeySet().iterator();
+
 		if (attributes != null)
 			return attributes.keySet().iterator();
 
@@ -465,6 +542,19 @@ public abstract class AbstractElement implements Element {
 	}
 
 	public Collection<String> getAttributeKeySet() {
+		if (hasColumnValues()) {
+			HashSet<String> keys = new HashSet<String>();
+
+			for (AttributeColumn column : attributeColumns().values())
+				if (column.isSet(getIndex()))
+					keys.add(column.getKey());
+
+			if (attributes != null)
+				keys.addAll(attributes.keySet());
+
+			return Collections.unmodifiableCollection(keys);
+		}
+
 		if (attributes != null)
 			return (Collection<String>) Collections
 					.unmodifiableCollection(attributes.keySet());
@@ -494,15 +584,46 @@ public abstract class AbstractElement implements Element {
 	}
 
 	public int getAttributeCount() {
-		if (attributes != null)
-			return attributes.size();
+		int count = attributes == null ? 0 : attributes.size();
+		Map<String, AttributeColumn> columns = attributeColumns();
+
+		if (columns != null)
+			for (AttributeColumn column : columns.values())
+				if (column.isSet(getIndex()))
+					count++;
 
-		return 0;
+		return count;
+	}
+
+	/**
+	 * True if at least one attribute of this element is stored in a column.
+	 */
+	private boolean hasColumnValues() {
+		Map<String, AttributeColumn> columns = attributeColumns();
+
+		if (columns != null)
+			for (AttributeColumn column : columns.values())
+				if (column.isSet(getIndex()))
+					return true;
+
+		return false;
 	}
 
 	// Command
 
 	public void clearAttributes() {
+		Map<String, AttributeColumn> columns = attributeColumns();
+
+		if (columns != null) {
+			for (AttributeColumn column : columns.values()) {
+				if (column.isSet(getIndex())) {
+					attributeChanged(AttributeChangeEvent.REMOVE,
+							column.getKey(), column.get(getIndex()), null);
+					column.unset(getIndex());
+				}
+			}
+		}
+
 		if (attributes != null) {
 			for (Map.Entry<String, Object> entry : attributes.entrySet())
 				attributeChanged(AttributeChangeEvent.REMOVE, entry.getKey(),
@@ -513,6 +634,12 @@ public abstract class AbstractElement implements Element {
 	}
 
 	protected void clearAttributesWithNoEvent() {
+		Map<String, AttributeColumn> columns = attributeColumns();
+
+		if (columns != null)
+			for (AttributeColumn column : columns.values())
+				column.unset(getIndex());
+
 		if (attributes != null)
 			attributes.clear();
 	}
@@ -522,9 +649,6 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public void addAttribute(String attribute, Object... values) {
-		if (attributes == null)
-			attributes = new HashMap<String, Object>(1);
-
 		Object oldValue;
 		Object value;
 
@@ -535,6 +659,48 @@ public abstract class AbstractElement implements Element {
 		else
 			value = values;
 
+		AttributeColumn column = column(attribute);
+
+		if (column != null) {
+			int index = getIndex();
+			boolean exists = column.isSet(index);
+
+			if (column.accepts(value)) {
+				if (exists)
+					oldValue = column.get(index);
+				else if (attributes != null
+						&& attributes.containsKey(attribute)) {
+					exists = true;
+					oldValue = attributes.remove(attribute);
+				} else
+					oldValue = null;
+
+				column.put(index, value);
+				attributeChanged(exists ? AttributeChangeEvent.CHANGE
+						: AttributeChangeEvent.ADD, attribute, oldValue, value);
+				return;
+			}
+
+			// The new value cannot be stored in the column.
+			column.spilled = true;
+
+			if (exists) {
+				oldValue = column.get(index);
+				column.unset(index);
+
+				if (attributes == null)
+					attributes = newAttributeMap(1);
+
+				attributes.put(attribute, value);
+				attributeChanged(AttributeChangeEvent.CHANGE, attribute,
+						oldValue, value);
+				return;
+			}
+		}
+
+		if (attributes == null)
+			attributes = newAttributeMap(1);
+
 		AttributeChangeEvent event = AttributeChangeEvent.ADD;
 
 		if (attributes.containsKey(attribute)) // In case the value is null,
@@ -566,7 +732,7 @@ public abstract class AbstractElement implements Element {
 	 */
 	public void addAttributes(Map<String, Object> attributes) {
 		if (this.attributes == null)
-			this.attributes = new HashMap<String, Object>(attributes.size());
+			this.attributes = newAttributeMap(attributes.size());
 
 		Iterator<String> i = attributes.keySet().iterator();
 		Iterator<Object> j = attributes.values().iterator();
@@ -580,6 +746,26 @@ public abstract class AbstractElement implements Element {
 	 *             element.
 	 */
 	public void removeAttribute(String attribute) {
+		AttributeColumn column = column(attribute);
+
+		if (column != null && column.isSet(getIndex())) {
+			if (attributesBeingRemoved == null)
+				attributesBeingRemoved = new ArrayList<String>();
+
+			if (!attributesBeingRemoved.contains(attribute)) {
+				attributesBeingRemoved.add(attribute);
+
+				attributeChanged(AttributeChangeEvent.REMOVE, attribute,
+						column.get(getIndex()), null);
+
+				attributesBeingRemoved
+						.remove(attributesBeingRemoved.size() - 1);
+				column.unset(getIndex());
+			}
+
+			return;
+		}
+
 		if (attributes != null) {
 			//
 			// 'attributesBeingRemoved' is created only if this is required.
@@ -40,7 +40,10 @@ import org.graphstream.graph.IdAlreadyInUseException;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.NodeFactory;
 import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.BatchElementSink;
+import org.graphstream.stream.BatchSink;
 import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.EventBatch;
 import org.graphstream.stream.GraphParseException;
 import org.graphstream.stream.Replayable;
 import org.graphstream.stream.Sink;
@@ -57,8 +60,15 @@ import org.graphstream.util.GraphListeners;
 
 import java.io.IOException;
 import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * <p>
@@ -84,7 +94,7 @@ import java.util.Iterator;
  * </p>
  */
 public abstract class AbstractGraph extends AbstractElement implements Graph,
-		Replayable {
+		Replayable, BatchSink, BatchElementSink {
 	// *** Fields ***
 
 	private boolean strictChecking;
@@ -99,6 +109,17 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 
 	private long replayId = 0;
 
+	/**
+	 * Attribute columns of nodes and edges, created with the first column.
+	 */
+	HashMap<String, AttributeColumn> nodeColumns, edgeColumns;
+
+	/**
+	 * Listeners notified when elements are renumbered by
+	 * {@link #reorder(int[])}, created with the first listener.
+	 */
+	private ArrayList<IndexListener> indexListeners;
+
 	// *** Constructors ***
 
 	/**
@@ -228,6 +249,30 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		};
 	}
 
+	/**
+	 * This implementation accesses the nodes by index, so that parallel
+	 * streams split evenly.
+	 * 
+	 * @see org.graphstream.graph.Structure#nodes()
+	 */
+	@Override
+	public Stream<Node> nodes() {
+		return IntStream.range(0, getNodeCount()).mapToObj(
+				i -> this.<Node> getNode(i));
+	}
+
+	/**
+	 * This implementation accesses the edges by index, so that parallel
+	 * streams split evenly.
+	 * 
+	 * @see org.graphstream.graph.Structure#edges()
+	 */
+	@Override
+	public Stream<Edge> edges() {
+		return IntStream.range(0, getEdgeCount()).mapToObj(
+				i -> this.<Edge> getEdge(i));
+	}
+
 	/**
 	 * This implementation returns {@link #getNodeIterator()}
 	 * 
@@ -305,6 +350,8 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 
 		clearCallback();
 		clearAttributesWithNoEvent();
+		clearColumns(nodeColumns);
+		clearColumns(edgeColumns);
 	}
 
 	/*
@@ -331,6 +378,37 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		return (T) node;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.graph.Graph#addNodes(java.lang.String[])
+	 */
+	public void addNodes(String... ids) {
+		HashSet<String> batch = new HashSet<String>(4 * ids.length / 3 + 1);
+		String[] newIds = ids;
+		int count = 0;
+
+		// validate the whole batch before modifying the graph
+		for (int i = 0; i < ids.length; i++) {
+			String id = ids[i];
+
+			if (getNode(id) != null || !batch.add(id)) {
+				if (strictChecking)
+					throw new IdAlreadyInUseException("id \"" + id
+							+ "\" already in use. Cannot create a node.");
+				if (newIds == ids)
+					newIds = ids.clone();
+				continue;
+			}
+
+			if (count != i)
+				newIds[count] = id;
+			count++;
+		}
+
+		createNodes(newIds, count);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -370,7 +448,8 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 	 */
 	public <T extends Edge> T addEdge(String id, int fromIndex, int toIndex,
 			boolean directed) {
-		return addEdge(id, getNode(fromIndex), getNode(toIndex), directed);
+		return addEdge(id, this.<Node> getNode(fromIndex),
+				this.<Node> getNode(toIndex), directed);
 	}
 
 	/*
@@ -395,6 +474,161 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 				(AbstractNode) to, to.getId(), directed);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.graph.Graph#addEdges(java.lang.String[],
+	 * java.lang.String[], java.lang.String[], boolean)
+	 */
+	public void addEdges(String[] ids, String[] from, String[] to,
+			boolean directed) {
+		int n = ids.length;
+
+		if (from.length != n || to.length != n)
+			throw new IllegalArgumentException(
+					"ids, from and to must have the same length");
+
+		// The accepted edges are packed at the beginning of the arrays. The
+		// caller's arrays are copied as soon as an edge is skipped.
+		String[] edgeIds = ids, srcIds = from, dstIds = to;
+		AbstractNode[] src = new AbstractNode[n];
+		AbstractNode[] dst = new AbstractNode[n];
+		HashSet<String> batch = new HashSet<String>(4 * n / 3 + 1);
+		LinkedHashSet<String> missing = null;
+		int count = 0;
+
+		// validate the whole batch before modifying the graph
+		for (int i = 0; i < n; i++) {
+			String id = ids[i];
+			AbstractNode s = null, d = null;
+			boolean skip = false;
+
+			if (getEdge(id) != null || !batch.add(id)) {
+				if (strictChecking)
+					throw new IdAlreadyInUseException("id \"" + id
+							+ "\" already in use. Cannot create an edge.");
+				skip = true;
+			} else {
+				s = getNode(from[i]);
+				d = getNode(to[i]);
+
+				if (s == null || d == null) {
+					if (strictChecking)
+						throw new ElementNotFoundException(
+								String.format(
+										"Cannot create edge %s[%s-%s%s]. Node '%s' does not exist.",
+										id, from[i], directed ? ">" : "-",
+										to[i], s == null ? from[i] : to[i]));
+
+					if (autoCreate) {
+						if (missing == null)
+							missing = new LinkedHashSet<String>();
+						if (s == null)
+							missing.add(from[i]);
+						if (d == null)
+							missing.add(to[i]);
+					} else {
+						skip = true;
+					}
+				}
+			}
+
+			if (skip) {
+				if (edgeIds == ids) {
+					edgeIds = ids.clone();
+					srcIds = from.clone();
+					dstIds = to.clone();
+				}
+				continue;
+			}
+
+			if (count != i) {
+				edgeIds[count] = id;
+				srcIds[count] = from[i];
+				dstIds[count] = to[i];
+			}
+
+			src[count] = s;
+			dst[count] = d;
+			count++;
+		}
+
+		if (missing != null) {
+			createNodes(missing.toArray(new String[missing.size()]),
+					missing.size());
+
+			for (int i = 0; i < count; i++) {
+				if (src[i] == null)
+					src[i] = getNode(srcIds[i]);
+				if (dst[i] == null)
+					dst[i] = getNode(dstIds[i]);
+			}
+		}
+
+		if (count == 0)
+			return;
+
+		// reserve the space needed by the graph and by each node once
+		int[] degrees = new int[getNodeCount()];
+
+		for (int i = 0; i < count; i++) {
+			degrees[src[i].getIndex()]++;
+
+			if (src[i] != dst[i])
+				degrees[dst[i].getIndex()]++;
+		}
+
+		ensureCapacity(getNodeCount(), getEdgeCount() + count);
+
+		for (int i = 0; i < degrees.length; i++)
+			if (degrees[i] > 0)
+				((AbstractNode) getNode(i)).reserveEdges(degrees[i]);
+
+		int added = 0;
+
+		for (int i = 0; i < count; i++) {
+			AbstractNode s = src[i], d = dst[i];
+			AbstractEdge edge = edgeFactory.newInstance(edgeIds[i], s, d,
+					directed);
+			AbstractNode rejecter = null;
+
+			if (!s.addEdgeCallback(edge)) {
+				rejecter = s;
+			} else if (s != d && !d.addEdgeCallback(edge)) {
+				s.removeEdgeCallback(edge);
+				rejecter = d;
+			}
+
+			if (rejecter != null) {
+				if (strictChecking) {
+					listeners.sendEdgesAdded(edgeIds, srcIds, dstIds,
+							directed, 0, added);
+					throw new EdgeRejectedException("Edge " + edge
+							+ " was rejected by node " + rejecter);
+				}
+
+				if (edgeIds == ids) {
+					edgeIds = ids.clone();
+					srcIds = from.clone();
+					dstIds = to.clone();
+				}
+				continue;
+			}
+
+			addEdgeCallback(edge);
+
+			if (added != i) {
+				edgeIds[added] = edgeIds[i];
+				srcIds[added] = srcIds[i];
+				dstIds[added] = dstIds[i];
+			}
+
+			added++;
+		}
+
+		listeners.sendEdgesAdded(edgeIds, srcIds, dstIds, directed, 0, added);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -721,6 +955,13 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 				directed);
 	}
 
+	public void edgesAdded(String sourceId, long timeId, String[] edgeIds,
+			String[] fromNodeIds, String[] toNodeIds, boolean directed,
+			int offset, int count) {
+		listeners.edgesAdded(sourceId, timeId, edgeIds, fromNodeIds,
+				toNodeIds, directed, offset, count);
+	}
+
 	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
 		listeners.edgeRemoved(sourceId, timeId, edgeId);
 	}
@@ -733,6 +974,11 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		listeners.nodeAdded(sourceId, timeId, nodeId);
 	}
 
+	public void nodesAdded(String sourceId, long timeId, String[] nodeIds,
+			int offset, int count) {
+		listeners.nodesAdded(sourceId, timeId, nodeIds, offset, count);
+	}
+
 	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
 		listeners.nodeRemoved(sourceId, timeId, nodeId);
 	}
@@ -741,6 +987,17 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		listeners.stepBegins(sourceId, timeId, step);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.graphstream.stream.BatchSink#eventsReceived(org.graphstream.stream
+	 * .EventBatch)
+	 */
+	public void eventsReceived(EventBatch batch) {
+		listeners.eventsReceived(batch);
+	}
+
 	// display, read, write
 
 	public Viewer display() {
@@ -798,6 +1055,366 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		return new GraphReplayController();
 	}
 
+	// *** Attribute columns ***
+
+	/**
+	 * Stores a numeric node attribute in a column indexed by node index. The
+	 * values of this attribute already set on nodes and accepted by the column
+	 * are moved to it. If a column already exists for this attribute, it is
+	 * returned.
+	 * 
+	 * @param key
+	 *            The attribute name.
+	 * @param type
+	 *            The type of the values.
+	 * @return The column.
+	 * @throws IllegalArgumentException
+	 *             If a column with another type already exists for this
+	 *             attribute.
+	 * @complexity O(n) with n being the number of nodes
+	 */
+	public AttributeColumn addNodeColumn(String key, AttributeColumn.Type type) {
+		if (nodeColumns == null)
+			nodeColumns = new HashMap<String, AttributeColumn>();
+
+		return addColumn(nodeColumns, true, key, type);
+	}
+
+	/**
+	 * Stores a numeric edge attribute in a column indexed by edge index. See
+	 * {@link #addNodeColumn(String, AttributeColumn.Type)}.
+	 * 
+	 * @param key
+	 *            The attribute name.
+	 * @param type
+	 *            The type of the values.
+	 * @return The column.
+	 * @throws IllegalArgumentException
+	 *             If a column with another type already exists for this
+	 *             attribute.
+	 * @complexity O(m) with m being the number of edges
+	 */
+	public AttributeColumn addEdgeColumn(String key, AttributeColumn.Type type) {
+		if (edgeColumns == null)
+			edgeColumns = new HashMap<String, AttributeColumn>();
+
+		return addColumn(edgeColumns, false, key, type);
+	}
+
+	/**
+	 * The column storing a node attribute.
+	 * 
+	 * @param key
+	 *            The attribute name.
+	 * @return The column or {@code null} if the attribute is not stored in a
+	 *         column.
+	 */
+	public AttributeColumn getNodeColumn(String key) {
+		return nodeColumns == null ? null : nodeColumns.get(key);
+	}
+
+	/**
+	 * The column storing an edge attribute.
+	 * 
+	 * @param key
+	 *            The attribute name.
+	 * @return The column or {@code null} if the attribute is not stored in a
+	 *         column.
+	 */
+	public AttributeColumn getEdgeColumn(String key) {
+		return edgeColumns == null ? null : edgeColumns.get(key);
+	}
+
+	/**
+	 * Stops storing a node attribute in a column. Its values are moved back to
+	 * the nodes.
+	 * 
+	 * @param key
+	 *            The attribute name.
+	 * @complexity O(n) with n being the number of nodes
+	 */
+	public void removeNodeColumn(String key) {
+		if (nodeColumns != null)
+			removeColumn(nodeColumns, key);
+	}
+
+	/**
+	 * Stops storing an edge attribute in a column. Its values are moved back to
+	 * the edges.
+	 * 
+	 * @param key
+	 *            The attribute name.
+	 * @complexity O(m) with m being the number of edges
+	 */
+	public void removeEdgeColumn(String key) {
+		if (edgeColumns != null)
+			removeColumn(edgeColumns, key);
+	}
+
+	/**
+	 * Creates the storage of a new column. The default implementation stores
+	 * the values in arrays of the heap. Subclasses can override this method
+	 * to store them elsewhere.
+	 * 
+	 * @param nodes
+	 *            True for a node column, false for an edge column.
+	 * @param key
+	 *            The attribute name.
+	 * @param type
+	 *            The type of the values.
+	 * @param capacity
+	 *            The current number of elements.
+	 * @return An empty column.
+	 */
+	protected AttributeColumn newColumn(boolean nodes, String key,
+			AttributeColumn.Type type, int capacity) {
+		return AttributeColumn.newColumn(this, nodes, key, type, capacity);
+	}
+
+	private AttributeColumn addColumn(HashMap<String, AttributeColumn> columns,
+			boolean nodes, String key, AttributeColumn.Type type) {
+		AttributeColumn column = columns.get(key);
+
+		if (column != null) {
+			if (column.getType() != type)
+				throw new IllegalArgumentException("attribute \"" + key
+						+ "\" is already stored in a column of "
+						+ column.getType());
+			return column;
+		}
+
+		int count = nodes ? getNodeCount() : getEdgeCount();
+		column = newColumn(nodes, key, type, count);
+
+		for (int i = 0; i < count; i++) {
+			AbstractElement e = nodes ? (AbstractElement) getNode(i)
+					: (AbstractElement) getEdge(i);
+
+			if (e.attributes != null) {
+				Object value = e.attributes.get(key);
+
+				if (column.accepts(value)) {
+					column.put(i, value);
+					e.attributes.remove(key);
+				} else if (e.attributes.containsKey(key)) {
+					column.spilled = true;
+				}
+			}
+		}
+
+		columns.put(key, column);
+		return column;
+	}
+
+	private void removeColumn(HashMap<String, AttributeColumn> columns,
+			String key) {
+		AttributeColumn column = columns.remove(key);
+
+		if (column == null)
+			return;
+
+		int count = column.nodes ? getNodeCount() : getEdgeCount();
+
+		for (int i = 0; i < count; i++)
+			if (column.isSet(i))
+				detach(column, column.nodes ? (AbstractElement) getNode(i)
+						: (AbstractElement) getEdge(i), i);
+	}
+
+	/**
+	 * Moves the values of an element being removed from the columns to its
+	 * attribute map, and fills its slot with the values of the last element,
+	 * which will take its index.
+	 */
+	private void removeFromColumns(HashMap<String, AttributeColumn> columns,
+			AbstractElement e, int last) {
+		int index = e.getIndex();
+
+		for (AttributeColumn column : columns.values()) {
+			if (column.isSet(index))
+				detach(column, e, index);
+
+			if (index != last)
+				column.move(last, index);
+		}
+	}
+
+	private void detach(AttributeColumn column, AbstractElement e, int index) {
+		if (e.attributes == null)
+			e.attributes = e.newAttributeMap(1);
+
+		e.attributes.put(column.getKey(), column.get(index));
+		column.unset(index);
+	}
+
+	private void clearColumns(HashMap<String, AttributeColumn> columns) {
+		if (columns != null)
+			for (AttributeColumn column : columns.values())
+				column.clear();
+	}
+
+	// *** Reordering ***
+
+	/**
+	 * Node orders computed by {@link AbstractGraph#reorder(Ordering)}.
+	 */
+	public static enum Ordering {
+		/**
+		 * Breadth-first order. Each connected component is explored from its
+		 * node of highest degree, so hubs and their neighborhoods come first.
+		 */
+		BREADTH_FIRST,
+		/**
+		 * Cuthill-McKee order: a breadth-first order where each component is
+		 * explored from its node of lowest degree and neighbors are visited by
+		 * increasing degree. It reduces the bandwidth of the adjacency matrix,
+		 * that is the distance between the indices of adjacent nodes.
+		 */
+		CUTHILL_MCKEE,
+		/**
+		 * The reverse of {@link #CUTHILL_MCKEE}, which usually gives a
+		 * slightly better locality.
+		 */
+		REVERSE_CUTHILL_MCKEE,
+		/**
+		 * Nodes sorted by decreasing degree, so that the most accessed nodes
+		 * are packed together. Nodes of the same degree keep their order.
+		 */
+		DEGREE
+	}
+
+	/**
+	 * Listener notified when the elements of a graph are renumbered. Structures
+	 * storing data by element index register such a listener with
+	 * {@link AbstractGraph#addIndexListener(IndexListener)} to follow the new
+	 * indices.
+	 */
+	public static interface IndexListener {
+		/**
+		 * Called after the nodes and edges of the graph have been renumbered.
+		 * The element of new index {@code i} had the index
+		 * {@code nodeOrder[i]} (or {@code edgeOrder[i]} for edges). The arrays
+		 * must not be modified.
+		 * 
+		 * @param graph
+		 *            The renumbered graph.
+		 * @param nodeOrder
+		 *            The former index of each node.
+		 * @param edgeOrder
+		 *            The former index of each edge.
+		 */
+		void indicesChanged(AbstractGraph graph, int[] nodeOrder,
+				int[] edgeOrder);
+	}
+
+	/**
+	 * Renumbers the nodes and edges of the graph so that adjacent elements get
+	 * close indices. Node and edge indices normally follow the order of
+	 * insertion and are shuffled by removals, which move the last element into
+	 * the hole. After many changes, the neighbors of a node are scattered in
+	 * the graph storage and traversals make random memory accesses. Reordering
+	 * the graph before a costly computation brings them back together.
+	 * 
+	 * <p>
+	 * Identifiers, attributes and element objects do not change, only the
+	 * indices returned by {@link org.graphstream.graph.Element#getIndex()}
+	 * and the iteration order do. No event is sent to the sinks of the graph.
+	 * Attribute columns follow the new indices and the registered
+	 * {@link IndexListener}s are notified. Any other index kept by the user is
+	 * invalid after this call.
+	 * </p>
+	 * 
+	 * @param ordering
+	 *            The order to compute.
+	 * @complexity O(n + m) for {@link Ordering#BREADTH_FIRST} and
+	 *             {@link Ordering#DEGREE}, O(n + m log(d)) for the Cuthill-McKee
+	 *             orders, where d is the maximum degree.
+	 * @throws UnsupportedOperationException
+	 *             If the graph implementation cannot renumber its elements.
+	 */
+	public void reorder(Ordering ordering) {
+		reorder(new GraphReordering(this).order(ordering));
+	}
+
+	/**
+	 * Renumbers the nodes of the graph in a given order. The edges are
+	 * renumbered to match: they are grouped by the new index of their first
+	 * endpoint. See {@link #reorder(Ordering)}.
+	 * 
+	 * @param nodeOrder
+	 *            The current index of the node that will get index {@code i}
+	 *            at position {@code i}. It must be a permutation of the node
+	 *            indices.
+	 * @complexity O(n + m)
+	 * @throws IllegalArgumentException
+	 *             If the order is not a permutation of the node indices.
+	 * @throws UnsupportedOperationException
+	 *             If the graph implementation cannot renumber its elements.
+	 */
+	public void reorder(int[] nodeOrder) {
+		int n = getNodeCount();
+
+		if (nodeOrder.length != n)
+			throw new IllegalArgumentException("The order has "
+					+ nodeOrder.length + " nodes, the graph has " + n);
+
+		int[] rank = new int[n];
+		Arrays.fill(rank, -1);
+
+		for (int i = 0; i < n; i++) {
+			int v = nodeOrder[i];
+
+			if (v < 0 || v >= n || rank[v] >= 0)
+				throw new IllegalArgumentException(
+						"The order is not a permutation of the node indices");
+
+			rank[v] = i;
+		}
+
+		int[] edgeOrder = GraphReordering.edgeOrder(this, rank);
+
+		reorderCallback(nodeOrder, edgeOrder);
+
+		if (nodeColumns != null)
+			for (AttributeColumn column : nodeColumns.values())
+				column.permute(nodeOrder);
+
+		if (edgeColumns != null)
+			for (AttributeColumn column : edgeColumns.values())
+				column.permute(edgeOrder);
+
+		if (indexListeners != null)
+			for (IndexListener listener : indexListeners
+					.toArray(new IndexListener[indexListeners.size()]))
+				listener.indicesChanged(this, nodeOrder, edgeOrder);
+	}
+
+	/**
+	 * Registers a listener notified when the elements of the graph are
+	 * renumbered by {@link #reorder(int[])}.
+	 * 
+	 * @param listener
+	 *            The listener to add.
+	 */
+	public void addIndexListener(IndexListener listener) {
+		if (indexListeners == null)
+			indexListeners = new ArrayList<IndexListener>();
+
+		indexListeners.add(listener);
+	}
+
+	/**
+	 * Unregisters a listener added with
+	 * {@link #addIndexListener(IndexListener)}.
+	 * 
+	 * @param listener
+	 *            The listener to remove.
+	 */
+	public void removeIndexListener(IndexListener listener) {
+		if (indexListeners != null)
+			indexListeners.remove(listener);
+	}
+
 	// *** callbacks maintaining user's data structure
 
 	/**
@@ -820,6 +1437,19 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 	 */
 	protected abstract void addEdgeCallback(AbstractEdge edge);
 
+	/**
+	 * This method is called before adding several elements at once, so that
+	 * subclasses can reserve the space needed by their data structures. The
+	 * default implementation does nothing.
+	 * 
+	 * @param nodeCapacity
+	 *            the number of nodes the graph will have
+	 * @param edgeCapacity
+	 *            the number of edges the graph will have
+	 */
+	protected void ensureCapacity(int nodeCapacity, int edgeCapacity) {
+	}
+
 	/**
 	 * This method is automatically called when a node is removed. Subclasses
 	 * must remove the node from their data structures and to re-index other
@@ -846,6 +1476,24 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 	 */
 	protected abstract void clearCallback();
 
+	/**
+	 * This method is called by {@link #reorder(int[])} to renumber the
+	 * elements. Subclasses must rewrite their data structures so that the node
+	 * of index {@code nodeOrder[i]} and the edge of index {@code edgeOrder[i]}
+	 * get the index {@code i}, and set the new indices on the element objects.
+	 * The default implementation throws an
+	 * {@link UnsupportedOperationException}.
+	 * 
+	 * @param nodeOrder
+	 *            The former index of each node.
+	 * @param edgeOrder
+	 *            The former index of each edge.
+	 */
+	protected void reorderCallback(int[] nodeOrder, int[] edgeOrder) {
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " cannot renumber its elements");
+	}
+
 	// *** _ methods ***
 
 	// Why do we pass both the ids and the references of the endpoints here?
@@ -909,6 +1557,19 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		return (T) edge;
 	}
 
+	// helper for addNodes and addEdges, the ids are already checked
+	private void createNodes(String[] ids, int count) {
+		if (count == 0)
+			return;
+
+		ensureCapacity(getNodeCount() + count, getEdgeCount());
+
+		for (int i = 0; i < count; i++)
+			addNodeCallback(nodeFactory.newInstance(ids[i], this));
+
+		listeners.sendNodesAdded(ids, 0, count);
+	}
+
 	// helper for removeNode_
 	private void removeAllEdges(AbstractNode node) {
 		// first check if the EdgeIterator of node supports remove
@@ -931,7 +1592,7 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 			}
 		else
 			while (node.getDegree() > 0)
-				removeEdge(node.getEdge(0));
+				removeEdge(node.<Edge> getEdge(0));
 	}
 
 	// *** Methods for iterators ***
@@ -955,8 +1616,12 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		removeAllEdges(node);
 		listeners.sendNodeRemoved(node.getId());
 
-		if (graphCallback)
+		if (graphCallback) {
+			if (nodeColumns != null)
+				removeFromColumns(nodeColumns, node, getNodeCount() - 1);
+
 			removeNodeCallback(node);
+		}
 	}
 
 	/**
@@ -995,8 +1660,12 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		if (src != dst && targetCallback)
 			dst.removeEdgeCallback(edge);
 
-		if (graphCallback)
+		if (graphCallback) {
+			if (edgeColumns != null)
+				removeFromColumns(edgeColumns, edge, getEdgeCount() - 1);
+
 			removeEdgeCallback(edge);
+		}
 	}
 
 	class GraphReplayController extends SourceBase implements
@@ -35,6 +35,7 @@ import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.graphstream.graph.BreadthFirstIterator;
@@ -113,6 +114,26 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	// return graph.newEvent();
 	// }
 
+	/**
+	 * This implementation returns the node columns of the parent graph, or
+	 * {@code null} once this node has been removed from it.
+	 * 
+	 * @see org.graphstream.graph.implementations.AbstractElement#attributeColumns()
+	 */
+	@Override
+	protected Map<String, AttributeColumn> attributeColumns() {
+		if (graph.nodeColumns == null)
+			return null;
+
+		int index = getIndex();
+
+		if (index < 0 || index >= graph.getNodeCount()
+				|| graph.getNode(index) != this)
+			return null;
+
+		return graph.nodeColumns;
+	}
+
 	@Override
 	/**
 	 * This implementation calls the corresponding method of the parent graph
@@ -241,7 +262,7 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 * @see org.graphstream.graph.Node#getEdgeToward(int)
 	 */
 	public <T extends Edge> T getEdgeToward(int index) {
-		return getEdgeToward(graph.getNode(index));
+		return getEdgeToward(graph.<Node> getNode(index));
 	}
 
 	/**
@@ -250,7 +271,7 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 * @see org.graphstream.graph.Node#getEdgeToward(java.lang.String)
 	 */
 	public <T extends Edge> T getEdgeToward(String id) {
-		return getEdgeToward(graph.getNode(id));
+		return getEdgeToward(graph.<Node> getNode(id));
 	}
 
 	public abstract <T extends Edge> T getEdgeFrom(Node node);
@@ -261,7 +282,7 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 * @see org.graphstream.graph.Node#getEdgeFrom(int)
 	 */
 	public <T extends Edge> T getEdgeFrom(int index) {
-		return getEdgeFrom(graph.getNode(index));
+		return getEdgeFrom(graph.<Node> getNode(index));
 	}
 
 	/**
@@ -270,7 +291,7 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 * @see org.graphstream.graph.Node#getEdgeFrom(java.lang.String)
 	 */
 	public <T extends Edge> T getEdgeFrom(String id) {
-		return getEdgeFrom(graph.getNode(id));
+		return getEdgeFrom(graph.<Node> getNode(id));
 	}
 
 	public abstract <T extends Edge> T getEdgeBetween(Node node);
@@ -281,7 +302,7 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 * @see org.graphstream.graph.Node#getEdgeBetween(int)
 	 */
 	public <T extends Edge> T getEdgeBetween(int index) {
-		return getEdgeBetween(graph.getNode(index));
+		return getEdgeBetween(graph.<Node> getNode(index));
 	}
 
 	/**
@@ -290,7 +311,7 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 * @see org.graphstream.graph.Node#getEdgeBetween(java.lang.String)
 	 */
 	public <T extends Edge> T getEdgeBetween(String id) {
-		return getEdgeBetween(graph.getNode(id));
+		return getEdgeBetween(graph.<Node> getNode(id));
 	}
 
 	// get[_|Entering|Leaving]EdgeIterator
@@ -559,6 +580,17 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 */
 	protected abstract void clearCallback();
 
+	/**
+	 * This method is called before adding several edges incident to this node,
+	 * so that subclasses can reserve space for them at once. The default
+	 * implementation does nothing.
+	 * 
+	 * @param count
+	 *            the number of edges that will be added
+	 */
+	protected void reserveEdges(int count) {
+	}
+
 	/**
 	 * Checks if an edge enters this node. Utility method that can be useful in
 	 * subclasses.
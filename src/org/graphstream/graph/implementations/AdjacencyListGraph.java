@@ -35,6 +35,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.EdgeFactory;
@@ -208,6 +212,55 @@ public class AdjacencyListGraph extends AbstractGraph {
 		nodeCount = edgeCount = 0;
 	}
 
+	/**
+	 * Rewrites the node and edge arrays in the new order, then sorts the edges
+	 * of each node by index of the opposite node.
+	 */
+	@Override
+	protected void reorderCallback(int[] nodeOrder, int[] edgeOrder) {
+		AbstractNode[] nodes = new AbstractNode[nodeArray.length];
+		AbstractEdge[] edges = new AbstractEdge[edgeArray.length];
+
+		for (int i = 0; i < nodeCount; i++) {
+			nodes[i] = nodeArray[nodeOrder[i]];
+			nodes[i].setIndex(i);
+		}
+
+		for (int i = 0; i < edgeCount; i++) {
+			edges[i] = edgeArray[edgeOrder[i]];
+			edges[i].setIndex(i);
+		}
+
+		nodeArray = nodes;
+		edgeArray = edges;
+
+		for (int i = 0; i < nodeCount; i++)
+			if (nodeArray[i] instanceof AdjacencyListNode)
+				((AdjacencyListNode) nodeArray[i]).sortEdges();
+	}
+
+	@Override
+	protected void ensureCapacity(int nodeCapacity, int edgeCapacity) {
+		// rebuilding the maps once is cheaper than letting them grow
+		if (nodeCapacity > nodeArray.length) {
+			nodeArray = Arrays.copyOf(nodeArray, nodeCapacity);
+
+			HashMap<String, AbstractNode> tmp = new HashMap<String, AbstractNode>(
+					4 * nodeCapacity / 3 + 1);
+			tmp.putAll(nodeMap);
+			nodeMap = tmp;
+		}
+
+		if (edgeCapacity > edgeArray.length) {
+			edgeArray = Arrays.copyOf(edgeArray, edgeCapacity);
+
+			HashMap<String, AbstractEdge> tmp = new HashMap<String, AbstractEdge>(
+					4 * edgeCapacity / 3 + 1);
+			tmp.putAll(edgeMap);
+			edgeMap = tmp;
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends Edge> T getEdge(String id) {
@@ -310,6 +363,22 @@ public class AdjacencyListGraph extends AbstractGraph {
 		return new NodeIterator<T>();
 	}
 
+	// *** Streams ***
+
+	@Override
+	public Stream<Node> nodes() {
+		return StreamSupport.stream(Spliterators.<Node> spliterator(nodeArray,
+				0, nodeCount, Spliterator.DISTINCT | Spliterator.NONNULL),
+				false);
+	}
+
+	@Override
+	public Stream<Edge> edges() {
+		return StreamSupport.stream(Spliterators.<Edge> spliterator(edgeArray,
+				0, edgeCount, Spliterator.DISTINCT | Spliterator.NONNULL),
+				false);
+	}
+
 	/*
 	 * For performance tuning
 	 * 
@@ -33,8 +33,14 @@ package org.graphstream.graph.implementations;
 
 import java.security.AccessControlException;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
@@ -42,6 +48,13 @@ import org.graphstream.graph.Node;
 /**
  * Nodes used with {@link AdjacencyListGraph}
  * 
+ * <p>
+ * The edges are stored in an array, entering edges first, then undirected
+ * edges and leaving edges. The edges toward a given node are found by
+ * scanning this array, or with an {@link EdgeIndex} once the degree of the
+ * node reaches {@link EdgeIndex#THRESHOLD}, so that lookups on hubs take
+ * constant expected time while low degree nodes do not pay for an index.
+ * </p>
  */
 public class AdjacencyListNode extends AbstractNode {
 	protected static final int INITIAL_EDGE_CAPACITY;
@@ -64,12 +77,20 @@ public class AdjacencyListNode extends AbstractNode {
 	protected AbstractEdge[] edges;
 	protected int ioStart, oStart, degree;
 
+	/**
+	 * Index of the edges by opposite node, null while the degree is low. It
+	 * holds edge references, so it does not change when edges move in the
+	 * array.
+	 */
+	protected EdgeIndex edgeIndex;
+
 	// *** Constructor ***
 
 	protected AdjacencyListNode(AbstractGraph graph, String id) {
 		super(graph, id);
 		edges = new AbstractEdge[INITIAL_EDGE_CAPACITY];
 		ioStart = oStart = degree = 0;
+		edgeIndex = null;
 	}
 
 	// *** Helpers ***
@@ -82,6 +103,22 @@ public class AdjacencyListNode extends AbstractNode {
 
 	@SuppressWarnings("unchecked")
 	protected <T extends Edge> T locateEdge(Node opposite, char type) {
+		if (edgeIndex != null) {
+			// nodes of other implementations cannot be incident
+			if (!(opposite instanceof AbstractNode))
+				return null;
+
+			// as with a linear scan, prefer the entering edge
+			AbstractEdge e = null;
+
+			if (type != O_EDGE)
+				e = edgeIndex.find((AbstractNode) opposite, I_EDGE);
+			if (e == null && type != I_EDGE)
+				e = edgeIndex.find((AbstractNode) opposite, O_EDGE);
+
+			return (T) e;
+		}
+
 		// where to search ?
 		int start = 0;
 		int end = degree;
@@ -97,6 +134,13 @@ public class AdjacencyListNode extends AbstractNode {
 	}
 
 	protected void removeEdge(int i) {
+		if (edgeIndex != null) {
+			edgeIndex.remove(edges[i]);
+
+			if (degree <= EdgeIndex.THRESHOLD / 2)
+				edgeIndex = null;
+		}
+
 		if (i >= oStart) {
 			edges[i] = edges[--degree];
 			edges[degree] = null;
@@ -119,6 +163,15 @@ public class AdjacencyListNode extends AbstractNode {
 
 	// *** Callbacks ***
 
+	@Override
+	protected void reserveEdges(int count) {
+		if (degree + count > edges.length)
+			edges = Arrays.copyOf(edges, degree + count);
+
+		if (edgeIndex == null && degree + count >= EdgeIndex.THRESHOLD)
+			buildIndex(degree + count);
+	}
+
 	@Override
 	protected boolean addEdgeCallback(AbstractEdge edge) {
 		// resize edges if necessary
@@ -133,18 +186,20 @@ public class AdjacencyListNode extends AbstractNode {
 
 		if (type == O_EDGE) {
 			edges[degree++] = edge;
-			return true;
-		}
-
-		if (type == IO_EDGE) {
+		} else if (type == IO_EDGE) {
 			edges[degree++] = edges[oStart];
 			edges[oStart++] = edge;
-			return true;
+		} else {
+			edges[degree++] = edges[oStart];
+			edges[oStart++] = edges[ioStart];
+			edges[ioStart++] = edge;
 		}
 
-		edges[degree++] = edges[oStart];
-		edges[oStart++] = edges[ioStart];
-		edges[ioStart++] = edge;
+		if (edgeIndex != null)
+			edgeIndex.add(edge);
+		else if (degree >= EdgeIndex.THRESHOLD)
+			buildIndex(degree);
+
 		return true;
 	}
 
@@ -167,6 +222,28 @@ public class AdjacencyListNode extends AbstractNode {
 	protected void clearCallback() {
 		Arrays.fill(edges, 0, degree, null);
 		ioStart = oStart = degree = 0;
+		edgeIndex = null;
+	}
+
+	protected void buildIndex(int expectedSize) {
+		edgeIndex = new EdgeIndex(this, expectedSize);
+
+		for (int i = 0; i < degree; i++)
+			edgeIndex.add(edges[i]);
+	}
+
+	/**
+	 * Sorts the entering, undirected and leaving edges by index of the
+	 * opposite node, so that the neighbors are visited in storage order. Called
+	 * when the graph is reordered.
+	 */
+	protected void sortEdges() {
+		Comparator<AbstractEdge> byOpposite = (a, b) -> Integer.compare(a
+				.getOpposite(this).getIndex(), b.getOpposite(this).getIndex());
+
+		Arrays.sort(edges, 0, ioStart, byOpposite);
+		Arrays.sort(edges, ioStart, oStart, byOpposite);
+		Arrays.sort(edges, oStart, degree, byOpposite);
 	}
 
 	// *** Access methods ***
@@ -269,6 +346,64 @@ public class AdjacencyListNode extends AbstractNode {
 		}
 	}
 
+	/**
+	 * Iterates on the distinct opposite nodes of the edges. Low degree nodes
+	 * detect duplicates by scanning the previous edges, the other ones use a
+	 * set.
+	 */
+	protected class NeighborIterator<T extends Node> implements Iterator<T> {
+		protected int iNext;
+		protected HashSet<AbstractNode> visited;
+
+		protected NeighborIterator() {
+			iNext = 0;
+			if (degree > EdgeIndex.THRESHOLD)
+				visited = new HashSet<AbstractNode>(4 * degree / 3 + 1);
+			gotoNext();
+		}
+
+		protected void gotoNext() {
+			while (iNext < degree && alreadySeen(iNext))
+				iNext++;
+		}
+
+		private boolean alreadySeen(int i) {
+			AbstractNode opposite = edges[i].getOpposite(AdjacencyListNode.this);
+
+			if (visited != null)
+				return !visited.add(opposite);
+
+			for (int j = 0; j < i; j++)
+				if (edges[j].getOpposite(AdjacencyListNode.this) == opposite)
+					return true;
+
+			return false;
+		}
+
+		public boolean hasNext() {
+			return iNext < degree;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (iNext >= degree)
+				throw new NoSuchElementException();
+			T next = (T) edges[iNext++].getOpposite(AdjacencyListNode.this);
+			gotoNext();
+			return next;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException(
+					"This iterator does not support remove");
+		}
+	}
+
+	@Override
+	public <T extends Node> Iterator<T> getNeighborNodeIterator() {
+		return new NeighborIterator<T>();
+	}
+
 	@Override
 	public <T extends Edge> Iterator<T> getEdgeIterator() {
 		return new EdgeIterator<T>(IO_EDGE);
@@ -283,4 +418,29 @@ public class AdjacencyListNode extends AbstractNode {
 	public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
 		return new EdgeIterator<T>(O_EDGE);
 	}
+
+	// *** Streams ***
+
+	protected Stream<Edge> edgeStream(char type) {
+		int from = type == O_EDGE ? ioStart : 0;
+		int to = type == I_EDGE ? oStart : degree;
+
+		return StreamSupport.stream(Spliterators.<Edge> spliterator(edges,
+				from, to, Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	@Override
+	public Stream<Edge> edges() {
+		return edgeStream(IO_EDGE);
+	}
+
+	@Override
+	public Stream<Edge> enteringEdges() {
+		return edgeStream(I_EDGE);
+	}
+
+	@Override
+	public Stream<Edge> leavingEdges() {
+		return edgeStream(O_EDGE);
+	}
 }
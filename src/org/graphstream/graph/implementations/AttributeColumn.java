@@ -0,0 +1,527 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+
+/**
+ * A numeric attribute stored for all the nodes or all the edges of a graph in
+ * a primitive array indexed by element index.
+ * 
+ * <p>
+ * Columns are declared on a graph with
+ * {@link AbstractGraph#addNodeColumn(String, Type)} or
+ * {@link AbstractGraph#addEdgeColumn(String, Type)}. The graph keeps them in
+ * sync when elements are added or removed and their indices change. The
+ * attribute stays visible through the usual {@link org.graphstream.graph.Element}
+ * methods and changes are sent to the attribute sinks of the graph, but
+ * algorithms sweeping the whole graph can read and write values by index
+ * without any lookup nor boxing:
+ * </p>
+ * 
+ * <pre>
+ * AttributeColumn weight = graph.addEdgeColumn(&quot;weight&quot;, AttributeColumn.Type.DOUBLE);
+ * 
+ * for (int i = 0; i &lt; graph.getEdgeCount(); i++)
+ * 	total += weight.getDouble(i);
+ * </pre>
+ * 
+ * <p>
+ * A value is stored in the column only if it has the boxed type of the
+ * column, {@link Double} for a {@link Type#DOUBLE} column, {@link Integer} for
+ * a {@link Type#INT} column and {@link Long} for a {@link Type#LONG} column,
+ * so that it is read back with the same type. Other values are kept in the
+ * attribute map of the element as usual. Reading an
+ * element that has no value in the column returns 0 or {@code NaN} for a
+ * {@link Type#DOUBLE} column; use {@link #isSet(int)} to know if a value is
+ * present.
+ * </p>
+ */
+public abstract class AttributeColumn {
+	/**
+	 * Type of the values of a column.
+	 */
+	public static enum Type {
+		DOUBLE, INT, LONG
+	}
+
+	protected final AbstractGraph graph;
+	protected final boolean nodes;
+	protected final String key;
+
+	/**
+	 * Elements having a value in this column.
+	 */
+	protected final BitSet set;
+
+	/**
+	 * True if some elements may store a value of this attribute in their own
+	 * map, because the column cannot represent it.
+	 */
+	boolean spilled;
+
+	protected AttributeColumn(AbstractGraph graph, boolean nodes, String key) {
+		this.graph = graph;
+		this.nodes = nodes;
+		this.key = key;
+		this.set = new BitSet();
+	}
+
+	static AttributeColumn newColumn(AbstractGraph graph, boolean nodes,
+			String key, Type type, int capacity) {
+		switch (type) {
+		case INT:
+			return new IntColumn(graph, nodes, key, capacity);
+		case LONG:
+			return new LongColumn(graph, nodes, key, capacity);
+		default:
+			return new DoubleColumn(graph, nodes, key, capacity);
+		}
+	}
+
+	// *** Access ***
+
+	/**
+	 * Name of the attribute stored in this column.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	public abstract Type getType();
+
+	/**
+	 * True if the element at the given index has a value in this column.
+	 */
+	public boolean isSet(int index) {
+		return set.get(index);
+	}
+
+	/**
+	 * Value of an element as a double, {@code NaN} if it has no value.
+	 */
+	public abstract double getDouble(int index);
+
+	/**
+	 * Value of an element as an int, 0 if it has no value.
+	 */
+	public abstract int getInt(int index);
+
+	/**
+	 * Value of an element as a long, 0 if it has no value.
+	 */
+	public abstract long getLong(int index);
+
+	/**
+	 * Sets the value of an element. The value is converted to the type of the
+	 * column.
+	 */
+	public void setDouble(int index, double value) {
+		boolean added = !set.get(index);
+		Object old = added ? unspill(index) : get(index);
+
+		storeDouble(index, value);
+		changed(index, added && old == null, old);
+	}
+
+	/**
+	 * Sets the value of an element. The value is converted to the type of the
+	 * column.
+	 */
+	public void setInt(int index, int value) {
+		setLong(index, value);
+	}
+
+	/**
+	 * Sets the value of an element. The value is converted to the type of the
+	 * column.
+	 */
+	public void setLong(int index, long value) {
+		boolean added = !set.get(index);
+		Object old = added ? unspill(index) : get(index);
+
+		storeLong(index, value);
+		changed(index, added && old == null, old);
+	}
+
+	// *** Storage, used by elements and by the graph ***
+
+	/**
+	 * Boxed value of an element, {@code null} if it has no value.
+	 */
+	abstract Object get(int index);
+
+	/**
+	 * True if a value has the boxed type of this column, so that it can be
+	 * stored and read back unchanged.
+	 */
+	abstract boolean accepts(Object value);
+
+	/**
+	 * Stores a value accepted by {@link #accepts(Object)}.
+	 */
+	void put(int index, Object value) {
+		Number n = (Number) value;
+
+		if (getType() == Type.DOUBLE)
+			storeDouble(index, n.doubleValue());
+		else
+			storeLong(index, n.longValue());
+	}
+
+	void unset(int index) {
+		set.clear(index);
+	}
+
+	abstract void storeDouble(int index, double value);
+
+	abstract void storeLong(int index, long value);
+
+	abstract void ensureCapacity(int capacity);
+
+	/**
+	 * Moves the value of an element whose index changed. The old index is left
+	 * without value. When the element has no value, the new index is left
+	 * without value too and the values, which may not reach the old index,
+	 * are not read.
+	 */
+	abstract void move(int from, int to);
+
+	/**
+	 * Reorders the values after the elements have been renumbered. The
+	 * element of new index {@code i} had index {@code order[i]}.
+	 */
+	abstract void permute(int[] order);
+
+	/**
+	 * Reorders the set of elements having a value, see
+	 * {@link #permute(int[])}.
+	 */
+	void permuteSet(int[] order) {
+		BitSet old = (BitSet) set.clone();
+
+		set.clear();
+
+		for (int i = 0; i < order.length; i++)
+			if (old.get(order[i]))
+				set.set(i);
+	}
+
+	void clear() {
+		set.clear();
+	}
+
+	/**
+	 * Removes the value an element may store in its own map for this
+	 * attribute.
+	 * 
+	 * @return The removed value or {@code null}.
+	 */
+	private Object unspill(int index) {
+		if (!spilled)
+			return null;
+
+		AbstractElement e = element(index);
+
+		if (e.attributes == null)
+			return null;
+
+		return e.attributes.remove(key);
+	}
+
+	private AbstractElement element(int index) {
+		return nodes ? (AbstractElement) graph.getNode(index)
+				: (AbstractElement) graph.getEdge(index);
+	}
+
+	/**
+	 * Sends the attribute event of a change made through the column.
+	 */
+	private void changed(int index, boolean added, Object oldValue) {
+		if (!graph.listeners.hasAttributeSinks())
+			return;
+
+		element(index).attributeChanged(added ? AttributeChangeEvent.ADD
+				: AttributeChangeEvent.CHANGE, key, oldValue, get(index));
+	}
+
+	static int grow(int capacity, int needed) {
+		return Math.max(needed,
+				(int) (capacity * AdjacencyListGraph.GROW_FACTOR) + 1);
+	}
+
+	// *** Implementations ***
+
+	static class DoubleColumn extends AttributeColumn {
+		double[] values;
+
+		DoubleColumn(AbstractGraph graph, boolean nodes, String key,
+				int capacity) {
+			super(graph, nodes, key);
+			values = new double[capacity];
+		}
+
+		@Override
+		public Type getType() {
+			return Type.DOUBLE;
+		}
+
+		@Override
+		public double getDouble(int index) {
+			return set.get(index) ? values[index] : Double.NaN;
+		}
+
+		@Override
+		public int getInt(int index) {
+			return set.get(index) ? (int) values[index] : 0;
+		}
+
+		@Override
+		public long getLong(int index) {
+			return set.get(index) ? (long) values[index] : 0;
+		}
+
+		@Override
+		Object get(int index) {
+			return set.get(index) ? Double.valueOf(values[index]) : null;
+		}
+
+		@Override
+		boolean accepts(Object value) {
+			return value instanceof Double;
+		}
+
+		@Override
+		void storeDouble(int index, double value) {
+			if (index >= values.length)
+				ensureCapacity(index + 1);
+			values[index] = value;
+			set.set(index);
+		}
+
+		@Override
+		void storeLong(int index, long value) {
+			storeDouble(index, value);
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, grow(values.length, capacity));
+		}
+
+		@Override
+		void move(int from, int to) {
+			if (set.get(from)) {
+				values[to] = values[from];
+				set.set(to);
+				set.clear(from);
+			} else
+				set.clear(to);
+		}
+
+		@Override
+		void permute(int[] order) {
+			double[] permuted = new double[Math.max(values.length, order.length)];
+
+			for (int i = 0; i < order.length; i++)
+				if (set.get(order[i]))
+					permuted[i] = values[order[i]];
+
+			values = permuted;
+			permuteSet(order);
+		}
+	}
+
+	static class IntColumn extends AttributeColumn {
+		int[] values;
+
+		IntColumn(AbstractGraph graph, boolean nodes, String key, int capacity) {
+			super(graph, nodes, key);
+			values = new int[capacity];
+		}
+
+		@Override
+		public Type getType() {
+			return Type.INT;
+		}
+
+		@Override
+		public double getDouble(int index) {
+			return set.get(index) ? values[index] : Double.NaN;
+		}
+
+		@Override
+		public int getInt(int index) {
+			return set.get(index) ? values[index] : 0;
+		}
+
+		@Override
+		public long getLong(int index) {
+			return set.get(index) ? values[index] : 0;
+		}
+
+		@Override
+		Object get(int index) {
+			return set.get(index) ? Integer.valueOf(values[index]) : null;
+		}
+
+		@Override
+		boolean accepts(Object value) {
+			return value instanceof Integer;
+		}
+
+		@Override
+		void storeDouble(int index, double value) {
+			storeLong(index, (long) value);
+		}
+
+		@Override
+		void storeLong(int index, long value) {
+			if (index >= values.length)
+				ensureCapacity(index + 1);
+			values[index] = (int) value;
+			set.set(index);
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, grow(values.length, capacity));
+		}
+
+		@Override
+		void move(int from, int to) {
+			if (set.get(from)) {
+				values[to] = values[from];
+				set.set(to);
+				set.clear(from);
+			} else
+				set.clear(to);
+		}
+
+		@Override
+		void permute(int[] order) {
+			int[] permuted = new int[Math.max(values.length, order.length)];
+
+			for (int i = 0; i < order.length; i++)
+				if (set.get(order[i]))
+					permuted[i] = values[order[i]];
+
+			values = permuted;
+			permuteSet(order);
+		}
+	}
+
+	static class LongColumn extends AttributeColumn {
+		long[] values;
+
+		LongColumn(AbstractGraph graph, boolean nodes, String key, int capacity) {
+			super(graph, nodes, key);
+			values = new long[capacity];
+		}
+
+		@Override
+		public Type getType() {
+			return Type.LONG;
+		}
+
+		@Override
+		public double getDouble(int index) {
+			return set.get(index) ? values[index] : Double.NaN;
+		}
+
+		@Override
+		public int getInt(int index) {
+			return set.get(index) ? (int) values[index] : 0;
+		}
+
+		@Override
+		public long getLong(int index) {
+			return set.get(index) ? values[index] : 0;
+		}
+
+		@Override
+		Object get(int index) {
+			return set.get(index) ? Long.valueOf(values[index]) : null;
+		}
+
+		@Override
+		boolean accepts(Object value) {
+			return value instanceof Long;
+		}
+
+		@Override
+		void storeDouble(int index, double value) {
+			storeLong(index, (long) value);
+		}
+
+		@Override
+		void storeLong(int index, long value) {
+			if (index >= values.length)
+				ensureCapacity(index + 1);
+			values[index] = value;
+			set.set(index);
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, grow(values.length, capacity));
+		}
+
+		@Override
+		void move(int from, int to) {
+			if (set.get(from)) {
+				values[to] = values[from];
+				set.set(to);
+				set.clear(from);
+			} else
+				set.clear(to);
+		}
+
+		@Override
+		void permute(int[] order) {
+			long[] permuted = new long[Math.max(values.length, order.length)];
+
+			for (int i = 0; i < order.length; i++)
+				if (set.get(order[i]))
+					permuted[i] = values[order[i]];
+
+			values = permuted;
+			permuteSet(order);
+		}
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A small attribute map with unboxed numeric values.
+ * 
+ * <p>
+ * This map is an alternative to the {@link java.util.HashMap} used by
+ * {@link AbstractElement} to store attributes. Keys are interned and stored
+ * in an open-addressing table, so there is no entry object per attribute and
+ * keys read from files are shared by all the elements. Values that are
+ * {@link Double}, {@link Integer} or {@link Long} are stored unboxed in a
+ * {@code long} array. They are boxed again when read through the {@code Map}
+ * interface, but {@link AbstractElement#getNumber(String)} and
+ * {@link AbstractElement#hasNumber(String)} read them directly.
+ * </p>
+ * 
+ * <p>
+ * Elements use this map when the system property
+ * {@code org.graphstream.graph.element.compactAttributes} is {@code true}. The
+ * map is not thread-safe and accepts only string keys. Null values are
+ * allowed.
+ * </p>
+ */
+public class CompactAttributeMap extends AbstractMap<String, Object> {
+	/*
+	 * Tags stored in the value array when the value is in the number array.
+	 */
+	private static final Object DOUBLE = new Object();
+	private static final Object INT = new Object();
+	private static final Object LONG = new Object();
+
+	/**
+	 * Marks a removed key. It is compared by reference only.
+	 */
+	private static final String REMOVED = new String("<removed>");
+
+	private static final int MIN_CAPACITY = 2;
+
+	private String[] keys;
+	private Object[] values;
+
+	/**
+	 * Unboxed values, created with the first numeric value.
+	 */
+	private long[] numbers;
+
+	/**
+	 * Number of keys.
+	 */
+	private int size;
+
+	/**
+	 * Number of slots that are not {@code null}, removed keys included.
+	 */
+	private int used;
+
+	private int modCount;
+
+	/**
+	 * New map able to hold the given number of attributes without being
+	 * resized.
+	 */
+	public CompactAttributeMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+
+		while (capacity * 3 < expectedSize * 4)
+			capacity <<= 1;
+
+		keys = new String[capacity];
+		values = new Object[capacity];
+	}
+
+	public CompactAttributeMap() {
+		this(1);
+	}
+
+	// *** Slot access used by AbstractElement ***
+
+	/**
+	 * Slot of a key.
+	 * 
+	 * @return the slot or -1 if the key is not in the map
+	 */
+	int find(String key) {
+		int mask = keys.length - 1;
+		int h = hash(key) & mask;
+		String k;
+
+		while ((k = keys[h]) != null) {
+			if (k != REMOVED && (k == key || k.equals(key)))
+				return h;
+
+			h = (h + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * True if the value of a slot is stored unboxed.
+	 */
+	boolean isUnboxed(int slot) {
+		Object v = values[slot];
+		return v == DOUBLE || v == INT || v == LONG;
+	}
+
+	/**
+	 * Value of an unboxed slot as a double.
+	 */
+	double doubleAt(int slot) {
+		Object v = values[slot];
+
+		if (v == DOUBLE)
+			return Double.longBitsToDouble(numbers[slot]);
+
+		return numbers[slot];
+	}
+
+	/**
+	 * Value of a slot, boxed if needed.
+	 */
+	Object valueAt(int slot) {
+		Object v = values[slot];
+
+		if (v == DOUBLE)
+			return Double.valueOf(Double.longBitsToDouble(numbers[slot]));
+		if (v == INT)
+			return Integer.valueOf((int) numbers[slot]);
+		if (v == LONG)
+			return Long.valueOf(numbers[slot]);
+
+		return v;
+	}
+
+	// *** Map ***
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && find((String) key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (!(key instanceof String))
+			return null;
+
+		int slot = find((String) key);
+		return slot < 0 ? null : valueAt(slot);
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		int slot = find(key);
+		Object old = null;
+
+		if (slot >= 0) {
+			old = valueAt(slot);
+		} else {
+			if ((used + 1) * 4 > keys.length * 3)
+				rehash(size + 1);
+
+			slot = insertionSlot(key);
+
+			if (keys[slot] == null)
+				used++;
+
+			keys[slot] = key.intern();
+			size++;
+			modCount++;
+		}
+
+		store(slot, value);
+		return old;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		if (!(key instanceof String))
+			return null;
+
+		int slot = find((String) key);
+
+		if (slot < 0)
+			return null;
+
+		Object old = valueAt(slot);
+		removeSlot(slot);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, null);
+		Arrays.fill(values, null);
+		size = used = 0;
+		modCount++;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	// *** Helpers ***
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private int insertionSlot(String key) {
+		int mask = keys.length - 1;
+		int h = hash(key) & mask;
+
+		while (keys[h] != null && keys[h] != REMOVED)
+			h = (h + 1) & mask;
+
+		return h;
+	}
+
+	private void store(int slot, Object value) {
+		if (value instanceof Double) {
+			storeNumber(slot, DOUBLE,
+					Double.doubleToRawLongBits((Double) value));
+		} else if (value instanceof Integer) {
+			storeNumber(slot, INT, (Integer) value);
+		} else if (value instanceof Long) {
+			storeNumber(slot, LONG, (Long) value);
+		} else {
+			values[slot] = value;
+		}
+	}
+
+	private void storeNumber(int slot, Object tag, long bits) {
+		if (numbers == null)
+			numbers = new long[keys.length];
+
+		values[slot] = tag;
+		numbers[slot] = bits;
+	}
+
+	private void removeSlot(int slot) {
+		keys[slot] = REMOVED;
+		values[slot] = null;
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Rebuilds the table, dropping removed keys.
+	 */
+	private void rehash(int expectedSize) {
+		String[] oldKeys = keys;
+		Object[] oldValues = values;
+		long[] oldNumbers = numbers;
+		int capacity = MIN_CAPACITY;
+
+		while (capacity * 3 < expectedSize * 4)
+			capacity <<= 1;
+
+		keys = new String[capacity];
+		values = new Object[capacity];
+		numbers = oldNumbers == null ? null : new long[capacity];
+		used = 0;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			String k = oldKeys[i];
+
+			if (k != null && k != REMOVED) {
+				int slot = insertionSlot(k);
+				keys[slot] = k;
+				values[slot] = oldValues[i];
+
+				if (oldNumbers != null)
+					numbers[slot] = oldNumbers[i];
+
+				used++;
+			}
+		}
+	}
+
+	private class EntryIterator implements Iterator<Entry<String, Object>> {
+		int next = -1;
+		int current = -1;
+		int expectedModCount = modCount;
+
+		EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			do {
+				next++;
+			} while (next < keys.length
+					&& (keys[next] == null || keys[next] == REMOVED));
+		}
+
+		public boolean hasNext() {
+			return next < keys.length;
+		}
+
+		public Entry<String, Object> next() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (next >= keys.length)
+				throw new NoSuchElementException();
+
+			current = next;
+			advance();
+
+			final int slot = current;
+
+			return new Entry<String, Object>() {
+				public String getKey() {
+					return keys[slot];
+				}
+
+				public Object getValue() {
+					return valueAt(slot);
+				}
+
+				public Object setValue(Object value) {
+					Object old = valueAt(slot);
+					store(slot, value);
+					return old;
+				}
+
+				@Override
+				public boolean equals(Object o) {
+					if (!(o instanceof Entry))
+						return false;
+
+					Entry<?, ?> e = (Entry<?, ?>) o;
+					Object v = getValue();
+
+					return getKey().equals(e.getKey())
+							&& (v == null ? e.getValue() == null : v.equals(e
+									.getValue()));
+				}
+
+				@Override
+				public int hashCode() {
+					Object v = getValue();
+					return getKey().hashCode() ^ (v == null ? 0 : v.hashCode());
+				}
+
+				@Override
+				public String toString() {
+					return getKey() + "=" + getValue();
+				}
+			};
+		}
+
+		public void remove() {
+			if (current < 0)
+				throw new IllegalStateException();
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+
+			removeSlot(current);
+			expectedModCount = modCount;
+			current = -1;
+		}
+	}
+}
@@ -0,0 +1,997 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+
+/**
+ * <p>
+ * A read-optimized graph storing its topology in compressed sparse row (CSR)
+ * arrays. It is intended for big graphs (tens of millions of edges) that are
+ * mostly read once they are loaded.
+ * </p>
+ * 
+ * <p>
+ * The structure of the graph is kept in primitive arrays indexed by element
+ * index: the endpoints of each edge, and for each node a contiguous range of
+ * incident edge indices in a single {@code int} array. As in
+ * {@link AdjacencyListNode}, the incident edges of a node are partitioned in
+ * entering, undirected (or loop) and leaving edges. Full graph traversals thus
+ * read contiguous memory and there is no edge object nor per node edge array.
+ * </p>
+ * 
+ * <p>
+ * Node and edge objects are facades materialized lazily. A node object is
+ * created the first time the node is accessed and kept afterwards, so nodes
+ * can be compared with {@code ==} as usual. Edge objects are created on demand
+ * and dropped as soon as the caller releases them, unless the edge has
+ * attributes. Two edge objects representing the same edge are equal in the
+ * sense of {@link Object#equals(Object)}, but not necessarily identical. An
+ * edge object obtained before another object for the same edge received its
+ * first attribute does not see this attribute: get the edge again from the
+ * graph.
+ * </p>
+ * 
+ * <p>
+ * Adding elements invalidates the adjacency arrays, which are rebuilt in
+ * O(n + m) the next time the neighborhood of a node is accessed. Additions are
+ * cheap when grouped, for example while loading a file, but alternating them
+ * with neighborhood queries is slow. Removals update the adjacency in place in
+ * time proportional to the degree of the nodes involved. Use
+ * {@link AdjacencyListGraph} or one of its subclasses for graphs that change
+ * often. Like {@link MultiGraph}, this graph accepts several edges between two
+ * nodes. Custom node and edge factories are not supported.
+ * </p>
+ */
+public class CompactGraph extends AbstractGraph {
+
+	public static final int DEFAULT_NODE_CAPACITY = AdjacencyListGraph.DEFAULT_NODE_CAPACITY;
+	public static final int DEFAULT_EDGE_CAPACITY = AdjacencyListGraph.DEFAULT_EDGE_CAPACITY;
+
+	protected IdTable nodeIds;
+	protected IdTable edgeIds;
+
+	/**
+	 * Materialized nodes, {@code null} if the node has not been accessed yet.
+	 */
+	protected CompactNode[] nodes;
+
+	/**
+	 * Edges having attributes, {@code null} for other edges.
+	 */
+	protected CompactEdge[] attributedEdges;
+
+	/**
+	 * Endpoints of the edges, as node indices.
+	 */
+	protected int[] sources, targets;
+
+	/**
+	 * Orientation of the edges.
+	 */
+	protected BitSet directed;
+
+	/**
+	 * CSR adjacency. Edges incident to node {@code i} are stored in
+	 * {@code adjacency[offsets[i] .. ends[i]]}: entering edges first, then
+	 * undirected ones starting at {@code ioStarts[i]} and leaving edges
+	 * starting at {@code oStarts[i]}. Removals shorten the ranges in place, so
+	 * a range may be followed by unused slots.
+	 */
+	protected int[] offsets, ioStarts, oStarts, ends, adjacency;
+
+	/**
+	 * True if the adjacency arrays must be rebuilt.
+	 */
+	protected boolean topologyChanged;
+
+	// *** Constructors ***
+
+	/**
+	 * Creates an empty graph.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 * @param strictChecking
+	 *            If true any non-fatal error throws an exception.
+	 * @param autoCreate
+	 *            If true (and strict checking is false), nodes are
+	 *            automatically created when referenced when creating a edge,
+	 *            even if not yet inserted in the graph.
+	 * @param initialNodeCapacity
+	 *            Initial capacity of the node storage data structures. Use this
+	 *            if you know the approximate maximum number of nodes of the
+	 *            graph. The graph can grow beyond this limit, but storage
+	 *            reallocation is expensive operation.
+	 * @param initialEdgeCapacity
+	 *            Initial capacity of the edge storage data structures. Use this
+	 *            if you know the approximate maximum number of edges of the
+	 *            graph. The graph can grow beyond this limit, but storage
+	 *            reallocation is expensive operation.
+	 */
+	public CompactGraph(String id, boolean strictChecking, boolean autoCreate,
+			int initialNodeCapacity, int initialEdgeCapacity) {
+		super(id, strictChecking, autoCreate);
+
+		setNodeFactory(new NodeFactory<CompactNode>() {
+			public CompactNode newInstance(String id, Graph graph) {
+				return new CompactNode((CompactGraph) graph, id);
+			}
+		});
+
+		setEdgeFactory(new EdgeFactory<CompactEdge>() {
+			public CompactEdge newInstance(String id, Node src, Node dst,
+					boolean directed) {
+				return new CompactEdge(id, (CompactNode) src,
+						(CompactNode) dst, directed);
+			}
+		});
+
+		if (initialNodeCapacity < DEFAULT_NODE_CAPACITY)
+			initialNodeCapacity = DEFAULT_NODE_CAPACITY;
+		if (initialEdgeCapacity < DEFAULT_EDGE_CAPACITY)
+			initialEdgeCapacity = DEFAULT_EDGE_CAPACITY;
+
+		nodeIds = new IdTable(initialNodeCapacity);
+		edgeIds = new IdTable(initialEdgeCapacity);
+		nodes = new CompactNode[initialNodeCapacity];
+		attributedEdges = new CompactEdge[initialEdgeCapacity];
+		sources = new int[initialEdgeCapacity];
+		targets = new int[initialEdgeCapacity];
+		directed = new BitSet(initialEdgeCapacity);
+		offsets = new int[1];
+		ioStarts = oStarts = ends = adjacency = new int[0];
+		topologyChanged = false;
+	}
+
+	/**
+	 * Creates an empty graph with default edge and node capacity.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 * @param strictChecking
+	 *            If true any non-fatal error throws an exception.
+	 * @param autoCreate
+	 *            If true (and strict checking is false), nodes are
+	 *            automatically created when referenced when creating a edge,
+	 *            even if not yet inserted in the graph.
+	 */
+	public CompactGraph(String id, boolean strictChecking, boolean autoCreate) {
+		this(id, strictChecking, autoCreate, DEFAULT_NODE_CAPACITY,
+				DEFAULT_EDGE_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty graph with strict checking and without auto-creation.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 */
+	public CompactGraph(String id) {
+		this(id, true, false);
+	}
+
+	// *** Index based access ***
+
+	/**
+	 * Degree of a node given by its index.
+	 * 
+	 * @complexity O(1) once the adjacency is built
+	 */
+	public int getDegree(int nodeIndex) {
+		checkTopology();
+		return ends[nodeIndex] - offsets[nodeIndex];
+	}
+
+	/**
+	 * Index of the k-th edge incident to a node. Entering edges come first,
+	 * then undirected edges and finally leaving edges.
+	 * 
+	 * @complexity O(1) once the adjacency is built
+	 */
+	public int getEdgeIndex(int nodeIndex, int k) {
+		checkTopology();
+		return adjacency[offsets[nodeIndex] + k];
+	}
+
+	/**
+	 * Index of the source node of an edge.
+	 */
+	public int getSourceIndex(int edgeIndex) {
+		return sources[edgeIndex];
+	}
+
+	/**
+	 * Index of the target node of an edge.
+	 */
+	public int getTargetIndex(int edgeIndex) {
+		return targets[edgeIndex];
+	}
+
+	/**
+	 * Index of the node at the other end of an edge.
+	 */
+	public int getOppositeIndex(int edgeIndex, int nodeIndex) {
+		int s = sources[edgeIndex];
+		return s == nodeIndex ? targets[edgeIndex] : s;
+	}
+
+	/**
+	 * Builds the adjacency arrays if needed and releases the unused capacity
+	 * of all the arrays. Call it once the graph is loaded.
+	 */
+	public void trimToSize() {
+		int n = nodeIds.size();
+		int m = edgeIds.size();
+
+		nodeIds.trimToSize();
+		edgeIds.trimToSize();
+		nodes = Arrays.copyOf(nodes, Math.max(n, 1));
+		attributedEdges = Arrays.copyOf(attributedEdges, Math.max(m, 1));
+		sources = Arrays.copyOf(sources, Math.max(m, 1));
+		targets = Arrays.copyOf(targets, Math.max(m, 1));
+		checkTopology();
+	}
+
+	// *** Callbacks ***
+
+	@Override
+	protected void ensureCapacity(int nodeCapacity, int edgeCapacity) {
+		nodeIds.ensureCapacity(nodeCapacity);
+		edgeIds.ensureCapacity(edgeCapacity);
+
+		if (nodeCapacity > nodes.length)
+			nodes = Arrays.copyOf(nodes, nodeCapacity);
+
+		if (edgeCapacity > sources.length) {
+			sources = Arrays.copyOf(sources, edgeCapacity);
+			targets = Arrays.copyOf(targets, edgeCapacity);
+			attributedEdges = Arrays.copyOf(attributedEdges, edgeCapacity);
+		}
+	}
+
+	@Override
+	protected void addNodeCallback(AbstractNode node) {
+		int index = nodeIds.add(node.getId());
+
+		if (index == nodes.length)
+			nodes = Arrays.copyOf(nodes, grow(nodes.length));
+
+		nodes[index] = (CompactNode) node;
+		node.setIndex(index);
+		topologyChanged = true;
+	}
+
+	@Override
+	protected void addEdgeCallback(AbstractEdge edge) {
+		int index = edgeIds.add(edge.getId());
+
+		if (index == sources.length) {
+			int capacity = grow(sources.length);
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			attributedEdges = Arrays.copyOf(attributedEdges, capacity);
+		}
+
+		sources[index] = edge.source.getIndex();
+		targets[index] = edge.target.getIndex();
+		directed.set(index, edge.directed);
+		edge.setIndex(index);
+		topologyChanged = true;
+	}
+
+	@Override
+	protected void removeNodeCallback(AbstractNode node) {
+		// the incident edges of the removed node are already gone, the
+		// adjacency gives those of the node taking its index
+		checkTopology();
+
+		int i = node.getIndex();
+		int moved = nodeIds.removeAndSwapLast(i);
+
+		if (moved >= 0) {
+			nodes[i] = nodes[moved];
+
+			if (nodes[i] != null)
+				nodes[i].setIndex(i);
+
+			offsets[i] = offsets[moved];
+			ioStarts[i] = ioStarts[moved];
+			oStarts[i] = oStarts[moved];
+			ends[i] = ends[moved];
+
+			for (int k = offsets[i]; k < ends[i]; k++) {
+				int e = adjacency[k];
+
+				if (sources[e] == moved)
+					sources[e] = i;
+				if (targets[e] == moved)
+					targets[e] = i;
+			}
+
+			nodes[moved] = null;
+		} else {
+			nodes[i] = null;
+		}
+	}
+
+	@Override
+	protected void removeEdgeCallback(AbstractEdge edge) {
+		int i = edge.getIndex();
+
+		if (!topologyChanged) {
+			unlink(sources[i], i);
+
+			if (targets[i] != sources[i])
+				unlink(targets[i], i);
+		}
+
+		int moved = edgeIds.removeAndSwapLast(i);
+
+		if (moved >= 0) {
+			sources[i] = sources[moved];
+			targets[i] = targets[moved];
+			directed.set(i, directed.get(moved));
+			attributedEdges[i] = attributedEdges[moved];
+
+			if (attributedEdges[i] != null)
+				attributedEdges[i].setIndex(i);
+
+			attributedEdges[moved] = null;
+			directed.clear(moved);
+
+			if (!topologyChanged) {
+				relink(sources[i], moved, i);
+
+				if (targets[i] != sources[i])
+					relink(targets[i], moved, i);
+			}
+		} else {
+			attributedEdges[i] = null;
+			directed.clear(i);
+		}
+	}
+
+	/**
+	 * Removes an edge from the adjacency of a node. The hole is filled with
+	 * the last edge of its part of the range, whose place is filled with the
+	 * last edge of the next part, so that the parts stay contiguous.
+	 * 
+	 * @complexity O(d) where d is the degree of the node
+	 */
+	protected void unlink(int nodeIndex, int edgeIndex) {
+		int k = offsets[nodeIndex];
+
+		while (adjacency[k] != edgeIndex)
+			k++;
+
+		if (k < ioStarts[nodeIndex]) {
+			adjacency[k] = adjacency[--ioStarts[nodeIndex]];
+			k = ioStarts[nodeIndex];
+		}
+
+		if (k < oStarts[nodeIndex]) {
+			adjacency[k] = adjacency[--oStarts[nodeIndex]];
+			k = oStarts[nodeIndex];
+		}
+
+		adjacency[k] = adjacency[--ends[nodeIndex]];
+	}
+
+	/**
+	 * Replaces an edge index in the adjacency of a node.
+	 * 
+	 * @complexity O(d) where d is the degree of the node
+	 */
+	protected void relink(int nodeIndex, int oldIndex, int newIndex) {
+		int k = offsets[nodeIndex];
+
+		while (adjacency[k] != oldIndex)
+			k++;
+
+		adjacency[k] = newIndex;
+	}
+
+	@Override
+	protected void clearCallback() {
+		Arrays.fill(nodes, 0, nodeIds.size(), null);
+		Arrays.fill(attributedEdges, 0, edgeIds.size(), null);
+		nodeIds.clear();
+		edgeIds.clear();
+		directed.clear();
+		offsets = new int[1];
+		ioStarts = oStarts = ends = adjacency = new int[0];
+		topologyChanged = false;
+	}
+
+	@Override
+	protected void reorderCallback(int[] nodeOrder, int[] edgeOrder) {
+		int n = nodeIds.size();
+		int m = edgeIds.size();
+		int[] rank = new int[n];
+		CompactNode[] newNodes = new CompactNode[nodes.length];
+
+		for (int i = 0; i < n; i++) {
+			rank[nodeOrder[i]] = i;
+			newNodes[i] = nodes[nodeOrder[i]];
+
+			if (newNodes[i] != null)
+				newNodes[i].setIndex(i);
+		}
+
+		int[] newSources = new int[sources.length];
+		int[] newTargets = new int[targets.length];
+		BitSet newDirected = new BitSet(m);
+		CompactEdge[] newEdges = new CompactEdge[attributedEdges.length];
+
+		for (int i = 0; i < m; i++) {
+			int e = edgeOrder[i];
+
+			newSources[i] = rank[sources[e]];
+			newTargets[i] = rank[targets[e]];
+			newDirected.set(i, directed.get(e));
+			newEdges[i] = attributedEdges[e];
+
+			if (newEdges[i] != null)
+				newEdges[i].setIndex(i);
+		}
+
+		nodeIds.permute(nodeOrder);
+		edgeIds.permute(edgeOrder);
+		nodes = newNodes;
+		sources = newSources;
+		targets = newTargets;
+		directed = newDirected;
+		attributedEdges = newEdges;
+		topologyChanged = true;
+	}
+
+	/**
+	 * Removes the edges incident to the node, read in one pass from its
+	 * adjacency, before removing the node itself.
+	 */
+	@Override
+	protected void removeNode(AbstractNode node, boolean graphCallback) {
+		if (node == null)
+			return;
+
+		checkTopology();
+
+		int i = node.getIndex();
+		int start = offsets[i], end = ends[i];
+		String[] incident = new String[end - start];
+
+		// edge indices change while removing, so we remember the identifiers
+		for (int k = start; k < end; k++)
+			incident[k - start] = edgeIds.idOf(adjacency[k]);
+
+		for (String edgeId : incident)
+			removeEdge(edge(edgeIds.indexOf(edgeId)), true, true, true);
+
+		super.removeNode(node, graphCallback);
+	}
+
+	// *** Access ***
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(String id) {
+		int index = nodeIds.indexOf(id);
+		return index < 0 ? null : (T) node(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(int index) {
+		if (index < 0 || index >= nodeIds.size())
+			throw new IndexOutOfBoundsException("Node " + index
+					+ " does not exist");
+		return (T) node(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(String id) {
+		int index = edgeIds.indexOf(id);
+		return index < 0 ? null : (T) edge(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(int index) {
+		if (index < 0 || index >= edgeIds.size())
+			throw new IndexOutOfBoundsException("Edge " + index
+					+ " does not exist");
+		return (T) edge(index);
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodeIds.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeIds.size();
+	}
+
+	// *** Helpers ***
+
+	private static int grow(int length) {
+		return (int) (length * AdjacencyListGraph.GROW_FACTOR) + 1;
+	}
+
+	/**
+	 * Materializes a node.
+	 */
+	protected CompactNode node(int index) {
+		CompactNode node = nodes[index];
+
+		if (node == null) {
+			node = new CompactNode(this, nodeIds.idOf(index));
+			node.setIndex(index);
+			nodes[index] = node;
+		}
+
+		return node;
+	}
+
+	/**
+	 * Materializes an edge.
+	 */
+	protected CompactEdge edge(int index) {
+		CompactEdge edge = attributedEdges[index];
+
+		if (edge == null) {
+			edge = new CompactEdge(edgeIds.idOf(index), node(sources[index]),
+					node(targets[index]), directed.get(index));
+			edge.setIndex(index);
+		}
+
+		return edge;
+	}
+
+	/**
+	 * Gives storage for the attributes of an edge object. The first object of
+	 * an edge receiving attributes is kept by the graph, other objects of the
+	 * same edge share its attributes.
+	 */
+	void attachAttributes(CompactEdge edge) {
+		int index = edge.getIndex();
+
+		if (index < 0)
+			return;
+
+		CompactEdge kept = attributedEdges[index];
+
+		if (kept == null) {
+			attributedEdges[index] = edge;
+			edge.attributes = edge.newAttributeMap(1);
+		} else {
+			if (kept.attributes == null)
+				kept.attributes = kept.newAttributeMap(1);
+			edge.attributes = kept.attributes;
+		}
+	}
+
+	/**
+	 * Rebuilds the adjacency arrays if the structure has changed, with a
+	 * counting sort of the edges.
+	 * 
+	 * @complexity O(n + m)
+	 */
+	protected void checkTopology() {
+		if (!topologyChanged)
+			return;
+
+		int n = nodeIds.size();
+		int m = edgeIds.size();
+		int[] inCount = new int[n], ioCount = new int[n], outCount = new int[n];
+		int size = 0;
+
+		for (int e = 0; e < m; e++) {
+			int s = sources[e], t = targets[e];
+
+			if (s == t || !directed.get(e)) {
+				ioCount[s]++;
+				if (s != t)
+					ioCount[t]++;
+			} else {
+				outCount[s]++;
+				inCount[t]++;
+			}
+		}
+
+		if (offsets.length != n + 1) {
+			offsets = new int[n + 1];
+			ioStarts = new int[n];
+			oStarts = new int[n];
+			ends = new int[n];
+		}
+
+		// from now the count arrays are used as cursors
+		for (int v = 0; v < n; v++) {
+			int start = size;
+
+			offsets[v] = start;
+			ioStarts[v] = start + inCount[v];
+			oStarts[v] = ioStarts[v] + ioCount[v];
+			size = oStarts[v] + outCount[v];
+			ends[v] = size;
+
+			inCount[v] = start;
+			ioCount[v] = ioStarts[v];
+			outCount[v] = oStarts[v];
+		}
+
+		offsets[n] = size;
+
+		if (adjacency.length != size)
+			adjacency = new int[size];
+
+		for (int e = 0; e < m; e++) {
+			int s = sources[e], t = targets[e];
+
+			if (s == t || !directed.get(e)) {
+				adjacency[ioCount[s]++] = e;
+				if (s != t)
+					adjacency[ioCount[t]++] = e;
+			} else {
+				adjacency[outCount[s]++] = e;
+				adjacency[inCount[t]++] = e;
+			}
+		}
+
+		topologyChanged = false;
+	}
+
+	// *** Iterators ***
+
+	protected class EdgeIterator<T extends Edge> implements Iterator<T> {
+		int iNext = 0;
+		int iPrev = -1;
+
+		public boolean hasNext() {
+			return iNext < edgeIds.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (iNext >= edgeIds.size())
+				throw new NoSuchElementException();
+			iPrev = iNext++;
+			return (T) edge(iPrev);
+		}
+
+		public void remove() {
+			if (iPrev == -1)
+				throw new IllegalStateException();
+			removeEdge(edge(iPrev), true, true, true);
+			iNext = iPrev;
+			iPrev = -1;
+		}
+	}
+
+	protected class NodeIterator<T extends Node> implements Iterator<T> {
+		int iNext = 0;
+		int iPrev = -1;
+
+		public boolean hasNext() {
+			return iNext < nodeIds.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (iNext >= nodeIds.size())
+				throw new NoSuchElementException();
+			iPrev = iNext++;
+			return (T) node(iPrev);
+		}
+
+		public void remove() {
+			if (iPrev == -1)
+				throw new IllegalStateException();
+			removeNode(node(iPrev), true);
+			iNext = iPrev;
+			iPrev = -1;
+		}
+	}
+
+	@Override
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new EdgeIterator<T>();
+	}
+
+	@Override
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new NodeIterator<T>();
+	}
+
+	// *** Elements ***
+
+	/**
+	 * Nodes used with {@link CompactGraph}. They do not store their edges, the
+	 * adjacency lives in the arrays of the graph.
+	 */
+	public static class CompactNode extends AbstractNode {
+		protected static final char I_EDGE = 0;
+		protected static final char IO_EDGE = 1;
+		protected static final char O_EDGE = 2;
+
+		protected CompactNode(CompactGraph graph, String id) {
+			super(graph, id);
+		}
+
+		protected CompactGraph compactGraph() {
+			return (CompactGraph) graph;
+		}
+
+		@SuppressWarnings("unchecked")
+		protected <T extends Edge> T locateEdge(Node opposite, char type) {
+			if (opposite == null || opposite.getGraph() != graph)
+				return null;
+
+			CompactGraph g = compactGraph();
+			g.checkTopology();
+
+			int me = getIndex();
+			int other = opposite.getIndex();
+			int start = g.offsets[me];
+			int end = g.ends[me];
+
+			if (type == I_EDGE)
+				end = g.oStarts[me];
+			else if (type == O_EDGE)
+				start = g.ioStarts[me];
+
+			for (int k = start; k < end; k++) {
+				int e = g.adjacency[k];
+
+				if (g.getOppositeIndex(e, me) == other)
+					return (T) g.edge(e);
+			}
+
+			return null;
+		}
+
+		// *** Callbacks ***
+
+		@Override
+		protected boolean addEdgeCallback(AbstractEdge edge) {
+			// the graph stores the adjacency
+			return true;
+		}
+
+		@Override
+		protected void removeEdgeCallback(AbstractEdge edge) {
+		}
+
+		@Override
+		protected void clearCallback() {
+		}
+
+		// *** Access methods ***
+
+		@Override
+		public int getDegree() {
+			return compactGraph().getDegree(getIndex());
+		}
+
+		@Override
+		public int getInDegree() {
+			CompactGraph g = compactGraph();
+			g.checkTopology();
+			return g.oStarts[getIndex()] - g.offsets[getIndex()];
+		}
+
+		@Override
+		public int getOutDegree() {
+			CompactGraph g = compactGraph();
+			g.checkTopology();
+			return g.ends[getIndex()] - g.ioStarts[getIndex()];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getEdge(int i) {
+			if (i < 0 || i >= getDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no edge " + i);
+			CompactGraph g = compactGraph();
+			return (T) g.edge(g.adjacency[g.offsets[getIndex()] + i]);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getEnteringEdge(int i) {
+			if (i < 0 || i >= getInDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no entering edge " + i);
+			CompactGraph g = compactGraph();
+			return (T) g.edge(g.adjacency[g.offsets[getIndex()] + i]);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getLeavingEdge(int i) {
+			if (i < 0 || i >= getOutDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no edge " + i);
+			CompactGraph g = compactGraph();
+			return (T) g.edge(g.adjacency[g.ioStarts[getIndex()] + i]);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeBetween(Node node) {
+			return locateEdge(node, IO_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeFrom(Node node) {
+			return locateEdge(node, I_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeToward(Node node) {
+			return locateEdge(node, O_EDGE);
+		}
+
+		// *** Iterators ***
+
+		protected class EdgeIterator<T extends Edge> implements Iterator<T> {
+			protected int iNext, iEnd;
+
+			protected EdgeIterator(char type) {
+				CompactGraph g = compactGraph();
+				g.checkTopology();
+
+				int me = getIndex();
+				iNext = g.offsets[me];
+				iEnd = g.ends[me];
+
+				if (type == I_EDGE)
+					iEnd = g.oStarts[me];
+				else if (type == O_EDGE)
+					iNext = g.ioStarts[me];
+			}
+
+			public boolean hasNext() {
+				return iNext < iEnd;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (iNext >= iEnd)
+					throw new NoSuchElementException();
+				CompactGraph g = compactGraph();
+				return (T) g.edge(g.adjacency[iNext++]);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"This iterator does not support remove");
+			}
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getEdgeIterator() {
+			return new EdgeIterator<T>(IO_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+			return new EdgeIterator<T>(I_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+			return new EdgeIterator<T>(O_EDGE);
+		}
+	}
+
+	/**
+	 * Edges used with {@link CompactGraph}. An edge object is a view on the
+	 * arrays of the graph, it finds its index back through its identifier if
+	 * other edges have been removed since its creation.
+	 */
+	public static class CompactEdge extends AbstractEdge {
+		protected CompactEdge(String id, CompactNode source,
+				CompactNode target, boolean directed) {
+			super(id, source, target, directed);
+		}
+
+		@Override
+		public int getIndex() {
+			int index = super.getIndex();
+			IdTable ids = ((CompactGraph) graph).edgeIds;
+
+			if (index < 0 || index >= ids.size() || ids.idOf(index) != id) {
+				index = ids.indexOf(id);
+				setIndex(index);
+			}
+
+			return index;
+		}
+
+		/**
+		 * Edge objects are views, so this edge uses the columns as long as its
+		 * identifier is in the graph.
+		 */
+		@Override
+		protected Map<String, AttributeColumn> attributeColumns() {
+			return getIndex() < 0 ? null : graph.edgeColumns;
+		}
+
+		@Override
+		public void addAttribute(String attribute, Object... values) {
+			if (attributes == null)
+				((CompactGraph) graph).attachAttributes(this);
+
+			super.addAttribute(attribute, values);
+		}
+
+		@Override
+		public void addAttributes(Map<String, Object> attributes) {
+			if (this.attributes == null)
+				((CompactGraph) graph).attachAttributes(this);
+
+			super.addAttributes(attributes);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+
+			if (!(o instanceof CompactEdge))
+				return false;
+
+			CompactEdge other = (CompactEdge) o;
+			return other.graph == graph && other.id.equals(id);
+		}
+
+		@Override
+		public int hashCode() {
+			return id.hashCode();
+		}
+	}
+}
@@ -0,0 +1,1105 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+
+/**
+ * A multigraph that can be read by many threads in parallel while other
+ * threads modify it.
+ * 
+ * <p>
+ * Unlike {@link Graphs#synchronizedGraph(Graph)}, this graph does not wrap its
+ * elements: nodes and edges are {@link ConcurrentNode} and
+ * {@link ConcurrentEdge} instances, so the generic methods returning nodes and
+ * edges keep working.
+ * </p>
+ * 
+ * <p>
+ * Reads of the structure (element counts, elements by index, degrees,
+ * incident edges by index, iterators) are optimistic: they are made without
+ * any lock and validated with a {@link StampedLock} that is write-locked while
+ * the structure changes. Only a read that overlaps a structural change is
+ * made again under the read part of a {@link ReentrantReadWriteLock}.
+ * Elements are looked up by identifier in concurrent maps, and attributes are
+ * stored in concurrent maps and read without any lock. Edge lookups between
+ * two nodes take the read lock.
+ * </p>
+ * 
+ * <p>
+ * Structural changes take the write part of the read-write lock. Attribute
+ * changes do not: they only take a lock serializing the modifications and the
+ * events they send, so they never block readers.
+ * </p>
+ * 
+ * <p>
+ * Iterators work on a copy of the elements made when they are created. They
+ * never throw {@link java.util.ConcurrentModificationException} but do not see
+ * later changes. Their {@code remove()} method removes the element from the
+ * graph. Threads needing a consistent view across several calls can hold the
+ * read lock returned by {@link #getLock()}. That lock cannot be upgraded: a
+ * thread holding it must release it before modifying the graph, attributes
+ * included, or it waits forever. Attribute columns
+ * ({@link AbstractGraph#addNodeColumn(String, AttributeColumn.Type)}) are not
+ * supported by this graph.
+ * </p>
+ * 
+ * <p>
+ * Events are sent to the sinks of the graph while the modification is locked.
+ * Sinks may read and modify the graph but must not wait for other threads
+ * accessing it.
+ * </p>
+ */
+public class ConcurrentGraph extends MultiGraph {
+	protected final ReentrantReadWriteLock lock;
+	protected final Lock readLock;
+	protected final Lock writeLock;
+
+	/**
+	 * Serializes the modifications of the graph and of the attributes of its
+	 * elements, and the events they send. Always taken before the write lock.
+	 */
+	protected final ReentrantLock modificationLock;
+
+	/**
+	 * Validates the reads made without lock. It is write-locked while the
+	 * structure changes.
+	 */
+	protected final StampedLock version;
+
+	/**
+	 * Stamp of the write lock of {@link #version} and number of nested
+	 * changes, only accessed by the thread holding the write lock.
+	 */
+	private long versionStamp;
+	private int changeDepth;
+
+	protected final ConcurrentHashMap<String, AbstractNode> nodeIds;
+	protected final ConcurrentHashMap<String, AbstractEdge> edgeIds;
+
+	// *** Constructors ***
+
+	/**
+	 * Creates an empty graph.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 * @param strictChecking
+	 *            If true any non-fatal error throws an exception.
+	 * @param autoCreate
+	 *            If true (and strict checking is false), nodes are
+	 *            automatically created when referenced when creating a edge,
+	 *            even if not yet inserted in the graph.
+	 * @param initialNodeCapacity
+	 *            Initial capacity of the node storage data structures.
+	 * @param initialEdgeCapacity
+	 *            Initial capacity of the edge storage data structures.
+	 */
+	public ConcurrentGraph(String id, boolean strictChecking,
+			boolean autoCreate, int initialNodeCapacity, int initialEdgeCapacity) {
+		super(id, strictChecking, autoCreate, initialNodeCapacity,
+				initialEdgeCapacity);
+
+		lock = new ReentrantReadWriteLock();
+		readLock = lock.readLock();
+		writeLock = lock.writeLock();
+		modificationLock = new ReentrantLock();
+		version = new StampedLock();
+		nodeIds = new ConcurrentHashMap<String, AbstractNode>(
+				initialNodeCapacity);
+		edgeIds = new ConcurrentHashMap<String, AbstractEdge>(
+				initialEdgeCapacity);
+		attributes = newAttributeMap(0);
+
+		setNodeFactory(new NodeFactory<ConcurrentNode>() {
+			public ConcurrentNode newInstance(String id, Graph graph) {
+				return new ConcurrentNode((ConcurrentGraph) graph, id);
+			}
+		});
+
+		setEdgeFactory(new EdgeFactory<ConcurrentEdge>() {
+			public ConcurrentEdge newInstance(String id, Node src, Node dst,
+					boolean directed) {
+				return new ConcurrentEdge(id, (AbstractNode) src,
+						(AbstractNode) dst, directed);
+			}
+		});
+	}
+
+	/**
+	 * Creates an empty graph with default edge and node capacity.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 * @param strictChecking
+	 *            If true any non-fatal error throws an exception.
+	 * @param autoCreate
+	 *            If true (and strict checking is false), nodes are
+	 *            automatically created when referenced when creating a edge,
+	 *            even if not yet inserted in the graph.
+	 */
+	public ConcurrentGraph(String id, boolean strictChecking,
+			boolean autoCreate) {
+		this(id, strictChecking, autoCreate, DEFAULT_NODE_CAPACITY,
+				DEFAULT_EDGE_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty graph with strict checking and without auto-creation.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 */
+	public ConcurrentGraph(String id) {
+		this(id, true, false);
+	}
+
+	/**
+	 * The lock protecting the structure of this graph. Holding its read lock
+	 * gives a consistent view of the structure across several calls, but the
+	 * attributes may still change. The read lock cannot be upgraded: it must
+	 * be released before modifying the graph.
+	 * 
+	 * @return The lock of this graph.
+	 */
+	public ReadWriteLock getLock() {
+		return lock;
+	}
+
+	/**
+	 * Starts a structural change: locks the modifications, the write lock and
+	 * the version validating optimistic reads.
+	 */
+	protected void beginChange() {
+		modificationLock.lock();
+		writeLock.lock();
+
+		if (changeDepth++ == 0)
+			versionStamp = version.writeLock();
+	}
+
+	/**
+	 * Ends a structural change started by {@link #beginChange()}.
+	 */
+	protected void endChange() {
+		if (--changeDepth == 0)
+			version.unlockWrite(versionStamp);
+
+		writeLock.unlock();
+		modificationLock.unlock();
+	}
+
+	// *** Callbacks ***
+
+	@Override
+	protected void addEdgeCallback(AbstractEdge edge) {
+		super.addEdgeCallback(edge);
+		edgeIds.put(edge.getId(), edge);
+	}
+
+	@Override
+	protected void addNodeCallback(AbstractNode node) {
+		super.addNodeCallback(node);
+		nodeIds.put(node.getId(), node);
+	}
+
+	@Override
+	protected void removeEdgeCallback(AbstractEdge edge) {
+		edgeIds.remove(edge.getId());
+		super.removeEdgeCallback(edge);
+	}
+
+	@Override
+	protected void removeNodeCallback(AbstractNode node) {
+		nodeIds.remove(node.getId());
+		super.removeNodeCallback(node);
+	}
+
+	@Override
+	protected void clearCallback() {
+		nodeIds.clear();
+		edgeIds.clear();
+		super.clearCallback();
+	}
+
+	// *** Attributes ***
+
+	@Override
+	protected Map<String, Object> newAttributeMap(int expectedSize) {
+		return new ConcurrentAttributeMap();
+	}
+
+	@Override
+	public void addAttribute(String attribute, Object... values) {
+		modificationLock.lock();
+		try {
+			super.addAttribute(attribute, values);
+		} finally {
+			modificationLock.unlock();
+		}
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		modificationLock.lock();
+		try {
+			super.removeAttribute(attribute);
+		} finally {
+			modificationLock.unlock();
+		}
+	}
+
+	@Override
+	public void clearAttributes() {
+		modificationLock.lock();
+		try {
+			super.clearAttributes();
+		} finally {
+			modificationLock.unlock();
+		}
+	}
+
+	/**
+	 * Not supported by this graph.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public AttributeColumn addNodeColumn(String key, AttributeColumn.Type type) {
+		throw new UnsupportedOperationException(
+				"attribute columns are not thread-safe");
+	}
+
+	/**
+	 * Not supported by this graph.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public AttributeColumn addEdgeColumn(String key, AttributeColumn.Type type) {
+		throw new UnsupportedOperationException(
+				"attribute columns are not thread-safe");
+	}
+
+	// *** Access ***
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(String id) {
+		return (T) edgeIds.get(id);
+	}
+
+	@Override
+	public <T extends Edge> T getEdge(int index) {
+		long stamp = version.tryOptimisticRead();
+
+		if (stamp != 0)
+			try {
+				T edge = super.getEdge(index);
+
+				if (version.validate(stamp))
+					return edge;
+			} catch (RuntimeException e) {
+				// inconsistent view, read again under the lock
+			}
+
+		readLock.lock();
+		try {
+			return super.getEdge(index);
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public int getEdgeCount() {
+		long stamp = version.tryOptimisticRead();
+		int count = edgeCount;
+
+		if (version.validate(stamp))
+			return count;
+
+		readLock.lock();
+		try {
+			return edgeCount;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(String id) {
+		return (T) nodeIds.get(id);
+	}
+
+	@Override
+	public <T extends Node> T getNode(int index) {
+		long stamp = version.tryOptimisticRead();
+
+		if (stamp != 0)
+			try {
+				T node = super.getNode(index);
+
+				if (version.validate(stamp))
+					return node;
+			} catch (RuntimeException e) {
+				// inconsistent view, read again under the lock
+			}
+
+		readLock.lock();
+		try {
+			return super.getNode(index);
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public int getNodeCount() {
+		long stamp = version.tryOptimisticRead();
+		int count = nodeCount;
+
+		if (version.validate(stamp))
+			return count;
+
+		readLock.lock();
+		try {
+			return nodeCount;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public double getStep() {
+		long stamp = version.tryOptimisticRead();
+		double step = super.getStep();
+
+		if (version.validate(stamp))
+			return step;
+
+		readLock.lock();
+		try {
+			return super.getStep();
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * @return An iterator on a copy of the edges of the graph.
+	 */
+	@Override
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new SnapshotIterator<T>(copyElements(false));
+	}
+
+	/**
+	 * @return An iterator on a copy of the nodes of the graph.
+	 */
+	@Override
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new SnapshotIterator<T>(copyElements(true));
+	}
+
+	/**
+	 * @return A stream on a copy of the nodes of the graph.
+	 */
+	@Override
+	public Stream<Node> nodes() {
+		return snapshotStream(copyElements(true));
+	}
+
+	/**
+	 * @return A stream on a copy of the edges of the graph.
+	 */
+	@Override
+	public Stream<Edge> edges() {
+		return snapshotStream(copyElements(false));
+	}
+
+	/**
+	 * Copies the nodes or the edges of the graph.
+	 */
+	private Object[] copyElements(boolean nodes) {
+		long stamp = version.tryOptimisticRead();
+
+		if (stamp != 0) {
+			Object[] copy = nodes ? Arrays.copyOf(nodeArray, nodeCount)
+					: Arrays.copyOf(edgeArray, edgeCount);
+
+			if (version.validate(stamp))
+				return copy;
+		}
+
+		readLock.lock();
+		try {
+			return nodes ? Arrays.copyOf(nodeArray, nodeCount) : Arrays
+					.copyOf(edgeArray, edgeCount);
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	// *** Modifications ***
+
+	@Override
+	public void stepBegins(double time) {
+		beginChange();
+		try {
+			super.stepBegins(time);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	public void clear() {
+		beginChange();
+		try {
+			super.clear();
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	public void reorder(Ordering ordering) {
+		beginChange();
+		try {
+			super.reorder(ordering);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	public void reorder(int[] nodeOrder) {
+		beginChange();
+		try {
+			super.reorder(nodeOrder);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	public <T extends Node> T addNode(String id) {
+		beginChange();
+		try {
+			return super.addNode(id);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	public void addNodes(String... ids) {
+		beginChange();
+		try {
+			super.addNodes(ids);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	public void addEdges(String[] ids, String[] from, String[] to,
+			boolean directed) {
+		beginChange();
+		try {
+			super.addEdges(ids, from, to, directed);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	protected <T extends Edge> T addEdge(String edgeId, AbstractNode src,
+			String srcId, AbstractNode dst, String dstId, boolean directed) {
+		beginChange();
+		try {
+			// the endpoints may have been removed since they were looked up
+			if (src != null)
+				src = nodeMap.get(srcId);
+			if (dst != null)
+				dst = nodeMap.get(dstId);
+
+			return super.addEdge(edgeId, src, srcId, dst, dstId, directed);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	protected void removeNode(AbstractNode node, boolean graphCallback) {
+		beginChange();
+		try {
+			// another thread may have removed it first
+			if (node != null && nodeMap.get(node.getId()) == node)
+				super.removeNode(node, graphCallback);
+		} finally {
+			endChange();
+		}
+	}
+
+	@Override
+	protected void removeEdge(AbstractEdge edge, boolean graphCallback,
+			boolean sourceCallback, boolean targetCallback) {
+		beginChange();
+		try {
+			if (edge != null && edgeMap.get(edge.getId()) == edge)
+				super.removeEdge(edge, graphCallback, sourceCallback,
+						targetCallback);
+		} finally {
+			endChange();
+		}
+	}
+
+	// *** Helpers ***
+
+	/**
+	 * Stream on a copy of elements.
+	 */
+	protected static <T> Stream<T> snapshotStream(Object[] copy) {
+		return StreamSupport.stream(Spliterators.<T> spliterator(copy,
+				Spliterator.DISTINCT | Spliterator.NONNULL
+						| Spliterator.IMMUTABLE), false);
+	}
+
+	/**
+	 * Iterator on a copy of elements. Removing an element removes it from the
+	 * graph.
+	 */
+	protected class SnapshotIterator<T> implements Iterator<T> {
+		protected final Object[] elements;
+		protected int next = 0;
+		protected Object current = null;
+
+		protected SnapshotIterator(Object[] copy) {
+			this.elements = copy;
+		}
+
+		public boolean hasNext() {
+			return next < elements.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (next >= elements.length)
+				throw new NoSuchElementException();
+
+			current = elements[next++];
+			return (T) current;
+		}
+
+		public void remove() {
+			if (current == null)
+				throw new IllegalStateException();
+
+			if (current instanceof Node)
+				removeNode((Node) current);
+			else
+				removeEdge((Edge) current);
+
+			current = null;
+		}
+	}
+
+	/**
+	 * Attribute map used by the elements of a concurrent graph. It is backed by
+	 * a {@link ConcurrentHashMap}, null values being replaced by a marker.
+	 */
+	static class ConcurrentAttributeMap extends AbstractMap<String, Object> {
+		private static final Object NULL = new Object();
+
+		private final ConcurrentHashMap<String, Object> map = new ConcurrentHashMap<String, Object>(
+				4, 0.75f, 1);
+
+		private static Object mask(Object value) {
+			return value == null ? NULL : value;
+		}
+
+		private static Object unmask(Object value) {
+			return value == NULL ? null : value;
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		public Object get(Object key) {
+			return unmask(map.get(key));
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			return unmask(map.put(key, mask(value)));
+		}
+
+		@Override
+		public Object remove(Object key) {
+			return unmask(map.remove(key));
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return map.keySet();
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					final Iterator<Entry<String, Object>> it = map.entrySet()
+							.iterator();
+
+					return new Iterator<Entry<String, Object>>() {
+						public boolean hasNext() {
+							return it.hasNext();
+						}
+
+						public Entry<String, Object> next() {
+							Entry<String, Object> e = it.next();
+							return new SimpleEntry<String, Object>(e.getKey(),
+									unmask(e.getValue()));
+						}
+
+						public void remove() {
+							it.remove();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return map.size();
+				}
+			};
+		}
+	}
+
+
+	// *** Elements ***
+
+	/**
+	 * Nodes of a {@link ConcurrentGraph}. Degrees and incident edges are read
+	 * optimistically like the structure of the graph, lookups of the edges
+	 * toward other nodes take the read lock of the graph. Iterators work on a
+	 * copy of the edges.
+	 */
+	public static class ConcurrentNode extends MultiNode {
+		protected final Lock readLock;
+		protected final Lock modificationLock;
+		protected final StampedLock version;
+
+		public ConcurrentNode(ConcurrentGraph graph, String id) {
+			super(graph, id);
+			readLock = graph.readLock;
+			modificationLock = graph.modificationLock;
+			version = graph.version;
+			attributes = newAttributeMap(0);
+		}
+
+		// *** Attributes ***
+
+		@Override
+		protected Map<String, Object> newAttributeMap(int expectedSize) {
+			return new ConcurrentAttributeMap();
+		}
+
+		@Override
+		public void addAttribute(String attribute, Object... values) {
+			modificationLock.lock();
+			try {
+				super.addAttribute(attribute, values);
+			} finally {
+				modificationLock.unlock();
+			}
+		}
+
+		@Override
+		public void removeAttribute(String attribute) {
+			modificationLock.lock();
+			try {
+				super.removeAttribute(attribute);
+			} finally {
+				modificationLock.unlock();
+			}
+		}
+
+		@Override
+		public void clearAttributes() {
+			modificationLock.lock();
+			try {
+				super.clearAttributes();
+			} finally {
+				modificationLock.unlock();
+			}
+		}
+
+		// *** Access ***
+
+		@Override
+		public int getDegree() {
+			long stamp = version.tryOptimisticRead();
+			int d = degree;
+
+			if (version.validate(stamp))
+				return d;
+
+			readLock.lock();
+			try {
+				return degree;
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public int getInDegree() {
+			long stamp = version.tryOptimisticRead();
+			int d = super.getInDegree();
+
+			if (version.validate(stamp))
+				return d;
+
+			readLock.lock();
+			try {
+				return super.getInDegree();
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public int getOutDegree() {
+			long stamp = version.tryOptimisticRead();
+			int d = super.getOutDegree();
+
+			if (version.validate(stamp))
+				return d;
+
+			readLock.lock();
+			try {
+				return super.getOutDegree();
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public <T extends Edge> T getEdge(int i) {
+			long stamp = version.tryOptimisticRead();
+
+			if (stamp != 0)
+				try {
+					T edge = super.getEdge(i);
+
+					if (version.validate(stamp))
+						return edge;
+				} catch (RuntimeException e) {
+					// inconsistent view, read again under the lock
+				}
+
+			readLock.lock();
+			try {
+				return super.getEdge(i);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public <T extends Edge> T getEnteringEdge(int i) {
+			long stamp = version.tryOptimisticRead();
+
+			if (stamp != 0)
+				try {
+					T edge = super.getEnteringEdge(i);
+
+					if (version.validate(stamp))
+						return edge;
+				} catch (RuntimeException e) {
+					// inconsistent view, read again under the lock
+				}
+
+			readLock.lock();
+			try {
+				return super.getEnteringEdge(i);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public <T extends Edge> T getLeavingEdge(int i) {
+			long stamp = version.tryOptimisticRead();
+
+			if (stamp != 0)
+				try {
+					T edge = super.getLeavingEdge(i);
+
+					if (version.validate(stamp))
+						return edge;
+				} catch (RuntimeException e) {
+					// inconsistent view, read again under the lock
+				}
+
+			readLock.lock();
+			try {
+				return super.getLeavingEdge(i);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeBetween(Node node) {
+			readLock.lock();
+			try {
+				return super.getEdgeBetween(node);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeFrom(Node node) {
+			readLock.lock();
+			try {
+				return super.getEdgeFrom(node);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeToward(Node node) {
+			readLock.lock();
+			try {
+				return super.getEdgeToward(node);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		@Override
+		public <T extends Edge> Collection<T> getEdgeSetBetween(Node node) {
+			readLock.lock();
+			try {
+				return Collections.unmodifiableList(new ArrayList<T>(super
+						.<T> getEdgeSetBetween(node)));
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		/**
+		 * @return An iterator on a copy of the neighbors of this node.
+		 */
+		@Override
+		public <T extends Node> Iterator<T> getNeighborNodeIterator() {
+			readLock.lock();
+			try {
+				List<T> neighbors = new ArrayList<T>(getDegree());
+				Iterator<T> it = super.getNeighborNodeIterator();
+
+				while (it.hasNext())
+					neighbors.add(it.next());
+
+				return Collections.unmodifiableList(neighbors).iterator();
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		/**
+		 * @return An iterator on a copy of the edges of this node.
+		 */
+		@Override
+		public <T extends Edge> Iterator<T> getEdgeIterator() {
+			return ((ConcurrentGraph) graph).new SnapshotIterator<T>(
+					copyEdges(IO_EDGE));
+		}
+
+		/**
+		 * @return An iterator on a copy of the entering edges of this node.
+		 */
+		@Override
+		public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+			return ((ConcurrentGraph) graph).new SnapshotIterator<T>(
+					copyEdges(I_EDGE));
+		}
+
+		/**
+		 * @return An iterator on a copy of the leaving edges of this node.
+		 */
+		@Override
+		public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+			return ((ConcurrentGraph) graph).new SnapshotIterator<T>(
+					copyEdges(O_EDGE));
+		}
+
+		/**
+		 * @return A stream on a copy of the edges of the given type.
+		 */
+		@Override
+		protected Stream<Edge> edgeStream(char type) {
+			return snapshotStream(copyEdges(type));
+		}
+
+		/**
+		 * Copies the edges of a given type, {@code IO_EDGE} meaning all the
+		 * edges.
+		 */
+		private Object[] copyEdges(char type) {
+			long stamp = version.tryOptimisticRead();
+
+			if (stamp != 0)
+				try {
+					Object[] copy = copyEdgeRange(type);
+
+					if (version.validate(stamp))
+						return copy;
+				} catch (RuntimeException e) {
+					// inconsistent view, read again under the lock
+				}
+
+			readLock.lock();
+			try {
+				return copyEdgeRange(type);
+			} finally {
+				readLock.unlock();
+			}
+		}
+
+		private Object[] copyEdgeRange(char type) {
+			int from = type == O_EDGE ? ioStart : 0;
+			int to = type == I_EDGE ? oStart : degree;
+
+			return Arrays.copyOfRange(edges, from, to);
+		}
+	}
+
+	/**
+	 * Edges of a {@link ConcurrentGraph}. Their attributes are stored in a
+	 * concurrent map.
+	 */
+	public static class ConcurrentEdge extends AbstractEdge {
+		protected final Lock modificationLock;
+
+		public ConcurrentEdge(String id, AbstractNode source,
+				AbstractNode target, boolean directed) {
+			super(id, source, target, directed);
+			modificationLock = ((ConcurrentGraph) graph).modificationLock;
+			attributes = newAttributeMap(0);
+		}
+
+		@Override
+		protected Map<String, Object> newAttributeMap(int expectedSize) {
+			return new ConcurrentAttributeMap();
+		}
+
+		@Override
+		public void addAttribute(String attribute, Object... values) {
+			modificationLock.lock();
+			try {
+				super.addAttribute(attribute, values);
+			} finally {
+				modificationLock.unlock();
+			}
+		}
+
+		@Override
+		public void removeAttribute(String attribute) {
+			modificationLock.lock();
+			try {
+				super.removeAttribute(attribute);
+			} finally {
+				modificationLock.unlock();
+			}
+		}
+
+		@Override
+		public void clearAttributes() {
+			modificationLock.lock();
+			try {
+				super.clearAttributes();
+			} finally {
+				modificationLock.unlock();
+			}
+		}
+	}
+}
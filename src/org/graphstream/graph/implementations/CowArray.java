@@ -0,0 +1,142 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+/**
+ * A sparse array shared copy-on-write between versions.
+ * 
+ * <p>
+ * Values are stored in a trie of 32-slot blocks. Each block remembers the
+ * owner that created it: writing through an owner modifies its own blocks in
+ * place and copies the blocks of the path to the value if they belong to
+ * another owner. A version is frozen by copying the array with
+ * {@link #freeze()} and using a new owner for later writes, so that freezing
+ * costs O(1) and each later write copies at most one path of the trie.
+ * </p>
+ */
+final class CowArray {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final class Block {
+		final Object owner;
+		final Object[] slots;
+
+		Block(Object owner, Object[] slots) {
+			this.owner = owner;
+			this.slots = slots;
+		}
+	}
+
+	private Block root;
+	private int shift;
+
+	CowArray() {
+		root = new Block(null, new Object[WIDTH]);
+		shift = 0;
+	}
+
+	private CowArray(Block root, int shift) {
+		this.root = root;
+		this.shift = shift;
+	}
+
+	/**
+	 * A copy of this array sharing all its blocks. Neither this array nor the
+	 * copy must be written with the previous owner anymore.
+	 */
+	CowArray freeze() {
+		return new CowArray(root, shift);
+	}
+
+	/**
+	 * Value at a given position, {@code null} if none.
+	 * 
+	 * @complexity O(log(n))
+	 */
+	Object get(int i) {
+		if ((i >>> shift) >= WIDTH)
+			return null;
+
+		Block b = root;
+
+		for (int s = shift; s > 0; s -= BITS) {
+			b = (Block) b.slots[(i >>> s) & MASK];
+
+			if (b == null)
+				return null;
+		}
+
+		return b.slots[i & MASK];
+	}
+
+	/**
+	 * Changes the value at a given position, copying the blocks that do not
+	 * belong to the given owner.
+	 * 
+	 * @complexity O(log(n))
+	 */
+	void set(int i, Object value, Object owner) {
+		while ((i >>> shift) >= WIDTH) {
+			Block r = new Block(owner, new Object[WIDTH]);
+			r.slots[0] = root;
+			root = r;
+			shift += BITS;
+		}
+
+		root = editable(root, owner);
+		Block b = root;
+
+		for (int s = shift; s > 0; s -= BITS) {
+			int k = (i >>> s) & MASK;
+			Block child = (Block) b.slots[k];
+
+			if (child == null)
+				child = new Block(owner, new Object[WIDTH]);
+			else
+				child = editable(child, owner);
+
+			b.slots[k] = child;
+			b = child;
+		}
+
+		b.slots[i & MASK] = value;
+	}
+
+	private static Block editable(Block b, Object owner) {
+		if (b.owner == owner)
+			return b;
+
+		return new Block(owner, b.slots.clone());
+	}
+}
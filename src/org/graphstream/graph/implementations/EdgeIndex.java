@@ -0,0 +1,231 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.security.AccessControlException;
+import java.util.List;
+
+/**
+ * Index of the edges of a node by opposite node.
+ * 
+ * <p>
+ * Nodes with few edges find the edges toward another node by scanning their
+ * edge array. When the degree of a node reaches {@link #THRESHOLD}, the node
+ * builds this index to find them in constant expected time, and it drops the
+ * index when its degree falls below half the threshold. This way low degree
+ * nodes do not pay for a map while hubs keep fast lookups.
+ * </p>
+ * 
+ * <p>
+ * The index is an open-addressing table of edges hashed by the identifier of
+ * their opposite node. There is no entry object and several edges toward the
+ * same node are simply stored in the same probe sequence. The threshold can
+ * be changed with the system property
+ * {@code org.graphstream.graph.node.edgeIndexThreshold}.
+ * </p>
+ */
+final class EdgeIndex {
+	static final int THRESHOLD;
+
+	static {
+		String p = "org.graphstream.graph.node.edgeIndexThreshold";
+		int threshold = 32;
+		try {
+			threshold = Integer.valueOf(System.getProperty(p, "32"));
+		} catch (AccessControlException e) {
+		}
+		THRESHOLD = threshold;
+	}
+
+	private static final int MIN_CAPACITY = 16;
+
+	private final AdjacencyListNode node;
+	private AbstractEdge[] slots;
+	private int size;
+
+	/**
+	 * New index for a node, able to hold the given number of edges without
+	 * being resized. The edges of the node are not added.
+	 */
+	EdgeIndex(AdjacencyListNode node, int expectedSize) {
+		this.node = node;
+		slots = new AbstractEdge[tableSizeFor(expectedSize)];
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Adds an edge of the node.
+	 * 
+	 * @complexity O(1) expected
+	 */
+	void add(AbstractEdge edge) {
+		if ((size + 1) * 2 > slots.length)
+			rehash(slots.length * 2);
+
+		insert(edge);
+		size++;
+	}
+
+	/**
+	 * Removes an edge of the node. The edge must be in the index.
+	 * 
+	 * @complexity O(1) expected
+	 */
+	void remove(AbstractEdge edge) {
+		int mask = slots.length - 1;
+		int hole = hash(opposite(edge)) & mask;
+
+		while (slots[hole] != edge)
+			hole = (hole + 1) & mask;
+
+		slots[hole] = null;
+		size--;
+
+		// backward shift deletion, there are no tombstones
+		int h = hole;
+
+		while (true) {
+			h = (h + 1) & mask;
+
+			AbstractEdge e = slots[h];
+
+			if (e == null)
+				return;
+
+			int home = hash(opposite(e)) & mask;
+
+			if (((h - home) & mask) >= ((h - hole) & mask)) {
+				slots[hole] = e;
+				slots[h] = null;
+				hole = h;
+			}
+		}
+	}
+
+	/**
+	 * Finds an edge toward a node. The type is the one used by
+	 * {@link AdjacencyListNode#locateEdge(org.graphstream.graph.Node, char)}.
+	 * 
+	 * @complexity O(1) expected, plus the number of edges toward the node
+	 * @return an edge or null if there is no such edge
+	 */
+	AbstractEdge find(AbstractNode opposite, char type) {
+		if (opposite == null)
+			return null;
+
+		int mask = slots.length - 1;
+		int h = hash(opposite) & mask;
+		AbstractEdge e;
+
+		while ((e = slots[h]) != null) {
+			if (opposite(e) == opposite && matches(type, node.edgeType(e)))
+				return e;
+
+			h = (h + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Adds all the edges toward a node to a list.
+	 */
+	void collect(AbstractNode opposite, List<AbstractEdge> list) {
+		if (opposite == null)
+			return;
+
+		int mask = slots.length - 1;
+		int h = hash(opposite) & mask;
+		AbstractEdge e;
+
+		while ((e = slots[h]) != null) {
+			if (opposite(e) == opposite)
+				list.add(e);
+
+			h = (h + 1) & mask;
+		}
+	}
+
+	/**
+	 * True if an edge of the given actual type is found when looking for the
+	 * wanted type.
+	 */
+	static boolean matches(char wanted, char actual) {
+		return (wanted != AdjacencyListNode.I_EDGE || actual != AdjacencyListNode.O_EDGE)
+				&& (wanted != AdjacencyListNode.O_EDGE || actual != AdjacencyListNode.I_EDGE);
+	}
+
+	// *** Helpers ***
+
+	private AbstractNode opposite(AbstractEdge e) {
+		return e.source == node ? e.target : e.source;
+	}
+
+	private static int hash(AbstractNode n) {
+		// consecutive identifiers have close hash codes, scramble them to
+		// avoid long probe sequences
+		int h = n.getId().hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+
+		return capacity;
+	}
+
+	private void insert(AbstractEdge edge) {
+		int mask = slots.length - 1;
+		int h = hash(opposite(edge)) & mask;
+
+		while (slots[h] != null)
+			h = (h + 1) & mask;
+
+		slots[h] = edge;
+	}
+
+	private void rehash(int capacity) {
+		AbstractEdge[] old = slots;
+		slots = new AbstractEdge[capacity];
+
+		for (AbstractEdge e : old)
+			if (e != null)
+				insert(e);
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Arrays;
+
+import org.graphstream.graph.Edge;
+
+/**
+ * Computes the locality-improving orders used by
+ * {@link AbstractGraph#reorder(AbstractGraph.Ordering)}.
+ * 
+ * <p>
+ * The orders are computed on a copy of the undirected adjacency of the graph
+ * in compressed sparse row form, built in O(n + m) when this object is
+ * created. Orders are given as arrays {@code order} where {@code order[i]} is
+ * the current index of the node that will get index {@code i}.
+ * </p>
+ */
+final class GraphReordering {
+	final int nodeCount;
+
+	/**
+	 * Neighbors of node {@code v} are
+	 * {@code neighbors[offsets[v] .. offsets[v + 1]]}, loops and multiple
+	 * edges included.
+	 */
+	final int[] offsets, neighbors;
+
+	GraphReordering(AbstractGraph graph) {
+		int n = graph.getNodeCount();
+		int m = graph.getEdgeCount();
+		int[] sources = new int[m], targets = new int[m];
+
+		nodeCount = n;
+		offsets = new int[n + 1];
+
+		for (int e = 0; e < m; e++) {
+			Edge edge = graph.getEdge(e);
+			int s = edge.getSourceNode().getIndex();
+			int t = edge.getTargetNode().getIndex();
+
+			sources[e] = s;
+			targets[e] = t;
+			offsets[s + 1]++;
+
+			if (s != t)
+				offsets[t + 1]++;
+		}
+
+		for (int v = 0; v < n; v++)
+			offsets[v + 1] += offsets[v];
+
+		int[] cursors = Arrays.copyOf(offsets, n);
+		neighbors = new int[offsets[n]];
+
+		for (int e = 0; e < m; e++) {
+			int s = sources[e], t = targets[e];
+
+			neighbors[cursors[s]++] = t;
+
+			if (s != t)
+				neighbors[cursors[t]++] = s;
+		}
+	}
+
+	int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	int[] order(AbstractGraph.Ordering ordering) {
+		switch (ordering) {
+		case BREADTH_FIRST:
+			return breadthFirst(false);
+		case CUTHILL_MCKEE:
+			return breadthFirst(true);
+		case REVERSE_CUTHILL_MCKEE:
+			int[] order = breadthFirst(true);
+
+			for (int i = 0, j = order.length - 1; i < j; i++, j--) {
+				int tmp = order[i];
+				order[i] = order[j];
+				order[j] = tmp;
+			}
+
+			return order;
+		case DEGREE:
+			int[] byDegree = byDegree();
+
+			// decreasing degree, hubs first
+			for (int i = 0, j = byDegree.length - 1; i < j; i++, j--) {
+				int tmp = byDegree[i];
+				byDegree[i] = byDegree[j];
+				byDegree[j] = tmp;
+			}
+
+			return byDegree;
+		default:
+			throw new IllegalArgumentException("unknown ordering " + ordering);
+		}
+	}
+
+	/**
+	 * Nodes sorted by increasing degree, with a counting sort. Nodes of the
+	 * same degree keep their relative order.
+	 */
+	int[] byDegree() {
+		int maxDegree = 0;
+
+		for (int v = 0; v < nodeCount; v++)
+			maxDegree = Math.max(maxDegree, degree(v));
+
+		int[] counts = new int[maxDegree + 2];
+
+		for (int v = 0; v < nodeCount; v++)
+			counts[degree(v) + 1]++;
+
+		for (int d = 0; d <= maxDegree; d++)
+			counts[d + 1] += counts[d];
+
+		int[] order = new int[nodeCount];
+
+		for (int v = 0; v < nodeCount; v++)
+			order[counts[degree(v)]++] = v;
+
+		return order;
+	}
+
+	/**
+	 * Breadth-first order of all the components. Without Cuthill-McKee, each
+	 * component is explored from its node of highest degree and neighbors are
+	 * visited in adjacency order. With Cuthill-McKee, each component is
+	 * explored from its node of lowest degree and the neighbors of each node
+	 * are visited by increasing degree.
+	 */
+	int[] breadthFirst(boolean cuthillMcKee) {
+		int[] starts = byDegree();
+		int[] order = new int[nodeCount];
+		boolean[] visited = new boolean[nodeCount];
+		long[] keys = cuthillMcKee ? new long[16] : null;
+		int tail = 0;
+
+		for (int k = 0; k < nodeCount; k++) {
+			int start = starts[cuthillMcKee ? k : nodeCount - 1 - k];
+
+			if (visited[start])
+				continue;
+
+			int head = tail;
+			visited[start] = true;
+			order[tail++] = start;
+
+			while (head < tail) {
+				int v = order[head++];
+				int first = tail;
+
+				for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+					int w = neighbors[i];
+
+					if (!visited[w]) {
+						visited[w] = true;
+						order[tail++] = w;
+					}
+				}
+
+				if (cuthillMcKee && tail - first > 1)
+					keys = sortByDegree(order, first, tail, keys);
+			}
+		}
+
+		return order;
+	}
+
+	/**
+	 * Sorts a range of nodes by increasing degree, ties broken by index.
+	 * 
+	 * @return The work array, possibly grown.
+	 */
+	private long[] sortByDegree(int[] nodes, int from, int to, long[] keys) {
+		int count = to - from;
+
+		if (keys.length < count)
+			keys = new long[Math.max(count, 2 * keys.length)];
+
+		for (int i = 0; i < count; i++) {
+			int v = nodes[from + i];
+			keys[i] = ((long) degree(v) << 32) | v;
+		}
+
+		Arrays.sort(keys, 0, count);
+
+		for (int i = 0; i < count; i++)
+			nodes[from + i] = (int) keys[i];
+
+		return keys;
+	}
+
+	/**
+	 * Order of the edges matching a node order: edges are grouped by the new
+	 * index of their first endpoint in the new order, so that the edges of a
+	 * node are stored near the edges of its neighbors. The relative order of
+	 * edges in a group is kept.
+	 * 
+	 * @param rank
+	 *            new index of each node, the inverse of the node order
+	 */
+	static int[] edgeOrder(AbstractGraph graph, int[] rank) {
+		int n = rank.length;
+		int m = graph.getEdgeCount();
+		int[] keys = new int[m];
+		int[] counts = new int[n + 1];
+
+		for (int e = 0; e < m; e++) {
+			Edge edge = graph.getEdge(e);
+			keys[e] = Math.min(rank[edge.getSourceNode().getIndex()],
+					rank[edge.getTargetNode().getIndex()]);
+			counts[keys[e] + 1]++;
+		}
+
+		for (int v = 0; v < n; v++)
+			counts[v + 1] += counts[v];
+
+		int[] order = new int[m];
+
+		for (int e = 0; e < m; e++)
+			order[counts[keys[e]]++] = e;
+
+		return order;
+	}
+}
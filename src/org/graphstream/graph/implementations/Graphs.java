@@ -64,15 +64,32 @@ public class Graphs {
 
     private static final Logger logger = Logger.getLogger(Graphs.class.getSimpleName());
 
+	/**
+	 * Creates an immutable copy of a graph. The returned graph can be read by
+	 * several threads but all the methods modifying it throw an
+	 * {@link UnsupportedOperationException}. To take repeated snapshots of a
+	 * graph that keeps changing, use a {@link SnapshotRecorder} which only
+	 * copies what changed between two snapshots.
+	 * 
+	 * @param g
+	 *            the graph to copy
+	 * @return a read-only copy of g
+	 */
 	public static Graph unmutableGraph(Graph g) {
-		return null;
+		SnapshotRecorder recorder = new SnapshotRecorder(g);
+		Graph snapshot = recorder.snapshot();
+
+		recorder.detach();
+		return snapshot;
 	}
 
 	/**
 	 * Synchronizes a graph. The returned graph can be accessed and modified by
 	 * several threads. You lose genericity in methods returning edge or node
 	 * because each element (graph, nodes and edges) is wrapped into a
-	 * synchronized wrapper which breaks original elements class.
+	 * synchronized wrapper which breaks original elements class. All the
+	 * accesses are serialized, see {@link ConcurrentGraph} for a graph that
+	 * can be read by several threads in parallel.
 	 * 
 	 * @param g
 	 *            the graph to synchronize
@@ -628,6 +645,51 @@ public class Graphs {
 			return (T) sn;
 		}
 
+		public void addNodes(String... ids) throws IdAlreadyInUseException {
+			elementLock.lock();
+
+			try {
+				wrappedElement.addNodes(ids);
+				wrapNodes(ids);
+			} finally {
+				elementLock.unlock();
+			}
+		}
+
+		public void addEdges(String[] ids, String[] from, String[] to,
+				boolean directed) throws IdAlreadyInUseException,
+				ElementNotFoundException, EdgeRejectedException {
+			elementLock.lock();
+
+			try {
+				wrappedElement.addEdges(ids, from, to, directed);
+			} finally {
+				// nodes may have been created, and some edges may have been
+				// added before an exception
+				wrapNodes(from);
+				wrapNodes(to);
+
+				for (String id : ids) {
+					Edge e = wrappedElement.getEdge(id);
+
+					if (e != null && !synchronizedEdges.containsKey(id))
+						synchronizedEdges.put(id, new SynchronizedEdge(this, e));
+				}
+
+				elementLock.unlock();
+			}
+		}
+
+		// helper for addNodes and addEdges, the lock must be held
+		private void wrapNodes(String[] ids) {
+			for (String id : ids) {
+				Node n = wrappedElement.getNode(id);
+
+				if (n != null && !synchronizedNodes.containsKey(id))
+					synchronizedNodes.put(id, new SynchronizedNode(this, n));
+			}
+		}
+
 		public Iterable<AttributeSink> attributeSinks() {
 			LinkedList<AttributeSink> sinks = new LinkedList<AttributeSink>();
 
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Arrays;
+
+/**
+ * A compact dictionary of element identifiers.
+ * 
+ * <p>
+ * Identifiers are stored in an array indexed by element index, and an
+ * open-addressing hash table of {@code int} slots maps an identifier back to
+ * its index. Compared to a {@code HashMap<String, Integer>} this avoids an
+ * entry object and a boxed integer per element. Indices are kept successive:
+ * when an identifier is removed, the last one takes its place, which is the
+ * same policy as the one used by graphs for element indices.
+ * </p>
+ */
+final class IdTable {
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * Identifiers indexed by element index.
+	 */
+	private String[] ids;
+
+	/**
+	 * Hash slots. Each slot contains an element index plus one, zero meaning
+	 * an empty slot.
+	 */
+	private int[] slots;
+
+	private int size;
+
+	IdTable(int initialCapacity) {
+		if (initialCapacity < MIN_CAPACITY)
+			initialCapacity = MIN_CAPACITY;
+
+		ids = new String[initialCapacity];
+		slots = new int[tableSizeFor(initialCapacity)];
+		size = 0;
+	}
+
+	/**
+	 * Number of identifiers in this table.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * The identifier at a given index.
+	 * 
+	 * @complexity O(1)
+	 */
+	String idOf(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * The index of an identifier.
+	 * 
+	 * @complexity O(1) expected
+	 * @return the index or -1 if the identifier is not in the table
+	 */
+	int indexOf(String id) {
+		int mask = slots.length - 1;
+		int h = hash(id) & mask;
+		int s;
+
+		while ((s = slots[h]) != 0) {
+			String other = ids[s - 1];
+
+			if (other == id || other.equals(id))
+				return s - 1;
+
+			h = (h + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Appends an identifier. The caller must ensure that the identifier is not
+	 * already in the table.
+	 * 
+	 * @return the index of the new identifier, that is the former size
+	 */
+	int add(String id) {
+		if (size == ids.length)
+			ids = Arrays.copyOf(ids, grow(ids.length));
+
+		if ((size + 1) * 2 > slots.length)
+			rehash(slots.length * 2);
+
+		int index = size++;
+		ids[index] = id;
+		insertSlot(id, index);
+
+		return index;
+	}
+
+	/**
+	 * Reserves space for a given number of identifiers.
+	 */
+	void ensureCapacity(int capacity) {
+		if (capacity > ids.length)
+			ids = Arrays.copyOf(ids, capacity);
+
+		if (capacity * 2 > slots.length)
+			rehash(tableSizeFor(capacity));
+	}
+
+	/**
+	 * Removes the identifier at a given index. If it was not the last one, the
+	 * last identifier is moved at this index.
+	 * 
+	 * @return the former index of the moved identifier, or -1 if no identifier
+	 *         has been moved
+	 */
+	int removeAndSwapLast(int index) {
+		int last = size - 1;
+
+		removeSlot(ids[index], index);
+
+		if (index != last) {
+			String moved = ids[last];
+			slots[findSlot(moved, last)] = index + 1;
+			ids[index] = moved;
+		}
+
+		ids[last] = null;
+		size = last;
+
+		return index == last ? -1 : last;
+	}
+
+	/**
+	 * Exchanges the indices of two identifiers.
+	 */
+	void swap(int i, int j) {
+		if (i == j)
+			return;
+
+		int si = findSlot(ids[i], i);
+		int sj = findSlot(ids[j], j);
+
+		slots[si] = j + 1;
+		slots[sj] = i + 1;
+
+		String tmp = ids[i];
+		ids[i] = ids[j];
+		ids[j] = tmp;
+	}
+
+	/**
+	 * Renumbers the identifiers: the identifier of index {@code order[i]}
+	 * gets the index {@code i}.
+	 */
+	void permute(int[] order) {
+		String[] permuted = new String[ids.length];
+
+		for (int i = 0; i < size; i++)
+			permuted[i] = ids[order[i]];
+
+		ids = permuted;
+		rehash(slots.length);
+	}
+
+	void clear() {
+		Arrays.fill(ids, 0, size, null);
+		Arrays.fill(slots, 0);
+		size = 0;
+	}
+
+	/**
+	 * Shrinks the storage to the current size.
+	 */
+	void trimToSize() {
+		ids = Arrays.copyOf(ids, Math.max(size, MIN_CAPACITY));
+
+		int capacity = tableSizeFor(Math.max(size, MIN_CAPACITY));
+
+		if (capacity < slots.length)
+			rehash(capacity);
+	}
+
+	// *** Helpers ***
+
+	private static int hash(String id) {
+		int h = id.hashCode();
+		// spread the bits, the same way HashMap does
+		return h ^ (h >>> 16);
+	}
+
+	private static int grow(int length) {
+		return (int) (length * AdjacencyListGraph.GROW_FACTOR) + 1;
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int n = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY) - 1) << 2;
+		return n < 0 ? 1 << 30 : n;
+	}
+
+	private void insertSlot(String id, int index) {
+		int mask = slots.length - 1;
+		int h = hash(id) & mask;
+
+		while (slots[h] != 0)
+			h = (h + 1) & mask;
+
+		slots[h] = index + 1;
+	}
+
+	private int findSlot(String id, int index) {
+		int mask = slots.length - 1;
+		int h = hash(id) & mask;
+
+		while (slots[h] != index + 1)
+			h = (h + 1) & mask;
+
+		return h;
+	}
+
+	private void removeSlot(String id, int index) {
+		int mask = slots.length - 1;
+		int hole = findSlot(id, index);
+		int h = hole;
+
+		slots[hole] = 0;
+
+		// backward shift deletion, there are no tombstones
+		while (true) {
+			h = (h + 1) & mask;
+
+			int s = slots[h];
+
+			if (s == 0)
+				return;
+
+			int home = hash(ids[s - 1]) & mask;
+
+			if (((h - home) & mask) >= ((h - hole) & mask)) {
+				slots[hole] = s;
+				slots[h] = 0;
+				hole = h;
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		slots = new int[capacity];
+
+		for (int i = 0; i < size; i++)
+			insertSlot(ids[i], i);
+	}
+}
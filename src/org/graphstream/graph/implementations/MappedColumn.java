@@ -0,0 +1,281 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * An attribute column stored in memory-mapped files, used by
+ * {@link MappedGraph}.
+ * 
+ * <p>
+ * The values are stored in {@code name.val}, four bytes per element for a
+ * {@link AttributeColumn.Type#INT} column and eight bytes otherwise, and the
+ * set of elements having a value is stored as a bitmap in {@code name.set}.
+ * The bitmap is also kept in the heap, one bit per element, so that
+ * {@link #isSet(int)} does not touch the file.
+ * </p>
+ */
+final class MappedColumn extends AttributeColumn {
+	private final Type type;
+	private final int width;
+	private final String name;
+	private final File valueFile, setFile;
+
+	private MappedFile values, present;
+
+	/**
+	 * Opens the files of a column, or creates them if they do not exist.
+	 * 
+	 * @param count
+	 *            Number of elements in the graph. Values stored beyond are
+	 *            ignored.
+	 */
+	MappedColumn(AbstractGraph graph, boolean nodes, String key, Type type,
+			File directory, String name, int count) throws IOException {
+		super(graph, nodes, key);
+
+		this.type = type;
+		this.width = type == Type.INT ? 4 : 8;
+		this.name = name;
+		this.valueFile = new File(directory, name + ".val");
+		this.setFile = new File(directory, name + ".set");
+		this.values = new MappedFile(valueFile, (long) count * width);
+		this.present = new MappedFile(setFile, 0);
+
+		long[] words = new long[(count + 63) >>> 6];
+
+		for (int w = 0; w < words.length; w++)
+			words[w] = present.getLong(w * 8L);
+
+		if (count % 64 != 0)
+			words[words.length - 1] &= (1L << count) - 1;
+
+		set.or(BitSet.valueOf(words));
+	}
+
+	@Override
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public double getDouble(int index) {
+		if (!set.get(index))
+			return Double.NaN;
+
+		switch (type) {
+		case DOUBLE:
+			return Double.longBitsToDouble(values.getLong(index * 8L));
+		case INT:
+			return values.getInt(index * 4L);
+		default:
+			return values.getLong(index * 8L);
+		}
+	}
+
+	@Override
+	public int getInt(int index) {
+		return (int) getLong(index);
+	}
+
+	@Override
+	public long getLong(int index) {
+		if (!set.get(index))
+			return 0;
+
+		switch (type) {
+		case DOUBLE:
+			return (long) Double.longBitsToDouble(values.getLong(index * 8L));
+		case INT:
+			return values.getInt(index * 4L);
+		default:
+			return values.getLong(index * 8L);
+		}
+	}
+
+	@Override
+	Object get(int index) {
+		if (!set.get(index))
+			return null;
+
+		switch (type) {
+		case DOUBLE:
+			return Double.valueOf(getDouble(index));
+		case INT:
+			return Integer.valueOf(getInt(index));
+		default:
+			return Long.valueOf(getLong(index));
+		}
+	}
+
+	@Override
+	boolean accepts(Object value) {
+		switch (type) {
+		case DOUBLE:
+			return value instanceof Double;
+		case INT:
+			return value instanceof Integer;
+		default:
+			return value instanceof Long;
+		}
+	}
+
+	@Override
+	void storeDouble(int index, double value) {
+		if (type != Type.DOUBLE) {
+			storeLong(index, (long) value);
+			return;
+		}
+
+		ensureCapacity(index + 1);
+		values.putLong(index * 8L, Double.doubleToRawLongBits(value));
+		mark(index, true);
+	}
+
+	@Override
+	void storeLong(int index, long value) {
+		if (type == Type.DOUBLE) {
+			storeDouble(index, value);
+			return;
+		}
+
+		ensureCapacity(index + 1);
+
+		if (type == Type.INT)
+			values.putInt(index * 4L, (int) value);
+		else
+			values.putLong(index * 8L, value);
+
+		mark(index, true);
+	}
+
+	@Override
+	void unset(int index) {
+		mark(index, false);
+	}
+
+	@Override
+	void ensureCapacity(int capacity) {
+		values.ensureCapacity((long) capacity * width);
+		present.ensureCapacity(((capacity + 63) >>> 6) * 8L);
+	}
+
+	@Override
+	void move(int from, int to) {
+		if (set.get(from)) {
+			values.copy((long) from * width, (long) to * width, width);
+			mark(to, true);
+			mark(from, false);
+		} else
+			mark(to, false);
+	}
+
+	@Override
+	void permute(int[] order) {
+		long[] permuted = new long[order.length];
+
+		for (int i = 0; i < order.length; i++)
+			if (set.get(order[i]))
+				permuted[i] = width == 4 ? values.getInt(order[i] * 4L)
+						: values.getLong(order[i] * 8L);
+
+		for (int i = 0; i < order.length; i++)
+			if (width == 4)
+				values.putInt(i * 4L, (int) permuted[i]);
+			else
+				values.putLong(i * 8L, permuted[i]);
+
+		permuteSet(order);
+
+		for (int i = 0; i < order.length; i++)
+			mark(i, set.get(i));
+	}
+
+	@Override
+	void clear() {
+		super.clear();
+		present.zero(0, present.capacity());
+	}
+
+	// *** Files ***
+
+	/**
+	 * Base name of the files of this column.
+	 */
+	String getName() {
+		return name;
+	}
+
+	void force() {
+		values.force();
+		present.force();
+	}
+
+	void close() throws IOException {
+		values.close();
+		present.close();
+	}
+
+	/**
+	 * Closes the column and deletes its files.
+	 */
+	void delete() throws IOException {
+		close();
+		valueFile.delete();
+		setFile.delete();
+	}
+
+	/**
+	 * Deletes the files a column of the given name may have left.
+	 */
+	static void delete(File directory, String name) {
+		new File(directory, name + ".val").delete();
+		new File(directory, name + ".set").delete();
+	}
+
+	/**
+	 * Updates the presence of a value, in the heap and in the file.
+	 */
+	private void mark(int index, boolean value) {
+		long pos = (index >>> 6) * 8L;
+		long bit = 1L << index;
+
+		set.set(index, value);
+		present.ensureCapacity(pos + 8);
+
+		long word = present.getLong(pos);
+		present.putLong(pos, value ? word | bit : word & ~bit);
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file mapped in memory and accessed by absolute byte positions.
+ * 
+ * <p>
+ * A single {@link MappedByteBuffer} cannot exceed 2GB, so the file is mapped
+ * in segments of {@link #SEGMENT_SIZE} bytes. Values are written in little
+ * endian order and callers must keep them aligned on their size, so that a
+ * value never spans two segments. The file grows on demand: only the last
+ * segment is mapped again, the full ones stay valid. Positions that have never
+ * been written read as zero.
+ * </p>
+ */
+final class MappedFile implements Closeable {
+	static final int SEGMENT_SHIFT = 30;
+	static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	/**
+	 * Files grow at least by this number of bytes.
+	 */
+	static final long MIN_GROWTH = 1 << 16;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+
+	private MappedByteBuffer[] segments;
+	private long capacity;
+
+	/**
+	 * Opens or creates a file and maps at least the given number of bytes.
+	 */
+	MappedFile(File file, long minCapacity) throws IOException {
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "rw");
+		this.channel = raf.getChannel();
+		this.segments = new MappedByteBuffer[0];
+		this.capacity = 0;
+
+		map(roundUp(Math.max(channel.size(), minCapacity)));
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Number of bytes currently mapped.
+	 */
+	long capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Grows the file so that positions up to {@code needed} (excluded) can be
+	 * accessed.
+	 */
+	void ensureCapacity(long needed) {
+		if (needed <= capacity)
+			return;
+
+		try {
+			map(roundUp(Math.max(needed,
+					(long) (capacity * AdjacencyListGraph.GROW_FACTOR))));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// *** Access ***
+
+	byte getByte(long pos) {
+		return segment(pos).get(offset(pos));
+	}
+
+	void putByte(long pos, byte value) {
+		segment(pos).put(offset(pos), value);
+	}
+
+	int getInt(long pos) {
+		return segment(pos).getInt(offset(pos));
+	}
+
+	void putInt(long pos, int value) {
+		segment(pos).putInt(offset(pos), value);
+	}
+
+	long getLong(long pos) {
+		return segment(pos).getLong(offset(pos));
+	}
+
+	void putLong(long pos, long value) {
+		segment(pos).putLong(offset(pos), value);
+	}
+
+	/**
+	 * Reads bytes that may span several segments.
+	 */
+	void read(long pos, byte[] dst, int length) {
+		for (int i = 0; i < length; i++)
+			dst[i] = getByte(pos + i);
+	}
+
+	/**
+	 * Writes bytes that may span several segments.
+	 */
+	void write(long pos, byte[] src, int length) {
+		for (int i = 0; i < length; i++)
+			putByte(pos + i, src[i]);
+	}
+
+	/**
+	 * Copies a range of bytes inside the file. The ranges must not overlap.
+	 */
+	void copy(long from, long to, long length) {
+		long i = 0;
+
+		for (; i + 8 <= length; i += 8)
+			putLong(to + i, getLong(from + i));
+
+		for (; i < length; i++)
+			putByte(to + i, getByte(from + i));
+	}
+
+	/**
+	 * Fills a range of bytes with zeros.
+	 */
+	void zero(long pos, long length) {
+		long i = 0;
+
+		for (; i < length && ((pos + i) & 7) != 0; i++)
+			putByte(pos + i, (byte) 0);
+
+		for (; i + 8 <= length; i += 8)
+			putLong(pos + i, 0);
+
+		for (; i < length; i++)
+			putByte(pos + i, (byte) 0);
+	}
+
+	/**
+	 * Writes the changes to the storage device.
+	 */
+	void force() {
+		for (MappedByteBuffer segment : segments)
+			segment.force();
+	}
+
+	/**
+	 * Writes the changes and closes the file. The mapping itself is released
+	 * when the buffers are garbage collected.
+	 */
+	public void close() throws IOException {
+		force();
+		segments = new MappedByteBuffer[0];
+		capacity = 0;
+		raf.close();
+	}
+
+	// *** Helpers ***
+
+	private MappedByteBuffer segment(long pos) {
+		return segments[(int) (pos >>> SEGMENT_SHIFT)];
+	}
+
+	private static int offset(long pos) {
+		return (int) (pos & SEGMENT_MASK);
+	}
+
+	private static long roundUp(long size) {
+		return (Math.max(size, MIN_GROWTH) + MIN_GROWTH - 1) & ~(MIN_GROWTH - 1);
+	}
+
+	private void map(long newCapacity) throws IOException {
+		int count = (int) ((newCapacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		MappedByteBuffer[] mapped = new MappedByteBuffer[count];
+
+		for (int i = 0; i < count; i++) {
+			long start = (long) i << SEGMENT_SHIFT;
+			long size = Math.min(SEGMENT_SIZE, newCapacity - start);
+
+			if (i < segments.length && segments[i].capacity() == size) {
+				mapped[i] = segments[i];
+			} else {
+				// mapping beyond the end extends the file
+				mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, start,
+						size);
+				mapped[i].order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+
+		segments = mapped;
+		capacity = newCapacity;
+	}
+}
@@ -0,0 +1,1211 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeFactory;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.NodeFactory;
+
+/**
+ * <p>
+ * A graph stored out of the heap, in memory-mapped files. It can hold graphs
+ * bigger than the heap, and a graph saved in a directory is opened again
+ * instantly, without parsing a file: the operating system loads the pages
+ * when they are accessed.
+ * </p>
+ * 
+ * <p>
+ * The directory given to the constructor contains the topology, the
+ * identifiers of the nodes and edges and the numeric attributes. For each
+ * node, the indices of its incident edges are stored in a block of the
+ * adjacency file, partitioned in entering, undirected (or loop) and leaving
+ * edges as in {@link AdjacencyListNode}. Blocks have a power of two capacity
+ * and are moved to a bigger block when full. The endpoints of each edge are
+ * stored in the edge file, and identifiers in two persistent hash tables. Node
+ * and edge indices follow the usual swap-last policy.
+ * </p>
+ * 
+ * <p>
+ * Numeric attributes are stored in {@link AttributeColumn}s mapped in files.
+ * A column is created automatically the first time a {@link Integer},
+ * {@link Long} or {@link Double} value is given to an attribute that has no
+ * column; see {@link AttributeColumn} for the values a column can hold. Other
+ * attributes, as well as graph attributes, are kept in the heap and are
+ * <b>not saved</b>.
+ * </p>
+ * 
+ * <p>
+ * Node and edge objects are views created on demand and dropped as soon as
+ * the caller releases them. Two objects representing the same element are
+ * equal in the sense of {@link Object#equals(Object)}, but not necessarily
+ * identical, so elements must not be compared with {@code ==}. Index based
+ * methods such as {@link #getEdgeIndex(int, int)} avoid creating these
+ * objects in algorithms sweeping the whole graph.
+ * </p>
+ * 
+ * <p>
+ * Changes are written to the files by the operating system at any time and
+ * forced by {@link #flush()} and {@link #close()}. A graph that was not
+ * closed, for example after a crash, may be inconsistent. Like
+ * {@link MultiGraph}, this graph accepts several edges between two nodes.
+ * Custom node and edge factories are not supported, nor is
+ * {@link #reorder(AbstractGraph.Ordering)}.
+ * </p>
+ */
+public class MappedGraph extends AbstractGraph implements Closeable {
+	/**
+	 * "GSMG", the first bytes of the header file.
+	 */
+	private static final int MAGIC = 0x474d5347;
+	private static final int FORMAT_VERSION = 1;
+
+	// header: magic, format version, end of the adjacency heap and the heads
+	// of the lists of free adjacency blocks, one per block capacity
+	private static final long ADJACENCY_END = 8;
+	private static final long FREE_LISTS = 16;
+	private static final long HEADER_SIZE = FREE_LISTS + 32 * 8;
+
+	// node records: adjacency block (in ints) and its capacity, start of the
+	// undirected and of the leaving edges, degree
+	private static final long NODE_RECORD = 24;
+	private static final long ADJ_POS = 0, ADJ_CAPACITY = 8, IO_START = 12,
+			O_START = 16, DEGREE = 20;
+
+	// edge records: source, target, flags
+	private static final long EDGE_RECORD = 12;
+	private static final long SOURCE = 0, TARGET = 4, FLAGS = 8;
+	private static final int DIRECTED = 1;
+
+	private static final int MIN_BLOCK = 4;
+
+	private static final char I_EDGE = 0;
+	private static final char IO_EDGE = 1;
+	private static final char O_EDGE = 2;
+
+	private static final String COLUMNS = "columns";
+
+	protected final File directory;
+
+	protected MappedFile header, nodeRecords, edgeRecords, adjacency;
+	protected MappedIdTable nodeIds, edgeIds;
+
+	/**
+	 * Attributes that are not stored in a column, by element identifier.
+	 */
+	private final HashMap<String, Map<String, Object>> nodeAttributes,
+			edgeAttributes;
+
+	/**
+	 * Incremented each time node (or edge) indices change, so that element
+	 * objects know that they must look their index up again.
+	 */
+	private int nodeVersion, edgeVersion;
+
+	/**
+	 * Number used to name the files of the next column.
+	 */
+	private int nextColumn;
+
+	// *** Constructors ***
+
+	/**
+	 * Opens the graph stored in a directory, or creates an empty graph if the
+	 * directory does not exist or is empty.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 * @param directory
+	 *            Directory of the graph files.
+	 * @param strictChecking
+	 *            If true any non-fatal error throws an exception.
+	 * @param autoCreate
+	 *            If true (and strict checking is false), nodes are
+	 *            automatically created when referenced when creating a edge,
+	 *            even if not yet inserted in the graph.
+	 * @throws IOException
+	 *             If the files cannot be opened or do not contain a graph.
+	 */
+	public MappedGraph(String id, File directory, boolean strictChecking,
+			boolean autoCreate) throws IOException {
+		super(id, strictChecking, autoCreate);
+
+		setNodeFactory(new NodeFactory<MappedNode>() {
+			public MappedNode newInstance(String id, Graph graph) {
+				return new MappedNode((MappedGraph) graph, id);
+			}
+		});
+
+		setEdgeFactory(new EdgeFactory<MappedEdge>() {
+			public MappedEdge newInstance(String id, Node src, Node dst,
+					boolean directed) {
+				return new MappedEdge(id, (MappedNode) src, (MappedNode) dst,
+						directed);
+			}
+		});
+
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create directory " + directory);
+
+		this.directory = directory;
+		this.nodeAttributes = new HashMap<String, Map<String, Object>>();
+		this.edgeAttributes = new HashMap<String, Map<String, Object>>();
+
+		header = new MappedFile(new File(directory, "graph.hdr"), HEADER_SIZE);
+
+		if (header.getInt(0) == 0) {
+			header.putInt(0, MAGIC);
+			header.putInt(4, FORMAT_VERSION);
+		} else if (header.getInt(0) != MAGIC
+				|| header.getInt(4) != FORMAT_VERSION) {
+			header.close();
+			throw new IOException(directory + " does not contain a graph");
+		}
+
+		nodeRecords = new MappedFile(new File(directory, "nodes.dat"), 0);
+		edgeRecords = new MappedFile(new File(directory, "edges.dat"), 0);
+		adjacency = new MappedFile(new File(directory, "adjacency.dat"), 0);
+		nodeIds = new MappedIdTable(directory, "nodes");
+		edgeIds = new MappedIdTable(directory, "edges");
+
+		readColumns();
+	}
+
+	/**
+	 * Opens the graph stored in a directory with strict checking and without
+	 * auto-creation.
+	 * 
+	 * @param id
+	 *            Unique identifier of the graph.
+	 * @param directory
+	 *            Directory of the graph files.
+	 * @throws IOException
+	 *             If the files cannot be opened or do not contain a graph.
+	 */
+	public MappedGraph(String id, File directory) throws IOException {
+		this(id, directory, true, false);
+	}
+
+	// *** Files ***
+
+	/**
+	 * Directory containing the files of this graph.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Writes all the changes to the storage device. Once this method returns,
+	 * the graph can be opened again in its current state.
+	 */
+	public void flush() {
+		try {
+			writeColumns();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		header.force();
+		nodeRecords.force();
+		edgeRecords.force();
+		adjacency.force();
+		nodeIds.force();
+		edgeIds.force();
+
+		for (MappedColumn column : mappedColumns())
+			column.force();
+	}
+
+	/**
+	 * Writes all the changes and closes the files. The graph must not be used
+	 * afterwards.
+	 */
+	public void close() throws IOException {
+		writeColumns();
+
+		for (MappedColumn column : mappedColumns())
+			column.close();
+
+		header.close();
+		nodeRecords.close();
+		edgeRecords.close();
+		adjacency.close();
+		nodeIds.close();
+		edgeIds.close();
+	}
+
+	// *** Index based access ***
+
+	/**
+	 * Degree of a node given by its index.
+	 * 
+	 * @complexity O(1)
+	 */
+	public int getDegree(int nodeIndex) {
+		return nodeRecords.getInt(nodeIndex * NODE_RECORD + DEGREE);
+	}
+
+	/**
+	 * Index of the k-th edge incident to a node. Entering edges come first,
+	 * then undirected edges and finally leaving edges.
+	 * 
+	 * @complexity O(1)
+	 */
+	public int getEdgeIndex(int nodeIndex, int k) {
+		return adjacency.getInt((block(nodeIndex) + k) * 4);
+	}
+
+	/**
+	 * Index of the source node of an edge.
+	 */
+	public int getSourceIndex(int edgeIndex) {
+		return edgeRecords.getInt(edgeIndex * EDGE_RECORD + SOURCE);
+	}
+
+	/**
+	 * Index of the target node of an edge.
+	 */
+	public int getTargetIndex(int edgeIndex) {
+		return edgeRecords.getInt(edgeIndex * EDGE_RECORD + TARGET);
+	}
+
+	/**
+	 * Index of the node at the other end of an edge.
+	 */
+	public int getOppositeIndex(int edgeIndex, int nodeIndex) {
+		int s = getSourceIndex(edgeIndex);
+		return s == nodeIndex ? getTargetIndex(edgeIndex) : s;
+	}
+
+	// *** Callbacks ***
+
+	@Override
+	protected void ensureCapacity(int nodeCapacity, int edgeCapacity) {
+		nodeIds.ensureCapacity(nodeCapacity);
+		edgeIds.ensureCapacity(edgeCapacity);
+		nodeRecords.ensureCapacity(nodeCapacity * NODE_RECORD);
+		edgeRecords.ensureCapacity(edgeCapacity * EDGE_RECORD);
+	}
+
+	@Override
+	protected void addNodeCallback(AbstractNode node) {
+		int index = nodeIds.add(node.getId());
+		long record = index * NODE_RECORD;
+
+		nodeRecords.ensureCapacity(record + NODE_RECORD);
+		nodeRecords.zero(record, NODE_RECORD);
+		node.setIndex(index);
+	}
+
+	@Override
+	protected void addEdgeCallback(AbstractEdge edge) {
+		int s = edge.source.getIndex();
+		int t = edge.target.getIndex();
+		int index = edgeIds.add(edge.getId());
+		long record = index * EDGE_RECORD;
+
+		edgeRecords.ensureCapacity(record + EDGE_RECORD);
+		edgeRecords.putInt(record + SOURCE, s);
+		edgeRecords.putInt(record + TARGET, t);
+		edgeRecords.putInt(record + FLAGS, edge.directed ? DIRECTED : 0);
+
+		if (s == t || !edge.directed) {
+			insertInBlock(s, index, IO_EDGE);
+			if (s != t)
+				insertInBlock(t, index, IO_EDGE);
+		} else {
+			insertInBlock(s, index, O_EDGE);
+			insertInBlock(t, index, I_EDGE);
+		}
+
+		edge.setIndex(index);
+	}
+
+	@Override
+	protected void removeNodeCallback(AbstractNode node) {
+		int i = node.getIndex();
+		long record = i * NODE_RECORD;
+		int capacity = nodeRecords.getInt(record + ADJ_CAPACITY);
+
+		// the incident edges of the removed node are already gone
+		if (capacity > 0)
+			free(block(i), capacity);
+
+		int moved = nodeIds.removeAndSwapLast(i);
+
+		if (moved >= 0) {
+			nodeRecords.copy(moved * NODE_RECORD, record, NODE_RECORD);
+
+			for (int k = getDegree(i) - 1; k >= 0; k--) {
+				long e = getEdgeIndex(i, k) * EDGE_RECORD;
+
+				if (edgeRecords.getInt(e + SOURCE) == moved)
+					edgeRecords.putInt(e + SOURCE, i);
+				if (edgeRecords.getInt(e + TARGET) == moved)
+					edgeRecords.putInt(e + TARGET, i);
+			}
+		}
+
+		nodeAttributes.remove(node.getId());
+		nodeVersion++;
+	}
+
+	@Override
+	protected void removeEdgeCallback(AbstractEdge edge) {
+		int i = edge.getIndex();
+		int s = getSourceIndex(i);
+		int t = getTargetIndex(i);
+
+		removeFromBlock(s, i);
+		if (s != t)
+			removeFromBlock(t, i);
+
+		int moved = edgeIds.removeAndSwapLast(i);
+
+		if (moved >= 0) {
+			edgeRecords.copy(moved * EDGE_RECORD, i * EDGE_RECORD,
+					EDGE_RECORD);
+			s = getSourceIndex(i);
+			t = getTargetIndex(i);
+
+			replaceInBlock(s, moved, i);
+			if (s != t)
+				replaceInBlock(t, moved, i);
+		}
+
+		edgeAttributes.remove(edge.getId());
+		edgeVersion++;
+	}
+
+	@Override
+	protected void clearCallback() {
+		nodeIds.clear();
+		edgeIds.clear();
+		header.zero(ADJACENCY_END, HEADER_SIZE - ADJACENCY_END);
+		nodeAttributes.clear();
+		edgeAttributes.clear();
+		nodeVersion++;
+		edgeVersion++;
+	}
+
+	// *** Columns ***
+
+	/**
+	 * Stores the new column in files named after a counter, the attribute name
+	 * being kept in the list of columns.
+	 */
+	@Override
+	protected AttributeColumn newColumn(boolean nodes, String key,
+			AttributeColumn.Type type, int capacity) {
+		String name = (nodes ? "node-" : "edge-") + nextColumn++;
+
+		try {
+			MappedColumn.delete(directory, name);
+			return new MappedColumn(this, nodes, key, type, directory, name,
+					0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Removes the column and deletes its files. See
+	 * {@link AbstractGraph#removeNodeColumn(String)}.
+	 */
+	@Override
+	public void removeNodeColumn(String key) {
+		AttributeColumn column = getNodeColumn(key);
+
+		super.removeNodeColumn(key);
+		deleteColumn(column);
+	}
+
+	/**
+	 * Removes the column and deletes its files. See
+	 * {@link AbstractGraph#removeEdgeColumn(String)}.
+	 */
+	@Override
+	public void removeEdgeColumn(String key) {
+		AttributeColumn column = getEdgeColumn(key);
+
+		super.removeEdgeColumn(key);
+		deleteColumn(column);
+	}
+
+	// *** Access ***
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(String id) {
+		int index = nodeIds.indexOf(id);
+		return index < 0 ? null : (T) node(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(int index) {
+		if (index < 0 || index >= nodeIds.size())
+			throw new IndexOutOfBoundsException("Node " + index
+					+ " does not exist");
+		return (T) node(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(String id) {
+		int index = edgeIds.indexOf(id);
+		return index < 0 ? null : (T) edge(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(int index) {
+		if (index < 0 || index >= edgeIds.size())
+			throw new IndexOutOfBoundsException("Edge " + index
+					+ " does not exist");
+		return (T) edge(index);
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodeIds.size();
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeIds.size();
+	}
+
+	// *** Helpers ***
+
+	/**
+	 * Creates an object for a node.
+	 */
+	protected MappedNode node(int index) {
+		MappedNode node = new MappedNode(this, nodeIds.idOf(index));
+
+		node.setIndex(index);
+		node.attributes = nodeAttributes.get(node.getId());
+
+		return node;
+	}
+
+	/**
+	 * Creates an object for an edge.
+	 */
+	protected MappedEdge edge(int index) {
+		int s = getSourceIndex(index);
+		int t = getTargetIndex(index);
+		MappedNode source = node(s);
+		MappedNode target = s == t ? source : node(t);
+		MappedEdge edge = new MappedEdge(edgeIds.idOf(index), source, target,
+				(edgeRecords.getInt(index * EDGE_RECORD + FLAGS) & DIRECTED) != 0);
+
+		edge.setIndex(index);
+		edge.attributes = edgeAttributes.get(edge.getId());
+
+		return edge;
+	}
+
+	/**
+	 * Position of the adjacency block of a node, in ints.
+	 */
+	private long block(int nodeIndex) {
+		return nodeRecords.getLong(nodeIndex * NODE_RECORD + ADJ_POS);
+	}
+
+	private int adj(long block, int k) {
+		return adjacency.getInt((block + k) * 4);
+	}
+
+	private void setAdj(long block, int k, int edgeIndex) {
+		adjacency.putInt((block + k) * 4, edgeIndex);
+	}
+
+	/**
+	 * Adds an edge to the adjacency block of a node, keeping the entering,
+	 * undirected and leaving edges grouped. A full block is moved to a block
+	 * twice as big.
+	 */
+	private void insertInBlock(int v, int e, char type) {
+		long record = v * NODE_RECORD;
+		long block = nodeRecords.getLong(record + ADJ_POS);
+		int capacity = nodeRecords.getInt(record + ADJ_CAPACITY);
+		int ioStart = nodeRecords.getInt(record + IO_START);
+		int oStart = nodeRecords.getInt(record + O_START);
+		int degree = nodeRecords.getInt(record + DEGREE);
+
+		if (degree == capacity) {
+			int newCapacity = Math.max(MIN_BLOCK, capacity * 2);
+			long newBlock = allocate(newCapacity);
+
+			adjacency.copy(block * 4, newBlock * 4, degree * 4L);
+
+			if (capacity > 0)
+				free(block, capacity);
+
+			block = newBlock;
+			nodeRecords.putLong(record + ADJ_POS, block);
+			nodeRecords.putInt(record + ADJ_CAPACITY, newCapacity);
+		}
+
+		if (type == O_EDGE) {
+			setAdj(block, degree, e);
+		} else if (type == IO_EDGE) {
+			setAdj(block, degree, adj(block, oStart));
+			setAdj(block, oStart++, e);
+		} else {
+			setAdj(block, degree, adj(block, oStart));
+			setAdj(block, oStart++, adj(block, ioStart));
+			setAdj(block, ioStart++, e);
+		}
+
+		nodeRecords.putInt(record + IO_START, ioStart);
+		nodeRecords.putInt(record + O_START, oStart);
+		nodeRecords.putInt(record + DEGREE, degree + 1);
+	}
+
+	/**
+	 * Removes an edge from the adjacency block of a node.
+	 */
+	private void removeFromBlock(int v, int e) {
+		long record = v * NODE_RECORD;
+		long block = nodeRecords.getLong(record + ADJ_POS);
+		int ioStart = nodeRecords.getInt(record + IO_START);
+		int oStart = nodeRecords.getInt(record + O_START);
+		int degree = nodeRecords.getInt(record + DEGREE);
+		int i = 0;
+
+		while (adj(block, i) != e)
+			i++;
+
+		if (i >= oStart) {
+			setAdj(block, i, adj(block, --degree));
+		} else if (i >= ioStart) {
+			setAdj(block, i, adj(block, --oStart));
+			setAdj(block, oStart, adj(block, --degree));
+		} else {
+			setAdj(block, i, adj(block, --ioStart));
+			setAdj(block, ioStart, adj(block, --oStart));
+			setAdj(block, oStart, adj(block, --degree));
+		}
+
+		nodeRecords.putInt(record + IO_START, ioStart);
+		nodeRecords.putInt(record + O_START, oStart);
+		nodeRecords.putInt(record + DEGREE, degree);
+	}
+
+	/**
+	 * Changes the index of an edge in the adjacency block of a node.
+	 */
+	private void replaceInBlock(int v, int oldIndex, int newIndex) {
+		long block = block(v);
+		int i = 0;
+
+		while (adj(block, i) != oldIndex)
+			i++;
+
+		setAdj(block, i, newIndex);
+	}
+
+	/**
+	 * Allocates an adjacency block, reusing a free one if possible. The heads
+	 * of the free lists are stored plus one, so that zero means an empty list,
+	 * and the first long of a free block links to the next one.
+	 */
+	private long allocate(int capacity) {
+		long list = FREE_LISTS + Integer.numberOfTrailingZeros(capacity) * 8;
+		long head = header.getLong(list);
+
+		if (head != 0) {
+			header.putLong(list, adjacency.getLong((head - 1) * 4));
+			return head - 1;
+		}
+
+		long block = header.getLong(ADJACENCY_END);
+
+		adjacency.ensureCapacity((block + capacity) * 4);
+		header.putLong(ADJACENCY_END, block + capacity);
+
+		return block;
+	}
+
+	private void free(long block, int capacity) {
+		long list = FREE_LISTS + Integer.numberOfTrailingZeros(capacity) * 8;
+
+		adjacency.putLong(block * 4, header.getLong(list));
+		header.putLong(list, block + 1);
+	}
+
+	/**
+	 * Creates a column for a numeric attribute that has none yet.
+	 */
+	void createColumn(boolean nodes, String key, Object value) {
+		AttributeColumn.Type type;
+
+		if (value instanceof Double)
+			type = AttributeColumn.Type.DOUBLE;
+		else if (value instanceof Long)
+			type = AttributeColumn.Type.LONG;
+		else if (value instanceof Integer)
+			type = AttributeColumn.Type.INT;
+		else
+			return;
+
+		if (nodes && getNodeColumn(key) == null)
+			addNodeColumn(key, type);
+		else if (!nodes && getEdgeColumn(key) == null)
+			addEdgeColumn(key, type);
+	}
+
+	private Iterable<MappedColumn> mappedColumns() {
+		HashMap<String, MappedColumn> columns = new HashMap<String, MappedColumn>();
+
+		if (nodeColumns != null)
+			for (AttributeColumn column : nodeColumns.values())
+				columns.put(((MappedColumn) column).getName(),
+						(MappedColumn) column);
+
+		if (edgeColumns != null)
+			for (AttributeColumn column : edgeColumns.values())
+				columns.put(((MappedColumn) column).getName(),
+						(MappedColumn) column);
+
+		return columns.values();
+	}
+
+	private void deleteColumn(AttributeColumn column) {
+		if (column == null)
+			return;
+
+		try {
+			((MappedColumn) column).delete();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads the list of columns, one per line: element kind, type, file name
+	 * and attribute name separated by tabulations.
+	 */
+	private void readColumns() throws IOException {
+		File file = new File(directory, COLUMNS);
+
+		if (!file.exists())
+			return;
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), StandardCharsets.UTF_8));
+
+		try {
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", 4);
+
+				if (fields.length < 4)
+					continue;
+
+				boolean nodes = fields[0].equals("node");
+				AttributeColumn.Type type = AttributeColumn.Type
+						.valueOf(fields[1]);
+				MappedColumn column = new MappedColumn(this, nodes, fields[3],
+						type, directory, fields[2], nodes ? getNodeCount()
+								: getEdgeCount());
+
+				if (nodes) {
+					if (nodeColumns == null)
+						nodeColumns = new HashMap<String, AttributeColumn>();
+					nodeColumns.put(fields[3], column);
+				} else {
+					if (edgeColumns == null)
+						edgeColumns = new HashMap<String, AttributeColumn>();
+					edgeColumns.put(fields[3], column);
+				}
+
+				int number = Integer.parseInt(fields[2].substring(5));
+				nextColumn = Math.max(nextColumn, number + 1);
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void writeColumns() throws IOException {
+		File file = new File(directory, COLUMNS);
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8));
+
+		try {
+			for (MappedColumn column : mappedColumns()) {
+				writer.write(String.format("%s\t%s\t%s\t%s%n",
+						column.nodes ? "node" : "edge", column.getType(),
+						column.getName(), column.getKey()));
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	// *** Iterators ***
+
+	protected class EdgeIterator<T extends Edge> implements Iterator<T> {
+		int iNext = 0;
+		int iPrev = -1;
+
+		public boolean hasNext() {
+			return iNext < edgeIds.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (iNext >= edgeIds.size())
+				throw new NoSuchElementException();
+			iPrev = iNext++;
+			return (T) edge(iPrev);
+		}
+
+		public void remove() {
+			if (iPrev == -1)
+				throw new IllegalStateException();
+			removeEdge(edge(iPrev), true, true, true);
+			iNext = iPrev;
+			iPrev = -1;
+		}
+	}
+
+	protected class NodeIterator<T extends Node> implements Iterator<T> {
+		int iNext = 0;
+		int iPrev = -1;
+
+		public boolean hasNext() {
+			return iNext < nodeIds.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (iNext >= nodeIds.size())
+				throw new NoSuchElementException();
+			iPrev = iNext++;
+			return (T) node(iPrev);
+		}
+
+		public void remove() {
+			if (iPrev == -1)
+				throw new IllegalStateException();
+			removeNode(node(iPrev), true);
+			iNext = iPrev;
+			iPrev = -1;
+		}
+	}
+
+	@Override
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new EdgeIterator<T>();
+	}
+
+	@Override
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new NodeIterator<T>();
+	}
+
+	// *** Elements ***
+
+	/**
+	 * Nodes used with {@link MappedGraph}. A node object is a view on the
+	 * files of the graph, it finds its index back through its identifier if
+	 * other nodes have been removed since its creation.
+	 */
+	public static class MappedNode extends AbstractNode {
+		private int version;
+
+		protected MappedNode(MappedGraph graph, String id) {
+			super(graph, id);
+		}
+
+		protected MappedGraph mappedGraph() {
+			return (MappedGraph) graph;
+		}
+
+		@Override
+		public int getIndex() {
+			MappedGraph g = mappedGraph();
+
+			if (version != g.nodeVersion)
+				setIndex(g.nodeIds.indexOf(id));
+
+			return super.getIndex();
+		}
+
+		@Override
+		protected void setIndex(int index) {
+			super.setIndex(index);
+			version = mappedGraph().nodeVersion;
+		}
+
+		@SuppressWarnings("unchecked")
+		protected <T extends Edge> T locateEdge(Node opposite, char type) {
+			if (opposite == null || opposite.getGraph() != graph)
+				return null;
+
+			MappedGraph g = mappedGraph();
+			int me = getIndex();
+			int other = opposite.getIndex();
+			long record = me * NODE_RECORD;
+			int start = 0;
+			int end = g.nodeRecords.getInt(record + DEGREE);
+
+			if (type == I_EDGE)
+				end = g.nodeRecords.getInt(record + O_START);
+			else if (type == O_EDGE)
+				start = g.nodeRecords.getInt(record + IO_START);
+
+			for (int k = start; k < end; k++) {
+				int e = g.getEdgeIndex(me, k);
+
+				if (g.getOppositeIndex(e, me) == other)
+					return (T) g.edge(e);
+			}
+
+			return null;
+		}
+
+		@Override
+		protected Map<String, AttributeColumn> attributeColumns() {
+			return getIndex() < 0 ? null : graph.nodeColumns;
+		}
+
+		/**
+		 * The map is shared by all the objects of this node.
+		 */
+		@Override
+		protected Map<String, Object> newAttributeMap(int expectedSize) {
+			Map<String, Map<String, Object>> maps = mappedGraph().nodeAttributes;
+			Map<String, Object> map = maps.get(id);
+
+			if (map == null) {
+				map = super.newAttributeMap(expectedSize);
+				maps.put(id, map);
+			}
+
+			return map;
+		}
+
+		@Override
+		public void addAttribute(String attribute, Object... values) {
+			if (values.length == 1)
+				mappedGraph().createColumn(true, attribute, values[0]);
+
+			super.addAttribute(attribute, values);
+		}
+
+		// *** Callbacks ***
+
+		@Override
+		protected boolean addEdgeCallback(AbstractEdge edge) {
+			// the graph stores the adjacency
+			return true;
+		}
+
+		@Override
+		protected void removeEdgeCallback(AbstractEdge edge) {
+		}
+
+		@Override
+		protected void clearCallback() {
+		}
+
+		// *** Access methods ***
+
+		@Override
+		public int getDegree() {
+			return mappedGraph().getDegree(getIndex());
+		}
+
+		@Override
+		public int getInDegree() {
+			return mappedGraph().nodeRecords.getInt(getIndex() * NODE_RECORD
+					+ O_START);
+		}
+
+		@Override
+		public int getOutDegree() {
+			long record = getIndex() * NODE_RECORD;
+			MappedFile records = mappedGraph().nodeRecords;
+
+			return records.getInt(record + DEGREE)
+					- records.getInt(record + IO_START);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getEdge(int i) {
+			if (i < 0 || i >= getDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no edge " + i);
+			MappedGraph g = mappedGraph();
+			return (T) g.edge(g.getEdgeIndex(getIndex(), i));
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getEnteringEdge(int i) {
+			if (i < 0 || i >= getInDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no entering edge " + i);
+			MappedGraph g = mappedGraph();
+			return (T) g.edge(g.getEdgeIndex(getIndex(), i));
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getLeavingEdge(int i) {
+			if (i < 0 || i >= getOutDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no edge " + i);
+			MappedGraph g = mappedGraph();
+			int me = getIndex();
+			int ioStart = g.nodeRecords.getInt(me * NODE_RECORD + IO_START);
+			return (T) g.edge(g.getEdgeIndex(me, ioStart + i));
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeBetween(Node node) {
+			return locateEdge(node, IO_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeFrom(Node node) {
+			return locateEdge(node, I_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeToward(Node node) {
+			return locateEdge(node, O_EDGE);
+		}
+
+		@Override
+		public boolean isEnteringEdge(Edge e) {
+			return equals(e.getTargetNode())
+					|| (!e.isDirected() && equals(e.getSourceNode()));
+		}
+
+		@Override
+		public boolean isLeavingEdge(Edge e) {
+			return equals(e.getSourceNode())
+					|| (!e.isDirected() && equals(e.getTargetNode()));
+		}
+
+		@Override
+		public boolean isIncidentEdge(Edge e) {
+			return equals(e.getSourceNode()) || equals(e.getTargetNode());
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+
+			if (!(o instanceof MappedNode))
+				return false;
+
+			MappedNode other = (MappedNode) o;
+			return other.graph == graph && other.id.equals(id);
+		}
+
+		@Override
+		public int hashCode() {
+			return id.hashCode();
+		}
+
+		// *** Iterators ***
+
+		protected class EdgeIterator<T extends Edge> implements Iterator<T> {
+			protected int me, iNext, iEnd;
+
+			protected EdgeIterator(char type) {
+				MappedFile records = mappedGraph().nodeRecords;
+
+				me = getIndex();
+
+				long record = me * NODE_RECORD;
+				iNext = 0;
+				iEnd = records.getInt(record + DEGREE);
+
+				if (type == I_EDGE)
+					iEnd = records.getInt(record + O_START);
+				else if (type == O_EDGE)
+					iNext = records.getInt(record + IO_START);
+			}
+
+			public boolean hasNext() {
+				return iNext < iEnd;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (iNext >= iEnd)
+					throw new NoSuchElementException();
+				MappedGraph g = mappedGraph();
+				return (T) g.edge(g.getEdgeIndex(me, iNext++));
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"This iterator does not support remove");
+			}
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getEdgeIterator() {
+			return new EdgeIterator<T>(IO_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+			return new EdgeIterator<T>(I_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+			return new EdgeIterator<T>(O_EDGE);
+		}
+	}
+
+	/**
+	 * Edges used with {@link MappedGraph}. Like nodes, edge objects are views
+	 * created on demand.
+	 */
+	public static class MappedEdge extends AbstractEdge {
+		private int version;
+
+		protected MappedEdge(String id, MappedNode source, MappedNode target,
+				boolean directed) {
+			super(id, source, target, directed);
+		}
+
+		protected MappedGraph mappedGraph() {
+			return (MappedGraph) graph;
+		}
+
+		@Override
+		public int getIndex() {
+			MappedGraph g = mappedGraph();
+
+			if (version != g.edgeVersion)
+				setIndex(g.edgeIds.indexOf(id));
+
+			return super.getIndex();
+		}
+
+		@Override
+		protected void setIndex(int index) {
+			super.setIndex(index);
+			version = mappedGraph().edgeVersion;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Node> T getOpposite(Node node) {
+			if (source.equals(node))
+				return (T) target;
+			if (target.equals(node))
+				return (T) source;
+			return null;
+		}
+
+		@Override
+		protected Map<String, AttributeColumn> attributeColumns() {
+			return getIndex() < 0 ? null : graph.edgeColumns;
+		}
+
+		/**
+		 * The map is shared by all the objects of this edge.
+		 */
+		@Override
+		protected Map<String, Object> newAttributeMap(int expectedSize) {
+			Map<String, Map<String, Object>> maps = mappedGraph().edgeAttributes;
+			Map<String, Object> map = maps.get(id);
+
+			if (map == null) {
+				map = super.newAttributeMap(expectedSize);
+				maps.put(id, map);
+			}
+
+			return map;
+		}
+
+		@Override
+		public void addAttribute(String attribute, Object... values) {
+			if (values.length == 1)
+				mappedGraph().createColumn(false, attribute, values[0]);
+
+			super.addAttribute(attribute, values);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+
+			if (!(o instanceof MappedEdge))
+				return false;
+
+			MappedEdge other = (MappedEdge) o;
+			return other.graph == graph && other.id.equals(id);
+		}
+
+		@Override
+		public int hashCode() {
+			return id.hashCode();
+		}
+	}
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A dictionary of element identifiers stored in memory-mapped files, the
+ * persistent counterpart of {@link IdTable}.
+ * 
+ * <p>
+ * A table named {@code name} uses three files of its directory:
+ * {@code name.ids} contains the identifiers encoded in UTF-8 one after the
+ * other, {@code name.idx} contains for each element index the position,
+ * length and hash code of its identifier, and {@code name.tab} contains a
+ * small header followed by the open-addressing hash table of {@code int}
+ * slots mapping identifiers back to indices. Indices are kept successive with
+ * the same swap-last policy as {@link IdTable}. The bytes of a removed
+ * identifier are reclaimed only if it was the last one written.
+ * </p>
+ */
+final class MappedIdTable implements Closeable {
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * Header of the slot file: size, number of slots and end of the byte heap.
+	 */
+	private static final long SIZE = 0, SLOT_COUNT = 4, HEAP_END = 8;
+	private static final long HEADER = 32;
+
+	/**
+	 * Size of the entry of an index: position (long), length and hash.
+	 */
+	private static final long ENTRY = 16;
+
+	private final MappedFile bytes, entries, table;
+
+	private int size;
+	private int slotCount;
+	private long heapEnd;
+
+	/**
+	 * Opens a table or creates an empty one if its files do not exist.
+	 */
+	MappedIdTable(File directory, String name) throws IOException {
+		bytes = new MappedFile(new File(directory, name + ".ids"), 0);
+		entries = new MappedFile(new File(directory, name + ".idx"), 0);
+		table = new MappedFile(new File(directory, name + ".tab"), 0);
+
+		size = table.getInt(SIZE);
+		slotCount = table.getInt(SLOT_COUNT);
+		heapEnd = table.getLong(HEAP_END);
+
+		if (slotCount == 0)
+			rehash(tableSizeFor(MIN_CAPACITY));
+	}
+
+	/**
+	 * Number of identifiers in this table.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * The identifier at a given index. A new string is decoded at each call.
+	 * 
+	 * @complexity O(length of the identifier)
+	 */
+	String idOf(int index) {
+		long entry = index * ENTRY;
+		int length = entries.getInt(entry + 8);
+		byte[] b = new byte[length];
+
+		bytes.read(entries.getLong(entry), b, length);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The index of an identifier.
+	 * 
+	 * @complexity O(1) expected
+	 * @return the index or -1 if the identifier is not in the table
+	 */
+	int indexOf(String id) {
+		byte[] key = id.getBytes(StandardCharsets.UTF_8);
+		int hash = hash(id);
+		int mask = slotCount - 1;
+		int h = hash & mask;
+		int s;
+
+		while ((s = slot(h)) != 0) {
+			if (matches(s - 1, hash, key))
+				return s - 1;
+
+			h = (h + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Appends an identifier. The caller must ensure that the identifier is not
+	 * already in the table.
+	 * 
+	 * @return the index of the new identifier, that is the former size
+	 */
+	int add(String id) {
+		byte[] key = id.getBytes(StandardCharsets.UTF_8);
+		int index = size;
+		long entry = index * ENTRY;
+
+		if ((size + 1) * 2 > slotCount)
+			rehash(slotCount * 2);
+
+		bytes.ensureCapacity(heapEnd + key.length);
+		bytes.write(heapEnd, key, key.length);
+
+		entries.ensureCapacity(entry + ENTRY);
+		entries.putLong(entry, heapEnd);
+		entries.putInt(entry + 8, key.length);
+		entries.putInt(entry + 12, hash(id));
+
+		insertSlot(hash(id), index);
+		heapEnd += key.length;
+		size++;
+		writeHeader();
+
+		return index;
+	}
+
+	/**
+	 * Reserves space for a given number of identifiers.
+	 */
+	void ensureCapacity(int capacity) {
+		entries.ensureCapacity(capacity * ENTRY);
+
+		if (capacity * 2 > slotCount)
+			rehash(tableSizeFor(capacity));
+	}
+
+	/**
+	 * Removes the identifier at a given index. If it was not the last one, the
+	 * last identifier is moved at this index.
+	 * 
+	 * @return the former index of the moved identifier, or -1 if no identifier
+	 *         has been moved
+	 */
+	int removeAndSwapLast(int index) {
+		int last = size - 1;
+		long entry = index * ENTRY;
+
+		removeSlot(index);
+
+		if (entries.getLong(entry) + entries.getInt(entry + 8) == heapEnd)
+			heapEnd = entries.getLong(entry);
+
+		if (index != last) {
+			setSlot(findSlot(last), index + 1);
+			entries.copy(last * ENTRY, entry, ENTRY);
+		}
+
+		size = last;
+		writeHeader();
+
+		return index == last ? -1 : last;
+	}
+
+	void clear() {
+		table.zero(HEADER, slotCount * 4L);
+		size = 0;
+		heapEnd = 0;
+		writeHeader();
+	}
+
+	/**
+	 * Writes the changes to the storage device.
+	 */
+	void force() {
+		bytes.force();
+		entries.force();
+		table.force();
+	}
+
+	public void close() throws IOException {
+		bytes.close();
+		entries.close();
+		table.close();
+	}
+
+	// *** Helpers ***
+
+	private static int hash(String id) {
+		int h = id.hashCode();
+		// spread the bits, the same way HashMap does
+		return h ^ (h >>> 16);
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int n = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY) - 1) << 2;
+		return n < 0 ? 1 << 30 : n;
+	}
+
+	private int hashOf(int index) {
+		return entries.getInt(index * ENTRY + 12);
+	}
+
+	private boolean matches(int index, int hash, byte[] key) {
+		long entry = index * ENTRY;
+
+		if (entries.getInt(entry + 12) != hash
+				|| entries.getInt(entry + 8) != key.length)
+			return false;
+
+		long pos = entries.getLong(entry);
+
+		for (int i = 0; i < key.length; i++)
+			if (bytes.getByte(pos + i) != key[i])
+				return false;
+
+		return true;
+	}
+
+	private int slot(int h) {
+		return table.getInt(HEADER + h * 4L);
+	}
+
+	private void setSlot(int h, int value) {
+		table.putInt(HEADER + h * 4L, value);
+	}
+
+	private void writeHeader() {
+		table.putInt(SIZE, size);
+		table.putInt(SLOT_COUNT, slotCount);
+		table.putLong(HEAP_END, heapEnd);
+	}
+
+	private void insertSlot(int hash, int index) {
+		int mask = slotCount - 1;
+		int h = hash & mask;
+
+		while (slot(h) != 0)
+			h = (h + 1) & mask;
+
+		setSlot(h, index + 1);
+	}
+
+	private int findSlot(int index) {
+		int mask = slotCount - 1;
+		int h = hashOf(index) & mask;
+
+		while (slot(h) != index + 1)
+			h = (h + 1) & mask;
+
+		return h;
+	}
+
+	private void removeSlot(int index) {
+		int mask = slotCount - 1;
+		int hole = findSlot(index);
+		int h = hole;
+
+		setSlot(hole, 0);
+
+		// backward shift deletion, there are no tombstones
+		while (true) {
+			h = (h + 1) & mask;
+
+			int s = slot(h);
+
+			if (s == 0)
+				return;
+
+			int home = hashOf(s - 1) & mask;
+
+			if (((h - home) & mask) >= ((h - hole) & mask)) {
+				setSlot(hole, s);
+				setSlot(h, 0);
+				hole = h;
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		slotCount = capacity;
+		table.ensureCapacity(HEADER + capacity * 4L);
+		table.zero(HEADER, capacity * 4L);
+
+		for (int i = 0; i < size; i++)
+			insertSlot(hashOf(i), i);
+
+		writeHeader();
+	}
+}
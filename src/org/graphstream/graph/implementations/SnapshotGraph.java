@@ -0,0 +1,518 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SnapshotRecorder.EdgeRecord;
+import org.graphstream.graph.implementations.SnapshotRecorder.NodeRecord;
+
+/**
+ * A read-only graph giving the state of a recorded graph at some point in
+ * time. Snapshots are created by {@link SnapshotRecorder#snapshot()} and by
+ * {@link Graphs#unmutableGraph(org.graphstream.graph.Graph)}.
+ * 
+ * <p>
+ * All the methods modifying the graph or its elements throw an
+ * {@link UnsupportedOperationException}. The node and edge objects are created
+ * the first time they are accessed and then reused. A snapshot can be read by
+ * several threads at the same time.
+ * </p>
+ */
+public class SnapshotGraph extends AbstractGraph {
+	private final ConcurrentHashMap<String, Integer> nodeSlots, edgeSlots;
+	private final CowArray nodes, edges, nodeIndex, edgeIndex;
+	private final int nodeCount, edgeCount;
+	private final double step;
+
+	private final ConcurrentHashMap<Integer, SnapshotNode> nodeObjects;
+	private final ConcurrentHashMap<Integer, SnapshotEdge> edgeObjects;
+
+	SnapshotGraph(String id, ConcurrentHashMap<String, Integer> nodeSlots,
+			ConcurrentHashMap<String, Integer> edgeSlots, CowArray nodes,
+			CowArray edges, CowArray nodeIndex, CowArray edgeIndex,
+			int nodeCount, int edgeCount, Map<String, Object> attributes,
+			double step) {
+		super(id);
+
+		this.nodeSlots = nodeSlots;
+		this.edgeSlots = edgeSlots;
+		this.nodes = nodes;
+		this.edges = edges;
+		this.nodeIndex = nodeIndex;
+		this.edgeIndex = edgeIndex;
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeCount;
+		this.attributes = attributes;
+		this.step = step;
+		this.nodeObjects = new ConcurrentHashMap<Integer, SnapshotNode>();
+		this.edgeObjects = new ConcurrentHashMap<Integer, SnapshotEdge>();
+	}
+
+	static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("graph snapshots are read-only");
+	}
+
+	// *** Elements ***
+
+	SnapshotNode node(int slot) {
+		SnapshotNode n = nodeObjects.get(slot);
+
+		if (n == null) {
+			NodeRecord r = (NodeRecord) nodes.get(slot);
+
+			if (r == null)
+				return null;
+
+			n = new SnapshotNode(this, r);
+			SnapshotNode other = nodeObjects.putIfAbsent(slot, n);
+
+			if (other != null)
+				n = other;
+		}
+
+		return n;
+	}
+
+	SnapshotEdge edge(int slot) {
+		SnapshotEdge e = edgeObjects.get(slot);
+
+		if (e == null) {
+			EdgeRecord r = (EdgeRecord) edges.get(slot);
+
+			if (r == null)
+				return null;
+
+			e = new SnapshotEdge(r, node(r.source), node(r.target));
+			SnapshotEdge other = edgeObjects.putIfAbsent(slot, e);
+
+			if (other != null)
+				e = other;
+		}
+
+		return e;
+	}
+
+	// *** Access ***
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(String id) {
+		Integer slot = nodeSlots.get(id);
+		return slot == null ? null : (T) node(slot);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(int index) {
+		if (index < 0 || index >= nodeCount)
+			throw new IndexOutOfBoundsException("Node " + index
+					+ " does not exist");
+		return (T) node((Integer) nodeIndex.get(index));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(String id) {
+		Integer slot = edgeSlots.get(id);
+		return slot == null ? null : (T) edge(slot);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(int index) {
+		if (index < 0 || index >= edgeCount)
+			throw new IndexOutOfBoundsException("Edge " + index
+					+ " does not exist");
+		return (T) edge((Integer) edgeIndex.get(index));
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public double getStep() {
+		return step;
+	}
+
+	@Override
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new ElementIterator<T>(true);
+	}
+
+	@Override
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new ElementIterator<T>(false);
+	}
+
+	private class ElementIterator<T> implements Iterator<T> {
+		final boolean nodes;
+		int next = 0;
+
+		ElementIterator(boolean nodes) {
+			this.nodes = nodes;
+		}
+
+		public boolean hasNext() {
+			return next < (nodes ? nodeCount : edgeCount);
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			return (T) (nodes ? getNode(next++) : getEdge(next++));
+		}
+
+		public void remove() {
+			throw readOnly();
+		}
+	}
+
+	// *** Modifications ***
+
+	@Override
+	public <T extends Node> T addNode(String id) {
+		throw readOnly();
+	}
+
+	@Override
+	public void addNodes(String... ids) {
+		throw readOnly();
+	}
+
+	@Override
+	public void addEdges(String[] ids, String[] from, String[] to,
+			boolean directed) {
+		throw readOnly();
+	}
+
+	@Override
+	protected <T extends Edge> T addEdge(String edgeId, AbstractNode src,
+			String srcId, AbstractNode dst, String dstId, boolean directed) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeNode(AbstractNode node, boolean graphCallback) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeEdge(AbstractEdge edge, boolean graphCallback,
+			boolean sourceCallback, boolean targetCallback) {
+		throw readOnly();
+	}
+
+	@Override
+	public void clear() {
+		throw readOnly();
+	}
+
+	@Override
+	public void reorder(Ordering ordering) {
+		throw readOnly();
+	}
+
+	@Override
+	public void reorder(int[] nodeOrder) {
+		throw readOnly();
+	}
+
+	@Override
+	public void stepBegins(double time) {
+		throw readOnly();
+	}
+
+	@Override
+	public void addAttribute(String attribute, Object... values) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		throw readOnly();
+	}
+
+	@Override
+	public void clearAttributes() {
+		throw readOnly();
+	}
+
+	@Override
+	public AttributeColumn addNodeColumn(String key, AttributeColumn.Type type) {
+		throw readOnly();
+	}
+
+	@Override
+	public AttributeColumn addEdgeColumn(String key, AttributeColumn.Type type) {
+		throw readOnly();
+	}
+
+	// *** Callbacks ***
+
+	@Override
+	protected void addNodeCallback(AbstractNode node) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void addEdgeCallback(AbstractEdge edge) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeNodeCallback(AbstractNode node) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeEdgeCallback(AbstractEdge edge) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void clearCallback() {
+		throw readOnly();
+	}
+
+	// *** Elements ***
+
+	/**
+	 * Nodes of a {@link SnapshotGraph}.
+	 */
+	public static class SnapshotNode extends AbstractNode {
+		protected final NodeRecord record;
+
+		SnapshotNode(SnapshotGraph graph, NodeRecord record) {
+			super(graph, record.id);
+			this.record = record;
+			this.attributes = record.attributes;
+			setIndex(record.index);
+		}
+
+		private SnapshotGraph snapshot() {
+			return (SnapshotGraph) graph;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T extends Edge> T locateEdge(Node opposite, char type) {
+			if (!(opposite instanceof SnapshotNode)
+					|| ((SnapshotNode) opposite).graph != graph)
+				return null;
+
+			int other = ((SnapshotNode) opposite).record.slot;
+			int start = type == SnapshotRecorder.O_EDGE ? record.ioStart : 0;
+			int end = type == SnapshotRecorder.I_EDGE ? record.oStart
+					: record.degree;
+
+			for (int i = start; i < end; i++) {
+				SnapshotEdge e = snapshot().edge(record.edges[i]);
+				EdgeRecord r = e.record;
+
+				if ((r.source == record.slot ? r.target : r.source) == other)
+					return (T) e;
+			}
+
+			return null;
+		}
+
+		@Override
+		public int getDegree() {
+			return record.degree;
+		}
+
+		@Override
+		public int getInDegree() {
+			return record.oStart;
+		}
+
+		@Override
+		public int getOutDegree() {
+			return record.degree - record.ioStart;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getEdge(int i) {
+			if (i < 0 || i >= record.degree)
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no edge " + i);
+			return (T) snapshot().edge(record.edges[i]);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getEnteringEdge(int i) {
+			if (i < 0 || i >= getInDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no entering edge " + i);
+			return (T) snapshot().edge(record.edges[i]);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Edge> T getLeavingEdge(int i) {
+			if (i < 0 || i >= getOutDegree())
+				throw new IndexOutOfBoundsException("Node \"" + this + "\""
+						+ " has no edge " + i);
+			return (T) snapshot().edge(record.edges[record.ioStart + i]);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeBetween(Node node) {
+			return locateEdge(node, SnapshotRecorder.IO_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeFrom(Node node) {
+			return locateEdge(node, SnapshotRecorder.I_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> T getEdgeToward(Node node) {
+			return locateEdge(node, SnapshotRecorder.O_EDGE);
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getEdgeIterator() {
+			return new EdgeIterator<T>(0, record.degree);
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+			return new EdgeIterator<T>(0, record.oStart);
+		}
+
+		@Override
+		public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+			return new EdgeIterator<T>(record.ioStart, record.degree);
+		}
+
+		private class EdgeIterator<T extends Edge> implements Iterator<T> {
+			int next;
+			final int end;
+
+			EdgeIterator(int start, int end) {
+				this.next = start;
+				this.end = end;
+			}
+
+			public boolean hasNext() {
+				return next < end;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (next >= end)
+					throw new NoSuchElementException();
+				return (T) snapshot().edge(record.edges[next++]);
+			}
+
+			public void remove() {
+				throw readOnly();
+			}
+		}
+
+		@Override
+		protected boolean addEdgeCallback(AbstractEdge edge) {
+			throw readOnly();
+		}
+
+		@Override
+		protected void removeEdgeCallback(AbstractEdge edge) {
+			throw readOnly();
+		}
+
+		@Override
+		protected void clearCallback() {
+			throw readOnly();
+		}
+
+		@Override
+		public void addAttribute(String attribute, Object... values) {
+			throw readOnly();
+		}
+
+		@Override
+		public void removeAttribute(String attribute) {
+			throw readOnly();
+		}
+
+		@Override
+		public void clearAttributes() {
+			throw readOnly();
+		}
+	}
+
+	/**
+	 * Edges of a {@link SnapshotGraph}.
+	 */
+	public static class SnapshotEdge extends AbstractEdge {
+		protected final EdgeRecord record;
+
+		SnapshotEdge(EdgeRecord record, SnapshotNode source, SnapshotNode target) {
+			super(record.id, source, target, record.directed);
+			this.record = record;
+			this.attributes = record.attributes;
+			setIndex(record.index);
+		}
+
+		@Override
+		public void addAttribute(String attribute, Object... values) {
+			throw readOnly();
+		}
+
+		@Override
+		public void removeAttribute(String attribute) {
+			throw readOnly();
+		}
+
+		@Override
+		public void clearAttributes() {
+			throw readOnly();
+		}
+	}
+}
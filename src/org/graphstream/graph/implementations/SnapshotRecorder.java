@@ -0,0 +1,638 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.Sink;
+
+/**
+ * A sink recording the events of a graph in order to give cheap immutable
+ * snapshots of it.
+ * 
+ * <p>
+ * The recorder keeps its own copy of the graph in arrays shared copy-on-write
+ * between versions (see {@link CowArray}). Taking a snapshot with
+ * {@link #snapshot()} freezes the current version in O(1). The next changes
+ * copy only the records of the elements they touch and the blocks of the
+ * arrays leading to them, so that the cost of a snapshot is proportional to the
+ * number of changes since the previous one and not to the size of the graph.
+ * Attribute values themselves are shared, not copied.
+ * </p>
+ * 
+ * <p>
+ * Snapshots are read-only {@link Graph} instances that can be read by several
+ * threads while the recorded graph keeps changing:
+ * </p>
+ * 
+ * <pre>
+ * SnapshotRecorder recorder = new SnapshotRecorder(graph);
+ * 
+ * // in the reporting thread
+ * Graph view = recorder.snapshot();
+ * </pre>
+ * 
+ * <p>
+ * The recorder methods are synchronized, so {@link #snapshot()} can be called
+ * by any thread. Each node or edge identifier ever seen keeps a slot in the
+ * recorder, even after the element is removed.
+ * </p>
+ */
+public class SnapshotRecorder implements Sink, AbstractGraph.IndexListener {
+	static final char I_EDGE = 0;
+	static final char IO_EDGE = 1;
+	static final char O_EDGE = 2;
+
+	/**
+	 * State of a node in a version. A record is modified in place only by the
+	 * owner that created it.
+	 */
+	static final class NodeRecord {
+		final String id;
+		final int slot;
+		Object owner;
+		int index;
+		Map<String, Object> attributes;
+		boolean sharedAttributes;
+
+		/**
+		 * Slots of the incident edges, entering edges first, then undirected
+		 * edges and loops, then leaving edges.
+		 */
+		int[] edges;
+		boolean sharedEdges;
+		int ioStart, oStart, degree;
+
+		NodeRecord(String id, int slot, Object owner) {
+			this.id = id;
+			this.slot = slot;
+			this.owner = owner;
+			this.edges = new int[4];
+		}
+
+		NodeRecord copy(Object owner) {
+			NodeRecord r = new NodeRecord(id, slot, owner);
+			r.index = index;
+			r.attributes = attributes;
+			r.sharedAttributes = true;
+			r.edges = edges;
+			r.sharedEdges = true;
+			r.ioStart = ioStart;
+			r.oStart = oStart;
+			r.degree = degree;
+			return r;
+		}
+
+		void addEdge(int e, char type) {
+			if (sharedEdges || edges.length == degree) {
+				int[] tmp = new int[Math.max(edges.length,
+						(int) (AdjacencyListGraph.GROW_FACTOR * degree) + 1)];
+				System.arraycopy(edges, 0, tmp, 0, degree);
+				edges = tmp;
+				sharedEdges = false;
+			}
+
+			if (type == O_EDGE) {
+				edges[degree++] = e;
+			} else if (type == IO_EDGE) {
+				edges[degree++] = edges[oStart];
+				edges[oStart++] = e;
+			} else {
+				edges[degree++] = edges[oStart];
+				edges[oStart++] = edges[ioStart];
+				edges[ioStart++] = e;
+			}
+		}
+
+		void removeEdge(int e, char type) {
+			if (sharedEdges) {
+				edges = edges.clone();
+				sharedEdges = false;
+			}
+
+			int i = type == I_EDGE ? 0 : (type == IO_EDGE ? ioStart : oStart);
+
+			while (edges[i] != e)
+				i++;
+
+			if (i >= oStart) {
+				edges[i] = edges[--degree];
+			} else if (i >= ioStart) {
+				edges[i] = edges[--oStart];
+				edges[oStart] = edges[--degree];
+			} else {
+				edges[i] = edges[--ioStart];
+				edges[ioStart] = edges[--oStart];
+				edges[oStart] = edges[--degree];
+			}
+		}
+
+		Map<String, Object> writableAttributes() {
+			if (attributes == null)
+				attributes = newMap(null);
+			else if (sharedAttributes)
+				attributes = newMap(attributes);
+
+			sharedAttributes = false;
+			return attributes;
+		}
+	}
+
+	/**
+	 * State of an edge in a version.
+	 */
+	static final class EdgeRecord {
+		final String id;
+		final int slot;
+		final int source, target;
+		final boolean directed;
+		Object owner;
+		int index;
+		Map<String, Object> attributes;
+		boolean sharedAttributes;
+
+		EdgeRecord(String id, int slot, int source, int target,
+				boolean directed, Object owner) {
+			this.id = id;
+			this.slot = slot;
+			this.source = source;
+			this.target = target;
+			this.directed = directed;
+			this.owner = owner;
+		}
+
+		EdgeRecord copy(Object owner) {
+			EdgeRecord r = new EdgeRecord(id, slot, source, target, directed,
+					owner);
+			r.index = index;
+			r.attributes = attributes;
+			r.sharedAttributes = true;
+			return r;
+		}
+
+		/**
+		 * Type of this edge seen from one of its endpoints.
+		 */
+		char typeFor(int node) {
+			if (!directed || source == target)
+				return IO_EDGE;
+			return node == source ? O_EDGE : I_EDGE;
+		}
+
+		Map<String, Object> writableAttributes() {
+			if (attributes == null)
+				attributes = newMap(null);
+			else if (sharedAttributes)
+				attributes = newMap(attributes);
+
+			sharedAttributes = false;
+			return attributes;
+		}
+	}
+
+	static Map<String, Object> newMap(Map<String, Object> content) {
+		Map<String, Object> map;
+		int size = content == null ? 1 : content.size() + 1;
+
+		if (AbstractElement.COMPACT_ATTRIBUTES)
+			map = new CompactAttributeMap(size);
+		else
+			map = new HashMap<String, Object>(size);
+
+		if (content != null)
+			map.putAll(content);
+
+		return map;
+	}
+
+	// *** Fields ***
+
+	protected final String id;
+	protected Graph graph;
+
+	/**
+	 * Slots of the identifiers, shared with the snapshots. Identifiers are
+	 * never removed.
+	 */
+	final ConcurrentHashMap<String, Integer> nodeSlots, edgeSlots;
+
+	/**
+	 * Current owner of the records and array blocks that can be modified in
+	 * place. It changes at each snapshot.
+	 */
+	private Object owner;
+
+	private CowArray nodes, edges, nodeIndex, edgeIndex;
+	private int nodeCount, edgeCount;
+	private Map<String, Object> attributes;
+	private boolean sharedAttributes;
+	private double step;
+
+	private SnapshotGraph lastSnapshot;
+
+	// *** Constructors ***
+
+	/**
+	 * New recorder of an empty graph. It must be added as sink of the source
+	 * to record.
+	 * 
+	 * @param id
+	 *            Identifier of the snapshots.
+	 */
+	public SnapshotRecorder(String id) {
+		this.id = id;
+		this.nodeSlots = new ConcurrentHashMap<String, Integer>();
+		this.edgeSlots = new ConcurrentHashMap<String, Integer>();
+		this.owner = new Object();
+		this.graph = null;
+		reset();
+	}
+
+	/**
+	 * New recorder of a graph. The current content of the graph is copied
+	 * and the recorder is added as sink of the graph.
+	 * 
+	 * @param graph
+	 *            The graph to record.
+	 * @complexity O(n + m) for the initial copy
+	 */
+	public SnapshotRecorder(Graph graph) {
+		this(graph.getId());
+
+		String sourceId = graph.getId();
+
+		for (String key : graph.getAttributeKeySet())
+			graphAttributeAdded(sourceId, 0, key, graph.getAttribute(key));
+
+		for (Node n : graph) {
+			nodeAdded(sourceId, 0, n.getId());
+
+			for (String key : n.getAttributeKeySet())
+				nodeAttributeAdded(sourceId, 0, n.getId(), key,
+						n.getAttribute(key));
+		}
+
+		for (Edge e : graph.getEachEdge()) {
+			edgeAdded(sourceId, 0, e.getId(), e.getSourceNode().getId(), e
+					.getTargetNode().getId(), e.isDirected());
+
+			for (String key : e.getAttributeKeySet())
+				edgeAttributeAdded(sourceId, 0, e.getId(), key,
+						e.getAttribute(key));
+		}
+
+		step = graph.getStep();
+
+		this.graph = graph;
+		graph.addSink(this);
+
+		if (graph instanceof AbstractGraph)
+			((AbstractGraph) graph).addIndexListener(this);
+	}
+
+	// *** Snapshots ***
+
+	/**
+	 * An immutable snapshot of the recorded graph. If nothing changed since the
+	 * previous snapshot, it is returned again.
+	 * 
+	 * @return A read-only graph.
+	 * @complexity O(1)
+	 */
+	public synchronized Graph snapshot() {
+		if (lastSnapshot == null) {
+			lastSnapshot = new SnapshotGraph(id, nodeSlots, edgeSlots,
+					nodes.freeze(), edges.freeze(), nodeIndex.freeze(),
+					edgeIndex.freeze(), nodeCount, edgeCount, attributes, step);
+			owner = new Object();
+			sharedAttributes = true;
+		}
+
+		return lastSnapshot;
+	}
+
+	/**
+	 * Stops recording the graph given to the constructor, if any.
+	 */
+	public synchronized void detach() {
+		if (graph != null) {
+			graph.removeSink(this);
+
+			if (graph instanceof AbstractGraph)
+				((AbstractGraph) graph).removeIndexListener(this);
+
+			graph = null;
+		}
+	}
+
+	/**
+	 * Follows the renumbering of the recorded graph, so that the elements of
+	 * the next snapshots have the same indices as in the graph. Previous
+	 * snapshots are not affected.
+	 * 
+	 * @complexity O(n + m)
+	 */
+	public synchronized void indicesChanged(AbstractGraph graph,
+			int[] nodeOrder, int[] edgeOrder) {
+		for (int i = 0; i < nodeCount; i++) {
+			NodeRecord r = editable(node(graph.getNode(i).getId()));
+			r.index = i;
+			nodeIndex.set(i, r.slot, owner);
+		}
+
+		for (int i = 0; i < edgeCount; i++) {
+			EdgeRecord r = editable(edge(graph.getEdge(i).getId()));
+			r.index = i;
+			edgeIndex.set(i, r.slot, owner);
+		}
+
+		changed();
+	}
+
+	// *** Helpers ***
+
+	private void reset() {
+		nodes = new CowArray();
+		edges = new CowArray();
+		nodeIndex = new CowArray();
+		edgeIndex = new CowArray();
+		nodeCount = edgeCount = 0;
+	}
+
+	private void changed() {
+		lastSnapshot = null;
+	}
+
+	private static int slotOf(ConcurrentHashMap<String, Integer> slots,
+			String id) {
+		Integer slot = slots.get(id);
+
+		if (slot == null) {
+			slot = slots.size();
+			slots.put(id, slot);
+		}
+
+		return slot;
+	}
+
+	private NodeRecord node(String nodeId) {
+		Integer slot = nodeSlots.get(nodeId);
+		return slot == null ? null : (NodeRecord) nodes.get(slot);
+	}
+
+	private EdgeRecord edge(String edgeId) {
+		Integer slot = edgeSlots.get(edgeId);
+		return slot == null ? null : (EdgeRecord) edges.get(slot);
+	}
+
+	private NodeRecord editable(NodeRecord r) {
+		if (r.owner != owner) {
+			r = r.copy(owner);
+			nodes.set(r.slot, r, owner);
+		}
+
+		return r;
+	}
+
+	private EdgeRecord editable(EdgeRecord r) {
+		if (r.owner != owner) {
+			r = r.copy(owner);
+			edges.set(r.slot, r, owner);
+		}
+
+		return r;
+	}
+
+	private Map<String, Object> graphAttributes() {
+		if (attributes == null)
+			attributes = newMap(null);
+		else if (sharedAttributes)
+			attributes = newMap(attributes);
+
+		sharedAttributes = false;
+		return attributes;
+	}
+
+	private NodeRecord addNode(String nodeId) {
+		int slot = slotOf(nodeSlots, nodeId);
+		NodeRecord r = new NodeRecord(nodeId, slot, owner);
+
+		r.index = nodeCount;
+		nodes.set(slot, r, owner);
+		nodeIndex.set(nodeCount++, slot, owner);
+
+		return r;
+	}
+
+	private void removeEdge(EdgeRecord r) {
+		editable((NodeRecord) nodes.get(r.source)).removeEdge(r.slot,
+				r.typeFor(r.source));
+
+		if (r.target != r.source)
+			editable((NodeRecord) nodes.get(r.target)).removeEdge(r.slot,
+					r.typeFor(r.target));
+
+		int last = --edgeCount;
+
+		if (r.index != last) {
+			EdgeRecord moved = editable((EdgeRecord) edges
+					.get((Integer) edgeIndex.get(last)));
+			moved.index = r.index;
+			edgeIndex.set(r.index, moved.slot, owner);
+		}
+
+		edgeIndex.set(last, null, owner);
+		edges.set(r.slot, null, owner);
+	}
+
+	// *** Sink ***
+
+	public synchronized void nodeAdded(String sourceId, long timeId,
+			String nodeId) {
+		if (node(nodeId) == null) {
+			addNode(nodeId);
+			changed();
+		}
+	}
+
+	public synchronized void nodeRemoved(String sourceId, long timeId,
+			String nodeId) {
+		NodeRecord r = node(nodeId);
+
+		if (r == null)
+			return;
+
+		while (r.degree > 0) {
+			removeEdge((EdgeRecord) edges.get(r.edges[r.degree - 1]));
+			r = node(nodeId);
+		}
+
+		int last = --nodeCount;
+
+		if (r.index != last) {
+			NodeRecord moved = editable((NodeRecord) nodes
+					.get((Integer) nodeIndex.get(last)));
+			moved.index = r.index;
+			nodeIndex.set(r.index, moved.slot, owner);
+		}
+
+		nodeIndex.set(last, null, owner);
+		nodes.set(r.slot, null, owner);
+		changed();
+	}
+
+	public synchronized void edgeAdded(String sourceId, long timeId,
+			String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+		if (edge(edgeId) != null)
+			return;
+
+		NodeRecord from = node(fromNodeId);
+		NodeRecord to = node(toNodeId);
+
+		if (from == null)
+			from = addNode(fromNodeId);
+		if (to == null)
+			to = addNode(toNodeId);
+
+		int slot = slotOf(edgeSlots, edgeId);
+		EdgeRecord r = new EdgeRecord(edgeId, slot, from.slot, to.slot,
+				directed, owner);
+
+		r.index = edgeCount;
+		edges.set(slot, r, owner);
+		edgeIndex.set(edgeCount++, slot, owner);
+
+		editable(from).addEdge(slot, r.typeFor(from.slot));
+
+		if (to != from)
+			editable(to).addEdge(slot, r.typeFor(to.slot));
+
+		changed();
+	}
+
+	public synchronized void edgeRemoved(String sourceId, long timeId,
+			String edgeId) {
+		EdgeRecord r = edge(edgeId);
+
+		if (r != null) {
+			removeEdge(r);
+			changed();
+		}
+	}
+
+	public synchronized void graphCleared(String sourceId, long timeId) {
+		reset();
+		attributes = null;
+		changed();
+	}
+
+	public synchronized void stepBegins(String sourceId, long timeId,
+			double step) {
+		this.step = step;
+		changed();
+	}
+
+	public synchronized void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		graphAttributes().put(attribute, value);
+		changed();
+	}
+
+	public synchronized void graphAttributeChanged(String sourceId,
+			long timeId, String attribute, Object oldValue, Object newValue) {
+		graphAttributes().put(attribute, newValue);
+		changed();
+	}
+
+	public synchronized void graphAttributeRemoved(String sourceId,
+			long timeId, String attribute) {
+		graphAttributes().remove(attribute);
+		changed();
+	}
+
+	public synchronized void nodeAttributeAdded(String sourceId, long timeId,
+			String nodeId, String attribute, Object value) {
+		NodeRecord r = node(nodeId);
+
+		if (r != null) {
+			editable(r).writableAttributes().put(attribute, value);
+			changed();
+		}
+	}
+
+	public synchronized void nodeAttributeChanged(String sourceId,
+			long timeId, String nodeId, String attribute, Object oldValue,
+			Object newValue) {
+		nodeAttributeAdded(sourceId, timeId, nodeId, attribute, newValue);
+	}
+
+	public synchronized void nodeAttributeRemoved(String sourceId,
+			long timeId, String nodeId, String attribute) {
+		NodeRecord r = node(nodeId);
+
+		if (r != null) {
+			editable(r).writableAttributes().remove(attribute);
+			changed();
+		}
+	}
+
+	public synchronized void edgeAttributeAdded(String sourceId, long timeId,
+			String edgeId, String attribute, Object value) {
+		EdgeRecord r = edge(edgeId);
+
+		if (r != null) {
+			editable(r).writableAttributes().put(attribute, value);
+			changed();
+		}
+	}
+
+	public synchronized void edgeAttributeChanged(String sourceId,
+			long timeId, String edgeId, String attribute, Object oldValue,
+			Object newValue) {
+		edgeAttributeAdded(sourceId, timeId, edgeId, attribute, newValue);
+	}
+
+	public synchronized void edgeAttributeRemoved(String sourceId,
+			long timeId, String edgeId, String attribute) {
+		EdgeRecord r = edge(edgeId);
+
+		if (r != null) {
+			editable(r).writableAttributes().remove(attribute);
+			changed();
+		}
+	}
+}
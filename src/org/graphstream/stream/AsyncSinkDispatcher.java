@@ -0,0 +1,585 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pipe sending the events it receives to each of its sinks in a separate
+ * thread.
+ * 
+ * <p>
+ * With a {@link SourceBase}, all the sinks are called one after the other in
+ * the thread of the source, so the slowest sink sets the pace of all of them.
+ * This pipe gives each sink its own queue and its own thread : the source only
+ * appends the event to the queues, and each sink receives the events in the
+ * order they occurred, at its own pace. Sinks implementing {@link BatchSink}
+ * receive all the events pending in their queue at once.
+ * </p>
+ * 
+ * <pre>
+ *                           +--&gt; queue --&gt; thread 1 --&gt; file sink
+ *  Source --&gt; dispatcher --+--&gt; queue --&gt; thread 2 --&gt; viewer proxy
+ *                           +--&gt; queue --&gt; thread 3 --&gt; algorithm
+ * </pre>
+ * 
+ * <p>
+ * The events must be sent by one thread at a time. The sinks are called in
+ * their own thread, so they must not share data without synchronization.
+ * {@link #flush()} waits until every sink has processed the events received
+ * so far, and with {@link #setStepBarrier(boolean)} this is done at each step.
+ * A queue holds at most a given number of events, the source waits when one of
+ * them is full. {@link #close()} stops the threads once their queues are
+ * empty.
+ * </p>
+ * 
+ * <p>
+ * An exception thrown by a sink is logged and the sink still receives the
+ * following events. A {@link BatchSink} receives whole buffers, so it decides
+ * itself what happens to the events of a buffer after a failure.
+ * </p>
+ */
+public class AsyncSinkDispatcher implements Pipe, BatchSink {
+	/**
+	 * class level logger
+	 */
+	private static final Logger logger = Logger
+			.getLogger(AsyncSinkDispatcher.class.getSimpleName());
+
+	/**
+	 * Default maximum number of events pending for a sink.
+	 */
+	public static final int DEFAULT_CAPACITY = 65536;
+
+	/**
+	 * Used to name the threads.
+	 */
+	private static int threadCount = 0;
+
+	/**
+	 * The queues and threads of the sinks.
+	 */
+	protected ArrayList<Worker> workers = new ArrayList<Worker>();
+
+	/**
+	 * Maximum number of events pending for a sink.
+	 */
+	protected final int capacity;
+
+	/**
+	 * If true, {@link #stepBegins(String, long, double)} waits until all sinks
+	 * received the step.
+	 */
+	protected boolean stepBarrier = false;
+
+	/**
+	 * Holds the event being sent to the queues.
+	 */
+	protected final EventBatch event = new EventBatch(1);
+
+	public AsyncSinkDispatcher() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * New dispatcher.
+	 * 
+	 * @param capacity
+	 *            Maximum number of events pending for a sink.
+	 */
+	public AsyncSinkDispatcher(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("invalid capacity " + capacity);
+
+		this.capacity = capacity;
+	}
+
+	// *** Access ***
+
+	public boolean isStepBarrier() {
+		return stepBarrier;
+	}
+
+	/**
+	 * Number of events received by the dispatcher and not yet processed by a
+	 * sink.
+	 * 
+	 * @param sink
+	 *            The sink.
+	 * @return The number of pending events, or zero if the sink is not
+	 *         registered.
+	 */
+	public int getPendingCount(Object sink) {
+		Worker w = worker(sink);
+
+		if (w == null)
+			return 0;
+
+		w.lock.lock();
+
+		try {
+			return (int) (w.posted - w.done);
+		} finally {
+			w.lock.unlock();
+		}
+	}
+
+	// *** Command ***
+
+	/**
+	 * Make {@link #stepBegins(String, long, double)} wait until all sinks
+	 * processed the events of the previous step and the "step begins" event
+	 * itself.
+	 * 
+	 * @param on
+	 *            True to wait at each step.
+	 */
+	public void setStepBarrier(boolean on) {
+		stepBarrier = on;
+	}
+
+	/**
+	 * Wait until all sinks processed the events received so far.
+	 * 
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while waiting.
+	 */
+	public void flush() throws InterruptedException {
+		for (int i = 0; i < workers.size(); i++)
+			workers.get(i).await();
+	}
+
+	/**
+	 * Stop the threads of all sinks, once they processed their pending events,
+	 * and remove the sinks.
+	 * 
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while waiting for the threads
+	 *             to stop.
+	 */
+	public void close() throws InterruptedException {
+		for (int i = 0; i < workers.size(); i++)
+			workers.get(i).stop();
+
+		for (int i = 0; i < workers.size(); i++)
+			workers.get(i).thread.join();
+
+		workers.clear();
+	}
+
+	// *** Source ***
+
+	public void addSink(Sink sink) {
+		addAttributeSink(sink);
+		addElementSink(sink);
+	}
+
+	public void removeSink(Sink sink) {
+		removeAttributeSink(sink);
+		removeElementSink(sink);
+	}
+
+	public void addAttributeSink(AttributeSink sink) {
+		Worker w = worker(sink);
+
+		if (w == null)
+			start(new Worker(sink, null));
+		else
+			w.attributeSink = sink;
+	}
+
+	public void removeAttributeSink(AttributeSink sink) {
+		Worker w = worker(sink);
+
+		if (w != null) {
+			w.attributeSink = null;
+
+			if (w.elementSink == null)
+				remove(w);
+		}
+	}
+
+	public void addElementSink(ElementSink sink) {
+		Worker w = worker(sink);
+
+		if (w == null)
+			start(new Worker(null, sink));
+		else
+			w.elementSink = sink;
+	}
+
+	public void removeElementSink(ElementSink sink) {
+		Worker w = worker(sink);
+
+		if (w != null) {
+			w.elementSink = null;
+
+			if (w.attributeSink == null)
+				remove(w);
+		}
+	}
+
+	public void clearElementSinks() {
+		for (int i = workers.size() - 1; i >= 0; i--)
+			removeElementSink(workers.get(i).elementSink);
+	}
+
+	public void clearAttributeSinks() {
+		for (int i = workers.size() - 1; i >= 0; i--)
+			removeAttributeSink(workers.get(i).attributeSink);
+	}
+
+	public void clearSinks() {
+		for (int i = workers.size() - 1; i >= 0; i--)
+			remove(workers.get(i));
+	}
+
+	protected Worker worker(Object sink) {
+		if (sink != null)
+			for (int i = 0; i < workers.size(); i++) {
+				Worker w = workers.get(i);
+
+				if (w.attributeSink == sink || w.elementSink == sink)
+					return w;
+			}
+
+		return null;
+	}
+
+	protected void start(Worker w) {
+		workers.add(w);
+		w.thread.start();
+	}
+
+	/**
+	 * The sink will not receive new events, its thread stops once its pending
+	 * events are processed.
+	 */
+	protected void remove(Worker w) {
+		workers.remove(w);
+		w.stop();
+	}
+
+	// *** Dispatch ***
+
+	/**
+	 * Append {@link #event} to the queues and clear it.
+	 */
+	protected void post() {
+		boolean element = event.getType(0).isElementEvent();
+
+		for (int i = 0; i < workers.size(); i++) {
+			Worker w = workers.get(i);
+
+			if ((element ? w.elementSink : w.attributeSink) != null)
+				w.post(event);
+		}
+
+		event.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.graphstream.stream.BatchSink#eventsReceived(org.graphstream.stream
+	 * .EventBatch)
+	 */
+	public void eventsReceived(EventBatch batch) {
+		for (int i = 0; i < workers.size(); i++)
+			workers.get(i).post(batch);
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		event.graphAttributeAdded(sourceId, timeId, attribute, value);
+		post();
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		event.graphAttributeChanged(sourceId, timeId, attribute, oldValue,
+				newValue);
+		post();
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId,
+			String attribute) {
+		event.graphAttributeRemoved(sourceId, timeId, attribute);
+		post();
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId,
+			String nodeId, String attribute, Object value) {
+		event.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+		post();
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		event.nodeAttributeChanged(sourceId, timeId, nodeId, attribute,
+				oldValue, newValue);
+		post();
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId,
+			String nodeId, String attribute) {
+		event.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+		post();
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId,
+			String edgeId, String attribute, Object value) {
+		event.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+		post();
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		event.edgeAttributeChanged(sourceId, timeId, edgeId, attribute,
+				oldValue, newValue);
+		post();
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId,
+			String edgeId, String attribute) {
+		event.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+		post();
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		event.nodeAdded(sourceId, timeId, nodeId);
+		post();
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		event.nodeRemoved(sourceId, timeId, nodeId);
+		post();
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		event.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId,
+				directed);
+		post();
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		event.edgeRemoved(sourceId, timeId, edgeId);
+		post();
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		event.graphCleared(sourceId, timeId);
+		post();
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		event.stepBegins(sourceId, timeId, step);
+		post();
+
+		if (stepBarrier) {
+			try {
+				flush();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * The queue and the thread of a sink. The queue is a pair of buffers : the
+	 * source appends to one while the sink thread dispatches the other.
+	 */
+	protected class Worker implements Runnable {
+		volatile AttributeSink attributeSink;
+		volatile ElementSink elementSink;
+
+		final Thread thread;
+		final ReentrantLock lock = new ReentrantLock();
+		final Condition notEmpty = lock.newCondition();
+		final Condition progress = lock.newCondition();
+
+		EventBatch pending = new EventBatch();
+		EventBatch spare = new EventBatch();
+
+		/**
+		 * Number of events posted and processed. Guarded by the lock.
+		 */
+		long posted, done;
+
+		boolean stopped = false;
+
+		Worker(AttributeSink attributeSink, ElementSink elementSink) {
+			this.attributeSink = attributeSink;
+			this.elementSink = elementSink;
+
+			synchronized (AsyncSinkDispatcher.class) {
+				thread = new Thread(this, "async-sink-" + (threadCount++));
+			}
+
+			thread.setDaemon(true);
+		}
+
+		/**
+		 * Append the events of a buffer that interest the sink.
+		 */
+		void post(EventBatch events) {
+			lock.lock();
+
+			try {
+				for (int i = 0; i < events.size(); i++) {
+					boolean element = events.getType(i).isElementEvent();
+
+					if ((element ? elementSink : attributeSink) == null)
+						continue;
+
+					if (posted - done >= capacity)
+						waitForRoom();
+
+					pending.append(events, i);
+					posted++;
+				}
+
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void waitForRoom() {
+			notEmpty.signal();
+
+			try {
+				while (posted - done >= capacity && !stopped)
+					progress.await();
+			} catch (InterruptedException e) {
+				// The event is queued anyway.
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Wait until the events posted so far are processed.
+		 */
+		void await() throws InterruptedException {
+			lock.lock();
+
+			try {
+				long target = posted;
+
+				while (done < target && thread.isAlive())
+					progress.await();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void stop() {
+			lock.lock();
+
+			try {
+				stopped = true;
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		public void run() {
+			EventBatch events;
+
+			while (true) {
+				lock.lock();
+
+				try {
+					while (pending.isEmpty() && !stopped)
+						notEmpty.awaitUninterruptibly();
+
+					if (pending.isEmpty()) {
+						progress.signalAll();
+						return;
+					}
+
+					events = pending;
+					pending = spare;
+				} finally {
+					lock.unlock();
+				}
+
+				dispatch(events);
+
+				lock.lock();
+
+				try {
+					done += events.size();
+					events.clear();
+					spare = events;
+					progress.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+
+		void dispatch(EventBatch events) {
+			AttributeSink as = attributeSink;
+			ElementSink es = elementSink;
+
+			if (as == es && as instanceof BatchSink) {
+				try {
+					((BatchSink) as).eventsReceived(events);
+				} catch (RuntimeException e) {
+					failed(e);
+				}
+			} else {
+				// A failing event must not make the sink miss the next ones.
+				for (int i = 0; i < events.size(); i++) {
+					try {
+						events.replay(i, as, es);
+					} catch (RuntimeException e) {
+						failed(e);
+					}
+				}
+			}
+		}
+
+		private void failed(RuntimeException e) {
+			logger.log(Level.WARNING,
+					String.format("sink of %s failed", thread.getName()), e);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream;
+
+/**
+ * Element sink able to receive additions of many elements at once.
+ * 
+ * <p>
+ * A {@link SourceBase} sends the elements added by a bulk insertion, such as
+ * {@link org.graphstream.graph.Graph#addNodes(String...)}, with one call to
+ * these methods instead of one {@link #nodeAdded(String, long, String)} or
+ * {@link #edgeAdded(String, long, String, String, String, boolean)} call per
+ * element. Sinks that do not implement this interface still receive one event
+ * per element.
+ * </p>
+ * 
+ * <p>
+ * The arrays belong to the source and must not be modified or kept after the
+ * call. The events of a batch have consecutive time ids, element
+ * {@code offset + k} having the time id {@code timeId + k}.
+ * </p>
+ */
+public interface BatchElementSink extends ElementSink {
+	/**
+	 * Several nodes were inserted in the given graph.
+	 * 
+	 * @param sourceId
+	 *            Identifier of the graph where the nodes were added.
+	 * @param timeId
+	 *            Time id of the first node.
+	 * @param nodeIds
+	 *            Identifiers of the added nodes.
+	 * @param offset
+	 *            Index of the first node in the array.
+	 * @param count
+	 *            Number of added nodes.
+	 */
+	void nodesAdded(String sourceId, long timeId, String[] nodeIds,
+			int offset, int count);
+
+	/**
+	 * Several edges were inserted in the given graph.
+	 * 
+	 * @param sourceId
+	 *            Identifier of the graph where the edges were added.
+	 * @param timeId
+	 *            Time id of the first edge.
+	 * @param edgeIds
+	 *            Identifiers of the added edges.
+	 * @param fromNodeIds
+	 *            Identifiers of the first nodes of the edges.
+	 * @param toNodeIds
+	 *            Identifiers of the second nodes of the edges.
+	 * @param directed
+	 *            If true, the edges are directed.
+	 * @param offset
+	 *            Index of the first edge in the arrays.
+	 * @param count
+	 *            Number of added edges.
+	 */
+	void edgesAdded(String sourceId, long timeId, String[] edgeIds,
+			String[] fromNodeIds, String[] toNodeIds, boolean directed,
+			int offset, int count);
+}
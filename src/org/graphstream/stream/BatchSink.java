@@ -0,0 +1,60 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream;
+
+/**
+ * Sink able to receive a buffer of events with a single call.
+ * 
+ * <p>
+ * When a {@link SourceBase} sends an {@link EventBatch}, the sinks
+ * implementing this interface and registered both as attribute and element
+ * sinks receive the whole buffer through
+ * {@link #eventsReceived(EventBatch)}. The other sinks receive the events one
+ * by one, as if the source had sent them separately.
+ * </p>
+ * 
+ * <p>
+ * A batch is delivered after the source produced all its events, so a sink
+ * receiving a "node removed" event in a batch cannot expect the node to still
+ * be in the source.
+ * </p>
+ */
+public interface BatchSink extends Sink {
+	/**
+	 * A buffer of events was sent. The buffer belongs to the source and must
+	 * not be modified or kept after the call.
+	 * 
+	 * @param batch
+	 *            The events, in the order they occurred.
+	 */
+	void eventsReceived(EventBatch batch);
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of graph events.
+ * 
+ * <p>
+ * The events are stored by columns : one array for the types, one for the
+ * source ids, one for the time ids, and so on, so that adding an event does
+ * not allocate anything once the buffer is large enough. The buffer is itself
+ * a {@link Sink} : events are appended by calling the sink methods, and
+ * {@link #replay(Sink)} sends them back in the same order.
+ * </p>
+ * 
+ * <p>
+ * A {@link SourceBase} can send a whole buffer at once with
+ * {@link SourceBase#sendBatch(EventBatch)}. Sinks implementing
+ * {@link BatchSink} then receive it with one call, the other sinks receive the
+ * events one by one.
+ * </p>
+ * 
+ * <p>
+ * Each column is only meaningful for some types of events : for example the
+ * attribute of a "node added" event is null, and the step of an "attribute
+ * changed" event is zero.
+ * </p>
+ */
+public class EventBatch implements Sink {
+	/**
+	 * Types of events.
+	 */
+	public static enum EventType {
+		ADD_NODE, DEL_NODE, ADD_EDGE, DEL_EDGE, STEP, CLEARED, ADD_GRAPH_ATTR, CHG_GRAPH_ATTR, DEL_GRAPH_ATTR, ADD_NODE_ATTR, CHG_NODE_ATTR, DEL_NODE_ATTR, ADD_EDGE_ATTR, CHG_EDGE_ATTR, DEL_EDGE_ATTR;
+
+		/**
+		 * True for the events sent to element sinks, false for the events sent
+		 * to attribute sinks.
+		 */
+		public boolean isElementEvent() {
+			return ordinal() <= CLEARED.ordinal();
+		}
+	}
+
+	/**
+	 * Initial number of events the buffer can hold.
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	protected int size;
+
+	protected EventType[] types;
+	protected String[] sourceIds;
+	protected long[] timeIds;
+	protected String[] elementIds;
+	protected String[] attributes;
+	protected String[] fromNodeIds;
+	protected String[] toNodeIds;
+	protected boolean[] directed;
+	protected double[] steps;
+	protected Object[] oldValues;
+	protected Object[] newValues;
+
+	public EventBatch() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public EventBatch(int capacity) {
+		capacity = Math.max(capacity, 1);
+
+		types = new EventType[capacity];
+		sourceIds = new String[capacity];
+		timeIds = new long[capacity];
+		elementIds = new String[capacity];
+		attributes = new String[capacity];
+		fromNodeIds = new String[capacity];
+		toNodeIds = new String[capacity];
+		directed = new boolean[capacity];
+		steps = new double[capacity];
+		oldValues = new Object[capacity];
+		newValues = new Object[capacity];
+	}
+
+	/**
+	 * Copy of the events of another buffer.
+	 * 
+	 * @param other
+	 *            The buffer to copy.
+	 */
+	public EventBatch(EventBatch other) {
+		this(other.size);
+
+		size = other.size;
+		System.arraycopy(other.types, 0, types, 0, size);
+		System.arraycopy(other.sourceIds, 0, sourceIds, 0, size);
+		System.arraycopy(other.timeIds, 0, timeIds, 0, size);
+		System.arraycopy(other.elementIds, 0, elementIds, 0, size);
+		System.arraycopy(other.attributes, 0, attributes, 0, size);
+		System.arraycopy(other.fromNodeIds, 0, fromNodeIds, 0, size);
+		System.arraycopy(other.toNodeIds, 0, toNodeIds, 0, size);
+		System.arraycopy(other.directed, 0, directed, 0, size);
+		System.arraycopy(other.steps, 0, steps, 0, size);
+		System.arraycopy(other.oldValues, 0, oldValues, 0, size);
+		System.arraycopy(other.newValues, 0, newValues, 0, size);
+	}
+
+	// *** Access ***
+
+	/**
+	 * Number of events in the buffer.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public EventType getType(int i) {
+		return types[i];
+	}
+
+	public String getSourceId(int i) {
+		return sourceIds[i];
+	}
+
+	public long getTimeId(int i) {
+		return timeIds[i];
+	}
+
+	/**
+	 * Id of the node or edge of the event, null for graph events.
+	 */
+	public String getElementId(int i) {
+		return elementIds[i];
+	}
+
+	public String getAttribute(int i) {
+		return attributes[i];
+	}
+
+	public String getFromNodeId(int i) {
+		return fromNodeIds[i];
+	}
+
+	public String getToNodeId(int i) {
+		return toNodeIds[i];
+	}
+
+	public boolean isDirected(int i) {
+		return directed[i];
+	}
+
+	public double getStep(int i) {
+		return steps[i];
+	}
+
+	public Object getOldValue(int i) {
+		return oldValues[i];
+	}
+
+	/**
+	 * Value of an added or changed attribute.
+	 */
+	public Object getNewValue(int i) {
+		return newValues[i];
+	}
+
+	// *** Command ***
+
+	/**
+	 * Remove all the events. The capacity of the buffer is kept.
+	 * 
+	 * @complexity O(n) where n is the number of events, to release the
+	 *             references.
+	 */
+	public void clear() {
+		Arrays.fill(sourceIds, 0, size, null);
+		Arrays.fill(elementIds, 0, size, null);
+		Arrays.fill(attributes, 0, size, null);
+		Arrays.fill(fromNodeIds, 0, size, null);
+		Arrays.fill(toNodeIds, 0, size, null);
+		Arrays.fill(oldValues, 0, size, null);
+		Arrays.fill(newValues, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Send all the events to a sink, in order.
+	 * 
+	 * @param sink
+	 *            The receiver of the events.
+	 */
+	public void replay(Sink sink) {
+		for (int i = 0; i < size; i++)
+			replay(i, sink, sink);
+	}
+
+	/**
+	 * Send one event to the sink interested in its type.
+	 * 
+	 * @param i
+	 *            Index of the event.
+	 * @param attributeSink
+	 *            Receiver of the attribute events, may be null.
+	 * @param elementSink
+	 *            Receiver of the element events, may be null.
+	 */
+	public void replay(int i, AttributeSink attributeSink,
+			ElementSink elementSink) {
+		String sourceId = sourceIds[i];
+		long timeId = timeIds[i];
+
+		switch (types[i]) {
+		case ADD_NODE:
+			if (elementSink != null)
+				elementSink.nodeAdded(sourceId, timeId, elementIds[i]);
+			break;
+		case DEL_NODE:
+			if (elementSink != null)
+				elementSink.nodeRemoved(sourceId, timeId, elementIds[i]);
+			break;
+		case ADD_EDGE:
+			if (elementSink != null)
+				elementSink.edgeAdded(sourceId, timeId, elementIds[i],
+						fromNodeIds[i], toNodeIds[i], directed[i]);
+			break;
+		case DEL_EDGE:
+			if (elementSink != null)
+				elementSink.edgeRemoved(sourceId, timeId, elementIds[i]);
+			break;
+		case STEP:
+			if (elementSink != null)
+				elementSink.stepBegins(sourceId, timeId, steps[i]);
+			break;
+		case CLEARED:
+			if (elementSink != null)
+				elementSink.graphCleared(sourceId, timeId);
+			break;
+		case ADD_GRAPH_ATTR:
+			if (attributeSink != null)
+				attributeSink.graphAttributeAdded(sourceId, timeId,
+						attributes[i], newValues[i]);
+			break;
+		case CHG_GRAPH_ATTR:
+			if (attributeSink != null)
+				attributeSink.graphAttributeChanged(sourceId, timeId,
+						attributes[i], oldValues[i], newValues[i]);
+			break;
+		case DEL_GRAPH_ATTR:
+			if (attributeSink != null)
+				attributeSink.graphAttributeRemoved(sourceId, timeId,
+						attributes[i]);
+			break;
+		case ADD_NODE_ATTR:
+			if (attributeSink != null)
+				attributeSink.nodeAttributeAdded(sourceId, timeId,
+						elementIds[i], attributes[i], newValues[i]);
+			break;
+		case CHG_NODE_ATTR:
+			if (attributeSink != null)
+				attributeSink.nodeAttributeChanged(sourceId, timeId,
+						elementIds[i], attributes[i], oldValues[i],
+						newValues[i]);
+			break;
+		case DEL_NODE_ATTR:
+			if (attributeSink != null)
+				attributeSink.nodeAttributeRemoved(sourceId, timeId,
+						elementIds[i], attributes[i]);
+			break;
+		case ADD_EDGE_ATTR:
+			if (attributeSink != null)
+				attributeSink.edgeAttributeAdded(sourceId, timeId,
+						elementIds[i], attributes[i], newValues[i]);
+			break;
+		case CHG_EDGE_ATTR:
+			if (attributeSink != null)
+				attributeSink.edgeAttributeChanged(sourceId, timeId,
+						elementIds[i], attributes[i], oldValues[i],
+						newValues[i]);
+			break;
+		case DEL_EDGE_ATTR:
+			if (attributeSink != null)
+				attributeSink.edgeAttributeRemoved(sourceId, timeId,
+						elementIds[i], attributes[i]);
+			break;
+		}
+	}
+
+	/**
+	 * Append an event and fill its common columns.
+	 * 
+	 * @return The index of the event.
+	 */
+	protected int add(EventType type, String sourceId, long timeId,
+			String elementId, String attribute) {
+		if (size == types.length)
+			grow();
+
+		int i = size++;
+
+		types[i] = type;
+		sourceIds[i] = sourceId;
+		timeIds[i] = timeId;
+		elementIds[i] = elementId;
+		attributes[i] = attribute;
+		directed[i] = false;
+		steps[i] = 0;
+
+		return i;
+	}
+
+	/**
+	 * Append a copy of an event of another buffer.
+	 * 
+	 * @param other
+	 *            The buffer holding the event.
+	 * @param i
+	 *            Index of the event in the other buffer.
+	 */
+	public void append(EventBatch other, int i) {
+		int k = add(other.types[i], other.sourceIds[i], other.timeIds[i],
+				other.elementIds[i], other.attributes[i]);
+
+		fromNodeIds[k] = other.fromNodeIds[i];
+		toNodeIds[k] = other.toNodeIds[i];
+		directed[k] = other.directed[i];
+		steps[k] = other.steps[i];
+		oldValues[k] = other.oldValues[i];
+		newValues[k] = other.newValues[i];
+	}
+
+	/**
+	 * Give all the events the same source and consecutive time ids, as if
+	 * they were sent one after the other by this source. This is used when the
+	 * events were recorded before knowing who would send them.
+	 * 
+	 * @param sourceId
+	 *            The source identifier.
+	 * @param firstTimeId
+	 *            Time id of the first event.
+	 */
+	public void setOrigin(String sourceId, long firstTimeId) {
+		Arrays.fill(sourceIds, 0, size, sourceId);
+
+		for (int i = 0; i < size; i++)
+			timeIds[i] = firstTimeId + i;
+	}
+
+	protected void grow() {
+		int capacity = types.length * 2;
+
+		types = Arrays.copyOf(types, capacity);
+		sourceIds = Arrays.copyOf(sourceIds, capacity);
+		timeIds = Arrays.copyOf(timeIds, capacity);
+		elementIds = Arrays.copyOf(elementIds, capacity);
+		attributes = Arrays.copyOf(attributes, capacity);
+		fromNodeIds = Arrays.copyOf(fromNodeIds, capacity);
+		toNodeIds = Arrays.copyOf(toNodeIds, capacity);
+		directed = Arrays.copyOf(directed, capacity);
+		steps = Arrays.copyOf(steps, capacity);
+		oldValues = Arrays.copyOf(oldValues, capacity);
+		newValues = Arrays.copyOf(newValues, capacity);
+	}
+
+	// *** Sink ***
+
+	public void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		int i = add(EventType.ADD_GRAPH_ATTR, sourceId, timeId, null,
+				attribute);
+		newValues[i] = value;
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		int i = add(EventType.CHG_GRAPH_ATTR, sourceId, timeId, null,
+				attribute);
+		oldValues[i] = oldValue;
+		newValues[i] = newValue;
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId,
+			String attribute) {
+		add(EventType.DEL_GRAPH_ATTR, sourceId, timeId, null, attribute);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId,
+			String nodeId, String attribute, Object value) {
+		int i = add(EventType.ADD_NODE_ATTR, sourceId, timeId, nodeId,
+				attribute);
+		newValues[i] = value;
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		int i = add(EventType.CHG_NODE_ATTR, sourceId, timeId, nodeId,
+				attribute);
+		oldValues[i] = oldValue;
+		newValues[i] = newValue;
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId,
+			String nodeId, String attribute) {
+		add(EventType.DEL_NODE_ATTR, sourceId, timeId, nodeId, attribute);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId,
+			String edgeId, String attribute, Object value) {
+		int i = add(EventType.ADD_EDGE_ATTR, sourceId, timeId, edgeId,
+				attribute);
+		newValues[i] = value;
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		int i = add(EventType.CHG_EDGE_ATTR, sourceId, timeId, edgeId,
+				attribute);
+		oldValues[i] = oldValue;
+		newValues[i] = newValue;
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId,
+			String edgeId, String attribute) {
+		add(EventType.DEL_EDGE_ATTR, sourceId, timeId, edgeId, attribute);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		add(EventType.ADD_NODE, sourceId, timeId, nodeId, null);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		add(EventType.DEL_NODE, sourceId, timeId, nodeId, null);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		int i = add(EventType.ADD_EDGE, sourceId, timeId, edgeId, null);
+		fromNodeIds[i] = fromNodeId;
+		toNodeIds[i] = toNodeId;
+		this.directed[i] = directed;
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		add(EventType.DEL_EDGE, sourceId, timeId, edgeId, null);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		add(EventType.CLEARED, sourceId, timeId, null, null);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		int i = add(EventType.STEP, sourceId, timeId, null, null);
+		steps[i] = step;
+	}
+}
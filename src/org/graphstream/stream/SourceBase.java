@@ -36,6 +36,8 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.EventBatch.EventType;
+import org.graphstream.stream.metrics.EventMetrics;
 import org.graphstream.stream.sync.SourceTime;
 
 /**
@@ -59,6 +61,13 @@ import org.graphstream.stream.sync.SourceTime;
  * deferred until the first send*() method is finished. This avoid recursive
  * loops if a sink modifies the input during event handling.
  * </p>
+ * 
+ * <p>
+ * Events can also be sent by buffers, see {@link #sendBatch(EventBatch)}.
+ * Between calls to {@link #beginBatch()} and {@link #endBatch()}, the events
+ * sent are not dispatched at once but accumulated and sent by buffers of at
+ * most {@link #BATCH_SIZE} events.
+ * </p>
  */
 public abstract class SourceBase implements Source {
 	// Attribute
@@ -67,6 +76,12 @@ public abstract class SourceBase implements Source {
 		NODE, EDGE, GRAPH
 	};
 
+	/**
+	 * Number of events accumulated between {@link #beginBatch()} and
+	 * {@link #endBatch()} before they are sent.
+	 */
+	public static final int BATCH_SIZE = 1024;
+
 	/**
 	 * Set of graph attributes sinks.
 	 */
@@ -89,6 +104,27 @@ public abstract class SourceBase implements Source {
 	 */
 	protected boolean eventProcessing = false;
 
+	/**
+	 * Buffer of the events accumulated while batching. Kept for reuse.
+	 */
+	protected EventBatch batch;
+
+	/**
+	 * Number of {@link #beginBatch()} calls not yet followed by
+	 * {@link #endBatch()}. Events are accumulated when positive.
+	 */
+	protected int batchDepth = 0;
+
+	/**
+	 * Sinks receiving the whole buffer in {@link #sendBatch(EventBatch)}.
+	 */
+	private ArrayList<BatchSink> batchTargets = new ArrayList<BatchSink>();
+
+	/**
+	 * Counters of the events sent, or null if they are not measured.
+	 */
+	protected EventMetrics metrics;
+
 	/**
 	 * Id of this source.
 	 */
@@ -122,8 +158,29 @@ public abstract class SourceBase implements Source {
 		return eltsSinks;
 	}
 
+	/**
+	 * Counters of the events sent by this source.
+	 * 
+	 * @return The metrics, or null if the events are not measured.
+	 */
+	public EventMetrics getMetrics() {
+		return metrics;
+	}
+
 	// Command
 
+	/**
+	 * Measure the events sent by this source. The events are counted by type
+	 * and the time taken by the sinks to receive them is recorded.
+	 * 
+	 * @param metrics
+	 *            The counters to update, or null to stop measuring.
+	 * @see org.graphstream.stream.metrics.Metrics
+	 */
+	public void setMetrics(EventMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	public void addSink(Sink sink) {
 		addAttributeSink(sink);
 		addElementSink(sink);
@@ -243,7 +300,11 @@ public abstract class SourceBase implements Source {
 	 * @param timeId
 	 */
 	public void sendGraphCleared(String sourceId, long timeId) {
-		if (!eventProcessing) {
+		if (batchDepth > 0) {
+			batch.graphCleared(sourceId, timeId);
+			checkBatch();
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
 			eventProcessing = true;
 			manageEvents();
 
@@ -252,8 +313,14 @@ public abstract class SourceBase implements Source {
 
 			manageEvents();
 			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.CLEARED, 1, start);
 		} else {
 			eventQueue.add(new BeforeGraphClearEvent(sourceId, timeId));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.CLEARED, 1);
 		}
 	}
 
@@ -279,7 +346,11 @@ public abstract class SourceBase implements Source {
 	 *            The step time stamp.
 	 */
 	public void sendStepBegins(String sourceId, long timeId, double step) {
-		if (!eventProcessing) {
+		if (batchDepth > 0) {
+			batch.stepBegins(sourceId, timeId, step);
+			checkBatch();
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
 			eventProcessing = true;
 			manageEvents();
 
@@ -288,8 +359,14 @@ public abstract class SourceBase implements Source {
 
 			manageEvents();
 			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.STEP, 1, start);
 		} else {
 			eventQueue.add(new StepBeginsEvent(sourceId, timeId, step));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.STEP, 1);
 		}
 	}
 
@@ -315,7 +392,11 @@ public abstract class SourceBase implements Source {
 	 *            The node identifier.
 	 */
 	public void sendNodeAdded(String sourceId, long timeId, String nodeId) {
-		if (!eventProcessing) {
+		if (batchDepth > 0) {
+			batch.nodeAdded(sourceId, timeId, nodeId);
+			checkBatch();
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
 			eventProcessing = true;
 			manageEvents();
 
@@ -324,8 +405,14 @@ public abstract class SourceBase implements Source {
 
 			manageEvents();
 			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.ADD_NODE, 1, start);
 		} else {
 			eventQueue.add(new AfterNodeAddEvent(sourceId, timeId, nodeId));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.ADD_NODE, 1);
 		}
 	}
 
@@ -351,7 +438,11 @@ public abstract class SourceBase implements Source {
 	 *            The node identifier.
 	 */
 	public void sendNodeRemoved(String sourceId, long timeId, String nodeId) {
-		if (!eventProcessing) {
+		if (batchDepth > 0) {
+			batch.nodeRemoved(sourceId, timeId, nodeId);
+			checkBatch();
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
 			eventProcessing = true;
 			manageEvents();
 
@@ -360,8 +451,14 @@ public abstract class SourceBase implements Source {
 
 			manageEvents();
 			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.DEL_NODE, 1, start);
 		} else {
 			eventQueue.add(new BeforeNodeRemoveEvent(sourceId, timeId, nodeId));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.DEL_NODE, 1);
 		}
 	}
 
@@ -402,7 +499,12 @@ public abstract class SourceBase implements Source {
 	 */
 	public void sendEdgeAdded(String sourceId, long timeId, String edgeId,
 			String fromNodeId, String toNodeId, boolean directed) {
-		if (!eventProcessing) {
+		if (batchDepth > 0) {
+			batch.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId,
+					directed);
+			checkBatch();
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
 			eventProcessing = true;
 			manageEvents();
 
@@ -412,9 +514,187 @@ public abstract class SourceBase implements Source {
 
 			manageEvents();
 			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.ADD_EDGE, 1, start);
 		} else {
 			eventQueue.add(new AfterEdgeAddEvent(sourceId, timeId, edgeId,
 					fromNodeId, toNodeId, directed));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.ADD_EDGE, 1);
+		}
+	}
+
+	/**
+	 * Send "node added" events for several nodes. Sinks implementing
+	 * {@link BatchElementSink} receive them with a single call, the other
+	 * sinks receive one event per node.
+	 * 
+	 * @param sourceId
+	 *            The source identifier.
+	 * @param nodeIds
+	 *            The node identifiers.
+	 * @param offset
+	 *            Index of the first node in the array.
+	 * @param count
+	 *            Number of nodes.
+	 */
+	public void sendNodesAdded(String sourceId, String[] nodeIds, int offset,
+			int count) {
+		if (count > 0)
+			sendNodesAdded(sourceId, sourceTime.newEvents(count), nodeIds,
+					offset, count);
+	}
+
+	/**
+	 * Send "node added" events for several nodes.
+	 * 
+	 * @param sourceId
+	 *            The source identifier.
+	 * @param timeId
+	 *            Time id of the first node, the others follow.
+	 * @param nodeIds
+	 *            The node identifiers.
+	 * @param offset
+	 *            Index of the first node in the array.
+	 * @param count
+	 *            Number of nodes.
+	 * @see #sendNodesAdded(String, String[], int, int)
+	 */
+	public void sendNodesAdded(String sourceId, long timeId, String[] nodeIds,
+			int offset, int count) {
+		if (batchDepth > 0) {
+			for (int k = 0; k < count; k++) {
+				batch.nodeAdded(sourceId, timeId + k, nodeIds[offset + k]);
+				checkBatch();
+			}
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
+			eventProcessing = true;
+			manageEvents();
+
+			for (int i = 0; i < eltsSinks.size(); i++) {
+				ElementSink sink = eltsSinks.get(i);
+
+				if (sink instanceof BatchElementSink) {
+					((BatchElementSink) sink).nodesAdded(sourceId, timeId,
+							nodeIds, offset, count);
+				} else {
+					for (int k = 0; k < count; k++)
+						sink.nodeAdded(sourceId, timeId + k, nodeIds[offset
+								+ k]);
+				}
+			}
+
+			manageEvents();
+			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.ADD_NODE, count, start);
+		} else {
+			for (int k = 0; k < count; k++)
+				eventQueue.add(new AfterNodeAddEvent(sourceId, timeId + k,
+						nodeIds[offset + k]));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.ADD_NODE, count);
+		}
+	}
+
+	/**
+	 * Send "edge added" events for several edges. Sinks implementing
+	 * {@link BatchElementSink} receive them with a single call, the other
+	 * sinks receive one event per edge.
+	 * 
+	 * @param sourceId
+	 *            The source identifier.
+	 * @param edgeIds
+	 *            The edge identifiers.
+	 * @param fromNodeIds
+	 *            The edge start nodes.
+	 * @param toNodeIds
+	 *            The edge end nodes.
+	 * @param directed
+	 *            Are the edges directed?
+	 * @param offset
+	 *            Index of the first edge in the arrays.
+	 * @param count
+	 *            Number of edges.
+	 */
+	public void sendEdgesAdded(String sourceId, String[] edgeIds,
+			String[] fromNodeIds, String[] toNodeIds, boolean directed,
+			int offset, int count) {
+		if (count > 0)
+			sendEdgesAdded(sourceId, sourceTime.newEvents(count), edgeIds,
+					fromNodeIds, toNodeIds, directed, offset, count);
+	}
+
+	/**
+	 * Send "edge added" events for several edges.
+	 * 
+	 * @param sourceId
+	 *            The source identifier.
+	 * @param timeId
+	 *            Time id of the first edge, the others follow.
+	 * @param edgeIds
+	 *            The edge identifiers.
+	 * @param fromNodeIds
+	 *            The edge start nodes.
+	 * @param toNodeIds
+	 *            The edge end nodes.
+	 * @param directed
+	 *            Are the edges directed?
+	 * @param offset
+	 *            Index of the first edge in the arrays.
+	 * @param count
+	 *            Number of edges.
+	 * @see #sendEdgesAdded(String, String[], String[], String[], boolean, int,
+	 *      int)
+	 */
+	public void sendEdgesAdded(String sourceId, long timeId, String[] edgeIds,
+			String[] fromNodeIds, String[] toNodeIds, boolean directed,
+			int offset, int count) {
+		if (batchDepth > 0) {
+			for (int k = 0; k < count; k++) {
+				batch.edgeAdded(sourceId, timeId + k, edgeIds[offset + k],
+						fromNodeIds[offset + k], toNodeIds[offset + k],
+						directed);
+				checkBatch();
+			}
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
+			eventProcessing = true;
+			manageEvents();
+
+			for (int i = 0; i < eltsSinks.size(); i++) {
+				ElementSink sink = eltsSinks.get(i);
+
+				if (sink instanceof BatchElementSink) {
+					((BatchElementSink) sink).edgesAdded(sourceId, timeId,
+							edgeIds, fromNodeIds, toNodeIds, directed, offset,
+							count);
+				} else {
+					for (int k = 0; k < count; k++)
+						sink.edgeAdded(sourceId, timeId + k, edgeIds[offset
+								+ k], fromNodeIds[offset + k], toNodeIds[offset
+								+ k], directed);
+				}
+			}
+
+			manageEvents();
+			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.ADD_EDGE, count, start);
+		} else {
+			for (int k = 0; k < count; k++)
+				eventQueue.add(new AfterEdgeAddEvent(sourceId, timeId + k,
+						edgeIds[offset + k], fromNodeIds[offset + k],
+						toNodeIds[offset + k], directed));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.ADD_EDGE, count);
 		}
 	}
 
@@ -440,7 +720,11 @@ public abstract class SourceBase implements Source {
 	 *            The edge identifier.
 	 */
 	public void sendEdgeRemoved(String sourceId, long timeId, String edgeId) {
-		if (!eventProcessing) {
+		if (batchDepth > 0) {
+			batch.edgeRemoved(sourceId, timeId, edgeId);
+			checkBatch();
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
 			eventProcessing = true;
 			manageEvents();
 
@@ -449,8 +733,14 @@ public abstract class SourceBase implements Source {
 
 			manageEvents();
 			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(EventType.DEL_EDGE, 1, start);
 		} else {
 			eventQueue.add(new BeforeEdgeRemoveEvent(sourceId, timeId, edgeId));
+
+			if (metrics != null)
+				metrics.eventsSent(EventType.DEL_EDGE, 1);
 		}
 	}
 
@@ -805,7 +1095,12 @@ public abstract class SourceBase implements Source {
 	public void sendAttributeChangedEvent(String sourceId, long timeId,
 			String eltId, ElementType eltType, String attribute,
 			AttributeChangeEvent event, Object oldValue, Object newValue) {
-		if (!eventProcessing) {
+		if (batchDepth > 0) {
+			batchAttributeEvent(sourceId, timeId, eltId, eltType, attribute,
+					event, oldValue, newValue);
+			checkBatch();
+		} else if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
 			eventProcessing = true;
 			manageEvents();
 
@@ -855,9 +1150,194 @@ public abstract class SourceBase implements Source {
 
 			manageEvents();
 			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(attributeEventType(eltType, event), 1, start);
 		} else {
 			eventQueue.add(new AttributeChangedEvent(sourceId, timeId, eltId,
 					eltType, attribute, event, oldValue, newValue));
+
+			if (metrics != null)
+				metrics.eventsSent(attributeEventType(eltType, event), 1);
+		}
+	}
+
+	/**
+	 * Send a buffer of events. Sinks implementing {@link BatchSink} that are
+	 * registered both as attribute and element sinks receive the buffer with a
+	 * single call, the other sinks receive the events one by one. The buffer
+	 * still belongs to the caller, that can clear and reuse it once this
+	 * method returns.
+	 * 
+	 * @param events
+	 *            The events to send.
+	 */
+	public void sendBatch(EventBatch events) {
+		if (events.isEmpty())
+			return;
+
+		if (batchDepth > 0)
+			flushBatch();
+
+		if (!eventProcessing) {
+			long start = metrics == null ? 0 : System.nanoTime();
+			eventProcessing = true;
+			manageEvents();
+
+			dispatchBatch(events);
+
+			manageEvents();
+			eventProcessing = false;
+
+			if (metrics != null)
+				metrics.dispatched(events, start);
+		} else {
+			eventQueue.add(new BatchEvent(new EventBatch(events)));
+
+			if (metrics != null)
+				metrics.batchSent(events);
+		}
+	}
+
+	/**
+	 * Start to accumulate the events sent instead of dispatching them at once.
+	 * Calls can be nested, the events are dispatched when the last
+	 * {@link #endBatch()} is called, or each time {@link #BATCH_SIZE} events
+	 * are pending.
+	 * 
+	 * <p>
+	 * Sinks receive the events later than they occurred. This must only be
+	 * used when sinks do not need to look at the source while receiving
+	 * events, for example when the source reads a file.
+	 * </p>
+	 */
+	public void beginBatch() {
+		if (batch == null)
+			batch = new EventBatch();
+
+		batchDepth++;
+	}
+
+	/**
+	 * End a {@link #beginBatch()} call. The last call sends the pending
+	 * events.
+	 */
+	public void endBatch() {
+		if (batchDepth == 1)
+			flushBatch();
+
+		if (batchDepth > 0)
+			batchDepth--;
+	}
+
+	/**
+	 * Send the events accumulated since {@link #beginBatch()}.
+	 */
+	protected void flushBatch() {
+		int depth = batchDepth;
+		batchDepth = 0;
+
+		try {
+			sendBatch(batch);
+		} finally {
+			batch.clear();
+			batchDepth = depth;
+		}
+	}
+
+	private void checkBatch() {
+		if (batch.size() >= BATCH_SIZE)
+			flushBatch();
+	}
+
+	private static EventType attributeEventType(ElementType eltType,
+			AttributeChangeEvent event) {
+		switch (event) {
+		case ADD:
+			return eltType == ElementType.NODE ? EventType.ADD_NODE_ATTR
+					: eltType == ElementType.EDGE ? EventType.ADD_EDGE_ATTR
+							: EventType.ADD_GRAPH_ATTR;
+		case REMOVE:
+			return eltType == ElementType.NODE ? EventType.DEL_NODE_ATTR
+					: eltType == ElementType.EDGE ? EventType.DEL_EDGE_ATTR
+							: EventType.DEL_GRAPH_ATTR;
+		default:
+			return eltType == ElementType.NODE ? EventType.CHG_NODE_ATTR
+					: eltType == ElementType.EDGE ? EventType.CHG_EDGE_ATTR
+							: EventType.CHG_GRAPH_ATTR;
+		}
+	}
+
+	private void batchAttributeEvent(String sourceId, long timeId,
+			String eltId, ElementType eltType, String attribute,
+			AttributeChangeEvent event, Object oldValue, Object newValue) {
+		if (event == AttributeChangeEvent.ADD) {
+			if (eltType == ElementType.NODE)
+				batch.nodeAttributeAdded(sourceId, timeId, eltId, attribute,
+						newValue);
+			else if (eltType == ElementType.EDGE)
+				batch.edgeAttributeAdded(sourceId, timeId, eltId, attribute,
+						newValue);
+			else
+				batch.graphAttributeAdded(sourceId, timeId, attribute,
+						newValue);
+		} else if (event == AttributeChangeEvent.REMOVE) {
+			if (eltType == ElementType.NODE)
+				batch.nodeAttributeRemoved(sourceId, timeId, eltId, attribute);
+			else if (eltType == ElementType.EDGE)
+				batch.edgeAttributeRemoved(sourceId, timeId, eltId, attribute);
+			else
+				batch.graphAttributeRemoved(sourceId, timeId, attribute);
+		} else {
+			if (eltType == ElementType.NODE)
+				batch.nodeAttributeChanged(sourceId, timeId, eltId, attribute,
+						oldValue, newValue);
+			else if (eltType == ElementType.EDGE)
+				batch.edgeAttributeChanged(sourceId, timeId, eltId, attribute,
+						oldValue, newValue);
+			else
+				batch.graphAttributeChanged(sourceId, timeId, attribute,
+						oldValue, newValue);
+		}
+	}
+
+	/**
+	 * Give the buffer to the batch sinks and unroll it for the others.
+	 */
+	private void dispatchBatch(EventBatch events) {
+		batchTargets.clear();
+
+		for (int i = 0; i < eltsSinks.size(); i++) {
+			ElementSink sink = eltsSinks.get(i);
+
+			if (sink instanceof BatchSink && attrSinks.contains(sink))
+				batchTargets.add((BatchSink) sink);
+		}
+
+		for (int i = 0; i < batchTargets.size(); i++)
+			batchTargets.get(i).eventsReceived(events);
+
+		int n = batchTargets.size();
+
+		if (n == eltsSinks.size() && n == attrSinks.size())
+			return;
+
+		for (int k = 0; k < events.size(); k++) {
+			if (events.getType(k).isElementEvent()) {
+				for (int i = 0; i < eltsSinks.size(); i++) {
+					ElementSink sink = eltsSinks.get(i);
+
+					if (n == 0 || !batchTargets.contains(sink))
+						events.replay(k, null, sink);
+				}
+			} else {
+				for (int i = 0; i < attrSinks.size(); i++) {
+					AttributeSink sink = attrSinks.get(i);
+
+					if (n == 0 || !batchTargets.contains(sink))
+						events.replay(k, sink, null);
+				}
+			}
 		}
 	}
 
@@ -1064,6 +1544,19 @@ public abstract class SourceBase implements Source {
 		}
 	}
 
+	class BatchEvent extends GraphEvent {
+		EventBatch events;
+
+		BatchEvent(EventBatch events) {
+			super(null, -1);
+			this.events = events;
+		}
+
+		void trigger() {
+			dispatchBatch(events);
+		}
+	}
+
 	class AddToListEvent<T> extends GraphEvent {
 		List<T> l;
 		T obj;
@@ -401,13 +401,17 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
      */
     public void poll(boolean blocking) {
         try {
-            if (blocking) {
-                if (selector.select() > 0) {
+            int ready = blocking ? selector.select() : selector.selectNow();
+
+            if (ready > 0) {
+                if (metrics == null) {
                     processSelectedKeys();
-                }
-            } else {
-                if (selector.selectNow() > 0) {
+                } else {
+                    long start = System.nanoTime();
+                    long sent = metrics.getEventCount();
+
                     processSelectedKeys();
+                    metrics.pumped((int) (metrics.getEventCount() - sent), start);
                 }
             }
         } catch (IOException e) {
@@ -0,0 +1,682 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.graphstream.stream.file.dgs.BinaryDGS;
+
+/**
+ * File output for the binary DGS file format.
+ * 
+ * <p>
+ * The events are the ones {@link FileSinkDGS} writes, but they are encoded as
+ * described in {@link BinaryDGS} : ids and attribute keys are written once and
+ * then referenced by their index in a table of strings, integers are varints,
+ * and attribute values keep their type. The events are buffered and written by
+ * blocks of about {@link #getBlockSize()} bytes, that can be compressed (see
+ * {@link #setCompressed(boolean)}).
+ * </p>
+ * 
+ * <p>
+ * The output is a stream of bytes, this sink cannot write to a
+ * {@link Writer}. An error occurring while a block is written by a sink method
+ * is thrown by the next call to {@link #flush()} or {@link #end()}.
+ * </p>
+ * 
+ * @see FileSourceBinaryDGS
+ */
+public class FileSinkBinaryDGS extends FileSinkBase {
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * The output.
+	 */
+	protected OutputStream stream;
+
+	/**
+	 * Events not written yet.
+	 */
+	protected byte[] block;
+	protected int position;
+	protected int blockSize;
+
+	/**
+	 * Lengths of a block.
+	 */
+	protected byte[] header = new byte[20];
+
+	protected boolean compressed;
+	protected Deflater deflater;
+	protected byte[] deflated;
+
+	/**
+	 * Index of the strings already written.
+	 */
+	protected HashMap<String, Integer> strings;
+
+	protected String graphName = "";
+
+	/**
+	 * First error met while writing a block.
+	 */
+	protected IOException error;
+
+	/**
+	 * New sink writing uncompressed blocks.
+	 */
+	public FileSinkBinaryDGS() {
+		this(false);
+	}
+
+	/**
+	 * New sink.
+	 * 
+	 * @param compressed
+	 *            if true, blocks are compressed
+	 */
+	public FileSinkBinaryDGS(boolean compressed) {
+		this.compressed = compressed;
+		this.blockSize = BinaryDGS.DEFAULT_BLOCK_SIZE;
+		this.strings = new HashMap<String, Integer>();
+	}
+
+	// *** Settings ***
+
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	/**
+	 * Enable or disable the compression of the blocks. Compression makes files
+	 * smaller but slower to write and to read. This must be set before
+	 * {@link #begin(OutputStream)}.
+	 */
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/**
+	 * Size from which a block of events is written.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Set the size from which a block of events is written. Larger blocks
+	 * compress better.
+	 * 
+	 * @param blockSize
+	 *            a size in bytes
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("block size must be positive");
+
+		this.blockSize = blockSize;
+	}
+
+	// *** Output ***
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSinkBase#begin(java.lang.String)
+	 */
+	@Override
+	public void begin(String fileName) throws IOException {
+		if (stream != null)
+			throw new IOException(
+					"cannot call begin() twice without calling end() before.");
+
+		begin(new BufferedOutputStream(new FileOutputStream(fileName)));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSinkBase#begin(java.io.OutputStream)
+	 */
+	@Override
+	public void begin(OutputStream stream) throws IOException {
+		if (this.stream != null)
+			throw new IOException(
+					"cannot call begin() twice without calling end() before.");
+
+		this.stream = stream;
+		this.block = new byte[blockSize + blockSize / 4];
+		this.position = 0;
+		this.error = null;
+		this.strings.clear();
+
+		if (compressed) {
+			deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			deflated = new byte[block.length];
+		}
+
+		outputHeader();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSinkBase#begin(java.io.Writer)
+	 */
+	@Override
+	public void begin(Writer writer) throws IOException {
+		throw new IOException("binary DGS cannot be written to a Writer");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSinkBase#flush()
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (stream != null) {
+			checkError();
+			writeBlock();
+			stream.flush();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSinkBase#end()
+	 */
+	@Override
+	public void end() throws IOException {
+		try {
+			checkError();
+			outputEndOfFile();
+			stream.flush();
+		} finally {
+			stream.close();
+			stream = null;
+			block = null;
+
+			if (deflater != null) {
+				deflater.end();
+				deflater = null;
+				deflated = null;
+			}
+		}
+	}
+
+	@Override
+	protected void outputHeader() throws IOException {
+		stream.write(BinaryDGS.MAGIC);
+		stream.write(BinaryDGS.VERSION);
+		stream.write(compressed ? BinaryDGS.FLAG_COMPRESSED : 0);
+
+		putString(graphName);
+		stream.write(block, 0, position);
+		position = 0;
+	}
+
+	@Override
+	protected void outputEndOfFile() throws IOException {
+		writeBlock();
+		putVarint(0);
+		putVarint(0);
+		stream.write(block, 0, position);
+		position = 0;
+	}
+
+	private void checkError() throws IOException {
+		if (error != null) {
+			IOException e = error;
+			error = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Write the pending events as a block.
+	 */
+	protected void writeBlock() throws IOException {
+		int length = position;
+		byte[] data = block;
+		int stored = length;
+		int n;
+
+		if (length == 0)
+			return;
+
+		if (compressed) {
+			if (deflated.length < length)
+				deflated = new byte[block.length];
+
+			deflater.reset();
+			deflater.setInput(block, 0, length);
+			deflater.finish();
+			n = deflater.deflate(deflated, 0, deflated.length);
+
+			//
+			// Keep the events as they are if compression does not save space.
+			//
+			if (deflater.finished() && n < length) {
+				data = deflated;
+				stored = n;
+			}
+		}
+
+		n = varint(header, 0, length);
+		n = varint(header, n, stored);
+
+		position = 0;
+		stream.write(header, 0, n);
+		stream.write(data, 0, stored);
+	}
+
+	/**
+	 * Write the block once it is large enough. Errors are kept until
+	 * {@link #flush()} or {@link #end()}.
+	 */
+	protected void eventWritten() {
+		if (position >= blockSize) {
+			try {
+				writeBlock();
+			} catch (IOException e) {
+				if (error == null)
+					error = e;
+
+				position = 0;
+			}
+		}
+	}
+
+	// *** Encoding ***
+
+	protected void ensure(int n) {
+		if (position + n > block.length)
+			block = Arrays.copyOf(block, Math.max(block.length * 2, position
+					+ n));
+	}
+
+	protected void putByte(int b) {
+		ensure(1);
+		block[position++] = (byte) b;
+	}
+
+	protected void putVarint(long n) {
+		ensure(10);
+		position = varint(block, position, n);
+	}
+
+	/**
+	 * Encode an unsigned varint.
+	 * 
+	 * @return The offset following the varint.
+	 */
+	protected static int varint(byte[] buffer, int offset, long n) {
+		while ((n & ~0x7FL) != 0) {
+			buffer[offset++] = (byte) ((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+
+		buffer[offset++] = (byte) n;
+		return offset;
+	}
+
+	protected void putZigzag(long n) {
+		putVarint((n << 1) ^ (n >> 63));
+	}
+
+	protected void putInt(int n) {
+		ensure(4);
+		block[position++] = (byte) (n >>> 24);
+		block[position++] = (byte) (n >>> 16);
+		block[position++] = (byte) (n >>> 8);
+		block[position++] = (byte) n;
+	}
+
+	protected void putLong(long n) {
+		putInt((int) (n >>> 32));
+		putInt((int) n);
+	}
+
+	protected void putString(String s) {
+		int length = s.length();
+		int i;
+
+		//
+		// ASCII strings are copied as they are, others are encoded.
+		//
+		for (i = 0; i < length && s.charAt(i) < 0x80; i++)
+			;
+
+		if (i == length) {
+			putVarint(length);
+			ensure(length);
+
+			for (i = 0; i < length; i++)
+				block[position++] = (byte) s.charAt(i);
+		} else {
+			byte[] bytes = s.getBytes(UTF8);
+			putVarint(bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, block, position, bytes.length);
+			position += bytes.length;
+		}
+	}
+
+	/**
+	 * Write a string through the table of strings.
+	 */
+	protected void putId(String id) {
+		Integer index = strings.get(id);
+
+		if (index != null) {
+			putVarint(index + 1);
+		} else {
+			if (strings.size() == BinaryDGS.STRING_TABLE_SIZE)
+				strings.clear();
+
+			strings.put(id, strings.size());
+			putVarint(0);
+			putString(id);
+		}
+	}
+
+	protected void putValue(Object value) {
+		if (value == null) {
+			putByte(BinaryDGS.TYPE_NULL);
+		} else if (value instanceof String) {
+			putByte(BinaryDGS.TYPE_STRING);
+			putString((String) value);
+		} else if (value instanceof Integer) {
+			putByte(BinaryDGS.TYPE_INT);
+			putZigzag((Integer) value);
+		} else if (value instanceof Double) {
+			putByte(BinaryDGS.TYPE_DOUBLE);
+			putLong(Double.doubleToRawLongBits((Double) value));
+		} else if (value instanceof Boolean) {
+			putByte(BinaryDGS.TYPE_BOOLEAN);
+			putByte((Boolean) value ? 1 : 0);
+		} else if (value instanceof Long) {
+			putByte(BinaryDGS.TYPE_LONG);
+			putZigzag((Long) value);
+		} else if (value instanceof Float) {
+			putByte(BinaryDGS.TYPE_FLOAT);
+			putInt(Float.floatToRawIntBits((Float) value));
+		} else if (value instanceof Short) {
+			putByte(BinaryDGS.TYPE_SHORT);
+			putZigzag((Short) value);
+		} else if (value instanceof Byte) {
+			putByte(BinaryDGS.TYPE_BYTE);
+			putByte((Byte) value);
+		} else if (value instanceof Color) {
+			Color c = (Color) value;
+			putByte(BinaryDGS.TYPE_COLOR);
+			putByte(c.getRed());
+			putByte(c.getGreen());
+			putByte(c.getBlue());
+			putByte(c.getAlpha());
+		} else if (value instanceof Object[]) {
+			Object[] array = (Object[]) value;
+			putByte(BinaryDGS.TYPE_ARRAY);
+			putVarint(array.length);
+
+			for (Object o : array)
+				putValue(o);
+		} else if (value instanceof double[]) {
+			double[] array = (double[]) value;
+			putByte(BinaryDGS.TYPE_DOUBLE_ARRAY);
+			putVarint(array.length);
+
+			for (double d : array)
+				putLong(Double.doubleToRawLongBits(d));
+		} else if (value instanceof float[]) {
+			float[] array = (float[]) value;
+			putByte(BinaryDGS.TYPE_FLOAT_ARRAY);
+			putVarint(array.length);
+
+			for (float f : array)
+				putInt(Float.floatToRawIntBits(f));
+		} else if (value instanceof int[]) {
+			int[] array = (int[]) value;
+			putByte(BinaryDGS.TYPE_INT_ARRAY);
+			putVarint(array.length);
+
+			for (int n : array)
+				putZigzag(n);
+		} else if (value instanceof long[]) {
+			long[] array = (long[]) value;
+			putByte(BinaryDGS.TYPE_LONG_ARRAY);
+			putVarint(array.length);
+
+			for (long n : array)
+				putZigzag(n);
+		} else if (value instanceof short[]) {
+			short[] array = (short[]) value;
+			putByte(BinaryDGS.TYPE_SHORT_ARRAY);
+			putVarint(array.length);
+
+			for (short n : array)
+				putZigzag(n);
+		} else if (value instanceof byte[]) {
+			byte[] array = (byte[]) value;
+			putByte(BinaryDGS.TYPE_BYTE_ARRAY);
+			putVarint(array.length);
+			ensure(array.length);
+			System.arraycopy(array, 0, block, position, array.length);
+			position += array.length;
+		} else if (value instanceof boolean[]) {
+			boolean[] array = (boolean[]) value;
+			putByte(BinaryDGS.TYPE_BOOLEAN_ARRAY);
+			putVarint(array.length);
+
+			for (boolean b : array)
+				putByte(b ? 1 : 0);
+		} else if (value instanceof Map<?, ?> && hasStringKeys((Map<?, ?>) value)) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			putByte(BinaryDGS.TYPE_MAP);
+			putVarint(map.size());
+
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				putId((String) entry.getKey());
+				putValue(entry.getValue());
+			}
+		} else if (value instanceof Serializable) {
+			putSerialized(value);
+		} else {
+			putByte(BinaryDGS.TYPE_STRING);
+			putString(value.toString());
+		}
+	}
+
+	private static boolean hasStringKeys(Map<?, ?> map) {
+		for (Object key : map.keySet())
+			if (!(key instanceof String))
+				return false;
+
+		return true;
+	}
+
+	protected void putSerialized(Object value) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(value);
+			out.close();
+		} catch (IOException e) {
+			//
+			// An object that is serializable but fails, for example because
+			// of one of its fields, is written as a string.
+			//
+			putByte(BinaryDGS.TYPE_STRING);
+			putString(value.toString());
+			return;
+		}
+
+		byte[] data = bytes.toByteArray();
+		putByte(BinaryDGS.TYPE_RAW);
+		putVarint(data.length);
+		ensure(data.length);
+		System.arraycopy(data, 0, block, position, data.length);
+		position += data.length;
+	}
+
+	// *** Sink ***
+
+	public void edgeAttributeAdded(String sourceId, long timeId,
+			String edgeId, String attribute, Object value) {
+		putByte(BinaryDGS.EVENT_ADD_EDGE_ATTR);
+		putId(edgeId);
+		putId(attribute);
+		putValue(value);
+		eventWritten();
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		putByte(BinaryDGS.EVENT_CHG_EDGE_ATTR);
+		putId(edgeId);
+		putId(attribute);
+		putValue(newValue);
+		eventWritten();
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId,
+			String edgeId, String attribute) {
+		putByte(BinaryDGS.EVENT_DEL_EDGE_ATTR);
+		putId(edgeId);
+		putId(attribute);
+		eventWritten();
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		putByte(BinaryDGS.EVENT_ADD_GRAPH_ATTR);
+		putId(attribute);
+		putValue(value);
+		eventWritten();
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		putByte(BinaryDGS.EVENT_CHG_GRAPH_ATTR);
+		putId(attribute);
+		putValue(newValue);
+		eventWritten();
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId,
+			String attribute) {
+		putByte(BinaryDGS.EVENT_DEL_GRAPH_ATTR);
+		putId(attribute);
+		eventWritten();
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId,
+			String nodeId, String attribute, Object value) {
+		putByte(BinaryDGS.EVENT_ADD_NODE_ATTR);
+		putId(nodeId);
+		putId(attribute);
+		putValue(value);
+		eventWritten();
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		putByte(BinaryDGS.EVENT_CHG_NODE_ATTR);
+		putId(nodeId);
+		putId(attribute);
+		putValue(newValue);
+		eventWritten();
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId,
+			String nodeId, String attribute) {
+		putByte(BinaryDGS.EVENT_DEL_NODE_ATTR);
+		putId(nodeId);
+		putId(attribute);
+		eventWritten();
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		putByte(BinaryDGS.EVENT_ADD_NODE);
+		putId(nodeId);
+		eventWritten();
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		putByte(BinaryDGS.EVENT_DEL_NODE);
+		putId(nodeId);
+		eventWritten();
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		putByte(BinaryDGS.EVENT_ADD_EDGE);
+		putId(edgeId);
+		putId(fromNodeId);
+		putId(toNodeId);
+		putByte(directed ? 1 : 0);
+		eventWritten();
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		putByte(BinaryDGS.EVENT_DEL_EDGE);
+		putId(edgeId);
+		eventWritten();
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		putByte(BinaryDGS.EVENT_CLEARED);
+		eventWritten();
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		putByte(BinaryDGS.EVENT_STEP);
+		putLong(Double.doubleToRawLongBits(step));
+		eventWritten();
+	}
+}
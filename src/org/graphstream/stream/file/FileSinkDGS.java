@@ -32,16 +32,31 @@
 package org.graphstream.stream.file;
 
 import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.lang.reflect.Array;
 import java.util.HashMap;
 import java.util.Locale;
 
 import org.graphstream.graph.CompoundAttribute;
+import org.graphstream.stream.file.dgs.DGSIndex;
+import org.graphstream.stream.file.dgs.DGSIndexWriter;
 
 /**
  * File output for the DGS (Dynamic Graph Stream) file format.
+ * 
+ * <p>
+ * When {@link #setIndexed(boolean)} is enabled, files written by
+ * {@link #begin(String)} get a {@link DGSIndex} file that allows to replay
+ * them from any step.
+ * </p>
  */
 public class FileSinkDGS extends FileSinkBase {
 	// Attribute
@@ -53,8 +68,60 @@ public class FileSinkDGS extends FileSinkBase {
 
 	protected String graphName = "";
 
+	protected boolean indexed;
+	protected long checkpointInterval = DGSIndex.DEFAULT_CHECKPOINT_INTERVAL;
+
+	/**
+	 * Output of an indexed file, counting the bytes written.
+	 */
+	protected OffsetOutputStream stream;
+	protected String indexedFileName;
+	protected String indexFileName;
+	protected DGSIndexWriter index;
+
+	// Access
+
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+	/**
+	 * Enable or disable the writing of an index along with the files written
+	 * by {@link #begin(String)}. The index is written in the file named by
+	 * {@link DGSIndex#indexFileName(String)}. This must be set before
+	 * {@link #begin(String)}.
+	 */
+	public void setIndexed(boolean indexed) {
+		this.indexed = indexed;
+	}
+
+	/**
+	 * Set the minimal number of bytes of the file between two checkpoints of
+	 * the index.
+	 */
+	public void setCheckpointInterval(long checkpointInterval) {
+		if (checkpointInterval <= 0)
+			throw new IllegalArgumentException(
+					"checkpoint interval must be positive");
+
+		this.checkpointInterval = checkpointInterval;
+	}
+
 	// Command
 
+	@Override
+	protected Writer createWriter(String fileName) throws IOException {
+		if (!indexed)
+			return super.createWriter(fileName);
+
+		stream = new OffsetOutputStream(new FileOutputStream(fileName));
+		indexedFileName = fileName;
+		indexFileName = DGSIndex.indexFileName(fileName);
+
+		return new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+				stream)));
+	}
+
 	@Override
 	protected void outputHeader() throws IOException {
 		out = (PrintWriter) output;
@@ -65,6 +132,41 @@ public class FileSinkDGS extends FileSinkBase {
 			out.printf("null 0 0%n");
 		else
 			out.printf("\"%s\" 0 0%n", FileSinkDGSUtility.formatStringForQuoting(graphName));
+
+		if (stream != null) {
+			out.flush();
+			index = new DGSIndexWriter(indexFileName, stream.offset,
+					checkpointInterval);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		super.flush();
+
+		if (stream != null)
+			stream.sync();
+	}
+
+	@Override
+	public void end() throws IOException {
+		DGSIndexWriter index = this.index;
+		OffsetOutputStream stream = this.stream;
+
+		this.index = null;
+		this.stream = null;
+
+		try {
+			super.end();
+		} catch (IOException e) {
+			if (index != null)
+				index.abort();
+
+			throw e;
+		}
+
+		if (index != null)
+			index.close(stream.offset, new File(indexedFileName).lastModified());
 	}
 
 	@Override
@@ -79,12 +181,19 @@ public class FileSinkDGS extends FileSinkBase {
 
 	public void edgeAttributeChanged(String graphId, long timeId,
 			String edgeId, String attribute, Object oldValue, Object newValue) {
+		if (index != null)
+			index.edgeAttributeChanged(graphId, timeId, edgeId,
+					attribute, oldValue, newValue);
+
 		out.printf("ce \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(edgeId),
 				FileSinkDGSUtility.attributeString(attribute, newValue, false));
 	}
 
 	public void edgeAttributeRemoved(String graphId, long timeId,
 			String edgeId, String attribute) {
+		if (index != null)
+			index.edgeAttributeRemoved(graphId, timeId, edgeId, attribute);
+
 		out.printf("ce \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(edgeId),
 				FileSinkDGSUtility.attributeString(attribute, null, true));
 	}
@@ -96,11 +205,18 @@ public class FileSinkDGS extends FileSinkBase {
 
 	public void graphAttributeChanged(String graphId, long timeId,
 			String attribute, Object oldValue, Object newValue) {
+		if (index != null)
+			index.graphAttributeChanged(graphId, timeId, attribute,
+					oldValue, newValue);
+
 		out.printf("cg %s%n", FileSinkDGSUtility.attributeString(attribute, newValue, false));
 	}
 
 	public void graphAttributeRemoved(String graphId, long timeId,
 			String attribute) {
+		if (index != null)
+			index.graphAttributeRemoved(graphId, timeId, attribute);
+
 		out.printf("cg %s%n", FileSinkDGSUtility.attributeString(attribute, null, true));
 	}
 
@@ -111,18 +227,29 @@ public class FileSinkDGS extends FileSinkBase {
 
 	public void nodeAttributeChanged(String graphId, long timeId,
 			String nodeId, String attribute, Object oldValue, Object newValue) {
+		if (index != null)
+			index.nodeAttributeChanged(graphId, timeId, nodeId,
+					attribute, oldValue, newValue);
+
 		out.printf("cn \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(nodeId),
 				FileSinkDGSUtility.attributeString(attribute, newValue, false));
 	}
 
 	public void nodeAttributeRemoved(String graphId, long timeId,
 			String nodeId, String attribute) {
+		if (index != null)
+			index.nodeAttributeRemoved(graphId, timeId, nodeId, attribute);
+
 		out.printf("cn \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(nodeId),
 				FileSinkDGSUtility.attributeString(attribute, null, true));
 	}
 
 	public void edgeAdded(String graphId, long timeId, String edgeId,
 			String fromNodeId, String toNodeId, boolean directed) {
+		if (index != null)
+			index.edgeAdded(graphId, timeId, edgeId, fromNodeId,
+					toNodeId, directed);
+
 		edgeId = FileSinkDGSUtility.formatStringForQuoting(edgeId);
 		fromNodeId = FileSinkDGSUtility.formatStringForQuoting(fromNodeId);
 		toNodeId = FileSinkDGSUtility.formatStringForQuoting(toNodeId);
@@ -132,22 +259,86 @@ public class FileSinkDGS extends FileSinkBase {
 	}
 
 	public void edgeRemoved(String graphId, long timeId, String edgeId) {
+		if (index != null)
+			index.edgeRemoved(graphId, timeId, edgeId);
+
 		out.printf("de \"%s\"%n", FileSinkDGSUtility.formatStringForQuoting(edgeId));
 	}
 
 	public void graphCleared(String graphId, long timeId) {
+		if (index != null)
+			index.graphCleared(graphId, timeId);
+
 		out.printf("cl%n");
 	}
 
 	public void nodeAdded(String graphId, long timeId, String nodeId) {
+		if (index != null)
+			index.nodeAdded(graphId, timeId, nodeId);
+
 		out.printf("an \"%s\"%n", FileSinkDGSUtility.formatStringForQuoting(nodeId));
 	}
 
 	public void nodeRemoved(String graphId, long timeId, String nodeId) {
+		if (index != null)
+			index.nodeRemoved(graphId, timeId, nodeId);
+
 		out.printf("dn \"%s\"%n", FileSinkDGSUtility.formatStringForQuoting(nodeId));
 	}
 
 	public void stepBegins(String graphId, long timeId, double step) {
+		if (index != null) {
+			out.flush();
+			index.stepOffset(stream.offset);
+			index.stepBegins(graphId, timeId, step);
+		}
+
 		out.printf(Locale.US, "st %f%n", step);
 	}
+
+	/**
+	 * Buffered output counting the bytes written. Flushing the writer only
+	 * pushes its bytes to this stream, which writes them to the file when it
+	 * is full, synchronized or closed.
+	 */
+	protected static class OffsetOutputStream extends BufferedOutputStream {
+		protected long offset;
+
+		public OffsetOutputStream(OutputStream out) {
+			super(out, 64 * 1024);
+		}
+
+		@Override
+		public synchronized void write(int b) throws IOException {
+			super.write(b);
+			offset++;
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len)
+				throws IOException {
+			super.write(b, off, len);
+			offset += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		/**
+		 * Write the buffered bytes to the file.
+		 */
+		public synchronized void sync() throws IOException {
+			super.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				sync();
+			} finally {
+				out.close();
+			}
+		}
+	}
 }
\ No newline at end of file
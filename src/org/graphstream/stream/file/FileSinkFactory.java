@@ -50,6 +50,7 @@ public class FileSinkFactory {
 
 		ext2sink.put("dgs", FileSinkDGS.class);
 		ext2sink.put("dgsz", FileSinkDGS.class);
+		ext2sink.put("dgsb", FileSinkBinaryDGS.class);
 		ext2sink.put("dgml", FileSinkDynamicGML.class);
 		ext2sink.put("gml", FileSinkGML.class);
 		ext2sink.put("graphml", FileSinkGraphML.class);
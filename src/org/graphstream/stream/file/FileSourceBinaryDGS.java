@@ -0,0 +1,707 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.file.dgs.BinaryDGS;
+
+/**
+ * File input for the binary DGS file format.
+ * 
+ * <p>
+ * This source reads the files written by {@link FileSinkBinaryDGS}, whose
+ * format is described in {@link BinaryDGS}. Blocks are read whole, then the
+ * events are decoded from the bytes of the block, ids and attribute keys being
+ * taken from the table of strings instead of being decoded again.
+ * </p>
+ * 
+ * <p>
+ * As with {@link FileSourceDGS}, {@link #nextStep()} reads the events until
+ * the next step, which is sent by the following call. The input is a stream of
+ * bytes, this source cannot read from a {@link Reader}.
+ * </p>
+ */
+public class FileSourceBinaryDGS extends SourceBase implements FileSource {
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Size of the buffer of a file.
+	 */
+	protected static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The input.
+	 */
+	protected InputStream stream;
+
+	/**
+	 * Events of the current block.
+	 */
+	protected byte[] block;
+	protected int position, limit;
+
+	protected boolean compressed;
+	protected Inflater inflater;
+	protected byte[] stored;
+
+	/**
+	 * Strings read so far, by index.
+	 */
+	protected ArrayList<String> strings;
+
+	/**
+	 * True once the block ending the file is read.
+	 */
+	protected boolean finished;
+
+	public FileSourceBinaryDGS() {
+		super(String.format("<DGSB stream %x>", System.nanoTime()));
+		strings = new ArrayList<String>();
+	}
+
+	// *** Reading ***
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.lang.String)
+	 */
+	public void readAll(String fileName) throws IOException {
+		begin(fileName);
+		readAll();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.net.URL)
+	 */
+	public void readAll(URL url) throws IOException {
+		begin(url);
+		readAll();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.io.InputStream)
+	 */
+	public void readAll(InputStream stream) throws IOException {
+		begin(stream);
+		readAll();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.io.Reader)
+	 */
+	public void readAll(Reader reader) throws IOException {
+		begin(reader);
+	}
+
+	protected void readAll() throws IOException {
+		beginBatch();
+
+		try {
+			while (nextEvents())
+				;
+		} finally {
+			endBatch();
+			end();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.lang.String)
+	 */
+	public void begin(String fileName) throws IOException {
+		begin(new BufferedInputStream(new FileInputStream(fileName),
+				BUFFER_SIZE));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.net.URL)
+	 */
+	public void begin(URL url) throws IOException {
+		begin(new BufferedInputStream(url.openStream(), BUFFER_SIZE));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.io.InputStream)
+	 */
+	public void begin(InputStream stream) throws IOException {
+		if (this.stream != null)
+			end();
+
+		this.stream = stream;
+		this.block = new byte[BinaryDGS.DEFAULT_BLOCK_SIZE * 2];
+		this.position = 0;
+		this.limit = 0;
+		this.finished = false;
+		this.strings.clear();
+
+		try {
+			readHeader();
+		} catch (IOException e) {
+			end();
+			throw e;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.io.Reader)
+	 */
+	public void begin(Reader reader) throws IOException {
+		throw new IOException("binary DGS cannot be read from a Reader");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#nextEvents()
+	 */
+	public boolean nextEvents() throws IOException {
+		if (!available())
+			return false;
+
+		readEvent();
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#nextStep()
+	 */
+	public boolean nextStep() throws IOException {
+		if (!nextEvents())
+			return false;
+
+		while (available() && block[position] != BinaryDGS.EVENT_STEP)
+			readEvent();
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#end()
+	 */
+	public void end() throws IOException {
+		if (stream != null) {
+			stream.close();
+			stream = null;
+		}
+
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+
+		block = null;
+		stored = null;
+		strings.clear();
+	}
+
+	// *** Blocks ***
+
+	protected void readHeader() throws IOException {
+		byte[] magic = new byte[BinaryDGS.MAGIC.length];
+
+		readFully(magic, 0, magic.length);
+
+		for (int i = 0; i < magic.length; i++)
+			if (magic[i] != BinaryDGS.MAGIC[i])
+				throw new IOException("not a binary DGS file");
+
+		int version = stream.read();
+
+		if (version != BinaryDGS.VERSION)
+			throw new IOException("unsupported binary DGS version " + version);
+
+		int flags = stream.read();
+
+		if (flags < 0)
+			throw new EOFException();
+
+		compressed = (flags & BinaryDGS.FLAG_COMPRESSED) != 0;
+
+		if (compressed)
+			inflater = new Inflater(true);
+
+		int length = (int) readStreamVarint();
+		ensure(length);
+		readFully(block, 0, length);
+		graphName(new String(block, 0, length, UTF8));
+	}
+
+	/**
+	 * Called with the name of the graph stored in the header. The name is not
+	 * sent to the sinks.
+	 */
+	protected void graphName(String name) {
+	}
+
+	/**
+	 * True if there are events left, reading the next block if the current
+	 * one is consumed.
+	 */
+	protected boolean available() throws IOException {
+		while (position >= limit) {
+			if (finished || stream == null)
+				return false;
+
+			readBlock();
+		}
+
+		return true;
+	}
+
+	protected void readBlock() throws IOException {
+		int length = (int) readStreamVarint();
+		int size = (int) readStreamVarint();
+
+		position = 0;
+		limit = 0;
+
+		if (length == 0) {
+			finished = true;
+			return;
+		}
+
+		ensure(length);
+
+		if (size == length) {
+			readFully(block, 0, length);
+		} else {
+			if (!compressed)
+				throw new IOException("compressed block in an uncompressed file");
+
+			if (stored == null || stored.length < size)
+				stored = new byte[Math.max(size, BinaryDGS.DEFAULT_BLOCK_SIZE)];
+
+			readFully(stored, 0, size);
+			inflater.reset();
+			inflater.setInput(stored, 0, size);
+
+			try {
+				if (inflater.inflate(block, 0, length) != length)
+					throw new IOException("truncated compressed block");
+			} catch (DataFormatException e) {
+				throw new IOException(e);
+			}
+		}
+
+		limit = length;
+	}
+
+	private void ensure(int length) {
+		if (block.length < length)
+			block = new byte[length];
+	}
+
+	private void readFully(byte[] buffer, int offset, int length)
+			throws IOException {
+		while (length > 0) {
+			int r = stream.read(buffer, offset, length);
+
+			if (r < 0)
+				throw new EOFException("unexpected end of binary DGS stream");
+
+			offset += r;
+			length -= r;
+		}
+	}
+
+	private long readStreamVarint() throws IOException {
+		long n = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = stream.read();
+
+			if (b < 0)
+				throw new EOFException("unexpected end of binary DGS stream");
+
+			n |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return n;
+	}
+
+	// *** Decoding ***
+
+	protected IOException malformed() {
+		return new IOException("malformed binary DGS block");
+	}
+
+	protected int getByte() throws IOException {
+		if (position >= limit)
+			throw malformed();
+
+		return block[position++];
+	}
+
+	protected long getVarint() throws IOException {
+		long n = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			if (position >= limit || shift > 63)
+				throw malformed();
+
+			b = block[position++];
+			n |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return n;
+	}
+
+	protected int getLength() throws IOException {
+		long n = getVarint();
+
+		if (n > Integer.MAX_VALUE)
+			throw malformed();
+
+		return (int) n;
+	}
+
+	protected long getZigzag() throws IOException {
+		long n = getVarint();
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	protected int getInt() throws IOException {
+		if (limit - position < 4)
+			throw malformed();
+
+		int n = ((block[position] & 0xFF) << 24)
+				| ((block[position + 1] & 0xFF) << 16)
+				| ((block[position + 2] & 0xFF) << 8)
+				| (block[position + 3] & 0xFF);
+
+		position += 4;
+		return n;
+	}
+
+	protected long getLong() throws IOException {
+		long high = getInt();
+		return (high << 32) | (getInt() & 0xFFFFFFFFL);
+	}
+
+	protected double getDouble() throws IOException {
+		return Double.longBitsToDouble(getLong());
+	}
+
+	protected String getString() throws IOException {
+		int length = getLength();
+
+		if (length > limit - position)
+			throw malformed();
+
+		String s = new String(block, position, length, UTF8);
+		position += length;
+
+		return s;
+	}
+
+	/**
+	 * Read a string through the table of strings.
+	 */
+	protected String getId() throws IOException {
+		long index = getVarint();
+
+		if (index == 0) {
+			String s = getString();
+
+			if (strings.size() == BinaryDGS.STRING_TABLE_SIZE)
+				strings.clear();
+
+			strings.add(s);
+			return s;
+		}
+
+		if (index > strings.size())
+			throw malformed();
+
+		return strings.get((int) index - 1);
+	}
+
+	protected Object getValue() throws IOException {
+		int type = getByte();
+		int n;
+
+		switch (type) {
+		case BinaryDGS.TYPE_NULL:
+			return null;
+		case BinaryDGS.TYPE_STRING:
+			return getString();
+		case BinaryDGS.TYPE_INT:
+			return (int) getZigzag();
+		case BinaryDGS.TYPE_DOUBLE:
+			return getDouble();
+		case BinaryDGS.TYPE_BOOLEAN:
+			return getByte() != 0;
+		case BinaryDGS.TYPE_LONG:
+			return getZigzag();
+		case BinaryDGS.TYPE_FLOAT:
+			return Float.intBitsToFloat(getInt());
+		case BinaryDGS.TYPE_SHORT:
+			return (short) getZigzag();
+		case BinaryDGS.TYPE_BYTE:
+			return (byte) getByte();
+		case BinaryDGS.TYPE_COLOR:
+			return new Color(getByte() & 0xFF, getByte() & 0xFF,
+					getByte() & 0xFF, getByte() & 0xFF);
+		case BinaryDGS.TYPE_ARRAY: {
+			Object[] array = new Object[getCount(1)];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = getValue();
+
+			return array;
+		}
+		case BinaryDGS.TYPE_DOUBLE_ARRAY: {
+			double[] array = new double[getCount(8)];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = getDouble();
+
+			return array;
+		}
+		case BinaryDGS.TYPE_FLOAT_ARRAY: {
+			float[] array = new float[getCount(4)];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = Float.intBitsToFloat(getInt());
+
+			return array;
+		}
+		case BinaryDGS.TYPE_INT_ARRAY: {
+			int[] array = new int[getCount(1)];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = (int) getZigzag();
+
+			return array;
+		}
+		case BinaryDGS.TYPE_LONG_ARRAY: {
+			long[] array = new long[getCount(1)];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = getZigzag();
+
+			return array;
+		}
+		case BinaryDGS.TYPE_SHORT_ARRAY: {
+			short[] array = new short[getCount(1)];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = (short) getZigzag();
+
+			return array;
+		}
+		case BinaryDGS.TYPE_BYTE_ARRAY: {
+			byte[] array = new byte[getCount(1)];
+			System.arraycopy(block, position, array, 0, array.length);
+			position += array.length;
+
+			return array;
+		}
+		case BinaryDGS.TYPE_BOOLEAN_ARRAY: {
+			boolean[] array = new boolean[getCount(1)];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = getByte() != 0;
+
+			return array;
+		}
+		case BinaryDGS.TYPE_MAP: {
+			n = getCount(2);
+			HashMap<String, Object> map = new HashMap<String, Object>();
+
+			for (int i = 0; i < n; i++) {
+				String key = getId();
+				map.put(key, getValue());
+			}
+
+			return map;
+		}
+		case BinaryDGS.TYPE_RAW:
+			n = getCount(1);
+
+			try {
+				ObjectInputStream in = new ObjectInputStream(
+						new ByteArrayInputStream(block, position, n));
+				position += n;
+
+				return in.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+		default:
+			throw new IOException(String.format(
+					"unknown value type 0x%x in binary DGS", type));
+		}
+	}
+
+	/**
+	 * Number of elements of an array, checked against the bytes left in the
+	 * block.
+	 */
+	private int getCount(int minimumSize) throws IOException {
+		int n = getLength();
+
+		if ((long) n * minimumSize > limit - position)
+			throw malformed();
+
+		return n;
+	}
+
+	/**
+	 * Decode the next event and send it.
+	 */
+	protected void readEvent() throws IOException {
+		int type = getByte();
+		String id, key;
+
+		switch (type) {
+		case BinaryDGS.EVENT_ADD_NODE:
+			sendNodeAdded(sourceId, getId());
+			break;
+		case BinaryDGS.EVENT_DEL_NODE:
+			sendNodeRemoved(sourceId, getId());
+			break;
+		case BinaryDGS.EVENT_ADD_EDGE: {
+			String edgeId = getId();
+			String from = getId();
+			String to = getId();
+
+			sendEdgeAdded(sourceId, edgeId, from, to, getByte() != 0);
+			break;
+		}
+		case BinaryDGS.EVENT_DEL_EDGE:
+			sendEdgeRemoved(sourceId, getId());
+			break;
+		case BinaryDGS.EVENT_STEP:
+			sendStepBegins(sourceId, getDouble());
+			break;
+		case BinaryDGS.EVENT_CLEARED:
+			sendGraphCleared(sourceId);
+			break;
+		case BinaryDGS.EVENT_ADD_GRAPH_ATTR:
+			key = getId();
+			sendAttributeChangedEvent(sourceId, null, ElementType.GRAPH, key,
+					AttributeChangeEvent.ADD, null, getValue());
+			break;
+		case BinaryDGS.EVENT_CHG_GRAPH_ATTR:
+			key = getId();
+			sendAttributeChangedEvent(sourceId, null, ElementType.GRAPH, key,
+					AttributeChangeEvent.CHANGE, null, getValue());
+			break;
+		case BinaryDGS.EVENT_DEL_GRAPH_ATTR:
+			sendAttributeChangedEvent(sourceId, null, ElementType.GRAPH,
+					getId(), AttributeChangeEvent.REMOVE, null, null);
+			break;
+		case BinaryDGS.EVENT_ADD_NODE_ATTR:
+			id = getId();
+			key = getId();
+			sendAttributeChangedEvent(sourceId, id, ElementType.NODE, key,
+					AttributeChangeEvent.ADD, null, getValue());
+			break;
+		case BinaryDGS.EVENT_CHG_NODE_ATTR:
+			id = getId();
+			key = getId();
+			sendAttributeChangedEvent(sourceId, id, ElementType.NODE, key,
+					AttributeChangeEvent.CHANGE, null, getValue());
+			break;
+		case BinaryDGS.EVENT_DEL_NODE_ATTR:
+			id = getId();
+			key = getId();
+			sendAttributeChangedEvent(sourceId, id, ElementType.NODE, key,
+					AttributeChangeEvent.REMOVE, null, null);
+			break;
+		case BinaryDGS.EVENT_ADD_EDGE_ATTR:
+			id = getId();
+			key = getId();
+			sendAttributeChangedEvent(sourceId, id, ElementType.EDGE, key,
+					AttributeChangeEvent.ADD, null, getValue());
+			break;
+		case BinaryDGS.EVENT_CHG_EDGE_ATTR:
+			id = getId();
+			key = getId();
+			sendAttributeChangedEvent(sourceId, id, ElementType.EDGE, key,
+					AttributeChangeEvent.CHANGE, null, getValue());
+			break;
+		case BinaryDGS.EVENT_DEL_EDGE_ATTR:
+			id = getId();
+			key = getId();
+			sendAttributeChangedEvent(sourceId, id, ElementType.EDGE, key,
+					AttributeChangeEvent.REMOVE, null, null);
+			break;
+		default:
+			throw new IOException(String.format(
+					"unknown event type 0x%x in binary DGS", type));
+		}
+	}
+}
@@ -37,8 +37,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.channels.FileChannel;
 import java.util.zip.GZIPInputStream;
 
+import org.graphstream.stream.file.dgs.DGSByteParser;
+import org.graphstream.stream.file.dgs.DGSIndex;
 import org.graphstream.stream.file.dgs.DGSParser;
 import org.graphstream.util.parser.ParseException;
 import org.graphstream.util.parser.Parser;
@@ -56,9 +59,29 @@ import org.graphstream.util.parser.ParserFactory;
  * 
  * The usual file name extension used for this format is ".dgs".
  * 
+ * <p>
+ * A file opened with {@link #begin(String)} can be replayed from any of its
+ * steps with {@link #seekStep(double)}, thanks to a {@link DGSIndex}.
+ * </p>
+ * 
  * @see FileSource
  */
 public class FileSourceDGS extends FileSourceParser {
+	/**
+	 * Name of the file opened by {@link #begin(String)}.
+	 */
+	protected String fileName;
+
+	/**
+	 * Index of this file, read by the first seek.
+	 */
+	protected DGSIndex index;
+
+	/**
+	 * Channel of the file, once a step was seeked.
+	 */
+	protected FileChannel channel;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -75,12 +98,123 @@ public class FileSourceDGS extends FileSourceParser {
 	@Override
 	public boolean nextStep() throws IOException {
 		try {
+			if (parser instanceof DGSByteParser)
+				return ((DGSByteParser) parser).nextStep();
+
 			return ((DGSParser) parser).nextStep();
 		} catch (ParseException e) {
 			throw new IOException(e);
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSourceParser#begin(java.lang.String)
+	 */
+	@Override
+	public void begin(String fileName) throws IOException {
+		super.begin(fileName);
+		this.fileName = fileName;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSourceParser#end()
+	 */
+	@Override
+	public void end() throws IOException {
+		try {
+			if (parser != null)
+				super.end();
+		} finally {
+			if (channel != null) {
+				channel.close();
+				channel = null;
+			}
+
+			fileName = null;
+			index = null;
+		}
+	}
+
+	/**
+	 * Go to a step of the file opened by {@link #begin(String)}.
+	 * 
+	 * <p>
+	 * The sinks first receive a graph cleared event, then the events building
+	 * the graph as it is just before the first step whose number is greater
+	 * than or equal to the given one : those of the nearest checkpoint of the
+	 * index, followed by those of the file between this checkpoint and the
+	 * step. The next call to {@link #nextStep()} sends the step event and the
+	 * events of this step. Steps can be seeked in any order.
+	 * </p>
+	 * 
+	 * <p>
+	 * The index of the file is read from its index file, or built by reading
+	 * the file once if there is none or if it does not match the file (see
+	 * {@link DGSIndex#open(String)}). A built index is written to the index
+	 * file, or only kept in memory if that file cannot be written. Compressed
+	 * files cannot be seeked.
+	 * </p>
+	 * 
+	 * @param step
+	 *            A step number.
+	 * @return False if there is no such step, nothing is sent in this case.
+	 */
+	public boolean seekStep(double step) throws IOException {
+		if (fileName == null)
+			throw new IOException("only files opened by begin(String) can be seeked");
+
+		if (index == null)
+			index = DGSIndex.open(fileName);
+
+		int target = index.findStep(step);
+
+		if (target < 0)
+			return false;
+
+		int checkpoint = index.getCheckpointBefore(target);
+		long start = index.getDataStart();
+
+		if (channel == null)
+			channel = new FileInputStream(fileName).getChannel();
+
+		if (parser != null) {
+			parser.close();
+			parser = null;
+		}
+
+		beginBatch();
+
+		try {
+			sendGraphCleared(sourceId);
+
+			if (checkpoint >= 0) {
+				index.readCheckpoint(checkpoint, this);
+				start = index.getOffset(index.getCheckpointStep(checkpoint));
+			}
+
+			Parser replay = new DGSByteParser(this, channel, start,
+					index.getOffset(target));
+
+			while (replay.next())
+				;
+
+			replay.close();
+		} catch (ParseException e) {
+			throw new IOException(e);
+		} finally {
+			endBatch();
+		}
+
+		parser = new DGSByteParser(this, channel, index.getOffset(target),
+				channel.size());
+
+		return true;
+	}
+
 	@Override
 	protected Reader createReaderForFile(String filename) throws IOException {
 		InputStream is = null;
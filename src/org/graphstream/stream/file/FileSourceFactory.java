@@ -105,6 +105,9 @@ public class FileSourceFactory {
 		// signature.
 
 		if (n >= 3 && b[0] == 'D' && b[1] == 'G' && b[2] == 'S') {
+			if (n >= 4 && b[3] == 'B')
+				return new FileSourceBinaryDGS();
+
 			if (n >= 6 && b[3] == '0' && b[4] == '0') {
 				if (b[5] == '1' || b[5] == '2') {
 					return new FileSourceDGS1And2();
@@ -136,6 +139,10 @@ public class FileSourceFactory {
 			return new FileSourceDGS();
 		}
 
+		if (flc.endsWith(".dgsb")) {
+			return new FileSourceBinaryDGS();
+		}
+
 		if (flc.endsWith(".gml") || flc.endsWith(".dgml")) {
 			return new org.graphstream.stream.file.FileSourceGML();
 		}
@@ -195,6 +195,7 @@ public class FileSourceLGL extends FileSourceBase {
 
 	protected void init() throws IOException {
 		st.eolIsSignificant(true);
+		st.ordinaryChar('#');
 		st.commentChar('%');
 
 		graphName = String.format("%s_%d", graphName,
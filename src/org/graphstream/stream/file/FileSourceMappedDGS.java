@@ -0,0 +1,205 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+
+import org.graphstream.stream.file.dgs.DGSByteParser;
+import org.graphstream.util.parser.ParseException;
+import org.graphstream.util.parser.Parser;
+
+/**
+ * Source reading files in the DGS format at the level of bytes.
+ * 
+ * <p>
+ * This source produces the same events as {@link FileSourceDGS}, but files are
+ * memory-mapped and parsed by a {@link DGSByteParser}, which avoids the
+ * decoding of the characters and shares the strings of the identifiers that
+ * appear several times. This is faster on large files. Gzip
+ * files are detected and read through a large buffer. Streams and URLs are
+ * read the same way, readers are left to the parser of {@link FileSourceDGS}.
+ * </p>
+ * 
+ * <p>
+ * The text is expected to be ASCII or UTF-8.
+ * </p>
+ * 
+ * @see FileSourceDGS
+ */
+public class FileSourceMappedDGS extends FileSourceDGS {
+	/**
+	 * Size of the buffer of a gzip stream.
+	 */
+	protected static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Create a parser for a file, mapping it unless it is compressed.
+	 * 
+	 * @param fileName
+	 *            Name of the file.
+	 * @return A parser, not opened yet.
+	 */
+	protected DGSByteParser createParserForFile(String fileName)
+			throws IOException {
+		FileChannel channel = new FileInputStream(fileName).getChannel();
+		boolean gzip;
+
+		try {
+			gzip = isGzip(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		if (gzip) {
+			channel.close();
+
+			return new DGSByteParser(this, new GZIPInputStream(
+					new FileInputStream(fileName), GZIP_BUFFER_SIZE));
+		}
+
+		return new DGSByteParser(this, channel);
+	}
+
+	/**
+	 * Check the magic number of gzip at the start of a file.
+	 * 
+	 * @param channel
+	 *            Channel of the file, its position is not changed.
+	 * @return True if the file is compressed.
+	 */
+	protected static boolean isGzip(FileChannel channel) throws IOException {
+		ByteBuffer magic = ByteBuffer.allocate(2);
+
+		while (magic.hasRemaining()
+				&& channel.read(magic, magic.position()) > 0)
+			;
+
+		return magic.position() == 2 && (magic.get(0) & 0xFF) == 0x1F
+				&& (magic.get(1) & 0xFF) == 0x8B;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSourceParser#readAll(java.lang.String)
+	 */
+	@Override
+	public void readAll(String fileName) throws IOException {
+		readAll(createParserForFile(fileName));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSourceParser#readAll(java.net.URL)
+	 */
+	@Override
+	public void readAll(URL url) throws IOException {
+		readAll(url.openStream());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.graphstream.stream.file.FileSourceParser#readAll(java.io.InputStream)
+	 */
+	@Override
+	public void readAll(InputStream stream) throws IOException {
+		readAll(new DGSByteParser(this, stream));
+	}
+
+	protected void readAll(Parser parser) throws IOException {
+		beginBatch();
+
+		try {
+			parser.all();
+			parser.close();
+		} catch (ParseException e) {
+			throw new IOException(e);
+		} finally {
+			endBatch();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSourceParser#begin(java.lang.String)
+	 */
+	@Override
+	public void begin(String fileName) throws IOException {
+		if (parser != null)
+			end();
+
+		begin(createParserForFile(fileName));
+		this.fileName = fileName;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSourceParser#begin(java.net.URL)
+	 */
+	@Override
+	public void begin(URL url) throws IOException {
+		begin(url.openStream());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.graphstream.stream.file.FileSourceParser#begin(java.io.InputStream)
+	 */
+	@Override
+	public void begin(InputStream stream) throws IOException {
+		begin(new DGSByteParser(this, stream));
+	}
+
+	protected void begin(Parser parser) throws IOException {
+		this.parser = parser;
+
+		try {
+			parser.open();
+		} catch (ParseException e) {
+			throw new IOException(e);
+		}
+	}
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.EventBatch;
+import org.graphstream.stream.file.dgs.DGSByteParser;
+import org.graphstream.util.parser.ParseException;
+
+/**
+ * Source reading DGS files with several threads.
+ * 
+ * <p>
+ * {@link #readAll(String)} cuts the file in chunks of about
+ * {@link #getChunkSize()} bytes. Each chunk ends just before a line starting
+ * with the "st" directive, so chunks hold whole steps. The chunks are parsed
+ * at the same time by the tasks of a {@link ForkJoinPool}, each one into its
+ * own {@link EventBatch}, and the buffers are sent to the sinks in the order
+ * of the file. The sinks receive the same events, in the same order, as with
+ * {@link FileSourceDGS}, only the parsing is done in parallel. At most two
+ * chunks per thread of the pool are parsed ahead of the sinks, so the memory
+ * used does not depend on the size of the file.
+ * </p>
+ * 
+ * <p>
+ * Only uncompressed files can be cut. Compressed files, streams and URLs are
+ * read by a single thread as {@link FileSourceMappedDGS} does, and so are the
+ * files read step by step with {@link #begin(String)} and
+ * {@link #nextStep()}. A file whose strings span several lines must not have
+ * lines starting with "st " inside these strings.
+ * </p>
+ * 
+ * <pre>
+ * FileSourceParallelDGS source = new FileSourceParallelDGS();
+ * source.addSink(graph);
+ * source.readAll(&quot;trace.dgs&quot;);
+ * </pre>
+ */
+public class FileSourceParallelDGS extends FileSourceMappedDGS {
+	/**
+	 * Default size of the chunks, in bytes.
+	 */
+	public static final long DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+	/**
+	 * Size of the buffer used to look for the end of a chunk.
+	 */
+	protected static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+	private static ForkJoinPool defaultPool;
+
+	protected ForkJoinPool pool;
+	protected long chunkSize;
+
+	/**
+	 * New source parsing with the given pool.
+	 * 
+	 * @param pool
+	 *            the pool running the tasks
+	 */
+	public FileSourceParallelDGS(ForkJoinPool pool) {
+		this.pool = pool;
+		this.chunkSize = DEFAULT_CHUNK_SIZE;
+	}
+
+	/**
+	 * New source using a pool shared by all the sources, with one thread per
+	 * processor.
+	 */
+	public FileSourceParallelDGS() {
+		this(getDefaultPool());
+	}
+
+	private static synchronized ForkJoinPool getDefaultPool() {
+		if (defaultPool == null)
+			defaultPool = new ForkJoinPool();
+
+		return defaultPool;
+	}
+
+	// *** Settings ***
+
+	/**
+	 * Size from which a chunk ends at the next step.
+	 */
+	public long getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Set the size from which a chunk ends at the next step. Small chunks give
+	 * work to more threads, large chunks cost less to cut and to send.
+	 * 
+	 * @param chunkSize
+	 *            a size in bytes
+	 */
+	public void setChunkSize(long chunkSize) {
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("chunk size must be positive");
+
+		this.chunkSize = chunkSize;
+	}
+
+	// *** Reading ***
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSourceMappedDGS#readAll(java.lang.String)
+	 */
+	@Override
+	public void readAll(String fileName) throws IOException {
+		FileChannel channel = new FileInputStream(fileName).getChannel();
+
+		try {
+			if (isGzip(channel))
+				super.readAll(fileName);
+			else
+				readAll(channel);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Parse the chunks of an uncompressed file and send their events in
+	 * order.
+	 * 
+	 * @param channel
+	 *            Channel of the file, left open.
+	 */
+	protected void readAll(FileChannel channel) throws IOException {
+		ArrayDeque<Future<EventBatch>> pending = new ArrayDeque<Future<EventBatch>>();
+		String sourceId = String.format("<DGS stream %x>", System.nanoTime());
+		int ahead = 2 * pool.getParallelism();
+		long end = channel.size();
+		long offset = dataStart(channel);
+
+		try {
+			while (offset < end || !pending.isEmpty()) {
+				while (offset < end && pending.size() < ahead) {
+					long next = stepBoundary(channel, offset + chunkSize, end);
+					pending.add(pool.submit(new ChunkParser(channel, offset,
+							next)));
+					offset = next;
+				}
+
+				send(sourceId, get(pending.poll()));
+			}
+		} finally {
+			for (Future<EventBatch> f : pending)
+				f.cancel(false);
+		}
+	}
+
+	/**
+	 * Offset of the first line following the header.
+	 */
+	protected long dataStart(FileChannel channel) throws IOException {
+		DGSByteParser header = new DGSByteParser(this, channel, 0,
+				channel.size());
+
+		try {
+			header.open();
+		} catch (ParseException e) {
+			throw new IOException(e);
+		}
+
+		return header.getPosition();
+	}
+
+	/**
+	 * Find the first line starting with a "st" directive at or after an
+	 * offset.
+	 * 
+	 * @param channel
+	 *            Channel of the file.
+	 * @param from
+	 *            The offset where the search starts, after the header.
+	 * @param end
+	 *            Size of the file.
+	 * @return The offset of the line, or the size of the file if there is no
+	 *         step after the offset.
+	 */
+	protected long stepBoundary(FileChannel channel, long from, long end)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long offset = from - 1;
+		long lineStart = -1;
+		int state = 0;
+
+		//
+		// States : 0 in a line, 1 at the start of a line, 2 after 's', 3
+		// after "st".
+		//
+		while (offset < end) {
+			buffer.clear();
+
+			int r = channel.read(buffer, offset);
+
+			if (r <= 0)
+				break;
+
+			for (int i = 0; i < r; i++) {
+				int c = buffer.get(i);
+
+				if (c == '\n' || c == '\r') {
+					state = 1;
+					lineStart = offset + i + 1;
+					continue;
+				}
+
+				switch (state) {
+				case 1:
+					state = c == 's' || c == 'S' ? 2 : 0;
+					break;
+				case 2:
+					state = c == 't' || c == 'T' ? 3 : 0;
+					break;
+				case 3:
+					if (c == ' ' || c == '\t')
+						return lineStart;
+
+					state = 0;
+					break;
+				}
+			}
+
+			offset += r;
+		}
+
+		return end;
+	}
+
+	/**
+	 * Wait for the result of a task, reporting its failure as an I/O error
+	 * when it is not a runtime exception or an error.
+	 */
+	static <T> T get(Future<T> chunk) throws IOException {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			Throwable checked = cause;
+
+			//
+			// The pool wraps the checked exceptions of the tasks in runtime
+			// exceptions.
+			//
+			while (checked instanceof RuntimeException)
+				checked = checked.getCause();
+
+			if (checked instanceof IOException)
+				throw (IOException) checked;
+
+			if (checked instanceof Exception)
+				throw new IOException(checked);
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Send the events of a chunk as if they were read by this source.
+	 */
+	protected void send(String sourceId, EventBatch events) {
+		if (events.isEmpty())
+			return;
+
+		events.setOrigin(sourceId, sourceTime.newEvents(events.size()));
+		sendBatch(events);
+	}
+
+	/**
+	 * Task parsing a chunk into a buffer.
+	 */
+	protected static class ChunkParser implements Callable<EventBatch> {
+		FileChannel channel;
+		long start, end;
+
+		ChunkParser(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		public EventBatch call() throws IOException, ParseException {
+			try {
+				return parse(0);
+			} catch (ParseException e) {
+				//
+				// The error gives a line counted from the start of the
+				// chunk. The chunk is parsed again from the number of its
+				// first line, so that the error is the one of the whole file.
+				//
+				return parse(lineOf(channel, start));
+			}
+		}
+
+		private EventBatch parse(int firstLine) throws IOException,
+				ParseException {
+			ChunkCollector collector = new ChunkCollector();
+			DGSByteParser parser = new DGSByteParser(collector, channel,
+					start, end);
+
+			parser.setLine(firstLine);
+
+			while (parser.next())
+				;
+
+			return collector.events;
+		}
+	}
+
+	/**
+	 * Number of the line starting at an offset, counted from zero as the
+	 * parser does : a line ends with LF, CR or CR+LF.
+	 * 
+	 * @param channel
+	 *            Channel of the file.
+	 * @param offset
+	 *            Offset of the start of a line.
+	 */
+	static int lineOf(FileChannel channel, long offset) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		boolean cr = false;
+		int line = 0;
+		long position = 0;
+
+		while (position < offset) {
+			buffer.clear();
+
+			if (offset - position < buffer.capacity())
+				buffer.limit((int) (offset - position));
+
+			int r = channel.read(buffer, position);
+
+			if (r <= 0)
+				break;
+
+			for (int i = 0; i < r; i++) {
+				byte c = buffer.get(i);
+
+				if (c == '\r' || (c == '\n' && !cr))
+					line++;
+
+				cr = c == '\r';
+			}
+
+			position += r;
+		}
+
+		return line;
+	}
+
+	/**
+	 * Source given to the parser of a chunk, that puts the events in a buffer
+	 * instead of sending them. Their source and time ids are set when the
+	 * buffer is sent.
+	 */
+	protected static class ChunkCollector extends FileSourceDGS {
+		EventBatch events = new EventBatch(1024);
+
+		@Override
+		public void sendNodeAdded(String sourceId, String nodeId) {
+			events.nodeAdded(null, 0, nodeId);
+		}
+
+		@Override
+		public void sendNodeRemoved(String sourceId, String nodeId) {
+			events.nodeRemoved(null, 0, nodeId);
+		}
+
+		@Override
+		public void sendEdgeAdded(String sourceId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			events.edgeAdded(null, 0, edgeId, fromNodeId, toNodeId, directed);
+		}
+
+		@Override
+		public void sendEdgeRemoved(String sourceId, String edgeId) {
+			events.edgeRemoved(null, 0, edgeId);
+		}
+
+		@Override
+		public void sendStepBegins(String sourceId, double step) {
+			events.stepBegins(null, 0, step);
+		}
+
+		@Override
+		public void sendGraphCleared(String sourceId) {
+			events.graphCleared(null, 0);
+		}
+
+		@Override
+		public void sendAttributeChangedEvent(String sourceId, String eltId,
+				ElementType eltType, String attribute,
+				AttributeChangeEvent event, Object oldValue, Object newValue) {
+			switch (event) {
+			case ADD:
+				if (eltType == ElementType.NODE)
+					events.nodeAttributeAdded(null, 0, eltId, attribute,
+							newValue);
+				else if (eltType == ElementType.EDGE)
+					events.edgeAttributeAdded(null, 0, eltId, attribute,
+							newValue);
+				else
+					events.graphAttributeAdded(null, 0, attribute, newValue);
+				break;
+			case REMOVE:
+				if (eltType == ElementType.NODE)
+					events.nodeAttributeRemoved(null, 0, eltId, attribute);
+				else if (eltType == ElementType.EDGE)
+					events.edgeAttributeRemoved(null, 0, eltId, attribute);
+				else
+					events.graphAttributeRemoved(null, 0, attribute);
+				break;
+			default:
+				if (eltType == ElementType.NODE)
+					events.nodeAttributeChanged(null, 0, eltId, attribute,
+							oldValue, newValue);
+				else if (eltType == ElementType.EDGE)
+					events.edgeAttributeChanged(null, 0, eltId, attribute,
+							oldValue, newValue);
+				else
+					events.graphAttributeChanged(null, 0, attribute,
+							oldValue, newValue);
+				break;
+			}
+		}
+	}
+}
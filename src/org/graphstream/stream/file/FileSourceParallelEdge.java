@@ -0,0 +1,925 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graphstream.stream.SourceBase;
+
+/**
+ * Source reading edge lists with several threads.
+ * 
+ * <p>
+ * This source reads the formats of {@link FileSourceEdge},
+ * {@link FileSourceNCol} and {@link FileSourceLGL}, chosen with a
+ * {@link Format}. The input is cut in chunks of about {@link #getChunkSize()}
+ * bytes ending at the end of a line (at the end of a line followed by a "#"
+ * line for LGL, so that each chunk knows the source of its edges). The chunks
+ * are parsed at the same time by the tasks of a {@link ForkJoinPool} into
+ * arrays of endpoints, and sent in the order of the file : the new nodes of a
+ * chunk with one {@link #sendNodesAdded(String, String[], int, int)} call,
+ * then its edges with one
+ * {@link #sendEdgesAdded(String, String[], String[], String[], boolean, int, int)}
+ * call, then their weights. A graph listening to this source inserts them
+ * with {@link org.graphstream.graph.Graph#addNodes(String...)} and
+ * {@link org.graphstream.graph.Graph#addEdges(String[], String[], String[], boolean)}
+ * . At most two chunks per thread of the pool are parsed ahead of the sinks.
+ * </p>
+ * 
+ * <p>
+ * The graph built is the same as with the single-threaded sources, edges get
+ * the same identifiers, but the nodes of a chunk are declared before its
+ * edges instead of just before the first edge using them. To know which nodes
+ * are new, the tasks share a concurrent dictionary giving an integer to each
+ * node identifier. When the identifiers of a file are non-negative integers,
+ * {@link #setIntegerIds(boolean)} parses them as numbers, without dictionary
+ * nor string until the events are built.
+ * </p>
+ * 
+ * <p>
+ * Identifiers are the words separated by blanks, read as UTF-8. Unlike the
+ * single-threaded sources, quotes are not interpreted and numbers are kept as
+ * written ("007" is not the same node as "7"), except with integer ids.
+ * Readers cannot be read as they do not give bytes.
+ * </p>
+ * 
+ * <pre>
+ * FileSourceParallelEdge source = new FileSourceParallelEdge(Format.NCOL);
+ * source.setIntegerIds(true);
+ * source.addSink(graph);
+ * source.readAll(&quot;network.ncol&quot;);
+ * </pre>
+ */
+public class FileSourceParallelEdge extends SourceBase implements FileSource {
+	/**
+	 * Formats of edge lists.
+	 */
+	public static enum Format {
+		/**
+		 * Lines of identifiers, the first node being linked to each of the
+		 * following ones, as read by {@link FileSourceEdge}.
+		 */
+		EDGE("EDGE_", '#', true),
+		/**
+		 * Lines of two identifiers and an optional weight, as read by
+		 * {@link FileSourceNCol}.
+		 */
+		NCOL("NCOL_", '#', false),
+		/**
+		 * Lines "# source" followed by lines of a target and an optional
+		 * weight, as read by {@link FileSourceLGL}.
+		 */
+		LGL("LGL_", '%', false);
+
+		final String prefix;
+		final byte comment;
+		final boolean declareNodes;
+
+		Format(String prefix, char comment, boolean declareNodes) {
+			this.prefix = prefix;
+			this.comment = (byte) comment;
+			this.declareNodes = declareNodes;
+		}
+	}
+
+	/**
+	 * Default size of the chunks, in bytes.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+	private static ForkJoinPool defaultPool;
+
+	protected ForkJoinPool pool;
+	protected Format format;
+	protected int chunkSize;
+	protected boolean directed;
+	protected boolean declareNodes;
+	protected boolean integerIds;
+
+	// Reading
+
+	/**
+	 * The input, null when nothing is read.
+	 */
+	protected InputStream stream;
+
+	/**
+	 * Chunks submitted to the pool, in the order of the input.
+	 */
+	protected ArrayDeque<Future<Chunk>> pending;
+
+	/**
+	 * Bytes read after the end of the last chunk.
+	 */
+	protected byte[] carry;
+
+	protected int carryLength;
+
+	/**
+	 * Offset of the next chunk in the input.
+	 */
+	protected long offset;
+
+	protected boolean eof;
+
+	protected String graphName;
+
+	/**
+	 * Allocator for edge identifiers.
+	 */
+	protected int edgeid;
+
+	/**
+	 * Integer of each node identifier, shared by the tasks.
+	 */
+	protected ConcurrentHashMap<String, Integer> dictionary;
+
+	protected AtomicInteger nextId;
+
+	/**
+	 * Integers of the declared nodes.
+	 */
+	protected BitSet declared;
+
+	/**
+	 * New source reading a format with the given pool.
+	 * 
+	 * @param format
+	 *            the format of the edge lists
+	 * @param pool
+	 *            the pool running the tasks
+	 */
+	public FileSourceParallelEdge(Format format, ForkJoinPool pool) {
+		this.format = format;
+		this.pool = pool;
+		this.chunkSize = DEFAULT_CHUNK_SIZE;
+		this.directed = false;
+		this.declareNodes = format.declareNodes;
+		this.integerIds = false;
+	}
+
+	/**
+	 * New source reading a format, using a pool shared by all the sources,
+	 * with one thread per processor.
+	 * 
+	 * @param format
+	 *            the format of the edge lists
+	 */
+	public FileSourceParallelEdge(Format format) {
+		this(format, getDefaultPool());
+	}
+
+	private static synchronized ForkJoinPool getDefaultPool() {
+		if (defaultPool == null)
+			defaultPool = new ForkJoinPool();
+
+		return defaultPool;
+	}
+
+	// *** Settings ***
+
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * Size from which a chunk ends at the next line.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Set the size from which a chunk ends at the next line. Small chunks give
+	 * work to more threads, large chunks send more elements at once.
+	 * 
+	 * @param chunkSize
+	 *            a size in bytes
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("chunk size must be positive");
+
+		this.chunkSize = chunkSize;
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	/**
+	 * Consider the edges of the EDGE format as directed (default false). The
+	 * other formats only have undirected edges.
+	 */
+	public void setDirected(boolean directed) {
+		this.directed = directed;
+	}
+
+	public boolean isDeclaringNodes() {
+		return declareNodes;
+	}
+
+	/**
+	 * Send "node added" events before the edges using new nodes (default true
+	 * for the EDGE format, false for the others, as the sinks can create the
+	 * nodes of the edges).
+	 */
+	public void setDeclareNodes(boolean declareNodes) {
+		this.declareNodes = declareNodes;
+	}
+
+	public boolean isIntegerIds() {
+		return integerIds;
+	}
+
+	/**
+	 * Read the node identifiers as non-negative integers (default false). Any
+	 * other identifier is an error. The memory used to know the declared nodes
+	 * grows with the largest identifier.
+	 */
+	public void setIntegerIds(boolean integerIds) {
+		this.integerIds = integerIds;
+	}
+
+	// *** Reading ***
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.lang.String)
+	 */
+	public void readAll(String fileName) throws IOException {
+		readAll(new FileInputStream(fileName));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.net.URL)
+	 */
+	public void readAll(URL url) throws IOException {
+		readAll(url.openStream());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.io.InputStream)
+	 */
+	public void readAll(InputStream stream) throws IOException {
+		begin(stream);
+
+		try {
+			while (nextEvents())
+				;
+		} finally {
+			end();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#readAll(java.io.Reader)
+	 */
+	public void readAll(Reader reader) throws IOException {
+		begin(reader);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.lang.String)
+	 */
+	public void begin(String fileName) throws IOException {
+		begin(new FileInputStream(fileName));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.net.URL)
+	 */
+	public void begin(URL url) throws IOException {
+		begin(url.openStream());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.io.InputStream)
+	 */
+	public void begin(InputStream stream) throws IOException {
+		if (this.stream != null)
+			end();
+
+		this.stream = stream;
+		this.pending = new ArrayDeque<Future<Chunk>>();
+		this.carry = new byte[0];
+		this.carryLength = 0;
+		this.offset = 0;
+		this.eof = false;
+		this.graphName = String.format("%s%d", format.prefix,
+				System.currentTimeMillis());
+		this.edgeid = 0;
+		this.dictionary = new ConcurrentHashMap<String, Integer>();
+		this.nextId = new AtomicInteger();
+		this.declared = new BitSet();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#begin(java.io.Reader)
+	 */
+	public void begin(Reader reader) throws IOException {
+		throw new IOException("edge lists are read as bytes, not from a Reader");
+	}
+
+	/**
+	 * Send the events of the next chunk.
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#nextEvents()
+	 */
+	public boolean nextEvents() throws IOException {
+		if (stream == null)
+			return false;
+
+		int ahead = 2 * pool.getParallelism();
+
+		while (!eof && pending.size() < ahead)
+			pending.add(pool.submit(nextChunk()));
+
+		Future<Chunk> chunk = pending.poll();
+
+		if (chunk == null)
+			return false;
+
+		send(FileSourceParallelDGS.get(chunk));
+		return true;
+	}
+
+	/**
+	 * Edge lists have no steps, this sends the events of the next chunk.
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#nextStep()
+	 */
+	public boolean nextStep() throws IOException {
+		return nextEvents();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.file.FileSource#end()
+	 */
+	public void end() throws IOException {
+		if (pending != null) {
+			for (Future<Chunk> f : pending)
+				f.cancel(false);
+
+			pending = null;
+		}
+
+		carry = null;
+		dictionary = null;
+		declared = null;
+
+		if (stream != null) {
+			stream.close();
+			stream = null;
+		}
+	}
+
+	/**
+	 * Read the next chunk of the input.
+	 * 
+	 * @return A task parsing the chunk.
+	 */
+	protected ChunkParser nextChunk() throws IOException {
+		byte[] buffer = new byte[Math.max(chunkSize, 2 * carryLength)];
+		int length = carryLength;
+		int end = -1;
+
+		System.arraycopy(carry, 0, buffer, 0, carryLength);
+
+		while (end < 0) {
+			if (length == buffer.length)
+				buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+
+			int r = stream.read(buffer, length, buffer.length - length);
+
+			if (r < 0) {
+				eof = true;
+				end = length;
+			} else {
+				length += r;
+
+				if (length == buffer.length)
+					end = lineBoundary(buffer, length);
+			}
+		}
+
+		carryLength = length - end;
+		carry = Arrays.copyOfRange(buffer, end, length);
+
+		ChunkParser parser = new ChunkParser(this, buffer, end, offset);
+		offset += end;
+
+		return parser;
+	}
+
+	/**
+	 * Find the start of the last line where a chunk can start.
+	 * 
+	 * @param buffer
+	 *            The bytes read.
+	 * @param length
+	 *            Number of bytes read.
+	 * @return The offset of the line in the buffer, greater than zero, or -1 if
+	 *         there is no such line.
+	 */
+	protected int lineBoundary(byte[] buffer, int length) {
+		for (int i = length - 1; i > 0; i--) {
+			byte c = buffer[i - 1];
+
+			if (c != '\n' && c != '\r')
+				continue;
+
+			if (format != Format.LGL)
+				return i;
+
+			//
+			// LGL chunks start with a "#" line.
+			//
+			int j = i;
+
+			while (j < length && (buffer[j] == ' ' || buffer[j] == '\t'))
+				j++;
+
+			if (j < length && buffer[j] == '#')
+				return i;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Send the events of a chunk.
+	 */
+	protected void send(Chunk chunk) {
+		if (chunk.nodeCount > 0) {
+			String[] ids = new String[chunk.nodeCount];
+			int count = 0;
+
+			for (int k = 0; k < chunk.nodeCount; k++) {
+				int key = chunk.nodeKeys[k];
+
+				if (!declared.get(key)) {
+					declared.set(key);
+					ids[count++] = chunk.nodeNames == null ? Integer
+							.toString(key) : chunk.nodeNames[k];
+				}
+			}
+
+			sendNodesAdded(graphName, ids, 0, count);
+		}
+
+		if (chunk.edgeCount > 0) {
+			String[] ids = new String[chunk.edgeCount];
+
+			for (int k = 0; k < chunk.edgeCount; k++)
+				ids[k] = Integer.toString(edgeid++);
+
+			sendEdgesAdded(graphName, ids, chunk.from, chunk.to,
+					directed && format == Format.EDGE, 0, chunk.edgeCount);
+
+			if (chunk.weighted != null)
+				for (int k = 0; k < chunk.edgeCount; k++)
+					if (chunk.weighted[k])
+						sendEdgeAttributeAdded(graphName, ids[k], "weight",
+								(Double) chunk.weights[k]);
+		}
+	}
+
+	/**
+	 * Elements of a chunk, in the order of the input.
+	 */
+	protected static class Chunk {
+		/**
+		 * Endpoints of the edges.
+		 */
+		String[] from, to;
+
+		/**
+		 * Weights of the edges, null if the format has no weights.
+		 */
+		double[] weights;
+
+		/**
+		 * Tell which edges have a weight.
+		 */
+		boolean[] weighted;
+
+		int edgeCount;
+
+		/**
+		 * Integers of the nodes to declare, in the order of their first use.
+		 */
+		int[] nodeKeys;
+
+		/**
+		 * Identifiers of the nodes to declare, null with integer ids.
+		 */
+		String[] nodeNames;
+
+		int nodeCount;
+	}
+
+	/**
+	 * Task parsing a chunk.
+	 */
+	protected static class ChunkParser implements Callable<Chunk> {
+		final Format format;
+		final boolean declareNodes, integerIds;
+		final ConcurrentHashMap<String, Integer> dictionary;
+		final AtomicInteger nextId;
+		final byte[] buffer;
+		final int length;
+		final long offset;
+
+		Chunk chunk = new Chunk();
+
+		/**
+		 * Start and end of the words of the current line.
+		 */
+		int[] words = new int[16];
+		int wordCount;
+
+		/**
+		 * Identifiers already met in the chunk, as an open addressing table of
+		 * their indices plus one. With integer ids, identifiers are their
+		 * value.
+		 */
+		int[] table;
+		int[] idStart, idLength, idHash;
+		String[] names;
+		int idCount;
+
+		ChunkParser(FileSourceParallelEdge source, byte[] buffer, int length,
+				long offset) {
+			this.format = source.format;
+			this.declareNodes = source.declareNodes;
+			this.integerIds = source.integerIds;
+			this.dictionary = source.dictionary;
+			this.nextId = source.nextId;
+			this.buffer = buffer;
+			this.length = length;
+			this.offset = offset;
+
+			int edges = Math.max(16, length / 16);
+
+			chunk.from = new String[edges];
+			chunk.to = new String[edges];
+
+			if (format != Format.EDGE) {
+				chunk.weights = new double[edges];
+				chunk.weighted = new boolean[edges];
+			}
+
+			if (declareNodes)
+				chunk.nodeKeys = new int[edges];
+
+			if (!integerIds) {
+				table = new int[1024];
+				idStart = new int[256];
+				idLength = new int[256];
+				idHash = new int[256];
+				names = new String[256];
+			}
+		}
+
+		public Chunk call() throws IOException {
+			int source = -1;
+			int p = 0;
+
+			while (p < length) {
+				int eol = p;
+
+				while (eol < length && buffer[eol] != '\n'
+						&& buffer[eol] != '\r')
+					eol++;
+
+				split(p, eol);
+
+				if (wordCount == 0) {
+					// Empty line.
+				} else if (format == Format.EDGE) {
+					int id1 = node(0);
+
+					for (int w = 1; w < wordCount; w++)
+						if (!sameWord(0, w))
+							edge(id1, node(w), wordCount);
+				} else if (format == Format.NCOL) {
+					int id1 = node(0);
+
+					if (wordCount < 2)
+						throw new IOException(String.format(
+								"unexpected EOL or EOF at byte %d", offset
+										+ eol));
+
+					if (!sameWord(0, 1))
+						edge(id1, node(1), 2);
+				} else if (isWord(0, '#')) {
+					source = wordCount > 1 ? node(1) : -1;
+				} else if (source >= 0) {
+					edge(source, node(0), 1);
+				}
+
+				p = eol + 1;
+			}
+
+			if (chunk.edgeCount < chunk.from.length) {
+				chunk.from = Arrays.copyOf(chunk.from, chunk.edgeCount);
+				chunk.to = Arrays.copyOf(chunk.to, chunk.edgeCount);
+			}
+
+			if (!integerIds && declareNodes)
+				chunk.nodeNames = Arrays.copyOf(names, idCount);
+
+			return chunk;
+		}
+
+		/**
+		 * Find the words of a line, up to a comment.
+		 */
+		void split(int start, int end) {
+			wordCount = 0;
+
+			for (int i = start; i < end;) {
+				byte c = buffer[i];
+
+				if ((c & 0xFF) <= ' ') {
+					i++;
+				} else if (c == format.comment) {
+					break;
+				} else {
+					int s = i;
+
+					//
+					// In LGL, "#" is a word of its own.
+					//
+					if (c == '#')
+						i++;
+					else
+						while (i < end && (buffer[i] & 0xFF) > ' '
+								&& buffer[i] != format.comment
+								&& (buffer[i] != '#' || format != Format.LGL))
+							i++;
+
+					if (2 * wordCount + 2 > words.length)
+						words = Arrays.copyOf(words, 2 * words.length);
+
+					words[2 * wordCount] = s;
+					words[2 * wordCount + 1] = i;
+					wordCount++;
+				}
+			}
+		}
+
+		boolean isWord(int w, char c) {
+			int s = words[2 * w];
+			return words[2 * w + 1] == s + 1 && buffer[s] == c;
+		}
+
+		boolean sameWord(int w1, int w2) throws IOException {
+			int s1 = words[2 * w1], s2 = words[2 * w2];
+			int l = words[2 * w1 + 1] - s1;
+
+			if (integerIds)
+				return integer(w1) == integer(w2);
+
+			if (words[2 * w2 + 1] - s2 != l)
+				return false;
+
+			for (int i = 0; i < l; i++)
+				if (buffer[s1 + i] != buffer[s2 + i])
+					return false;
+
+			return true;
+		}
+
+		String string(int w) {
+			int s = words[2 * w];
+			return new String(buffer, s, words[2 * w + 1] - s,
+					StandardCharsets.UTF_8);
+		}
+
+		int integer(int w) throws IOException {
+			int s = words[2 * w], e = words[2 * w + 1];
+			long value = 0;
+
+			for (int i = s; i < e; i++) {
+				int digit = buffer[i] - '0';
+
+				if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE)
+					throw new IOException(String.format(
+							"\"%s\" is not an integer id, at byte %d",
+							string(w), offset + s));
+
+				value = 10 * value + digit;
+			}
+
+			if (value > Integer.MAX_VALUE)
+				throw new IOException(String.format(
+						"\"%s\" is not an integer id, at byte %d", string(w),
+						offset + s));
+
+			return (int) value;
+		}
+
+		/**
+		 * The node of a word, declared if needed.
+		 * 
+		 * @return Its value with integer ids, else its index in the chunk.
+		 */
+		int node(int w) throws IOException {
+			if (integerIds) {
+				int id = integer(w);
+
+				if (declareNodes)
+					declare(id);
+
+				return id;
+			}
+
+			int s = words[2 * w], l = words[2 * w + 1] - s;
+			int h = 0;
+
+			for (int i = 0; i < l; i++)
+				h = 31 * h + buffer[s + i];
+
+			int mask = table.length - 1;
+			int slot = (h ^ (h >>> 16)) & mask;
+
+			for (int k; (k = table[slot]) != 0; slot = (slot + 1) & mask) {
+				k--;
+
+				if (idHash[k] == h && idLength[k] == l
+						&& sameBytes(idStart[k], s, l))
+					return k;
+			}
+
+			int k = idCount++;
+
+			if (k == names.length) {
+				idStart = Arrays.copyOf(idStart, 2 * k);
+				idLength = Arrays.copyOf(idLength, 2 * k);
+				idHash = Arrays.copyOf(idHash, 2 * k);
+				names = Arrays.copyOf(names, 2 * k);
+			}
+
+			idStart[k] = s;
+			idLength[k] = l;
+			idHash[k] = h;
+			names[k] = string(w);
+			table[slot] = k + 1;
+
+			if (2 * idCount > table.length)
+				rehash();
+
+			if (declareNodes)
+				declare(globalId(names[k]));
+
+			return k;
+		}
+
+		boolean sameBytes(int s1, int s2, int l) {
+			for (int i = 0; i < l; i++)
+				if (buffer[s1 + i] != buffer[s2 + i])
+					return false;
+
+			return true;
+		}
+
+		void rehash() {
+			int mask = 2 * table.length - 1;
+			table = new int[mask + 1];
+
+			for (int k = 0; k < idCount; k++) {
+				int h = idHash[k];
+				int slot = (h ^ (h >>> 16)) & mask;
+
+				while (table[slot] != 0)
+					slot = (slot + 1) & mask;
+
+				table[slot] = k + 1;
+			}
+		}
+
+		int globalId(String name) {
+			Integer id = dictionary.get(name);
+
+			if (id == null) {
+				Integer newId = nextId.getAndIncrement();
+				id = dictionary.putIfAbsent(name, newId);
+
+				if (id == null)
+					id = newId;
+			}
+
+			return id;
+		}
+
+		/**
+		 * Add a node to declare. Identifiers are declared in the order of
+		 * their first use, so with string ids the k-th node to declare is the
+		 * k-th identifier of the chunk.
+		 */
+		void declare(int key) {
+			if (chunk.nodeCount == chunk.nodeKeys.length)
+				chunk.nodeKeys = Arrays.copyOf(chunk.nodeKeys,
+						2 * chunk.nodeCount);
+
+			chunk.nodeKeys[chunk.nodeCount++] = key;
+		}
+
+		/**
+		 * Add an edge.
+		 * 
+		 * @param weight
+		 *            Index of the word giving the weight of the edge, if the
+		 *            format has weights.
+		 */
+		void edge(int from, int to, int weight) throws IOException {
+			int k = chunk.edgeCount++;
+
+			if (k == chunk.from.length) {
+				chunk.from = Arrays.copyOf(chunk.from, 2 * k);
+				chunk.to = Arrays.copyOf(chunk.to, 2 * k);
+
+				if (chunk.weights != null) {
+					chunk.weights = Arrays.copyOf(chunk.weights, 2 * k);
+					chunk.weighted = Arrays.copyOf(chunk.weighted, 2 * k);
+				}
+			}
+
+			chunk.from[k] = integerIds ? Integer.toString(from) : names[from];
+			chunk.to[k] = integerIds ? Integer.toString(to) : names[to];
+
+			if (chunk.weights != null && weight < wordCount) {
+				String w = string(weight);
+
+				try {
+					chunk.weights[k] = Double.parseDouble(w);
+					chunk.weighted[k] = true;
+				} catch (NumberFormatException e) {
+					throw new IOException(String.format(
+							"cannot transform weight %s into a number", w));
+				}
+			}
+		}
+	}
+}
@@ -78,11 +78,15 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 	public void readAll(String fileName) throws IOException {
 		Parser parser = factory.newParser(createReaderForFile(fileName));
 
+		beginBatch();
+
 		try {
 			parser.all();
 			parser.close();
 		} catch (ParseException e) {
 			throw new IOException(e);
+		} finally {
+			endBatch();
 		}
 	}
 
@@ -95,11 +99,15 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 		Parser parser = factory.newParser(new InputStreamReader(url
 				.openStream()));
 
+		beginBatch();
+
 		try {
 			parser.all();
 			parser.close();
 		} catch (ParseException e) {
 			throw new IOException(e);
+		} finally {
+			endBatch();
 		}
 	}
 
@@ -111,11 +119,15 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 	public void readAll(InputStream stream) throws IOException {
 		Parser parser = factory.newParser(new InputStreamReader(stream));
 
+		beginBatch();
+
 		try {
 			parser.all();
 			parser.close();
 		} catch (ParseException e) {
 			throw new IOException(e);
+		} finally {
+			endBatch();
 		}
 	}
 
@@ -127,11 +139,15 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 	public void readAll(Reader reader) throws IOException {
 		Parser parser = factory.newParser(reader);
 
+		beginBatch();
+
 		try {
 			parser.all();
 			parser.close();
 		} catch (ParseException e) {
 			throw new IOException(e);
+		} finally {
+			endBatch();
 		}
 	}
 
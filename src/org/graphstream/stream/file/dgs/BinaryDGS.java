@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs;
+
+import org.graphstream.stream.netstream.NetStreamConstants;
+
+/**
+ * Constants of the binary DGS file format.
+ * 
+ * <p>
+ * A binary DGS file holds the same events as a text DGS file. It starts with
+ * the magic bytes "DGSB", a version byte and a byte of flags, followed by the
+ * name of the graph as a string. Then come blocks of events, each one made of
+ * the length of its events, the length of the stored bytes and the stored
+ * bytes. When the stored length differs from the length of the events, the
+ * events are compressed with deflate (without zlib header). A block whose
+ * events have a zero length ends the file. Events do not span blocks.
+ * </p>
+ * 
+ * <p>
+ * Each event is a byte giving its type, using the codes of
+ * {@link NetStreamConstants}, followed by its arguments :
+ * <ul>
+ * <li>node and edge events : the ids of the elements, and for an added edge
+ * the ids of its nodes and a byte that is 1 if it is directed ;</li>
+ * <li>step : the step as a 64-bit double ;</li>
+ * <li>attribute events : the id of the element (except for the graph), the
+ * attribute key and, unless the attribute is removed, its value. The old value
+ * of a changed attribute is not kept.</li>
+ * </ul>
+ * Ids and keys go through a string table : a string already written is
+ * replaced by its index plus one as a varint, a new one is written as a zero
+ * followed by the string, and gets the next index. When the table has
+ * {@link #STRING_TABLE_SIZE} entries, it is cleared before adding the next one.
+ * </p>
+ * 
+ * <p>
+ * Lengths and indices are unsigned varints, 7 bits per byte starting with the
+ * low bits, the high bit telling that another byte follows. Strings are their
+ * length in bytes followed by their UTF-8 bytes. A value is a type byte, using
+ * the codes of {@link NetStreamConstants} plus {@link #TYPE_COLOR} and
+ * {@link #TYPE_MAP}, followed by its data : integers are zigzag varints, floating point numbers are stored on
+ * 4 or 8 bytes, arrays are their length followed by their elements, the
+ * elements of an object array having a type each. Values of other types are
+ * stored with Java serialization when they are serializable, else as their
+ * string.
+ * </p>
+ * 
+ * @see org.graphstream.stream.file.FileSinkBinaryDGS
+ * @see org.graphstream.stream.file.FileSourceBinaryDGS
+ */
+public class BinaryDGS {
+	public static final byte[] MAGIC = { 'D', 'G', 'S', 'B' };
+
+	public static final int VERSION = 1;
+
+	/**
+	 * Flag telling that the blocks are compressed when it saves space.
+	 */
+	public static final int FLAG_COMPRESSED = 0x01;
+
+	/**
+	 * Size from which a block of events is written.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Number of strings of the table, after which it is cleared.
+	 */
+	public static final int STRING_TABLE_SIZE = 1 << 20;
+
+	//
+	// Codes of NetStreamConstants, which are not constant expressions.
+	//
+
+	public static final int EVENT_ADD_NODE = 0x10;
+	public static final int EVENT_DEL_NODE = 0x11;
+	public static final int EVENT_ADD_EDGE = 0x12;
+	public static final int EVENT_DEL_EDGE = 0x13;
+	public static final int EVENT_STEP = 0x14;
+	public static final int EVENT_CLEARED = 0x15;
+	public static final int EVENT_ADD_GRAPH_ATTR = 0x16;
+	public static final int EVENT_CHG_GRAPH_ATTR = 0x17;
+	public static final int EVENT_DEL_GRAPH_ATTR = 0x18;
+	public static final int EVENT_ADD_NODE_ATTR = 0x19;
+	public static final int EVENT_CHG_NODE_ATTR = 0x1a;
+	public static final int EVENT_DEL_NODE_ATTR = 0x1b;
+	public static final int EVENT_ADD_EDGE_ATTR = 0x1c;
+	public static final int EVENT_CHG_EDGE_ATTR = 0x1d;
+	public static final int EVENT_DEL_EDGE_ATTR = 0x1e;
+
+	public static final int TYPE_BOOLEAN = 0x50;
+	public static final int TYPE_BOOLEAN_ARRAY = 0x51;
+	public static final int TYPE_BYTE = 0x52;
+	public static final int TYPE_BYTE_ARRAY = 0x53;
+	public static final int TYPE_SHORT = 0x54;
+	public static final int TYPE_SHORT_ARRAY = 0x55;
+	public static final int TYPE_INT = 0x56;
+	public static final int TYPE_INT_ARRAY = 0x57;
+	public static final int TYPE_LONG = 0x58;
+	public static final int TYPE_LONG_ARRAY = 0x59;
+	public static final int TYPE_FLOAT = 0x5a;
+	public static final int TYPE_FLOAT_ARRAY = 0x5b;
+	public static final int TYPE_DOUBLE = 0x5c;
+	public static final int TYPE_DOUBLE_ARRAY = 0x5d;
+	public static final int TYPE_STRING = 0x5e;
+	public static final int TYPE_RAW = 0x5f;
+	public static final int TYPE_ARRAY = 0x60;
+	public static final int TYPE_NULL = 0x61;
+
+	/**
+	 * A color, followed by its red, green, blue and alpha bytes. This type is
+	 * not part of {@link NetStreamConstants}.
+	 */
+	public static final int TYPE_COLOR = 0x62;
+
+	/**
+	 * A map with string keys, followed by its number of entries and, for each
+	 * entry, its key through the string table and its value. Maps are read as
+	 * {@link java.util.HashMap}. This type is not part of
+	 * {@link NetStreamConstants}.
+	 */
+	public static final int TYPE_MAP = 0x63;
+}
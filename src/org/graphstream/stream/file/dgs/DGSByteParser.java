@@ -0,0 +1,1086 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.SourceBase.ElementType;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.dgs.DGSParser.Token;
+import org.graphstream.util.parser.ParseException;
+import org.graphstream.util.parser.Parser;
+
+/**
+ * DGS parser working on the bytes of the file rather than on characters.
+ * 
+ * <p>
+ * A file is read through a memory mapping of its channel, by windows of
+ * {@link #WINDOW_SIZE} bytes. Other streams, a gzip stream for example, are
+ * read directly. In both cases the bytes are tokenized in an array of
+ * {@link #BUFFER_SIZE} bytes, which is faster than reading a mapping byte per
+ * byte. The text is expected to be
+ * ASCII or UTF-8 : the syntax of DGS is ASCII, bytes out of this range are
+ * taken as part of the identifiers and strings and decoded when the string is
+ * built.
+ * </p>
+ * 
+ * <p>
+ * Identifiers are looked up in a dictionary of the identifiers recently read,
+ * so the strings of the attribute keys and of the elements that are often
+ * changed are built once. The dictionary has {@link #DICTIONARY_SIZE} entries
+ * and an identifier replaces the one with the same slot, so its size does not
+ * depend on the number of elements of the file.
+ * </p>
+ * 
+ * <p>
+ * The events produced are the same as the ones of {@link DGSParser}.
+ * </p>
+ */
+public class DGSByteParser implements Parser {
+	/**
+	 * Size of the windows of a file mapped at once.
+	 */
+	public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Size of the chunks tokenized at once.
+	 */
+	public static final int BUFFER_SIZE = 256 * 1024;
+
+	/**
+	 * Number of identifiers kept in the dictionary, a power of two.
+	 */
+	public static final int DICTIONARY_SIZE = 1 << 16;
+
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Bytes that can be part of an identifier.
+	 */
+	protected static final boolean[] ID_CHARS = new boolean[256];
+
+	static {
+		for (int c = 0; c < 256; c++)
+			ID_CHARS[c] = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+					|| (c >= '0' && c <= '9') || c == '-' || c == '+'
+					|| c == '_' || c == '.' || c >= 0x80;
+	}
+
+	FileSourceDGS dgs;
+	String sourceId;
+	Token lastDirective;
+	Token pendingDirective;
+
+	FileChannel channel;
+	long channelEnd;
+	boolean sharedChannel;
+	MappedByteBuffer mapping;
+	InputStream stream;
+
+	byte[] chunk;
+	long bufferOffset;
+	int position, limit;
+	int line, column;
+	int[] pushback;
+	int pushbackOffset;
+
+	byte[] scratch;
+	char[] chars;
+
+	String[] dictionary;
+	int[] dictionaryHashes;
+	int dictionaryHits;
+
+	/**
+	 * Parser reading a file through a mapping of its channel.
+	 * 
+	 * @param dgs
+	 *            The source sending the events.
+	 * @param channel
+	 *            Channel of the file, closed with the parser.
+	 */
+	public DGSByteParser(FileSourceDGS dgs, FileChannel channel)
+			throws IOException {
+		this(dgs);
+		this.channel = channel;
+		this.channelEnd = channel.size();
+		this.bufferOffset = channel.position();
+	}
+
+	/**
+	 * Parser reading a part of a file, that starts at the beginning of a line
+	 * after the header. Such a parser has no header to read : events are read
+	 * with {@link #next()}, and lines are numbered from the start of the part
+	 * unless {@link #setLine(int)} is called.
+	 * Several parsers can read different parts of the same channel at once.
+	 * 
+	 * @param dgs
+	 *            The source sending the events.
+	 * @param channel
+	 *            Channel of the file, not closed with the parser.
+	 * @param start
+	 *            Offset of the first byte of the part.
+	 * @param end
+	 *            Offset following the last byte of the part.
+	 */
+	public DGSByteParser(FileSourceDGS dgs, FileChannel channel, long start,
+			long end) {
+		this(dgs);
+		this.channel = channel;
+		this.channelEnd = end;
+		this.bufferOffset = start;
+		this.sharedChannel = true;
+	}
+
+	/**
+	 * Parser reading a stream by chunks.
+	 * 
+	 * @param dgs
+	 *            The source sending the events.
+	 * @param stream
+	 *            The stream, closed with the parser.
+	 */
+	public DGSByteParser(FileSourceDGS dgs, InputStream stream) {
+		this(dgs);
+		this.stream = stream;
+	}
+
+	private DGSByteParser(FileSourceDGS dgs) {
+		this.dgs = dgs;
+		this.chunk = new byte[BUFFER_SIZE];
+		this.sourceId = String.format("<DGS stream %x>", System.nanoTime());
+		this.pushback = new int[10];
+		this.pushbackOffset = -1;
+		this.scratch = new byte[256];
+		this.chars = new char[256];
+		this.dictionary = new String[DICTIONARY_SIZE];
+		this.dictionaryHashes = new int[DICTIONARY_SIZE];
+	}
+
+	/**
+	 * Set the number of the current line, counted from zero, used in the
+	 * position of parse errors. A parser reading a part of a file can so give
+	 * the same positions as a parser reading the whole file.
+	 * 
+	 * @param line
+	 *            Number of the line.
+	 */
+	public void setLine(int line) {
+		this.line = line;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.util.parser.Parser#close()
+	 */
+	public void close() throws IOException {
+		mapping = null;
+
+		if (channel != null && !sharedChannel)
+			channel.close();
+
+		if (stream != null)
+			stream.close();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.util.parser.Parser#open()
+	 */
+	public void open() throws IOException, ParseException {
+		header();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.util.parser.Parser#all()
+	 */
+	public void all() throws IOException, ParseException {
+		header();
+
+		while (next())
+			;
+	}
+
+	/**
+	 * Offset in the file of the next byte to read.
+	 */
+	public long getPosition() {
+		return bufferOffset + position;
+	}
+
+	/**
+	 * Number of identifiers that were found in the dictionary.
+	 */
+	public int getDictionaryHits() {
+		return dictionaryHits;
+	}
+
+	// *** Input ***
+
+	/**
+	 * Get the next bytes of the input once the current ones are consumed.
+	 * 
+	 * @return false if the end of the input is reached.
+	 */
+	protected boolean fill() throws IOException {
+		int r;
+
+		bufferOffset += limit;
+		position = 0;
+		limit = 0;
+
+		if (channel != null) {
+			if (mapping == null || !mapping.hasRemaining()) {
+				long remaining = channelEnd - bufferOffset;
+
+				if (remaining <= 0)
+					return false;
+
+				mapping = channel.map(FileChannel.MapMode.READ_ONLY,
+						bufferOffset, Math.min(remaining, WINDOW_SIZE));
+			}
+
+			r = Math.min(mapping.remaining(), chunk.length);
+			mapping.get(chunk, 0, r);
+		} else {
+			do {
+				r = stream.read(chunk, 0, chunk.length);
+			} while (r == 0);
+
+			if (r < 0)
+				return false;
+		}
+
+		limit = r;
+		return true;
+	}
+
+	protected int nextChar() throws IOException {
+		int c;
+
+		if (pushbackOffset >= 0)
+			return pushback[pushbackOffset--];
+
+		if (position >= limit && !fill())
+			return -1;
+
+		c = chunk[position++] & 0xFF;
+
+		//
+		// Handle special EOL
+		// - LF
+		// - CR
+		// - CR+LF
+		//
+		if (c == '\r') {
+			if (position >= limit)
+				fill();
+
+			if (position < limit && chunk[position] == '\n')
+				position++;
+
+			c = '\n';
+		}
+
+		if (c == '\n') {
+			line++;
+			column = 0;
+		} else
+			column++;
+
+		return c;
+	}
+
+	/**
+	 * The next char, that is not consumed.
+	 */
+	protected int peek() throws IOException {
+		int c;
+
+		if (pushbackOffset >= 0)
+			return pushback[pushbackOffset];
+
+		if (position >= limit && !fill())
+			return -1;
+
+		c = chunk[position] & 0xFF;
+		return c == '\r' ? '\n' : c;
+	}
+
+	protected void pushback(int c) throws IOException {
+		if (c < 0)
+			return;
+
+		if (pushbackOffset + 1 >= pushback.length)
+			throw new IOException("pushback buffer overflow");
+
+		pushback[++pushbackOffset] = c;
+	}
+
+	protected void skipLine() throws IOException {
+		int c;
+
+		while ((c = nextChar()) != '\n' && c >= 0)
+			;
+	}
+
+	protected void skipWhitespaces() throws IOException {
+		int c;
+
+		for (;;) {
+			if (pushbackOffset < 0 && position < limit) {
+				c = chunk[position];
+
+				if (c != ' ' && c != '\t')
+					return;
+
+				position++;
+				column++;
+			} else {
+				c = peek();
+
+				if (c != ' ' && c != '\t')
+					return;
+
+				nextChar();
+			}
+		}
+	}
+
+	// *** Parsing ***
+
+	protected void header() throws IOException, ParseException {
+		int[] dgs = new int[6];
+
+		for (int i = 0; i < 6; i++)
+			dgs[i] = nextChar();
+
+		if (dgs[0] != 'D' || dgs[1] != 'G' || dgs[2] != 'S')
+			throw parseException(String.format(
+					"bad magic header, 'DGS' expected, got '%c%c%c'", dgs[0],
+					dgs[1], dgs[2]));
+
+		if (dgs[3] != '0' || dgs[4] != '0' || dgs[5] < '0' || dgs[5] > '5')
+			throw parseException(String.format("bad version \"%c%c%c\"",
+					dgs[3], dgs[4], dgs[5]));
+
+		if (nextChar() != '\n')
+			throw parseException("end-of-line is missing");
+
+		skipLine();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.util.parser.Parser#next()
+	 */
+	public boolean next() throws IOException, ParseException {
+		int c;
+		String nodeId;
+		String edgeId, source, target;
+
+		if (pendingDirective != null) {
+			lastDirective = pendingDirective;
+			pendingDirective = null;
+		} else
+			lastDirective = directive();
+
+		switch (lastDirective) {
+		case AN:
+			nodeId = id();
+			dgs.sendNodeAdded(sourceId, nodeId);
+
+			attributes(ElementType.NODE, nodeId);
+			break;
+		case CN:
+			nodeId = id();
+			attributes(ElementType.NODE, nodeId);
+			break;
+		case DN:
+			nodeId = id();
+			dgs.sendNodeRemoved(sourceId, nodeId);
+			break;
+		case AE:
+			edgeId = id();
+			source = id();
+
+			skipWhitespaces();
+			c = peek();
+
+			if (c == '<' || c == '>')
+				nextChar();
+
+			target = id();
+
+			switch (c) {
+			case '>':
+				dgs.sendEdgeAdded(sourceId, edgeId, source, target, true);
+				break;
+			case '<':
+				dgs.sendEdgeAdded(sourceId, edgeId, target, source, true);
+				break;
+			default:
+				dgs.sendEdgeAdded(sourceId, edgeId, source, target, false);
+				break;
+			}
+
+			attributes(ElementType.EDGE, edgeId);
+			break;
+		case CE:
+			edgeId = id();
+			attributes(ElementType.EDGE, edgeId);
+			break;
+		case DE:
+			edgeId = id();
+			dgs.sendEdgeRemoved(sourceId, edgeId);
+			break;
+		case CG:
+			attributes(ElementType.GRAPH, null);
+			break;
+		case ST:
+			dgs.sendStepBegins(sourceId, Double.valueOf(id()));
+			break;
+		case CL:
+			dgs.sendGraphCleared(sourceId);
+			break;
+		case TF:
+			break;
+		case EOF:
+			return false;
+		}
+
+		skipWhitespaces();
+		c = nextChar();
+
+		if (c == '#') {
+			skipLine();
+			return true;
+		}
+
+		if (c < 0)
+			return false;
+
+		if (c != '\n')
+			throw parseException("eol expected, got '%c'", c);
+
+		return true;
+	}
+
+	/**
+	 * Read the events until the next step or the end of the stream.
+	 * 
+	 * @see DGSParser#nextStep()
+	 */
+	public boolean nextStep() throws IOException, ParseException {
+		boolean r;
+
+		do {
+			r = next();
+			pendingDirective = directive();
+		} while (pendingDirective != Token.ST
+				&& pendingDirective != Token.EOF);
+
+		return r;
+	}
+
+	protected void attributes(ElementType type, String id) throws IOException,
+			ParseException {
+		int c;
+
+		skipWhitespaces();
+
+		while ((c = peek()) != '\n' && c != '#' && c >= 0) {
+			attribute(type, id);
+			skipWhitespaces();
+		}
+	}
+
+	protected void attribute(ElementType type, String elementId)
+			throws IOException, ParseException {
+		String key;
+		Object value = null;
+		int c;
+		AttributeChangeEvent ch = AttributeChangeEvent.CHANGE;
+
+		skipWhitespaces();
+		c = peek();
+
+		if (c == '+') {
+			ch = AttributeChangeEvent.ADD;
+			nextChar();
+		} else if (c == '-') {
+			ch = AttributeChangeEvent.REMOVE;
+			nextChar();
+		}
+
+		key = id();
+
+		if (key == null)
+			throw parseException("attribute key expected");
+
+		if (ch != AttributeChangeEvent.REMOVE) {
+			skipWhitespaces();
+			c = peek();
+
+			if (c == '=' || c == ':') {
+				nextChar();
+				skipWhitespaces();
+				value = value(true);
+			} else {
+				value = Boolean.TRUE;
+			}
+		}
+
+		dgs.sendAttributeChangedEvent(sourceId, elementId, type, key, ch, null,
+				value);
+	}
+
+	protected Object value(boolean array) throws IOException, ParseException {
+		int c;
+		LinkedList<Object> l = null;
+		Object o;
+
+		do {
+			skipWhitespaces();
+			c = peek();
+
+			switch (c) {
+			case '\'':
+			case '\"':
+				o = string();
+				break;
+			case '#':
+				o = color();
+				break;
+			case DGSParser.ARRAY_OPEN:
+				nextChar();
+
+				skipWhitespaces();
+				o = value(true);
+				skipWhitespaces();
+
+				if (nextChar() != DGSParser.ARRAY_CLOSE)
+					throw parseException("'%c' expected",
+							DGSParser.ARRAY_CLOSE);
+
+				if (!o.getClass().isArray())
+					o = new Object[] { o };
+
+				break;
+			case DGSParser.MAP_OPEN:
+				o = map();
+				break;
+			default: {
+				int length = word();
+
+				if (length == 0)
+					throw parseException("missing value");
+
+				if ((c >= '0' && c <= '9') || c == '-')
+					o = number(length);
+				else if (isWord(length, "true"))
+					o = Boolean.TRUE;
+				else if (isWord(length, "false"))
+					o = Boolean.FALSE;
+				else
+					o = intern(length);
+
+				break;
+			}
+			}
+
+			c = peek();
+
+			if (array && c == ',') {
+				nextChar();
+
+				if (l == null)
+					l = new LinkedList<Object>();
+
+				l.add(o);
+			} else if (l != null)
+				l.add(o);
+		} while (array && c == ',');
+
+		if (l == null)
+			return o;
+
+		return l.toArray();
+	}
+
+	protected Color color() throws IOException, ParseException {
+		int c;
+		int r, g, b, a;
+		StringBuilder hexa = new StringBuilder();
+
+		c = nextChar();
+
+		if (c != '#')
+			throw parseException("'#' expected");
+
+		for (int i = 0; i < 6; i++) {
+			c = nextChar();
+
+			if (isHexDigit(c))
+				hexa.appendCodePoint(c);
+			else
+				throw parseException("hexadecimal value expected");
+		}
+
+		r = Integer.parseInt(hexa.substring(0, 2), 16);
+		g = Integer.parseInt(hexa.substring(2, 4), 16);
+		b = Integer.parseInt(hexa.substring(4, 6), 16);
+
+		c = peek();
+
+		if (isHexDigit(c)) {
+			hexa.appendCodePoint(nextChar());
+			c = nextChar();
+
+			if (isHexDigit(c))
+				hexa.appendCodePoint(c);
+			else
+				throw parseException("hexadecimal value expected");
+
+			a = Integer.parseInt(hexa.substring(6, 8), 16);
+		} else {
+			a = 255;
+		}
+
+		return new Color(r, g, b, a);
+	}
+
+	protected Object map() throws IOException, ParseException {
+		int c;
+		HashMap<String, Object> map = new HashMap<String, Object>();
+		String key;
+		Object value;
+
+		c = nextChar();
+
+		if (c != DGSParser.MAP_OPEN)
+			throw parseException("'%c' expected", DGSParser.MAP_OPEN);
+
+		c = nextChar();
+
+		while (c != DGSParser.MAP_CLOSE) {
+			pushback(c);
+			key = id();
+
+			if (key == null)
+				throw parseException("id expected here, '%c'", c);
+
+			skipWhitespaces();
+			c = peek();
+
+			if (c == '=' || c == ':') {
+				nextChar();
+				skipWhitespaces();
+				value = value(false);
+			} else {
+				value = Boolean.TRUE;
+			}
+
+			map.put(key, value);
+
+			skipWhitespaces();
+			c = nextChar();
+
+			if (c != DGSParser.MAP_CLOSE && c != ',')
+				throw parseException("'%c' or ',' expected, got '%c'",
+						DGSParser.MAP_CLOSE, c);
+
+			if (c == ',') {
+				skipWhitespaces();
+				c = nextChar();
+			}
+		}
+
+		return map;
+	}
+
+	protected Token directive() throws IOException, ParseException {
+		int c1, c2;
+
+		//
+		// Skip comment and empty lines
+		//
+		do {
+			c1 = nextChar();
+
+			if (c1 == '#')
+				skipLine();
+
+			if (c1 < 0)
+				return Token.EOF;
+		} while (c1 == '#' || c1 == '\n');
+
+		c2 = nextChar();
+
+		if (c1 >= 'A' && c1 <= 'Z')
+			c1 -= 'A' - 'a';
+
+		if (c2 >= 'A' && c2 <= 'Z')
+			c2 -= 'A' - 'a';
+
+		switch (c1) {
+		case 'a':
+			if (c2 == 'n')
+				return Token.AN;
+			else if (c2 == 'e')
+				return Token.AE;
+
+			break;
+		case 'c':
+			switch (c2) {
+			case 'n':
+				return Token.CN;
+			case 'e':
+				return Token.CE;
+			case 'g':
+				return Token.CG;
+			case 'l':
+				return Token.CL;
+			}
+
+			break;
+		case 'd':
+			if (c2 == 'n')
+				return Token.DN;
+			else if (c2 == 'e')
+				return Token.DE;
+
+			break;
+		case 's':
+			if (c2 == 't')
+				return Token.ST;
+
+			break;
+		case 't':
+			if (c2 == 'f')
+				return Token.TF;
+
+			break;
+		}
+
+		throw parseException("unknown directive '%c%c'", c1, c2);
+	}
+
+	/**
+	 * Read a quoted string in the scratch buffer.
+	 * 
+	 * @return The length of the string, in bytes.
+	 */
+	protected int quoted() throws IOException, ParseException {
+		int c, s;
+		int length = 0;
+		boolean slash;
+
+		slash = false;
+		c = nextChar();
+
+		if (c != '\"' && c != '\'')
+			throw parseException("string expected");
+
+		s = c;
+
+		while ((c = nextChar()) != s || slash) {
+			if (c < 0)
+				throw parseException("unterminated string");
+
+			if (slash && c != s)
+				length = append(length, '\\');
+
+			slash = c == '\\';
+
+			if (!slash)
+				length = append(length, c);
+		}
+
+		return length;
+	}
+
+	protected String string() throws IOException, ParseException {
+		return decode(quoted());
+	}
+
+	/**
+	 * Read the bytes of an unquoted identifier in the scratch buffer.
+	 * 
+	 * @return The length of the word, zero if there is no identifier here.
+	 */
+	protected int word() throws IOException {
+		int length = 0;
+		int c;
+
+		for (;;) {
+			if (pushbackOffset < 0 && position < limit) {
+				c = chunk[position] & 0xFF;
+
+				if (!ID_CHARS[c])
+					break;
+
+				position++;
+				column++;
+			} else {
+				c = peek();
+
+				if (c < 0 || !ID_CHARS[c])
+					break;
+
+				nextChar();
+			}
+
+			if (length == scratch.length)
+				scratch = Arrays.copyOf(scratch, length * 2);
+
+			scratch[length++] = (byte) c;
+		}
+
+		return length;
+	}
+
+	protected String id() throws IOException, ParseException {
+		int c, length;
+
+		skipWhitespaces();
+		c = peek();
+
+		if (c == '\"' || c == '\'')
+			return intern(quoted());
+
+		length = word();
+
+		if (length == 0)
+			return null;
+
+		return intern(length);
+	}
+
+	private int append(int length, int c) {
+		if (length == scratch.length)
+			scratch = Arrays.copyOf(scratch, length * 2);
+
+		scratch[length] = (byte) c;
+		return length + 1;
+	}
+
+	private boolean isWord(int length, String word) {
+		if (length != word.length())
+			return false;
+
+		for (int i = 0; i < length; i++)
+			if (Character.toLowerCase(scratch[i]) != word.charAt(i))
+				return false;
+
+		return true;
+	}
+
+	private static boolean isHexDigit(int c) {
+		return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')
+				|| (c >= 'A' && c <= 'F');
+	}
+
+	/**
+	 * Number of the scratch buffer, an Integer or a Long if it has no decimal
+	 * part, else a Double.
+	 */
+	protected Number number(int length) throws ParseException {
+		boolean negative = scratch[0] == '-';
+		long value = 0;
+		int i = negative ? 1 : 0;
+
+		for (int k = 1; k < length; k++)
+			if (scratch[k] == '.')
+				return decimal(length);
+
+		if (i == length)
+			throw invalidNumber(length);
+
+		//
+		// Accumulate negatively, as Long.parseLong does, so that
+		// Long.MIN_VALUE can be read.
+		//
+		for (; i < length; i++) {
+			int d = scratch[i] - '0';
+
+			if (d < 0 || d > 9 || value < (Long.MIN_VALUE + d) / 10)
+				throw invalidNumber(length);
+
+			value = value * 10 - d;
+		}
+
+		if (!negative) {
+			if (value == Long.MIN_VALUE)
+				throw invalidNumber(length);
+
+			value = -value;
+		}
+
+		if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+			return Integer.valueOf((int) value);
+
+		return Long.valueOf(value);
+	}
+
+	private Double decimal(int length) throws ParseException {
+		try {
+			return Double.valueOf(decode(length));
+		} catch (NumberFormatException e) {
+			throw invalidNumber(length);
+		}
+	}
+
+	private ParseException invalidNumber(int length) {
+		return parseException("invalid number format '%s'", decode(length));
+	}
+
+	/**
+	 * String of the bytes of the scratch buffer, taken from the dictionary if
+	 * these bytes were read recently.
+	 */
+	protected String intern(int length) {
+		int hash = 1;
+
+		for (int i = 0; i < length; i++)
+			hash = 31 * hash + scratch[i];
+
+		//
+		// Spread the hash of identifiers that only differ by their last
+		// digits.
+		//
+		hash *= 0x9E3779B9;
+		int slot = (hash ^ (hash >>> 16)) & (DICTIONARY_SIZE - 1);
+		String s = dictionary[slot];
+
+		if (s != null && dictionaryHashes[slot] == hash
+				&& s.length() == length && equals(s, length)) {
+			dictionaryHits++;
+			return s;
+		}
+
+		s = decode(length);
+
+		//
+		// The chars of other strings are not their bytes, they are not kept.
+		//
+		if (s.length() == length) {
+			dictionary[slot] = s;
+			dictionaryHashes[slot] = hash;
+		}
+
+		return s;
+	}
+
+	/**
+	 * String of the bytes of the scratch buffer. UTF-8 is decoded here, as
+	 * building a string from bytes with a charset creates a new decoder each
+	 * time. Malformed sequences are left to the charset, which replaces them.
+	 */
+	protected String decode(int length) {
+		int n = 0;
+
+		if (chars.length < length)
+			chars = new char[scratch.length];
+
+		for (int i = 0; i < length; i++) {
+			int b = scratch[i];
+
+			if (b >= 0) {
+				chars[n++] = (char) b;
+				continue;
+			}
+
+			int cp, more;
+
+			if ((b & 0xE0) == 0xC0) {
+				cp = b & 0x1F;
+				more = 1;
+			} else if ((b & 0xF0) == 0xE0) {
+				cp = b & 0x0F;
+				more = 2;
+			} else if ((b & 0xF8) == 0xF0) {
+				cp = b & 0x07;
+				more = 3;
+			} else
+				return new String(scratch, 0, length, UTF8);
+
+			if (i + more >= length)
+				return new String(scratch, 0, length, UTF8);
+
+			for (int k = 0; k < more; k++) {
+				int next = scratch[++i];
+
+				if ((next & 0xC0) != 0x80)
+					return new String(scratch, 0, length, UTF8);
+
+				cp = (cp << 6) | (next & 0x3F);
+			}
+
+			if (cp < 0x80 || (more == 2 && cp < 0x800)
+					|| (more == 3 && cp < 0x10000)
+					|| (cp >= 0xD800 && cp <= 0xDFFF) || cp > 0x10FFFF)
+				return new String(scratch, 0, length, UTF8);
+
+			n += Character.toChars(cp, chars, n);
+		}
+
+		return new String(chars, 0, n);
+	}
+
+	private boolean equals(String s, int length) {
+		for (int i = 0; i < length; i++)
+			if (s.charAt(i) != scratch[i])
+				return false;
+
+		return true;
+	}
+
+	protected ParseException parseException(String message, Object... args) {
+		return new ParseException(String.format(String.format(
+				"parse error at (%d;%d) : %s", line, column, message), args));
+	}
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.dgs.DGSParser.Token;
+import org.graphstream.util.parser.ParseException;
+
+/**
+ * Index of the steps of a DGS file, allowing to replay the file from any step.
+ * 
+ * <p>
+ * The index is stored in a sidecar file, named after the DGS file with the
+ * {@link #EXTENSION} extension. It gives, for each step of the file, its
+ * number and the offset in bytes of its "st" line. It also holds checkpoints :
+ * the whole graph as it is just before some of the steps, written as DGS text.
+ * To go to a step, a source reads the nearest checkpoint before it, then the
+ * events of the file between this checkpoint and the step (see
+ * {@link FileSourceDGS#seekStep(double)}).
+ * </p>
+ * 
+ * <p>
+ * The index can be written along with the DGS file by
+ * {@link org.graphstream.stream.file.FileSinkDGS#setIndexed(boolean)}, or
+ * built afterwards by {@link #build(String, long)} that reads the file once.
+ * Its file starts with the magic bytes "DGSI", the version of the format, the
+ * length and the modification time of the indexed DGS file and the offset of
+ * its first event. Then come the checkpoints, the table of the steps and the
+ * one of the checkpoints, and at last the offset of the tables. Numbers are
+ * big-endian. When the index file cannot be written, the index is only kept
+ * in memory.
+ * </p>
+ * 
+ * <p>
+ * Compressed DGS files cannot be indexed.
+ * </p>
+ */
+public class DGSIndex {
+	public static final byte[] MAGIC = { 'D', 'G', 'S', 'I' };
+
+	public static final int VERSION = 2;
+
+	/**
+	 * Extension of the index files, added to the name of the DGS file.
+	 */
+	public static final String EXTENSION = ".idx";
+
+	/**
+	 * Default number of bytes of the DGS file between two checkpoints.
+	 */
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 1024 * 1024;
+
+	protected String fileName;
+
+	/**
+	 * Content of an index kept in memory, null if it is read from its file.
+	 */
+	protected byte[] data;
+
+	protected long length;
+	protected long lastModified;
+	protected long dataStart;
+
+	protected double[] steps;
+	protected long[] offsets;
+
+	protected int[] checkpointSteps;
+	protected long[] checkpointPositions;
+	protected long[] checkpointLengths;
+
+	protected DGSIndex(String fileName, byte[] data) {
+		this.fileName = fileName;
+		this.data = data;
+	}
+
+	/**
+	 * Name of the index file of a DGS file.
+	 */
+	public static String indexFileName(String dgsFileName) {
+		return dgsFileName + EXTENSION;
+	}
+
+	/**
+	 * Get the index of a DGS file. The index file is read if it exists and
+	 * matches the length and the modification time of the DGS file, else it
+	 * is built.
+	 * 
+	 * @param dgsFileName
+	 *            Name of the DGS file.
+	 * @return The index.
+	 */
+	public static DGSIndex open(String dgsFileName) throws IOException {
+		String indexFileName = indexFileName(dgsFileName);
+
+		if (new File(indexFileName).isFile()) {
+			try {
+				DGSIndex index = load(indexFileName);
+				File dgsFile = new File(dgsFileName);
+
+				if (index.length == dgsFile.length()
+						&& index.lastModified == dgsFile.lastModified())
+					return index;
+			} catch (IOException e) {
+				//
+				// The index is damaged, it is built again.
+				//
+			}
+		}
+
+		return build(dgsFileName, DEFAULT_CHECKPOINT_INTERVAL);
+	}
+
+	/**
+	 * Read an index file.
+	 * 
+	 * @param indexFileName
+	 *            Name of the index file.
+	 * @return The index.
+	 */
+	public static DGSIndex load(String indexFileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(indexFileName, "r");
+		DGSIndex index = new DGSIndex(indexFileName, null);
+
+		try {
+			index.readHeader(file);
+			file.seek(file.length() - 8);
+			file.seek(file.readLong());
+			index.readTables(new DataInputStream(new BufferedInputStream(
+					Channels.newInputStream(file.getChannel()))));
+		} finally {
+			file.close();
+		}
+
+		return index;
+	}
+
+	/**
+	 * Read an index kept in memory.
+	 * 
+	 * @param data
+	 *            Content of the index.
+	 * @return The index.
+	 */
+	public static DGSIndex load(byte[] data) throws IOException {
+		DGSIndex index = new DGSIndex(null, data);
+		int tables = (int) ByteBuffer.wrap(data).getLong(data.length - 8);
+
+		index.readHeader(new DataInputStream(new ByteArrayInputStream(data)));
+		index.readTables(new DataInputStream(new ByteArrayInputStream(data,
+				tables, data.length - tables)));
+
+		return index;
+	}
+
+	protected void readHeader(DataInput in) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("not a DGS index file");
+
+		int version = in.readInt();
+
+		if (version != VERSION)
+			throw new IOException("unsupported DGS index version " + version);
+
+		length = in.readLong();
+		lastModified = in.readLong();
+		dataStart = in.readLong();
+	}
+
+	protected void readTables(DataInput in) throws IOException {
+		int n = in.readInt();
+		steps = new double[n];
+		offsets = new long[n];
+
+		for (int i = 0; i < n; i++) {
+			steps[i] = in.readDouble();
+			offsets[i] = in.readLong();
+		}
+
+		n = in.readInt();
+		checkpointSteps = new int[n];
+		checkpointPositions = new long[n];
+		checkpointLengths = new long[n];
+
+		for (int i = 0; i < n; i++) {
+			checkpointSteps[i] = in.readInt();
+			checkpointPositions[i] = in.readLong();
+			checkpointLengths[i] = in.readLong();
+		}
+	}
+
+	/**
+	 * Build the index of a DGS file by reading it once, and write it to its
+	 * index file. If the index file cannot be created, for example because the
+	 * directory is read-only, the index is only kept in memory.
+	 * 
+	 * @param dgsFileName
+	 *            Name of the DGS file.
+	 * @param checkpointInterval
+	 *            Minimal number of bytes of the DGS file between two
+	 *            checkpoints.
+	 * @return The index.
+	 */
+	public static DGSIndex build(String dgsFileName, long checkpointInterval)
+			throws IOException {
+		FileChannel channel = new FileInputStream(dgsFileName).getChannel();
+		DGSIndexWriter writer = null;
+
+		try {
+			ByteBuffer magic = ByteBuffer.allocate(2);
+			channel.read(magic, 0);
+
+			if (magic.position() == 2 && (magic.get(0) & 0xFF) == 0x1F
+					&& (magic.get(1) & 0xFF) == 0x8B)
+				throw new IOException("cannot index a compressed DGS file");
+
+			FileSourceDGS scanner = new FileSourceDGS();
+			DGSByteParser parser = new DGSByteParser(scanner, channel);
+
+			parser.open();
+
+			try {
+				writer = new DGSIndexWriter(indexFileName(dgsFileName),
+						parser.getPosition(), checkpointInterval);
+			} catch (IOException e) {
+				writer = new DGSIndexWriter(null, parser.getPosition(),
+						checkpointInterval);
+			}
+
+			scanner.addSink(writer);
+
+			//
+			// The directive of the next step is read ahead, it starts two
+			// bytes before the position of the parser.
+			//
+			parser.pendingDirective = parser.directive();
+
+			while (parser.pendingDirective != Token.EOF) {
+				if (parser.pendingDirective == Token.ST)
+					writer.stepOffset(parser.getPosition() - 2);
+
+				parser.nextStep();
+			}
+
+			writer.close(channel.size(), new File(dgsFileName).lastModified());
+			parser.close();
+		} catch (ParseException e) {
+			if (writer != null)
+				writer.abort();
+
+			throw new IOException(e);
+		} catch (IOException e) {
+			if (writer != null)
+				writer.abort();
+
+			throw e;
+		} finally {
+			channel.close();
+		}
+
+		byte[] data = writer.getBytes();
+
+		return data == null ? load(indexFileName(dgsFileName)) : load(data);
+	}
+
+	/**
+	 * Name of the index file, null if the index is kept in memory.
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Length of the indexed DGS file.
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Modification time of the indexed DGS file.
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Offset of the first event of the DGS file, after its header.
+	 */
+	public long getDataStart() {
+		return dataStart;
+	}
+
+	/**
+	 * Number of steps of the DGS file.
+	 */
+	public int getStepCount() {
+		return steps.length;
+	}
+
+	/**
+	 * Number of the i-th step of the file.
+	 */
+	public double getStep(int i) {
+		return steps[i];
+	}
+
+	/**
+	 * Offset in the DGS file of the i-th step.
+	 */
+	public long getOffset(int i) {
+		return offsets[i];
+	}
+
+	/**
+	 * Find the first step of the file whose number is greater than or equal to
+	 * a given one.
+	 * 
+	 * @param step
+	 *            A step number.
+	 * @return The rank of the step in the file, or -1 if there is no such
+	 *         step.
+	 */
+	public int findStep(double step) {
+		for (int i = 0; i < steps.length; i++)
+			if (steps[i] >= step)
+				return i;
+
+		return -1;
+	}
+
+	/**
+	 * Number of checkpoints.
+	 */
+	public int getCheckpointCount() {
+		return checkpointSteps.length;
+	}
+
+	/**
+	 * Find the last checkpoint taken before a step.
+	 * 
+	 * @param step
+	 *            Rank of a step in the file.
+	 * @return The rank of the checkpoint, or -1 if the step is before the
+	 *         first checkpoint.
+	 */
+	public int getCheckpointBefore(int step) {
+		int i = Arrays.binarySearch(checkpointSteps, step);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	/**
+	 * Rank of the step before which a checkpoint was taken.
+	 */
+	public int getCheckpointStep(int checkpoint) {
+		return checkpointSteps[checkpoint];
+	}
+
+	/**
+	 * Send the graph of a checkpoint, as add and change events.
+	 * 
+	 * @param checkpoint
+	 *            Rank of the checkpoint.
+	 * @param source
+	 *            Source sending the events.
+	 */
+	public void readCheckpoint(int checkpoint, FileSourceDGS source)
+			throws IOException {
+		long start = checkpointPositions[checkpoint];
+		long end = start + checkpointLengths[checkpoint];
+		FileChannel channel = null;
+		DGSByteParser parser;
+
+		if (data == null) {
+			channel = new FileInputStream(fileName).getChannel();
+			parser = new DGSByteParser(source, channel, start, end);
+		} else {
+			parser = new DGSByteParser(source, new ByteArrayInputStream(data,
+					(int) start, (int) (end - start)));
+		}
+
+		try {
+			parser.all();
+		} catch (ParseException e) {
+			throw new IOException(e);
+		} finally {
+			parser.close();
+
+			if (channel != null)
+				channel.close();
+		}
+	}
+}
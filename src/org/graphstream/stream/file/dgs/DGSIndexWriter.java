@@ -0,0 +1,354 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.file.FileSinkDGS;
+
+/**
+ * Writer of a {@link DGSIndex} file.
+ * 
+ * <p>
+ * The writer receives the events of the DGS file as a sink, and keeps a copy
+ * of the graph they build. It is told the offset of each step by
+ * {@link #stepOffset(long)} just before the step event. At that time, if the
+ * file grew by at least the checkpoint interval and twice the size of the last
+ * checkpoint since this checkpoint, the graph is written as a new checkpoint.
+ * This bounds the part of the file to replay to reach any step, while the
+ * checkpoints take no more space than the file, give or take a small factor.
+ * </p>
+ * 
+ * <p>
+ * The index is written to a file, or kept in memory when the writer is
+ * created without file name (see {@link #getBytes()}). Errors met while
+ * writing a checkpoint are thrown by {@link #close(long, long)}.
+ * </p>
+ */
+public class DGSIndexWriter extends SourceBase implements Sink {
+	/**
+	 * Offset of the length of the DGS file in the index.
+	 */
+	protected static final int LENGTH_OFFSET = DGSIndex.MAGIC.length + 4;
+
+	protected RandomAccessFile file;
+	protected ByteArrayOutputStream memory;
+	protected long position;
+
+	/**
+	 * Copy of the graph.
+	 */
+	protected Graph graph;
+
+	protected long checkpointInterval;
+	protected long lastCheckpointOffset;
+	protected long lastCheckpointLength;
+
+	protected double[] steps;
+	protected long[] offsets;
+	protected int stepCount;
+	protected long pendingOffset;
+
+	protected int[] checkpointSteps;
+	protected long[] checkpointPositions;
+	protected long[] checkpointLengths;
+	protected int checkpointCount;
+
+	protected IOException error;
+
+	/**
+	 * Create an index file.
+	 * 
+	 * @param indexFileName
+	 *            Name of the index file, or null to keep the index in memory.
+	 * @param dataStart
+	 *            Offset of the first event of the DGS file.
+	 * @param checkpointInterval
+	 *            Minimal number of bytes of the DGS file between two
+	 *            checkpoints.
+	 */
+	public DGSIndexWriter(String indexFileName, long dataStart,
+			long checkpointInterval) throws IOException {
+		if (checkpointInterval <= 0)
+			throw new IllegalArgumentException(
+					"checkpoint interval must be positive");
+
+		this.checkpointInterval = checkpointInterval;
+		this.lastCheckpointOffset = dataStart;
+		this.graph = new AdjacencyListGraph("checkpoint", false, true);
+		this.steps = new double[64];
+		this.offsets = new long[64];
+		this.pendingOffset = -1;
+		this.checkpointSteps = new int[16];
+		this.checkpointPositions = new long[16];
+		this.checkpointLengths = new long[16];
+
+		addSink(graph);
+
+		if (indexFileName == null) {
+			memory = new ByteArrayOutputStream();
+		} else {
+			file = new RandomAccessFile(indexFileName, "rw");
+			file.setLength(0);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.write(DGSIndex.MAGIC);
+		out.writeInt(DGSIndex.VERSION);
+		out.writeLong(0);
+		out.writeLong(0);
+		out.writeLong(dataStart);
+		write(bytes.toByteArray());
+	}
+
+	/**
+	 * The index kept in memory, once closed.
+	 * 
+	 * @return The content of the index, or null if it is written to a file.
+	 */
+	public byte[] getBytes() {
+		return memory == null ? null : memory.toByteArray();
+	}
+
+	protected void write(byte[] bytes) throws IOException {
+		if (memory == null)
+			file.write(bytes);
+		else
+			memory.write(bytes);
+
+		position += bytes.length;
+	}
+
+	/**
+	 * Called before the event of a step that starts at a given offset of the
+	 * DGS file.
+	 * 
+	 * @param offset
+	 *            Offset of the step in the DGS file.
+	 */
+	public void stepOffset(long offset) {
+		long size = offset - lastCheckpointOffset;
+
+		if (error == null && size >= checkpointInterval
+				&& size >= 2 * lastCheckpointLength) {
+			try {
+				checkpoint();
+				lastCheckpointOffset = offset;
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		pendingOffset = offset;
+	}
+
+	/**
+	 * Write the graph as a checkpoint before the next step.
+	 */
+	protected void checkpoint() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new FileSinkDGS().writeAll(graph, bytes);
+
+		if (checkpointCount == checkpointSteps.length) {
+			int n = checkpointCount * 2;
+			checkpointSteps = Arrays.copyOf(checkpointSteps, n);
+			checkpointPositions = Arrays.copyOf(checkpointPositions, n);
+			checkpointLengths = Arrays.copyOf(checkpointLengths, n);
+		}
+
+		checkpointSteps[checkpointCount] = stepCount;
+		checkpointPositions[checkpointCount] = position;
+		checkpointLengths[checkpointCount] = bytes.size();
+		checkpointCount++;
+
+		write(bytes.toByteArray());
+		lastCheckpointLength = bytes.size();
+	}
+
+	/**
+	 * Write the tables and close the index file.
+	 * 
+	 * @param length
+	 *            Length of the DGS file.
+	 * @param lastModified
+	 *            Modification time of the DGS file, as given by
+	 *            {@link java.io.File#lastModified()}.
+	 */
+	public void close(long length, long lastModified) throws IOException {
+		try {
+			if (error != null)
+				throw error;
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+
+			out.writeInt(stepCount);
+
+			for (int i = 0; i < stepCount; i++) {
+				out.writeDouble(steps[i]);
+				out.writeLong(offsets[i]);
+			}
+
+			out.writeInt(checkpointCount);
+
+			for (int i = 0; i < checkpointCount; i++) {
+				out.writeInt(checkpointSteps[i]);
+				out.writeLong(checkpointPositions[i]);
+				out.writeLong(checkpointLengths[i]);
+			}
+
+			out.writeLong(position);
+			write(bytes.toByteArray());
+
+			if (memory == null) {
+				file.seek(LENGTH_OFFSET);
+				file.writeLong(length);
+				file.writeLong(lastModified);
+			} else {
+				byte[] content = memory.toByteArray();
+				ByteBuffer.wrap(content).putLong(LENGTH_OFFSET, length)
+						.putLong(LENGTH_OFFSET + 8, lastModified);
+				memory.reset();
+				memory.write(content);
+			}
+		} finally {
+			if (file != null)
+				file.close();
+
+			graph = null;
+		}
+	}
+
+	/**
+	 * Close the index file without writing the tables, it is not usable.
+	 */
+	public void abort() throws IOException {
+		if (file != null)
+			file.close();
+
+		memory = null;
+		graph = null;
+	}
+
+	// *** Sink ***
+
+	public void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		sendGraphAttributeAdded(this.sourceId, attribute, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		sendGraphAttributeChanged(this.sourceId, attribute, oldValue, newValue);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId,
+			String attribute) {
+		sendGraphAttributeRemoved(this.sourceId, attribute);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId,
+			String nodeId, String attribute, Object value) {
+		sendNodeAttributeAdded(this.sourceId, nodeId, attribute, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		sendNodeAttributeChanged(this.sourceId, nodeId, attribute, oldValue,
+				newValue);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId,
+			String nodeId, String attribute) {
+		sendNodeAttributeRemoved(this.sourceId, nodeId, attribute);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId,
+			String edgeId, String attribute, Object value) {
+		sendEdgeAttributeAdded(this.sourceId, edgeId, attribute, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		sendEdgeAttributeChanged(this.sourceId, edgeId, attribute, oldValue,
+				newValue);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId,
+			String edgeId, String attribute) {
+		sendEdgeAttributeRemoved(this.sourceId, edgeId, attribute);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		sendNodeAdded(this.sourceId, nodeId);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		sendNodeRemoved(this.sourceId, nodeId);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		sendEdgeAdded(this.sourceId, edgeId, fromNodeId, toNodeId, directed);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		sendEdgeRemoved(this.sourceId, edgeId);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		sendGraphCleared(this.sourceId);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		if (stepCount == steps.length) {
+			steps = Arrays.copyOf(steps, stepCount * 2);
+			offsets = Arrays.copyOf(offsets, stepCount * 2);
+		}
+
+		steps[stepCount] = step;
+		offsets[stepCount] = pendingOffset;
+		stepCount++;
+		pendingOffset = -1;
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.graphstream.stream.EventBatch;
+import org.graphstream.stream.EventBatch.EventType;
+
+/**
+ * Counters of a component of an event pipeline : a source, a sink or a proxy.
+ * 
+ * <p>
+ * It counts the events by type, and records how long the dispatch of events
+ * to the sinks takes. Proxies also record the duration of their pumps and the
+ * number of events waiting in their queue. Components only measure when they
+ * are given an instance of this class (see
+ * {@link org.graphstream.stream.SourceBase#setMetrics(EventMetrics)} and
+ * {@link Metrics}), so that the cost is a null check when they are not.
+ * </p>
+ * 
+ * <p>
+ * The counters can be updated by several threads and read at any time, with
+ * {@link #snapshot()} or through JMX.
+ * </p>
+ */
+public class EventMetrics implements EventMetricsMXBean {
+	private static final EventType[] TYPES = EventType.values();
+
+	protected final String name;
+
+	protected final AtomicLongArray counts = new AtomicLongArray(TYPES.length);
+
+	/**
+	 * Duration of each dispatch of an event, or of a batch of events, to the
+	 * sinks.
+	 */
+	protected final Histogram dispatch = new Histogram();
+
+	/**
+	 * Duration of each pump of a proxy.
+	 */
+	protected final Histogram pump = new Histogram();
+
+	protected final AtomicLong pumpedEvents = new AtomicLong();
+
+	protected volatile long queueDepth = 0;
+	protected volatile long maxQueueDepth = 0;
+
+	public EventMetrics(String name) {
+		this.name = name;
+	}
+
+	// *** Recording ***
+
+	/**
+	 * Count events that are not dispatched yet.
+	 */
+	public void eventsSent(EventType type, int count) {
+		counts.addAndGet(type.ordinal(), count);
+	}
+
+	/**
+	 * Count events that were just dispatched to the sinks.
+	 * 
+	 * @param type
+	 *            The type of the events.
+	 * @param count
+	 *            The number of events.
+	 * @param start
+	 *            Value of {@link System#nanoTime()} before the dispatch.
+	 */
+	public void dispatched(EventType type, int count, long start) {
+		dispatch.record(System.nanoTime() - start);
+		counts.addAndGet(type.ordinal(), count);
+	}
+
+	/**
+	 * Count the events of a batch that were just dispatched to the sinks.
+	 * 
+	 * @param batch
+	 *            The events.
+	 * @param start
+	 *            Value of {@link System#nanoTime()} before the dispatch.
+	 */
+	public void dispatched(EventBatch batch, long start) {
+		dispatch.record(System.nanoTime() - start);
+		batchSent(batch);
+	}
+
+	/**
+	 * Count the events of a batch that is not dispatched yet.
+	 */
+	public void batchSent(EventBatch batch) {
+		for (int i = 0; i < batch.size(); i++)
+			counts.incrementAndGet(batch.getType(i).ordinal());
+	}
+
+	/**
+	 * Record a pump of a proxy.
+	 * 
+	 * @param events
+	 *            The number of events dispatched by the pump.
+	 * @param start
+	 *            Value of {@link System#nanoTime()} before the pump.
+	 */
+	public void pumped(int events, long start) {
+		pump.record(System.nanoTime() - start);
+		pumpedEvents.addAndGet(events);
+	}
+
+	/**
+	 * Record the number of events waiting in the queue of a proxy.
+	 */
+	public void queueDepth(long depth) {
+		queueDepth = depth;
+
+		if (depth > maxQueueDepth)
+			maxQueueDepth = depth;
+	}
+
+	// *** Access ***
+
+	public String getName() {
+		return name;
+	}
+
+	public long getEventCount(EventType type) {
+		return counts.get(type.ordinal());
+	}
+
+	public long getEventCount() {
+		long total = 0;
+
+		for (int i = 0; i < TYPES.length; i++)
+			total += counts.get(i);
+
+		return total;
+	}
+
+	public Map<String, Long> getEventCounts() {
+		Map<String, Long> map = new TreeMap<String, Long>();
+
+		for (int i = 0; i < TYPES.length; i++) {
+			long n = counts.get(i);
+
+			if (n > 0)
+				map.put(TYPES[i].name(), n);
+		}
+
+		return map;
+	}
+
+	public Histogram getDispatchHistogram() {
+		return dispatch;
+	}
+
+	public Histogram getPumpHistogram() {
+		return pump;
+	}
+
+	public long getDispatchCount() {
+		return dispatch.getCount();
+	}
+
+	public double getMeanDispatchNanos() {
+		return dispatch.getMean();
+	}
+
+	public long getMaxDispatchNanos() {
+		return dispatch.getMax();
+	}
+
+	public long getDispatchNanos50() {
+		return dispatch.getPercentile(50);
+	}
+
+	public long getDispatchNanos99() {
+		return dispatch.getPercentile(99);
+	}
+
+	public long getPumpCount() {
+		return pump.getCount();
+	}
+
+	public long getPumpedEventCount() {
+		return pumpedEvents.get();
+	}
+
+	public double getMeanPumpNanos() {
+		return pump.getMean();
+	}
+
+	public long getMaxPumpNanos() {
+		return pump.getMax();
+	}
+
+	public long getQueueDepth() {
+		return queueDepth;
+	}
+
+	public long getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * Copy of the current values of the counters.
+	 */
+	public MetricsSnapshot snapshot() {
+		return new MetricsSnapshot(this);
+	}
+
+	public void reset() {
+		for (int i = 0; i < TYPES.length; i++)
+			counts.set(i, 0);
+
+		dispatch.reset();
+		pump.reset();
+		pumpedEvents.set(0);
+		maxQueueDepth = queueDepth;
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
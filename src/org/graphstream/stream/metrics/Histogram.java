@@ -0,0 +1,125 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of durations, in nanoseconds.
+ * 
+ * <p>
+ * Values are counted in buckets whose bounds are powers of two, so recording
+ * a value is a few atomic increments and the percentiles are known within a
+ * factor of two. Values can be recorded by several threads.
+ * </p>
+ */
+public class Histogram {
+	/**
+	 * Bucket i counts the values v with 2^(i-1) <= v < 2^i, bucket 0 counts
+	 * zero.
+	 */
+	protected final AtomicLongArray buckets = new AtomicLongArray(64);
+
+	protected final AtomicLong count = new AtomicLong();
+	protected final AtomicLong sum = new AtomicLong();
+	protected final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a value.
+	 * 
+	 * @param nanos
+	 *            The duration, negative values count as zero.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+
+		buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+
+		long m = max.get();
+
+		while (nanos > m && !max.compareAndSet(m, nanos))
+			m = max.get();
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : sum.get() / (double) n;
+	}
+
+	/**
+	 * Upper bound of the bucket holding the given percentile.
+	 * 
+	 * @param p
+	 *            The percentile, between 0 and 100.
+	 * @return A value that at least p percent of the recorded values do not
+	 *         exceed, at most twice the exact percentile.
+	 */
+	public long getPercentile(double p) {
+		long n = count.get();
+
+		if (n == 0)
+			return 0;
+
+		long rank = (long) Math.ceil(n * p / 100.0);
+		long seen = 0;
+
+		for (int i = 0; i < 64; i++) {
+			seen += buckets.get(i);
+
+			if (seen >= rank && seen > 0)
+				return Math.min(i == 0 ? 0 : (1L << i) - 1, max.get());
+		}
+
+		return max.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < 64; i++)
+			buckets.set(i, 0);
+
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.metrics;
+
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.EventBatch;
+import org.graphstream.stream.EventBatch.EventType;
+import org.graphstream.stream.Sink;
+
+/**
+ * Sink measuring the events received by another sink and the time it takes to
+ * process each of them.
+ * 
+ * <p>
+ * Buffers of events are passed as is to a {@link BatchSink}, and unrolled for
+ * the other sinks. The time of a buffer is recorded once.
+ * </p>
+ */
+public class MeteredSink implements BatchSink {
+	protected final Sink sink;
+	protected final EventMetrics metrics;
+
+	public MeteredSink(Sink sink, EventMetrics metrics) {
+		this.sink = sink;
+		this.metrics = metrics;
+	}
+
+	public Sink getSink() {
+		return sink;
+	}
+
+	public EventMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void eventsReceived(EventBatch batch) {
+		long start = System.nanoTime();
+
+		if (sink instanceof BatchSink)
+			((BatchSink) sink).eventsReceived(batch);
+		else
+			batch.replay(sink);
+
+		metrics.dispatched(batch, start);
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		long start = System.nanoTime();
+		sink.graphAttributeAdded(sourceId, timeId, attribute, value);
+		metrics.dispatched(EventType.ADD_GRAPH_ATTR, 1, start);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		long start = System.nanoTime();
+		sink.graphAttributeChanged(sourceId, timeId, attribute, oldValue,
+				newValue);
+		metrics.dispatched(EventType.CHG_GRAPH_ATTR, 1, start);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId,
+			String attribute) {
+		long start = System.nanoTime();
+		sink.graphAttributeRemoved(sourceId, timeId, attribute);
+		metrics.dispatched(EventType.DEL_GRAPH_ATTR, 1, start);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId,
+			String nodeId, String attribute, Object value) {
+		long start = System.nanoTime();
+		sink.nodeAttributeAdded(sourceId, timeId, nodeId, attribute, value);
+		metrics.dispatched(EventType.ADD_NODE_ATTR, 1, start);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		long start = System.nanoTime();
+		sink.nodeAttributeChanged(sourceId, timeId, nodeId, attribute,
+				oldValue, newValue);
+		metrics.dispatched(EventType.CHG_NODE_ATTR, 1, start);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId,
+			String nodeId, String attribute) {
+		long start = System.nanoTime();
+		sink.nodeAttributeRemoved(sourceId, timeId, nodeId, attribute);
+		metrics.dispatched(EventType.DEL_NODE_ATTR, 1, start);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId,
+			String edgeId, String attribute, Object value) {
+		long start = System.nanoTime();
+		sink.edgeAttributeAdded(sourceId, timeId, edgeId, attribute, value);
+		metrics.dispatched(EventType.ADD_EDGE_ATTR, 1, start);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		long start = System.nanoTime();
+		sink.edgeAttributeChanged(sourceId, timeId, edgeId, attribute,
+				oldValue, newValue);
+		metrics.dispatched(EventType.CHG_EDGE_ATTR, 1, start);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId,
+			String edgeId, String attribute) {
+		long start = System.nanoTime();
+		sink.edgeAttributeRemoved(sourceId, timeId, edgeId, attribute);
+		metrics.dispatched(EventType.DEL_EDGE_ATTR, 1, start);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		long start = System.nanoTime();
+		sink.nodeAdded(sourceId, timeId, nodeId);
+		metrics.dispatched(EventType.ADD_NODE, 1, start);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		long start = System.nanoTime();
+		sink.nodeRemoved(sourceId, timeId, nodeId);
+		metrics.dispatched(EventType.DEL_NODE, 1, start);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		long start = System.nanoTime();
+		sink.edgeAdded(sourceId, timeId, edgeId, fromNodeId, toNodeId,
+				directed);
+		metrics.dispatched(EventType.ADD_EDGE, 1, start);
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		long start = System.nanoTime();
+		sink.edgeRemoved(sourceId, timeId, edgeId);
+		metrics.dispatched(EventType.DEL_EDGE, 1, start);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		long start = System.nanoTime();
+		sink.graphCleared(sourceId, timeId);
+		metrics.dispatched(EventType.CLEARED, 1, start);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		long start = System.nanoTime();
+		sink.stepBegins(sourceId, timeId, step);
+		metrics.dispatched(EventType.STEP, 1, start);
+	}
+
+	@Override
+	public String toString() {
+		return sink.toString();
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.security.AccessControlException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase;
+
+/**
+ * Registry of the {@link EventMetrics} of a program.
+ * 
+ * <p>
+ * Nothing is measured until a component is instrumented, for example :
+ * </p>
+ * 
+ * <pre>
+ * Metrics.instrument(proxy, &quot;viewer-proxy&quot;);
+ * graph.addSink(Metrics.meter(fileSink, &quot;dgs-file&quot;));
+ * ...
+ * for (MetricsSnapshot s : Metrics.snapshot())
+ * 	System.out.println(s);
+ * </pre>
+ * 
+ * <p>
+ * The registered metrics are also published as MBeans named
+ * "org.graphstream:type=EventMetrics,name=..." in the platform MBean server,
+ * unless the "org.graphstream.metrics.jmx" system property is "false".
+ * </p>
+ */
+public class Metrics {
+	private static final Logger logger = Logger.getLogger(Metrics.class
+			.getSimpleName());
+
+	public static final String JMX_DOMAIN = "org.graphstream";
+
+	protected static final ConcurrentHashMap<String, EventMetrics> registry = new ConcurrentHashMap<String, EventMetrics>();
+
+	protected static boolean jmx = true;
+
+	static {
+		try {
+			jmx = !"false".equals(System
+					.getProperty("org.graphstream.metrics.jmx"));
+		} catch (AccessControlException e) {
+			jmx = false;
+		}
+	}
+
+	/**
+	 * Metrics with the given name, created and registered if needed.
+	 * 
+	 * @param name
+	 *            Name of the metrics.
+	 * @return The metrics.
+	 */
+	public static EventMetrics register(String name) {
+		EventMetrics metrics = registry.get(name);
+
+		if (metrics == null) {
+			EventMetrics created = new EventMetrics(name);
+			metrics = registry.putIfAbsent(name, created);
+
+			if (metrics == null) {
+				metrics = created;
+
+				if (jmx)
+					publish(metrics);
+			}
+		}
+
+		return metrics;
+	}
+
+	/**
+	 * Measure the events sent by a source, and if it is a proxy its pumps and
+	 * queue.
+	 * 
+	 * @param source
+	 *            The source.
+	 * @param name
+	 *            Name of the metrics.
+	 * @return The metrics of the source.
+	 */
+	public static EventMetrics instrument(SourceBase source, String name) {
+		EventMetrics metrics = register(name);
+		source.setMetrics(metrics);
+		return metrics;
+	}
+
+	/**
+	 * Wrap a sink to measure the events it receives and the time it takes to
+	 * process them.
+	 * 
+	 * @param sink
+	 *            The sink.
+	 * @param name
+	 *            Name of the metrics.
+	 * @return The sink to register in place of the given one.
+	 */
+	public static MeteredSink meter(Sink sink, String name) {
+		return new MeteredSink(sink, register(name));
+	}
+
+	/**
+	 * Registered metrics of the given name, or null.
+	 */
+	public static EventMetrics get(String name) {
+		return registry.get(name);
+	}
+
+	/**
+	 * Remove metrics from the registry and from the MBean server. The
+	 * components using them still update them.
+	 */
+	public static void unregister(String name) {
+		if (registry.remove(name) != null && jmx) {
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName objectName = objectName(name);
+
+				if (server.isRegistered(objectName))
+					server.unregisterMBean(objectName);
+			} catch (JMException e) {
+				logger.log(Level.WARNING, "cannot unregister metrics " + name,
+						e);
+			}
+		}
+	}
+
+	/**
+	 * Current values of all the registered metrics.
+	 */
+	public static List<MetricsSnapshot> snapshot() {
+		List<MetricsSnapshot> snapshots = new ArrayList<MetricsSnapshot>();
+
+		for (EventMetrics metrics : registry.values())
+			snapshots.add(metrics.snapshot());
+
+		return snapshots;
+	}
+
+	public static ObjectName objectName(String name) throws JMException {
+		return new ObjectName(String.format("%s:type=EventMetrics,name=%s",
+				JMX_DOMAIN, ObjectName.quote(name)));
+	}
+
+	protected static void publish(EventMetrics metrics) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+					objectName(metrics.getName()));
+		} catch (JMException e) {
+			logger.log(Level.WARNING, "cannot publish metrics "
+					+ metrics.getName(), e);
+		} catch (SecurityException e) {
+			logger.log(Level.WARNING, "cannot publish metrics "
+					+ metrics.getName(), e);
+		}
+	}
+}
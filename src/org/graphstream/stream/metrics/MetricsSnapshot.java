@@ -0,0 +1,184 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.graphstream.stream.EventBatch.EventType;
+
+/**
+ * Values of the counters of an {@link EventMetrics} at a given time.
+ */
+public class MetricsSnapshot {
+	protected final String name;
+	protected final long time;
+	protected final Map<EventType, Long> counts;
+	protected final long eventCount;
+	protected final long dispatchCount;
+	protected final double meanDispatchNanos;
+	protected final long dispatchNanos50;
+	protected final long dispatchNanos99;
+	protected final long maxDispatchNanos;
+	protected final long pumpCount;
+	protected final long pumpedEventCount;
+	protected final double meanPumpNanos;
+	protected final long maxPumpNanos;
+	protected final long queueDepth;
+	protected final long maxQueueDepth;
+
+	public MetricsSnapshot(EventMetrics metrics) {
+		EnumMap<EventType, Long> map = new EnumMap<EventType, Long>(
+				EventType.class);
+		long total = 0;
+
+		for (EventType type : EventType.values()) {
+			long n = metrics.getEventCount(type);
+			total += n;
+
+			if (n > 0)
+				map.put(type, n);
+		}
+
+		Histogram dispatch = metrics.getDispatchHistogram();
+		Histogram pump = metrics.getPumpHistogram();
+
+		this.name = metrics.getName();
+		this.time = System.currentTimeMillis();
+		this.counts = Collections.unmodifiableMap(map);
+		this.eventCount = total;
+		this.dispatchCount = dispatch.getCount();
+		this.meanDispatchNanos = dispatch.getMean();
+		this.dispatchNanos50 = dispatch.getPercentile(50);
+		this.dispatchNanos99 = dispatch.getPercentile(99);
+		this.maxDispatchNanos = dispatch.getMax();
+		this.pumpCount = pump.getCount();
+		this.pumpedEventCount = metrics.getPumpedEventCount();
+		this.meanPumpNanos = pump.getMean();
+		this.maxPumpNanos = pump.getMax();
+		this.queueDepth = metrics.getQueueDepth();
+		this.maxQueueDepth = metrics.getMaxQueueDepth();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Time of the snapshot, in milliseconds since the epoch.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Number of events of each type having occurred at least once.
+	 */
+	public Map<EventType, Long> getEventCounts() {
+		return counts;
+	}
+
+	public long getEventCount(EventType type) {
+		Long n = counts.get(type);
+		return n == null ? 0 : n;
+	}
+
+	public long getEventCount() {
+		return eventCount;
+	}
+
+	public long getDispatchCount() {
+		return dispatchCount;
+	}
+
+	public double getMeanDispatchNanos() {
+		return meanDispatchNanos;
+	}
+
+	public long getDispatchNanos50() {
+		return dispatchNanos50;
+	}
+
+	public long getDispatchNanos99() {
+		return dispatchNanos99;
+	}
+
+	public long getMaxDispatchNanos() {
+		return maxDispatchNanos;
+	}
+
+	public long getPumpCount() {
+		return pumpCount;
+	}
+
+	public long getPumpedEventCount() {
+		return pumpedEventCount;
+	}
+
+	public double getMeanPumpNanos() {
+		return meanPumpNanos;
+	}
+
+	public long getMaxPumpNanos() {
+		return maxPumpNanos;
+	}
+
+	public long getQueueDepth() {
+		return queueDepth;
+	}
+
+	public long getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(String.format("%s: %d events %s", name, eventCount, counts));
+		sb.append(String.format(", dispatch mean %.0fns p50 %dns p99 %dns max %dns",
+				meanDispatchNanos, dispatchNanos50, dispatchNanos99,
+				maxDispatchNanos));
+
+		if (pumpCount > 0)
+			sb.append(String.format(
+					", %d pumps of %d events mean %.0fns max %dns", pumpCount,
+					pumpedEventCount, meanPumpNanos, maxPumpNanos));
+
+		if (maxQueueDepth > 0)
+			sb.append(String.format(", queue %d max %d", queueDepth,
+					maxQueueDepth));
+
+		return sb.toString();
+	}
+}
@@ -105,4 +105,21 @@ public class SourceTime {
 
 		return currentTimeId;
 	}
+
+	/**
+	 * Reserve the time ids of several consecutive events.
+	 * 
+	 * @param count
+	 *            the number of events
+	 * @return the time id of the first event
+	 */
+	public long newEvents(int count) {
+		long first = currentTimeId + 1;
+		currentTimeId += count;
+
+		if (sinkTime != null)
+			sinkTime.setTimeFor(sourceId, currentTimeId);
+
+		return first;
+	}
 }
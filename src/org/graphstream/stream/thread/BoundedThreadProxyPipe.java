@@ -0,0 +1,269 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.thread;
+
+import java.util.concurrent.locks.Condition;
+
+import org.graphstream.stream.Source;
+
+/**
+ * Thread proxy pipe holding at most a given number of pending events.
+ * 
+ * <p>
+ * A {@link ThreadProxyPipe} queues every event until the sink thread pumps.
+ * When the source produces events faster than the sink thread pumps them, the
+ * queue grows without limit. This proxy bounds the queue, and its
+ * {@link OverflowPolicy} tells what happens to an event posted while the queue
+ * is full.
+ * </p>
+ * 
+ * <p>
+ * Structural events (addition and removal of elements, steps, clearing) and
+ * additions and removals of attributes are never dropped. Only the changes of
+ * attribute values can be dropped or merged, since a later change makes them
+ * obsolete. The numbers of dropped and merged changes are counted, as is the
+ * number of times the source thread had to wait.
+ * </p>
+ * 
+ * <p>
+ * The events replayed when the proxy is initialized with a
+ * {@link org.graphstream.stream.Replayable} source are always queued, since
+ * the sink thread usually does not pump yet. When the policy makes the source
+ * wait, the source and sink must of course be different threads.
+ * </p>
+ */
+public class BoundedThreadProxyPipe extends ThreadProxyPipe {
+	/**
+	 * What to do with an event posted while the queue is full.
+	 */
+	public static enum OverflowPolicy {
+		/**
+		 * The source waits for the sink thread to pump.
+		 */
+		BLOCK,
+		/**
+		 * Attribute changes are dropped, the source waits for the other
+		 * events.
+		 */
+		DROP_CHANGES,
+		/**
+		 * Attribute changes are always merged into the pending change of the
+		 * same attribute, as with
+		 * {@link ThreadProxyPipe#setCoalescing(boolean)}. When the queue is
+		 * full and there is no change to merge into, the source waits.
+		 */
+		COALESCE_CHANGES,
+		/**
+		 * An {@link IllegalStateException} is thrown in the source thread.
+		 */
+		FAIL
+	}
+
+	/**
+	 * Default maximum number of pending events.
+	 */
+	public static final int DEFAULT_CAPACITY = 100000;
+
+	/**
+	 * Maximum number of pending events.
+	 */
+	protected final int capacity;
+
+	protected final OverflowPolicy policy;
+
+	/**
+	 * Signaled when events leave the queue.
+	 */
+	protected final Condition notFull;
+
+	/**
+	 * True while the source is replayed. The bound is not applied.
+	 */
+	protected boolean replaying = false;
+
+	protected volatile long droppedCount = 0;
+	protected volatile long blockedCount = 0;
+
+	/**
+	 * New proxy with a {@link #DEFAULT_CAPACITY} and a
+	 * {@link OverflowPolicy#BLOCK} policy.
+	 */
+	public BoundedThreadProxyPipe() {
+		this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * New proxy.
+	 * 
+	 * @param capacity
+	 *            Maximum number of pending events.
+	 * @param policy
+	 *            What to do with the events posted when the queue is full.
+	 */
+	public BoundedThreadProxyPipe(int capacity, OverflowPolicy policy) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("invalid capacity " + capacity);
+
+		if (policy == null)
+			throw new NullPointerException("no overflow policy");
+
+		this.capacity = capacity;
+		this.policy = policy;
+		this.notFull = lock.newCondition();
+
+		if (policy == OverflowPolicy.COALESCE_CHANGES)
+			setCoalescing(true);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Number of attribute changes dropped because the queue was full.
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Number of events for which the source had to wait.
+	 */
+	public long getBlockedCount() {
+		return blockedCount;
+	}
+
+	/**
+	 * Number of pending events.
+	 */
+	public int getPendingCount() {
+		lock.lock();
+
+		try {
+			return events.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.graphstream.stream.thread.ThreadProxyPipe#init(org.graphstream.stream
+	 * .Source, boolean)
+	 */
+	@Override
+	public void init(Source source, boolean replay) {
+		replaying = true;
+
+		try {
+			super.init(source, replay);
+		} finally {
+			replaying = false;
+		}
+
+		lock.lock();
+
+		try {
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected void post(GraphEvents e, Object... data) {
+		lock.lock();
+
+		try {
+			if (graphChanges != null && coalesce(e, data))
+				return;
+
+			if (events.size() >= capacity && !replaying) {
+				boolean change = e == GraphEvents.CHG_NODE_ATTR
+						|| e == GraphEvents.CHG_EDGE_ATTR
+						|| e == GraphEvents.CHG_GRAPH_ATTR;
+
+				if (policy == OverflowPolicy.FAIL
+						|| (change && policy == OverflowPolicy.DROP_CHANGES)) {
+					if (graphChanges != null)
+						forget(e, data);
+
+					if (policy == OverflowPolicy.FAIL)
+						throw new IllegalStateException(String.format(
+								"%s is full (%d events)", this, capacity));
+
+					droppedCount++;
+					return;
+				}
+
+				blockedCount++;
+
+				try {
+					while (events.size() >= capacity)
+						notFull.await();
+				} catch (InterruptedException ex) {
+					// The event is queued anyway, structural events cannot be
+					// lost.
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			events.add(e);
+			eventsData.add(data);
+
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected void polled() {
+		notFull.signal();
+	}
+
+	@Override
+	public String toString() {
+		String dest = "nil";
+
+		if (attrSinks.size() > 0)
+			dest = attrSinks.get(0).toString();
+
+		return String.format("bounded-thread-proxy(from %s to %s)", from, dest);
+	}
+}
@@ -0,0 +1,705 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.thread;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.ProxyPipe;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.Replayable.Controller;
+import org.graphstream.stream.Source;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.thread.ThreadProxyPipe.GraphEvents;
+
+/**
+ * Proxy pipe passing graph events from one thread to another through a
+ * preallocated ring buffer.
+ * 
+ * <p>
+ * This pipe is used like {@link ThreadProxyPipe} : it is registered as a sink
+ * of a source in the input thread, and the sink thread regularly calls
+ * {@link #pump()} to dispatch the pending events to the sinks of the pipe.
+ * Unlike {@link ThreadProxyPipe}, no lock is taken and nothing is allocated
+ * per event. The buffer is an array of event slots created once, that the
+ * input thread fills and the sink thread empties. Each side only publishes its
+ * position in the buffer, and {@link #pump()} publishes it once for a whole
+ * batch of events instead of once per event.
+ * </p>
+ * 
+ * <p>
+ * This only works with a single producer and a single consumer : all the
+ * events must come from one thread, and only one thread must pump. When the
+ * buffer is full, the input thread waits for the sink thread to make some
+ * room, so the capacity should be large enough to absorb the bursts of the
+ * source. The way both threads wait, for room or for events in
+ * {@link #blockingPump()}, is chosen with a {@link WaitStrategy}.
+ * </p>
+ */
+public class RingBufferProxyPipe extends SourceBase implements ProxyPipe {
+	/**
+	 * class level logger
+	 */
+	private static final Logger logger = Logger
+			.getLogger(RingBufferProxyPipe.class.getSimpleName());
+
+	/**
+	 * Default number of event slots.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * Number of busy loops before a {@link WaitStrategy#YIELD} or
+	 * {@link WaitStrategy#PARK} strategy starts to give the processor away.
+	 */
+	protected static final int SPIN_TRIES = 100;
+
+	/**
+	 * Time a {@link WaitStrategy#PARK} strategy sleeps between two checks.
+	 */
+	protected static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * How a thread waits for the other end of the pipe.
+	 */
+	public static enum WaitStrategy {
+		/**
+		 * Busy loop. The lowest latency, but a whole processor is used while
+		 * waiting. Only use it when both threads have their own core.
+		 */
+		SPIN,
+		/**
+		 * Busy loop for a while, then yield the processor between two checks.
+		 */
+		YIELD,
+		/**
+		 * Busy loop for a while, then sleep a few tens of microseconds between
+		 * two checks. The cheapest for the processor, at the cost of latency.
+		 */
+		PARK;
+
+		/**
+		 * Waits once.
+		 * 
+		 * @param tries
+		 *            Number of times the caller already waited.
+		 * @return The new number of tries.
+		 */
+		protected int idle(int tries) {
+			if (this == SPIN || tries < SPIN_TRIES)
+				return tries + 1;
+
+			if (this == YIELD)
+				Thread.yield();
+			else
+				LockSupport.parkNanos(PARK_NANOS);
+
+			return tries;
+		}
+	}
+
+	/**
+	 * An event of the buffer. Slots are reused, the fields that are not used
+	 * by an event are left unset.
+	 */
+	protected static class Slot {
+		GraphEvents event;
+		String graphId;
+		long timeId;
+		String elementId;
+		String attribute;
+		String fromId;
+		String toId;
+		boolean directed;
+		double step;
+		Object oldValue;
+		Object newValue;
+
+		void clear() {
+			graphId = null;
+			elementId = null;
+			attribute = null;
+			fromId = null;
+			toId = null;
+			oldValue = null;
+			newValue = null;
+		}
+	}
+
+	/**
+	 * The event sender name, usually the graph name.
+	 */
+	protected String from;
+
+	/**
+	 * The event slots. The length is a power of two.
+	 */
+	protected final Slot[] slots;
+
+	/**
+	 * Used to compute the position of a sequence in the slots.
+	 */
+	protected final int mask;
+
+	/**
+	 * Number of events the sink thread consumes before giving the slots back.
+	 */
+	protected final int batchSize;
+
+	/**
+	 * How the threads wait.
+	 */
+	protected final WaitStrategy waitStrategy;
+
+	/**
+	 * Sequence of the next event to be posted. Only written by the input
+	 * thread.
+	 */
+	protected final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Sequence of the next event to be dispatched. Only written by the sink
+	 * thread.
+	 */
+	protected final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Last value of {@link #head} seen by the input thread. It avoids to read
+	 * the shared sequence while there is room.
+	 */
+	protected long cachedHead;
+
+	/**
+	 * Used only to remove the listener. We ensure this is done in the source
+	 * thread.
+	 */
+	protected Source input;
+
+	/**
+	 * Signals that this proxy must be removed from the source input.
+	 */
+	protected volatile boolean unregisterWhenPossible = false;
+
+	/**
+	 * New pipe with {@link #DEFAULT_CAPACITY} slots and a
+	 * {@link WaitStrategy#YIELD} strategy.
+	 */
+	public RingBufferProxyPipe() {
+		this(DEFAULT_CAPACITY, WaitStrategy.YIELD);
+	}
+
+	/**
+	 * New pipe.
+	 * 
+	 * @param capacity
+	 *            Number of event slots, rounded up to a power of two.
+	 * @param waitStrategy
+	 *            How the threads wait for each other.
+	 */
+	public RingBufferProxyPipe(int capacity, WaitStrategy waitStrategy) {
+		if (capacity < 1 || capacity > 1 << 30)
+			throw new IllegalArgumentException("invalid capacity " + capacity);
+
+		if (waitStrategy == null)
+			throw new NullPointerException("no wait strategy");
+
+		int size = Integer.highestOneBit(capacity);
+
+		if (size < capacity)
+			size <<= 1;
+
+		this.slots = new Slot[size];
+		this.mask = size - 1;
+		this.batchSize = Math.max(1, size >> 2);
+		this.waitStrategy = waitStrategy;
+		this.from = "<in>";
+		this.input = null;
+
+		for (int i = 0; i < size; i++)
+			slots[i] = new Slot();
+	}
+
+	public void init() {
+		init(null, false);
+	}
+
+	/**
+	 * Init the proxy. If there are previous events, they will be cleared.
+	 * 
+	 * @param source
+	 *            source of the events
+	 */
+	public void init(Source source) {
+		init(source, source instanceof Replayable);
+	}
+
+	/**
+	 * Init the proxy. If there are previous events, they will be cleared. This
+	 * must be called in the input thread, while no other thread pumps the
+	 * proxy.
+	 * 
+	 * @param source
+	 *            source of the events
+	 * @param replay
+	 *            true if the source should be replayed. You need a
+	 *            {@link org.graphstream.stream.Replayable} source to enable
+	 *            replay, else nothing happens.
+	 */
+	public void init(Source source, boolean replay) {
+		if (this.input != null)
+			this.input.removeSink(this);
+
+		this.input = source;
+		this.unregisterWhenPossible = false;
+
+		for (long s = head.get(), t = tail.get(); s < t; s++)
+			slots[(int) s & mask].clear();
+
+		head.set(tail.get());
+		cachedHead = tail.get();
+
+		if (source != null) {
+			if (source instanceof Graph)
+				this.from = ((Graph) source).getId();
+
+			this.input.addSink(this);
+
+			if (replay && source instanceof Replayable) {
+				Replayable r = (Replayable) source;
+				Controller rc = r.getReplayController();
+
+				rc.addSink(this);
+				rc.replay();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		String dest = "nil";
+
+		if (attrSinks.size() > 0)
+			dest = attrSinks.get(0).toString();
+
+		return String.format("ring-proxy(from %s to %s)", from, dest);
+	}
+
+	/**
+	 * Ask the proxy to unregister from the event input source (stop receive
+	 * events) as soon as possible (when the next event will occur in the
+	 * graph).
+	 */
+	public void unregisterFromSource() {
+		unregisterWhenPossible = true;
+	}
+
+	/**
+	 * Number of event slots.
+	 * 
+	 * @return The capacity of the buffer.
+	 */
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	/**
+	 * The way the threads wait for each other.
+	 * 
+	 * @return The wait strategy.
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	/**
+	 * This method must be called regularly in the output thread to check if the
+	 * input source sent events. If some event occurred, the listeners will be
+	 * called.
+	 */
+	public void pump() {
+		drain();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.ProxyPipe#blockingPump()
+	 */
+	public void blockingPump() throws InterruptedException {
+		blockingPump(0);
+	}
+
+	/**
+	 * Same as {@link #pump()}, but wait for events first if there are none.
+	 * 
+	 * @param timeout
+	 *            Maximum time to wait in milliseconds, or zero to wait until
+	 *            some events come.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while waiting.
+	 */
+	public void blockingPump(long timeout) throws InterruptedException {
+		long deadline = timeout > 0 ? System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+		long next = head.get();
+		int tries = 0;
+
+		while (tail.get() == next) {
+			if (Thread.interrupted())
+				throw new InterruptedException();
+
+			if (timeout > 0 && System.nanoTime() - deadline >= 0)
+				return;
+
+			tries = waitStrategy.idle(tries);
+		}
+
+		drain();
+	}
+
+	public boolean hasPostRemaining() {
+		return tail.get() != head.get();
+	}
+
+	/**
+	 * Dispatch the events posted so far, as buffers (see
+	 * {@link org.graphstream.stream.EventBatch}). The slots are given back to
+	 * the input thread by batches of {@link #batchSize} events. Events posted
+	 * while dispatching are left for the next call, so that a busy input
+	 * thread cannot keep the sink thread here.
+	 * 
+	 * @return The number of events dispatched.
+	 */
+	protected int drain() {
+		long start = head.get();
+		long next = start;
+		long end = tail.get();
+		long time = metrics == null ? 0 : System.nanoTime();
+
+		if (metrics != null)
+			metrics.queueDepth(end - start);
+
+		beginBatch();
+
+		try {
+			while (next < end) {
+				long stop = Math.min(end, next + batchSize);
+
+				for (; next < stop; next++) {
+					Slot slot = slots[(int) next & mask];
+					processMessage(slot);
+					slot.clear();
+				}
+
+				head.lazySet(next);
+			}
+		} finally {
+			endBatch();
+		}
+
+		if (metrics != null && next > start)
+			metrics.pumped((int) (next - start), time);
+
+		return (int) (next - start);
+	}
+
+	protected boolean maybeUnregister() {
+		if (unregisterWhenPossible) {
+			if (input != null)
+				input.removeSink(this);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Wait for a free slot and fill its common fields.
+	 * 
+	 * @return The slot of the next event.
+	 */
+	protected Slot claim(GraphEvents e, String graphId, long timeId) {
+		long next = tail.get();
+		long wrap = next - slots.length;
+
+		if (wrap >= cachedHead) {
+			int tries = 0;
+
+			while (wrap >= (cachedHead = head.get()))
+				tries = waitStrategy.idle(tries);
+		}
+
+		Slot slot = slots[(int) next & mask];
+		slot.event = e;
+		slot.graphId = graphId;
+		slot.timeId = timeId;
+
+		return slot;
+	}
+
+	/**
+	 * Make the last claimed slot visible to the sink thread.
+	 */
+	protected void publish() {
+		tail.lazySet(tail.get() + 1);
+	}
+
+	public void edgeAttributeAdded(String graphId, long timeId, String edgeId,
+			String attribute, Object value) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.ADD_EDGE_ATTR, graphId, timeId);
+		slot.elementId = edgeId;
+		slot.attribute = attribute;
+		slot.newValue = value;
+		publish();
+	}
+
+	public void edgeAttributeChanged(String graphId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.CHG_EDGE_ATTR, graphId, timeId);
+		slot.elementId = edgeId;
+		slot.attribute = attribute;
+		slot.oldValue = oldValue;
+		slot.newValue = newValue;
+		publish();
+	}
+
+	public void edgeAttributeRemoved(String graphId, long timeId,
+			String edgeId, String attribute) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.DEL_EDGE_ATTR, graphId, timeId);
+		slot.elementId = edgeId;
+		slot.attribute = attribute;
+		publish();
+	}
+
+	public void graphAttributeAdded(String graphId, long timeId,
+			String attribute, Object value) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.ADD_GRAPH_ATTR, graphId, timeId);
+		slot.attribute = attribute;
+		slot.newValue = value;
+		publish();
+	}
+
+	public void graphAttributeChanged(String graphId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.CHG_GRAPH_ATTR, graphId, timeId);
+		slot.attribute = attribute;
+		slot.oldValue = oldValue;
+		slot.newValue = newValue;
+		publish();
+	}
+
+	public void graphAttributeRemoved(String graphId, long timeId,
+			String attribute) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.DEL_GRAPH_ATTR, graphId, timeId);
+		slot.attribute = attribute;
+		publish();
+	}
+
+	public void nodeAttributeAdded(String graphId, long timeId, String nodeId,
+			String attribute, Object value) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.ADD_NODE_ATTR, graphId, timeId);
+		slot.elementId = nodeId;
+		slot.attribute = attribute;
+		slot.newValue = value;
+		publish();
+	}
+
+	public void nodeAttributeChanged(String graphId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.CHG_NODE_ATTR, graphId, timeId);
+		slot.elementId = nodeId;
+		slot.attribute = attribute;
+		slot.oldValue = oldValue;
+		slot.newValue = newValue;
+		publish();
+	}
+
+	public void nodeAttributeRemoved(String graphId, long timeId,
+			String nodeId, String attribute) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.DEL_NODE_ATTR, graphId, timeId);
+		slot.elementId = nodeId;
+		slot.attribute = attribute;
+		publish();
+	}
+
+	public void edgeAdded(String graphId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.ADD_EDGE, graphId, timeId);
+		slot.elementId = edgeId;
+		slot.fromId = fromNodeId;
+		slot.toId = toNodeId;
+		slot.directed = directed;
+		publish();
+	}
+
+	public void edgeRemoved(String graphId, long timeId, String edgeId) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.DEL_EDGE, graphId, timeId);
+		slot.elementId = edgeId;
+		publish();
+	}
+
+	public void graphCleared(String graphId, long timeId) {
+		if (maybeUnregister())
+			return;
+
+		claim(GraphEvents.CLEARED, graphId, timeId);
+		publish();
+	}
+
+	public void nodeAdded(String graphId, long timeId, String nodeId) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.ADD_NODE, graphId, timeId);
+		slot.elementId = nodeId;
+		publish();
+	}
+
+	public void nodeRemoved(String graphId, long timeId, String nodeId) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.DEL_NODE, graphId, timeId);
+		slot.elementId = nodeId;
+		publish();
+	}
+
+	public void stepBegins(String graphId, long timeId, double step) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.STEP, graphId, timeId);
+		slot.step = step;
+		publish();
+	}
+
+	protected void processMessage(Slot slot) {
+		switch (slot.event) {
+		case ADD_NODE:
+			sendNodeAdded(slot.graphId, slot.timeId, slot.elementId);
+			break;
+		case DEL_NODE:
+			sendNodeRemoved(slot.graphId, slot.timeId, slot.elementId);
+			break;
+		case ADD_EDGE:
+			sendEdgeAdded(slot.graphId, slot.timeId, slot.elementId,
+					slot.fromId, slot.toId, slot.directed);
+			break;
+		case DEL_EDGE:
+			sendEdgeRemoved(slot.graphId, slot.timeId, slot.elementId);
+			break;
+		case STEP:
+			sendStepBegins(slot.graphId, slot.timeId, slot.step);
+			break;
+		case ADD_GRAPH_ATTR:
+			sendGraphAttributeAdded(slot.graphId, slot.timeId, slot.attribute,
+					slot.newValue);
+			break;
+		case CHG_GRAPH_ATTR:
+			sendGraphAttributeChanged(slot.graphId, slot.timeId,
+					slot.attribute, slot.oldValue, slot.newValue);
+			break;
+		case DEL_GRAPH_ATTR:
+			sendGraphAttributeRemoved(slot.graphId, slot.timeId,
+					slot.attribute);
+			break;
+		case ADD_EDGE_ATTR:
+			sendEdgeAttributeAdded(slot.graphId, slot.timeId, slot.elementId,
+					slot.attribute, slot.newValue);
+			break;
+		case CHG_EDGE_ATTR:
+			sendEdgeAttributeChanged(slot.graphId, slot.timeId,
+					slot.elementId, slot.attribute, slot.oldValue,
+					slot.newValue);
+			break;
+		case DEL_EDGE_ATTR:
+			sendEdgeAttributeRemoved(slot.graphId, slot.timeId,
+					slot.elementId, slot.attribute);
+			break;
+		case ADD_NODE_ATTR:
+			sendNodeAttributeAdded(slot.graphId, slot.timeId, slot.elementId,
+					slot.attribute, slot.newValue);
+			break;
+		case CHG_NODE_ATTR:
+			sendNodeAttributeChanged(slot.graphId, slot.timeId,
+					slot.elementId, slot.attribute, slot.oldValue,
+					slot.newValue);
+			break;
+		case DEL_NODE_ATTR:
+			sendNodeAttributeRemoved(slot.graphId, slot.timeId,
+					slot.elementId, slot.attribute);
+			break;
+		case CLEARED:
+			sendGraphCleared(slot.graphId, slot.timeId);
+			break;
+		default:
+			logger.warning(String.format("Unknown message %s.", slot.event));
+			break;
+		}
+	}
+}
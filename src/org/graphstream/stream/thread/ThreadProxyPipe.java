@@ -32,6 +32,8 @@
 package org.graphstream.stream.thread;
 
 import org.graphstream.graph.Graph;
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.EventBatch;
 import org.graphstream.stream.ProxyPipe;
 import org.graphstream.stream.Replayable;
 import org.graphstream.stream.Replayable.Controller;
@@ -39,6 +41,7 @@ import org.graphstream.stream.Sink;
 import org.graphstream.stream.Source;
 import org.graphstream.stream.SourceBase;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -81,8 +84,23 @@ import java.util.logging.Logger;
  * the graph. This is the default behavior if this filter is constructed with a
  * graph as input.
  * </p>
+ * 
+ * <p>
+ * When only the last value of attributes matters, the proxy can coalesce the
+ * changes (see {@link #setCoalescing(boolean)}). A change of an attribute that
+ * is still pending is then merged into the pending event instead of being
+ * queued, so the sink thread receives at most one change per attribute each
+ * time it pumps.
+ * </p>
+ * 
+ * <p>
+ * The events dispatched by a pump are sent as buffers (see
+ * {@link org.graphstream.stream.EventBatch}), and a buffer received from the
+ * source is queued at once.
+ * </p>
  */
-public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
+public class ThreadProxyPipe extends SourceBase implements ProxyPipe,
+		BatchSink {
 
     /**
      * class level logger
@@ -119,6 +137,23 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 	 */
 	protected boolean unregisterWhenPossible = false;
 
+	/**
+	 * Pending attribute changes, by element and then by attribute, when
+	 * coalescing is enabled. Null else.
+	 */
+	protected HashMap<String, HashMap<String, Object[]>> nodeChanges,
+			edgeChanges;
+
+	/**
+	 * Pending graph attribute changes, when coalescing is enabled. Null else.
+	 */
+	protected HashMap<String, Object[]> graphChanges;
+
+	/**
+	 * Number of attribute changes merged into a pending one.
+	 */
+	protected volatile long mergedCount = 0;
+
 	public ThreadProxyPipe() {
 		this.events = new LinkedList<GraphEvents>();
 		this.eventsData = new LinkedList<Object[]>();
@@ -208,6 +243,12 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 
 			this.events.clear();
 			this.eventsData.clear();
+
+			if (graphChanges != null) {
+				nodeChanges.clear();
+				edgeChanges.clear();
+				graphChanges.clear();
+			}
 		} finally {
 			lock.unlock();
 		}
@@ -247,28 +288,63 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 		unregisterWhenPossible = true;
 	}
 
+	/**
+	 * Enable or disable the coalescing of attribute changes. When enabled, a
+	 * change of an attribute that has a change still pending in the proxy
+	 * replaces the new value of the pending event instead of being queued.
+	 * The merged event keeps its place in the queue and its old value and
+	 * time, so the sinks see the attribute go from the first old value to the
+	 * last new value. Additions and removals of attributes or of elements,
+	 * and graph clearing, are never merged and the changes are not merged
+	 * across them.
+	 * 
+	 * @param on
+	 *            True to coalesce attribute changes.
+	 */
+	public void setCoalescing(boolean on) {
+		lock.lock();
+
+		try {
+			if (on && graphChanges == null) {
+				nodeChanges = new HashMap<String, HashMap<String, Object[]>>();
+				edgeChanges = new HashMap<String, HashMap<String, Object[]>>();
+				graphChanges = new HashMap<String, Object[]>();
+			} else if (!on) {
+				nodeChanges = null;
+				edgeChanges = null;
+				graphChanges = null;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * True if attribute changes are coalesced.
+	 * 
+	 * @see #setCoalescing(boolean)
+	 */
+	public boolean isCoalescing() {
+		return graphChanges != null;
+	}
+
+	/**
+	 * Number of attribute changes that were merged into a pending change
+	 * instead of being queued.
+	 * 
+	 * @see #setCoalescing(boolean)
+	 */
+	public long getMergedCount() {
+		return mergedCount;
+	}
+
 	/**
 	 * This method must be called regularly in the output thread to check if the
 	 * input source sent events. If some event occurred, the listeners will be
 	 * called.
 	 */
 	public void pump() {
-		GraphEvents e = null;
-		Object[] data = null;
-
-		do {
-			lock.lock();
-
-			try {
-				e = events.poll();
-				data = eventsData.poll();
-			} finally {
-				lock.unlock();
-			}
-
-			if (e != null)
-				processMessage(e, data);
-		} while (e != null);
+		drain();
 	}
 
 	/*
@@ -281,9 +357,6 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 	}
 
 	public void blockingPump(long timeout) throws InterruptedException {
-		GraphEvents e;
-		Object[] data;
-
 		lock.lock();
 
 		try {
@@ -297,19 +370,51 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 			lock.unlock();
 		}
 
-		do {
-			lock.lock();
+		drain();
+	}
 
-			try {
-				e = events.poll();
-				data = eventsData.poll();
-			} finally {
-				lock.unlock();
-			}
+	/**
+	 * Dispatch the pending events as buffers.
+	 */
+	protected void drain() {
+		GraphEvents e;
+		Object[] data;
+		long start = metrics == null ? 0 : System.nanoTime();
+		int count = 0;
+
+		beginBatch();
+
+		try {
+			do {
+				lock.lock();
+
+				try {
+					e = events.poll();
+					data = eventsData.poll();
+
+					if (e != null) {
+						if (graphChanges != null)
+							forget(e, data);
+
+						polled();
+					}
+				} finally {
+					lock.unlock();
+				}
+
+				if (e != null) {
+					processMessage(e, data);
+					count++;
+				}
+			} while (e != null);
+		} finally {
+			endBatch();
+		}
 
-			if (e != null)
-				processMessage(e, data);
-		} while (e != null);
+		if (metrics != null && count > 0) {
+			metrics.pumped(count, start);
+			metrics.queueDepth(0);
+		}
 	}
 
 	public boolean hasPostRemaining() {
@@ -346,15 +451,146 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 		lock.lock();
 
 		try {
+			if (graphChanges != null && coalesce(e, data))
+				return;
+
 			events.add(e);
 			eventsData.add(data);
 
+			if (metrics != null)
+				metrics.queueDepth(events.size());
+
 			notEmpty.signal();
 		} finally {
 			lock.unlock();
 		}
 	}
 
+	/**
+	 * Merge an attribute change into the pending one, or remember it, or
+	 * forget the pending changes that the event makes obsolete. Called with
+	 * the lock held.
+	 * 
+	 * @return True if the event was merged and must not be queued.
+	 */
+	protected boolean coalesce(GraphEvents e, Object[] data) {
+		HashMap<String, Object[]> changes;
+		String attribute;
+
+		switch (e) {
+		case CHG_GRAPH_ATTR:
+			changes = graphChanges;
+			attribute = (String) data[2];
+			break;
+		case CHG_NODE_ATTR:
+			changes = elementChanges(nodeChanges, (String) data[2]);
+			attribute = (String) data[3];
+			break;
+		case CHG_EDGE_ATTR:
+			changes = elementChanges(edgeChanges, (String) data[2]);
+			attribute = (String) data[3];
+			break;
+		case ADD_GRAPH_ATTR:
+		case DEL_GRAPH_ATTR:
+			graphChanges.remove(data[2]);
+			return false;
+		case ADD_NODE_ATTR:
+		case DEL_NODE_ATTR:
+			dropChange(nodeChanges, (String) data[2], (String) data[3]);
+			return false;
+		case ADD_EDGE_ATTR:
+		case DEL_EDGE_ATTR:
+			dropChange(edgeChanges, (String) data[2], (String) data[3]);
+			return false;
+		case DEL_NODE:
+			nodeChanges.remove(data[2]);
+			return false;
+		case DEL_EDGE:
+			edgeChanges.remove(data[2]);
+			return false;
+		case CLEARED:
+			nodeChanges.clear();
+			edgeChanges.clear();
+			graphChanges.clear();
+			return false;
+		default:
+			return false;
+		}
+
+		Object[] pending = changes.get(attribute);
+
+		if (pending == null) {
+			changes.put(attribute, data);
+			return false;
+		}
+
+		pending[pending.length - 1] = data[data.length - 1];
+		mergedCount++;
+		return true;
+	}
+
+	/**
+	 * Forget a pending change that is about to be dispatched, so that the
+	 * next changes of the attribute are queued again. Called with the lock
+	 * held.
+	 */
+	protected void forget(GraphEvents e, Object[] data) {
+		HashMap<String, HashMap<String, Object[]>> elements;
+
+		switch (e) {
+		case CHG_GRAPH_ATTR:
+			if (graphChanges.get(data[2]) == data)
+				graphChanges.remove(data[2]);
+			return;
+		case CHG_NODE_ATTR:
+			elements = nodeChanges;
+			break;
+		case CHG_EDGE_ATTR:
+			elements = edgeChanges;
+			break;
+		default:
+			return;
+		}
+
+		HashMap<String, Object[]> changes = elements.get(data[2]);
+
+		if (changes != null && changes.get(data[3]) == data)
+			dropChange(elements, (String) data[2], (String) data[3]);
+	}
+
+	/**
+	 * Called with the lock held each time an event leaves the queue to be
+	 * dispatched.
+	 */
+	protected void polled() {
+	}
+
+	private void dropChange(
+			HashMap<String, HashMap<String, Object[]>> elements,
+			String elementId, String attribute) {
+		HashMap<String, Object[]> changes = elements.get(elementId);
+
+		if (changes != null) {
+			changes.remove(attribute);
+
+			if (changes.isEmpty())
+				elements.remove(elementId);
+		}
+	}
+
+	private HashMap<String, Object[]> elementChanges(
+			HashMap<String, HashMap<String, Object[]>> elements,
+			String elementId) {
+		HashMap<String, Object[]> changes = elements.get(elementId);
+
+		if (changes == null) {
+			changes = new HashMap<String, Object[]>();
+			elements.put(elementId, changes);
+		}
+
+		return changes;
+	}
+
 	public void edgeAttributeAdded(String graphId, long timeId, String edgeId,
 			String attribute, Object value) {
 		if (maybeUnregister())
@@ -476,6 +712,23 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 		post(GraphEvents.STEP, graphId, timeId, step);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.graphstream.stream.BatchSink#eventsReceived(org.graphstream.stream
+	 * .EventBatch)
+	 */
+	public void eventsReceived(EventBatch batch) {
+		lock.lock();
+
+		try {
+			batch.replay(this);
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	// MBoxListener
 
 	protected void processMessage(GraphEvents e, Object[] data) {
@@ -747,6 +747,33 @@ public class GraphicGraph extends AbstractElement implements Graph,
 		return (T) node;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.graph.Graph#addNodes(java.lang.String[])
+	 */
+	public void addNodes(String... ids) throws IdAlreadyInUseException {
+		for (String id : ids)
+			addNode(id);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.graph.Graph#addEdges(java.lang.String[],
+	 * java.lang.String[], java.lang.String[], boolean)
+	 */
+	public void addEdges(String[] ids, String[] from, String[] to,
+			boolean directed) throws IdAlreadyInUseException,
+			ElementNotFoundException {
+		if (from.length != ids.length || to.length != ids.length)
+			throw new IllegalArgumentException(
+					"ids, from and to must have the same length");
+
+		for (int i = 0; i < ids.length; i++)
+			addEdge(ids[i], from[i], to[i], directed);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
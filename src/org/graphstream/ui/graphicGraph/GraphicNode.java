@@ -306,7 +306,7 @@ public class GraphicNode extends GraphicElement implements Node {
 
 	@SuppressWarnings("all")
 	public <T extends Edge> Collection<T> getEnteringEdgeSet() {
-		return (Collection<T>) Collections.unmodifiableCollection(getEdgeSet());
+		return Collections.unmodifiableCollection(this.<T> getEdgeSet());
 	}
 
 	public Graph getGraph() {
@@ -337,7 +337,7 @@ public class GraphicNode extends GraphicElement implements Node {
 
 	@SuppressWarnings("all")
 	public <T extends Edge> Collection<T> getLeavingEdgeSet() {
-		return (Collection<T>) Collections.unmodifiableCollection(getEdgeSet());
+		return Collections.unmodifiableCollection(this.<T> getEdgeSet());
 	}
 
 	public Iterator<Node> getNeighborNodeIterator() {
@@ -135,7 +135,7 @@ public class SpriteManager implements Iterable<Sprite>, AttributeSink {
 						if (s == null)
 							s = addSprite(id);
 
-						s.addAttribute(sattr, graph.getAttribute(attr));
+						s.addAttribute(sattr, graph.<Object> getAttribute(attr));
 					}
 				}
 			}
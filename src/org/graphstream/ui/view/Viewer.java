@@ -664,7 +664,7 @@ public class Viewer implements ActionListener {
 
 		if (graph.getAttributeKeySet() != null)
 			for (String key : graph.getAttributeKeySet()) {
-				this.graph.addAttribute(key, graph.getAttribute(key));
+				this.graph.addAttribute(key, graph.<Object> getAttribute(key));
 			}
 
 		// Replay all nodes and their attributes.
@@ -674,7 +674,7 @@ public class Viewer implements ActionListener {
 
 			if (node.getAttributeKeySet() != null) {
 				for (String key : node.getAttributeKeySet()) {
-					n.addAttribute(key, node.getAttribute(key));
+					n.addAttribute(key, node.<Object> getAttribute(key));
 				}
 			}
 		}
@@ -687,7 +687,7 @@ public class Viewer implements ActionListener {
 
 			if (edge.getAttributeKeySet() != null) {
 				for (String key : edge.getAttributeKeySet()) {
-					e.addAttribute(key, edge.getAttribute(key));
+					e.addAttribute(key, edge.<Object> getAttribute(key));
 				}
 			}
 		}
@@ -31,10 +31,17 @@
  */
 package org.graphstream.util;
 
+import java.util.Arrays;
+
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
+import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.BatchElementSink;
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.EventBatch;
 import org.graphstream.stream.Pipe;
 import org.graphstream.stream.SourceBase;
 import org.graphstream.stream.sync.SinkTime;
@@ -43,7 +50,8 @@ import org.graphstream.stream.sync.SinkTime;
  * Helper object to handle events producted by a graph.
  * 
  */
-public class GraphListeners extends SourceBase implements Pipe {
+public class GraphListeners extends SourceBase implements Pipe, BatchSink,
+		BatchElementSink {
 
 	SinkTime sinkTime;
 	boolean passYourWay, passYourWayAE;
@@ -64,6 +72,13 @@ public class GraphListeners extends SourceBase implements Pipe {
 		this.g = g;
 	}
 
+	/**
+	 * True if at least one attribute sink listens to the graph.
+	 */
+	public boolean hasAttributeSinks() {
+		return !attrSinks.isEmpty();
+	}
+
 	public long newEvent() {
 		return sourceTime.newEvent();
 	}
@@ -86,6 +101,14 @@ public class GraphListeners extends SourceBase implements Pipe {
 		sendNodeAdded(sourceId, newEvent(), nodeId);
 	}
 
+	public void sendNodesAdded(String[] nodeIds, int offset, int count) {
+		if (passYourWay || count == 0)
+			return;
+
+		sendNodesAdded(sourceId, sourceTime.newEvents(count), nodeIds, offset,
+				count);
+	}
+
 	public void sendNodeRemoved(String nodeId) {
 		if (dnSourceId != null) {
 			sendNodeRemoved(dnSourceId, dnTimeId, nodeId);
@@ -101,6 +124,15 @@ public class GraphListeners extends SourceBase implements Pipe {
 		sendEdgeAdded(sourceId, newEvent(), edgeId, source, target, directed);
 	}
 
+	public void sendEdgesAdded(String[] edgeIds, String[] sources,
+			String[] targets, boolean directed, int offset, int count) {
+		if (passYourWayAE || count == 0)
+			return;
+
+		sendEdgesAdded(sourceId, sourceTime.newEvents(count), edgeIds,
+				sources, targets, directed, offset, count);
+	}
+
 	public void sendEdgeRemoved(String edgeId) {
 		if (passYourWay)
 			return;
@@ -122,6 +154,44 @@ public class GraphListeners extends SourceBase implements Pipe {
 		sendStepBegins(sourceId, newEvent(), step);
 	}
 
+	/**
+	 * Apply a buffer of events received by the graph. When all the sinks of
+	 * the graph accept buffers, the events the graph forwards are buffered
+	 * too. Else they are forwarded one by one, so that the sinks still see a
+	 * removed element before it leaves the graph.
+	 * 
+	 * @param events
+	 *            The received events.
+	 */
+	public void eventsReceived(EventBatch events) {
+		boolean batching = onlyBatchSinks();
+
+		if (batching)
+			beginBatch();
+
+		try {
+			events.replay(this);
+		} finally {
+			if (batching)
+				endBatch();
+		}
+	}
+
+	private boolean onlyBatchSinks() {
+		if (eltsSinks.isEmpty() || attrSinks.size() != eltsSinks.size())
+			return false;
+
+		for (ElementSink sink : eltsSinks)
+			if (!(sink instanceof BatchSink))
+				return false;
+
+		for (AttributeSink sink : attrSinks)
+			if (!eltsSinks.contains(sink))
+				return false;
+
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -353,6 +423,77 @@ public class GraphListeners extends SourceBase implements Pipe {
 		}
 	}
 
+	/**
+	 * Add several nodes received by the graph with one call to
+	 * {@link Graph#addNodes(String...)}, and forward them the same way.
+	 * 
+	 * @see org.graphstream.stream.BatchElementSink#nodesAdded(java.lang.String,
+	 *      long, java.lang.String[], int, int)
+	 */
+	public void nodesAdded(String sourceId, long timeId, String[] nodeIds,
+			int offset, int count) {
+		if (count > 0 && isNewBatch(sourceId, timeId, count)) {
+			passYourWay = true;
+
+			try {
+				g.addNodes(slice(nodeIds, offset, count));
+			} finally {
+				passYourWay = false;
+			}
+
+			sendNodesAdded(sourceId, timeId, nodeIds, offset, count);
+		}
+	}
+
+	/**
+	 * Add several edges received by the graph with one call to
+	 * {@link Graph#addEdges(String[], String[], String[], boolean)}, and
+	 * forward them the same way.
+	 * 
+	 * @see org.graphstream.stream.BatchElementSink#edgesAdded(java.lang.String,
+	 *      long, java.lang.String[], java.lang.String[], java.lang.String[],
+	 *      boolean, int, int)
+	 */
+	public void edgesAdded(String sourceId, long timeId, String[] edgeIds,
+			String[] fromNodeIds, String[] toNodeIds, boolean directed,
+			int offset, int count) {
+		if (count > 0 && isNewBatch(sourceId, timeId, count)) {
+			passYourWayAE = true;
+
+			try {
+				g.addEdges(slice(edgeIds, offset, count),
+						slice(fromNodeIds, offset, count),
+						slice(toNodeIds, offset, count), directed);
+			} finally {
+				passYourWayAE = false;
+			}
+
+			sendEdgesAdded(sourceId, timeId, edgeIds, fromNodeIds, toNodeIds,
+					directed, offset, count);
+		}
+	}
+
+	/**
+	 * The events of a batch are new if the first one is. The time of the
+	 * source is then moved to the last one.
+	 */
+	private boolean isNewBatch(String sourceId, long timeId, int count) {
+		if (!sinkTime.isNewEvent(sourceId, timeId))
+			return false;
+
+		if (count > 1)
+			sinkTime.isNewEvent(sourceId, timeId + count - 1);
+
+		return true;
+	}
+
+	private static String[] slice(String[] ids, int offset, int count) {
+		if (offset == 0 && count == ids.length)
+			return ids;
+
+		return Arrays.copyOfRange(ids, offset, offset + count);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 